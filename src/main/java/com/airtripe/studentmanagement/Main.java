@@ -3,98 +3,288 @@ package com.airtripe.studentmanagement;
 import com.airtripe.studentmanagement.entity.Student;
 import com.airtripe.studentmanagement.entity.Course;
 import com.airtripe.studentmanagement.service.CourseService;
+import com.airtripe.studentmanagement.service.CascadeDeleteService;
+import com.airtripe.studentmanagement.service.ChangeFeedService;
 import com.airtripe.studentmanagement.factory.StudentFactory;
 import com.airtripe.studentmanagement.util.ConfigSingleton;
 import com.airtripe.studentmanagement.util.InputValidator;
 import com.airtripe.studentmanagement.util.DateUtil;
 import com.airtripe.studentmanagement.util.StudentPersistence;
+import com.airtripe.studentmanagement.util.StartupOrchestrator;
 import com.airtripe.studentmanagement.repository.StudentRepositoryJdbc;
 import com.airtripe.studentmanagement.repository.StudentRepository;
+import com.airtripe.studentmanagement.repository.OrphanSweeper;
+import com.airtripe.studentmanagement.repository.ChangeLogJdbc;
+import com.airtripe.studentmanagement.repository.ReplicationLog;
+import com.airtripe.studentmanagement.repository.InMemoryCourseRepository;
+import com.airtripe.studentmanagement.repository.InMemoryEnrollmentRepository;
+import com.airtripe.studentmanagement.repository.InMemoryStudentRepository;
+import com.airtripe.studentmanagement.repository.OffHeapStudentRepository;
+import com.airtripe.studentmanagement.repository.TieredStudentRepository;
+import com.airtripe.studentmanagement.repository.RoutingCourseRepository;
+import com.airtripe.studentmanagement.repository.RoutingEnrollmentRepository;
+import com.airtripe.studentmanagement.repository.RoutingStudentRepository;
+import com.airtripe.studentmanagement.repository.ShardedCourseRepository;
+import com.airtripe.studentmanagement.repository.ShardedEnrollmentRepository;
+import com.airtripe.studentmanagement.repository.ShardedStudentRepository;
+import com.airtripe.studentmanagement.util.JdbcConnectionProvider;
 import com.airtripe.studentmanagement.service.EnrollmentService;
+import com.airtripe.studentmanagement.service.TranscriptService;
+import com.airtripe.studentmanagement.service.CourseStatsService;
+import com.airtripe.studentmanagement.service.LeaderboardService;
+import com.airtripe.studentmanagement.service.TermReportService;
 import com.airtripe.studentmanagement.observer.GradeNotificationService;
 import com.airtripe.studentmanagement.observer.GradeNotificationListener;
+import com.airtripe.studentmanagement.observer.GradeEventRelay;
+import com.airtripe.studentmanagement.observer.ChangeEventBus;
+import com.airtripe.studentmanagement.observer.EntityChangeNotifier;
 
 import org.h2.tools.Server;
 
 import java.time.LocalDate;
 import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Locale;
+import java.util.Map;
 import java.util.Optional;
 import java.util.Scanner;
 
 public class Main {
-    public static void main(String[] args) throws Exception {
-        ConfigSingleton.getInstance(); // initialize config singleton
-
-        // initialize JDBC repository and REST server
-        StudentRepositoryJdbc repo = new StudentRepositoryJdbc();
-        repo.init();
+    // started on the first visit to /h2-console rather than at boot; the console is rarely used
+    private static Server webServer;
 
-        // file persistence
-        StudentPersistence persistence = new StudentPersistence();
-        String dataFile = ConfigSingleton.getInstance().getDataFilePath();
-        try {
-            List<Student> loaded = persistence.load(dataFile);
-            loaded.forEach(repo::addStudent);
-        } catch (Exception e) {
-            System.out.println("Warning: failed to load persisted students: " + e.getMessage());
-        }
-
-        // start H2 web console so DB can be inspected at http://localhost:8082
-        Server webServer = null;
-        try {
+    private static synchronized String startH2Console() throws Exception {
+        if (webServer == null) {
             webServer = Server.createWebServer("-webPort", "8082", "-webAllowOthers").start();
             System.out.println("H2 web console started at: http://localhost:8082 (use JDBC URL: " + ConfigSingleton.getInstance().getJdbcUrl() + ")");
-        } catch (Exception e) {
-            System.out.println("Failed to start H2 web console: " + e.getMessage());
         }
+        return System.getProperty("sms.h2.console.url", "http://localhost:8082/");
+    }
 
-        // seed some data into DB if none exists
-        if (repo.findAll().isEmpty()) {
-            Student s1 = StudentFactory.createUndergraduate("S001", "Alice", "alice@example.com", LocalDate.of(2002,5,1));
-            Student s2 = StudentFactory.createUndergraduate("S002", "Bob", "bob@example.com", LocalDate.of(1998,3,12));
-            Student g1 = StudentFactory.createGraduate("G001", "Carol", "carol@example.com", LocalDate.of(1995,4,10), "Quantum Computing Thesis");
-            repo.addStudent(s1);
-            repo.addStudent(s2);
-            repo.addStudent(g1);
+    public static void main(String[] args) throws Exception {
+        // sms.repository=memory keeps everything in-process, offheap does the same but stores students
+        // in off-heap columns; the default is the JDBC/H2 store
+        String store = System.getProperty("sms.repository", "jdbc");
+        boolean offHeap = "offheap".equalsIgnoreCase(store);
+        boolean inMemory = offHeap || "memory".equalsIgnoreCase(store);
+        // sms.jdbc.shards=url1,url2,... spreads students and their enrollments over those databases by
+        // hash of student id; courses stay on sms.jdbc.url
+        String shardUrls = System.getProperty("sms.jdbc.shards", "");
+        EntityChangeNotifier changeNotifier = new EntityChangeNotifier();
+        StudentRepository repo;
+        com.airtripe.studentmanagement.repository.CourseRepository courseRepo;
+        com.airtripe.studentmanagement.repository.EnrollmentRepository enrollmentRepo;
+        // outbox and summary tables only exist in the JDBC store
+        com.airtripe.studentmanagement.repository.EnrollmentRepositoryJdbc jdbcEnrollments;
+        InMemoryEnrollmentRepository memoryEnrollments;
+        ShardedEnrollmentRepository shardedEnrollments = null;
+        TieredStudentRepository tieredStudents;
+        if (offHeap) {
+            OffHeapStudentRepository students = new OffHeapStudentRepository();
+            InMemoryCourseRepository courses = new InMemoryCourseRepository();
+            memoryEnrollments = new InMemoryEnrollmentRepository(students, courses);
+            students.setChangeNotifier(changeNotifier);
+            courses.setChangeNotifier(changeNotifier);
+            memoryEnrollments.setChangeNotifier(changeNotifier);
+            jdbcEnrollments = null;
+            tieredStudents = null;
+            repo = students;
+            courseRepo = courses;
+            enrollmentRepo = memoryEnrollments;
+        } else if (inMemory) {
+            InMemoryStudentRepository students = new InMemoryStudentRepository();
+            InMemoryCourseRepository courses = new InMemoryCourseRepository();
+            memoryEnrollments = new InMemoryEnrollmentRepository(students, courses);
+            students.setChangeNotifier(changeNotifier);
+            courses.setChangeNotifier(changeNotifier);
+            memoryEnrollments.setChangeNotifier(changeNotifier);
+            jdbcEnrollments = null;
+            tieredStudents = null;
+            repo = students;
+            courseRepo = courses;
+            enrollmentRepo = memoryEnrollments;
+        } else if (!shardUrls.isBlank()) {
+            ConfigSingleton config = ConfigSingleton.getInstance();
+            ShardedStudentRepository students = new ShardedStudentRepository(JdbcConnectionProvider.fromUrls(shardUrls, config.getJdbcUser(), config.getJdbcPassword()));
+            com.airtripe.studentmanagement.repository.CourseRepositoryJdbc courses = new com.airtripe.studentmanagement.repository.CourseRepositoryJdbc();
+            shardedEnrollments = new ShardedEnrollmentRepository(students);
+            students.setChangeNotifier(changeNotifier);
+            courses.setChangeNotifier(changeNotifier);
+            shardedEnrollments.setChangeNotifier(changeNotifier);
+            jdbcEnrollments = null;
+            memoryEnrollments = null;
+            tieredStudents = null;
+            repo = students;
+            // course writes reach every shard's copy; reads stay on the primary
+            courseRepo = new ShardedCourseRepository(courses, shardedEnrollments);
+            enrollmentRepo = shardedEnrollments;
+        } else {
+            StudentRepositoryJdbc students = new StudentRepositoryJdbc();
+            com.airtripe.studentmanagement.repository.CourseRepositoryJdbc courses = new com.airtripe.studentmanagement.repository.CourseRepositoryJdbc();
+            students.setChangeNotifier(changeNotifier);
+            courses.setChangeNotifier(changeNotifier);
+            // optional hot tier (sms.tier.hotCapacity=N) in front of H2 for point lookups
+            int hotCapacity = Integer.getInteger("sms.tier.hotCapacity", 0);
+            if (hotCapacity > 0) {
+                tieredStudents = new TieredStudentRepository(students, hotCapacity);
+                changeNotifier.addListener(tieredStudents);
+                repo = tieredStudents;
+            } else {
+                tieredStudents = null;
+                repo = students;
+            }
+            jdbcEnrollments = new com.airtripe.studentmanagement.repository.EnrollmentRepositoryJdbc(repo, courses);
+            jdbcEnrollments.setChangeNotifier(changeNotifier);
+            memoryEnrollments = null;
+            courseRepo = courses;
+            enrollmentRepo = jdbcEnrollments;
         }
 
-        // use JDBC-backed Course repository and Enrollment repository to persist data
-        com.airtripe.studentmanagement.repository.CourseRepositoryJdbc courseRepo = new com.airtripe.studentmanagement.repository.CourseRepositoryJdbc();
-        courseRepo.init();
-        Course c1 = new Course("C101", "Data Structures", 4);
-        Course c2 = new Course("C102", "Algorithms", 4);
-        // seed courses (upsert)
-        courseRepo.addCourse(c1);
-        courseRepo.addCourse(c2);
-
-        // enrollment repository (persist enrollments) — depends on student and course repos
-        com.airtripe.studentmanagement.repository.EnrollmentRepositoryJdbc enrollmentRepo = new com.airtripe.studentmanagement.repository.EnrollmentRepositoryJdbc(repo, courseRepo);
-        enrollmentRepo.init();
-
         // Observer: setup notification service and register a listener
         GradeNotificationService notificationService = new GradeNotificationService();
         GradeNotificationListener consoleListener = new GradeNotificationListener();
         notificationService.registerGlobalListener(consoleListener);
 
-        // Enrollment service that attaches listeners on enroll
-        EnrollmentService enrollmentService = new EnrollmentService(notificationService);
+        // live change stream: repository writes and grade notifications feed the /events SSE endpoint
+        ChangeEventBus eventBus = new ChangeEventBus(256);
+        changeNotifier.addListener(eventBus);
+        notificationService.registerGlobalListener(eventBus);
+
+        TranscriptService transcriptService = new TranscriptService();
+        CourseStatsService courseStatsService = new CourseStatsService();
+        LeaderboardService leaderboardService = new LeaderboardService();
+        EnrollmentService enrollmentService = new EnrollmentService();
+        StudentPersistence persistence = new StudentPersistence();
+        String dataFile = ConfigSingleton.getInstance().getDataFilePath();
+        Course c1 = new Course("C101", "Data Structures", 4);
+        Course c2 = new Course("C102", "Algorithms", 4);
+
+        // optional read replicas (sms.jdbc.replicas=url1,url2): REST reads are served from replicas kept
+        // in sync from the change notifier; the console and all writes use the primary
+        String replicaUrls = System.getProperty("sms.jdbc.replicas", "");
+        ReplicationLog replication = replicaUrls.isBlank() ? null : new ReplicationLog(repo, courseRepo, enrollmentRepo);
+        StudentRepository restStudents = replication == null ? repo : new RoutingStudentRepository(repo, replication);
+        com.airtripe.studentmanagement.repository.CourseRepository restCourses = replication == null ? courseRepo : new RoutingCourseRepository(courseRepo, replication);
+        com.airtripe.studentmanagement.repository.EnrollmentRepository restEnrollments = replication == null ? enrollmentRepo : new RoutingEnrollmentRepository(enrollmentRepo, replication);
 
-        // demo: enroll S001 into C101 and assign a grade to trigger notification
-        var maybeS1 = repo.findById("S001");
-        if (maybeS1.isPresent()) {
-            var enrollment = enrollmentService.enroll(maybeS1.get(), c1);
-            // persist enrollment and then assign grade and persist update
-            enrollmentRepo.add(enrollment);
-            enrollment.setGrade(88.5);
-            enrollmentRepo.add(enrollment);
+        // the REST port opens before the data is ready: /health reports STARTING and every other
+        // endpoint answers 503 with Retry-After until the startup phases below have finished
+        RestServer rest = new RestServer(restStudents, restCourses, restEnrollments, 8000);
+        if (replication != null) rest.setReplicationLog(replication);
+        rest.setEventBus(eventBus);
+        rest.setChangeNotifier(changeNotifier);
+        rest.setTranscriptService(transcriptService);
+        rest.setCourseStatsService(courseStatsService);
+        rest.setLeaderboardService(leaderboardService);
+        if (jdbcEnrollments != null) {
+            rest.setTermReportService(new TermReportService(new com.airtripe.studentmanagement.repository.EnrollmentScanJdbc()));
+            rest.setTransactions(ConfigSingleton.getInstance());
+            // delta sync: the repositories log every write to change_log on the primary, and the feed
+            // resolves rows there too (a lagging replica would report fresh rows as deleted)
+            rest.setChangeFeedService(new ChangeFeedService(new ChangeLogJdbc(), repo, courseRepo, enrollmentRepo));
         }
+        rest.setH2ConsoleStarter(Main::startH2Console);
+        rest.setReady(false);
+        rest.start();
 
-        // start REST server in background
-        RestServer rest = new RestServer(repo, courseRepo, enrollmentRepo, 8000);
-        Thread restThread = new Thread(rest::start, "rest-server");
-        restThread.setDaemon(true);
-        restThread.start();
+        // grade notifications are delivered from the durable outbox rather than attached in-memory,
+        // so they survive listener failures and restarts (at-least-once); the in-memory store has no
+        // outbox and notifies directly when a grade changes
+        // outbox and summary tables only exist in the JDBC store; a sharded store has one outbox per shard
+        List<GradeEventRelay> gradeRelays = new ArrayList<>();
+        if (jdbcEnrollments != null) gradeRelays.add(new GradeEventRelay(jdbcEnrollments.getOutbox(), jdbcEnrollments, notificationService));
+        if (shardedEnrollments != null) {
+            for (var shard : shardedEnrollments.getShards()) gradeRelays.add(new GradeEventRelay(shard.getOutbox(), shard, notificationService));
+        }
+        // periodically removes enrollments and summary rows left without a parent (sms.sweeper.intervalMillis, 0 = off)
+        long sweepInterval = Long.getLong("sms.sweeper.intervalMillis", 60_000L);
+        OrphanSweeper orphanSweeper = jdbcEnrollments == null || sweepInterval <= 0 ? null : new OrphanSweeper();
+        if (orphanSweeper != null) rest.setOrphanSweeper(orphanSweeper);
+        CascadeDeleteService cascadeDeletes = new CascadeDeleteService(repo, courseRepo, enrollmentRepo,
+                jdbcEnrollments == null ? null : ConfigSingleton.getInstance());
+
+        // independent phases (the students and courses schemas, loading the data file, seeding) run
+        // concurrently; each phase waits only for what it reads
+        StartupOrchestrator startup = new StartupOrchestrator()
+                .phase("config", ConfigSingleton::getInstance)
+                .phase("students.schema", repo::init, "config")
+                .phase("courses.schema", courseRepo::init, "config")
+                .phase("enrollments.schema", enrollmentRepo::init, "students.schema", "courses.schema")
+                .phase("students.load", () -> {
+                    // a failed load stops startup: carrying on would save the partial set over the data file on exit
+                    List<Student> loaded = persistence.load(dataFile);
+                    rejectDuplicateEmails(loaded, dataFile);
+                    loaded.forEach(repo::addStudent);
+                    // seed some data into DB if none exists
+                    if (repo.findAll().isEmpty()) {
+                        repo.addStudent(StudentFactory.createUndergraduate("S001", "Alice", "alice@example.com", LocalDate.of(2002,5,1)));
+                        repo.addStudent(StudentFactory.createUndergraduate("S002", "Bob", "bob@example.com", LocalDate.of(1998,3,12)));
+                        repo.addStudent(StudentFactory.createGraduate("G001", "Carol", "carol@example.com", LocalDate.of(1995,4,10), "Quantum Computing Thesis"));
+                    }
+                }, "students.schema")
+                .phase("courses.seed", () -> {
+                    // seed courses (upsert)
+                    courseRepo.addCourse(c1);
+                    courseRepo.addCourse(c2);
+                }, "courses.schema")
+                .phase("tier.warmup", () -> {
+                    if (tieredStudents != null) tieredStudents.warmUp(enrollmentRepo);
+                }, "enrollments.schema", "students.load")
+                .phase("services.rebuild", () -> {
+                    // incremental GPA/transcripts: seeded from the table once, then maintained from repository writes
+                    transcriptService.rebuild(enrollmentRepo);
+                    changeNotifier.addListener(transcriptService);
+                    courseStatsService.rebuild(enrollmentRepo);
+                    changeNotifier.addListener(courseStatsService);
+                    leaderboardService.rebuild(enrollmentRepo, transcriptService);
+                    changeNotifier.addListener(leaderboardService);
+                    transcriptService.addGpaListener(leaderboardService);
+                }, "enrollments.schema", "students.load", "courses.seed")
+                .phase("demo.enrollment", () -> {
+                    // demo: enroll S001 into C101 and assign a grade to trigger notification
+                    var maybeS1 = repo.findById("S001");
+                    if (maybeS1.isPresent()) {
+                        var enrollment = enrollmentService.enroll(maybeS1.get(), c1);
+                        // persist enrollment and then assign grade and persist update
+                        enrollmentRepo.add(enrollment);
+                        enrollment.setGrade(88.5);
+                        enrollmentRepo.add(enrollment);
+                    }
+                }, "services.rebuild")
+                .phase("grade.relay", () -> {
+                    gradeRelays.forEach(relay -> relay.start(500));
+                    if (memoryEnrollments != null) memoryEnrollments.setGradeListener(notificationService::publish);
+                    if (orphanSweeper != null) orphanSweeper.start(sweepInterval);
+                }, "enrollments.schema")
+                .phase("replicas", () -> {
+                    if (replication == null) return;
+                    changeNotifier.addListener(replication);
+                    String[] urls = replicaUrls.split(",");
+                    for (int i = 0; i < urls.length; i++) {
+                        JdbcConnectionProvider replicaDb = new JdbcConnectionProvider(urls[i].trim(), ConfigSingleton.getInstance().getJdbcUser(), ConfigSingleton.getInstance().getJdbcPassword());
+                        StudentRepositoryJdbc replicaStudents = new StudentRepositoryJdbc(replicaDb);
+                        com.airtripe.studentmanagement.repository.CourseRepositoryJdbc replicaCourses = new com.airtripe.studentmanagement.repository.CourseRepositoryJdbc(replicaDb);
+                        replication.addReplica("replica" + i, replicaStudents, replicaCourses,
+                                new com.airtripe.studentmanagement.repository.EnrollmentRepositoryJdbc(replicaStudents, replicaCourses, replicaDb));
+                    }
+                }, "demo.enrollment");
+        try {
+            startup.run();
+        } catch (Exception e) {
+            // the REST port is already open: release it and the background threads, or the server's
+            // dispatcher keeps the JVM alive answering 503 STARTING forever
+            System.out.println("Startup failed: " + e.getMessage());
+            e.printStackTrace();
+            rest.stop();
+            gradeRelays.forEach(GradeEventRelay::stop);
+            if (orphanSweeper != null) orphanSweeper.stop();
+            if (replication != null) replication.shutdown();
+            System.exit(1);
+        }
+        rest.setReady(true);
+        System.out.println(startup.report());
 
         System.out.println("Student Management System (console + REST)");
         System.out.println("REST server listening on port 8000 (endpoint: /students)");
@@ -116,7 +306,7 @@ public class Main {
                         updateStudentFlow(scanner, repo);
                         break;
                     case "4":
-                        deleteStudentFlow(scanner, repo);
+                        deleteStudentFlow(scanner, cascadeDeletes);
                         break;
                     case "5":
                         searchStudentFlow(scanner, repo);
@@ -137,6 +327,22 @@ public class Main {
                         assignGradeFlow(scanner, repo, courseRepo, enrollmentRepo);
                         break;
                     case "11":
+                        if (jdbcEnrollments == null && shardedEnrollments == null) {
+                            System.out.println("Summary tables are only kept by the JDBC store.");
+                        } else {
+                            if (jdbcEnrollments != null) jdbcEnrollments.rebuildAggregates();
+                            else shardedEnrollments.rebuildAggregates();
+                            System.out.println("Summary tables rebuilt (course_enrollment_stats, student_credit_totals).");
+                        }
+                        break;
+                    case "12":
+                        if (jdbcEnrollments == null) {
+                            System.out.println("The enrollment archive is only kept by the JDBC store.");
+                        } else {
+                            archiveEnrollmentsFlow(scanner, jdbcEnrollments);
+                        }
+                        break;
+                    case "13":
                         running = false;
                         System.out.println("Goodbye.");
                         break;
@@ -152,9 +358,14 @@ public class Main {
                 System.out.println("Error saving students to " + dataFile + ": " + e.getMessage());
             }
             rest.stop();
-            if (webServer != null) {
-                webServer.stop();
-                System.out.println("H2 web console stopped");
+            gradeRelays.forEach(GradeEventRelay::stop);
+            if (orphanSweeper != null) orphanSweeper.stop();
+            if (replication != null) replication.shutdown();
+            synchronized (Main.class) {
+                if (webServer != null) {
+                    webServer.stop();
+                    System.out.println("H2 web console stopped");
+                }
             }
         }
     }
@@ -171,7 +382,9 @@ public class Main {
         System.out.println("8) Enroll Student in Course");
         System.out.println("9) View Enrollments by Student");
         System.out.println("10) Assign Grade to Enrollment");
-        System.out.println("11) Exit");
+        System.out.println("11) Rebuild Summary Tables");
+        System.out.println("12) Archive Old Enrollments");
+        System.out.println("13) Exit");
     }
 
     private static void addCourseFlow(Scanner scanner, com.airtripe.studentmanagement.repository.CourseRepository courseRepo) {
@@ -243,6 +456,17 @@ public class Main {
         System.out.println("Grade assigned: " + e);
     }
 
+    private static void archiveEnrollmentsFlow(Scanner scanner, com.airtripe.studentmanagement.repository.EnrollmentRepositoryJdbc enrollments) {
+        System.out.print("Archive enrollments that started before (YYYY-MM-DD): ");
+        try {
+            LocalDate cutoff = LocalDate.parse(scanner.nextLine().trim());
+            int archived = enrollments.archiveBefore(cutoff, 1000);
+            System.out.println("Archived " + archived + " enrollments (see GET /enrollments?studentId=...&history=true).");
+        } catch (DateTimeParseException e) {
+            System.out.println("Invalid date format. Use YYYY-MM-DD.");
+        }
+    }
+
     private static void addStudentFlow(Scanner scanner, StudentRepository repo) {
         System.out.print("Enter student id: ");
         String id = scanner.nextLine().trim();
@@ -324,11 +548,28 @@ public class Main {
         else System.out.println("Update failed.");
     }
 
-    private static void deleteStudentFlow(Scanner scanner, StudentRepository repo) {
+    // the JDBC store's unique email index would reject the second student halfway through the load
+    private static void rejectDuplicateEmails(List<Student> students, String dataFile) {
+        Map<String, String> owners = new HashMap<>();
+        for (Student s : students) {
+            if (s.getEmail() == null) continue;
+            String other = owners.putIfAbsent(s.getEmail().toLowerCase(Locale.ROOT), s.getId());
+            if (other != null && !other.equals(s.getId())) {
+                throw new IllegalStateException(dataFile + ": students " + other + " and " + s.getId() + " share the email "
+                        + s.getEmail() + "; fix the file and restart (it has not been changed)");
+            }
+        }
+    }
+
+    private static void deleteStudentFlow(Scanner scanner, CascadeDeleteService cascadeDeletes) {
         System.out.print("Enter id of student to delete: ");
         String id = scanner.nextLine().trim();
-        boolean removed = repo.remove(id);
-        System.out.println(removed ? "Student removed." : "Student not found.");
+        try {
+            Map<String, Integer> removed = cascadeDeletes.removeStudents(List.of(id));
+            System.out.println(removed.get("students") > 0 ? "Student removed (" + removed.get("enrollments") + " enrollments)." : "Student not found.");
+        } catch (Exception e) {
+            System.out.println("Delete failed: " + e.getMessage());
+        }
     }
 
     private static void searchStudentFlow(Scanner scanner, StudentRepository repo) {
@@ -3,38 +3,116 @@ package com.airtripe.studentmanagement;
 import com.airtripe.studentmanagement.entity.Student;
 import com.airtripe.studentmanagement.entity.Course;
 import com.airtripe.studentmanagement.entity.Enrollment;
-import com.airtripe.studentmanagement.factory.StudentFactory;
+import com.airtripe.studentmanagement.exception.InvalidDataException;
+import com.airtripe.studentmanagement.observer.ChangeEvent;
+import com.airtripe.studentmanagement.observer.ChangeEventBus;
+import com.airtripe.studentmanagement.observer.EntityChangeListener;
+import com.airtripe.studentmanagement.observer.EntityChangeNotifier;
 import com.airtripe.studentmanagement.repository.StudentRepository;
 import com.airtripe.studentmanagement.repository.CourseRepository;
 import com.airtripe.studentmanagement.repository.EnrollmentRepository;
-import com.fasterxml.jackson.databind.ObjectMapper;
-import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
-import com.fasterxml.jackson.databind.SerializationFeature;
+import com.airtripe.studentmanagement.repository.ReadConsistency;
+import com.airtripe.studentmanagement.repository.OrphanSweeper;
+import com.airtripe.studentmanagement.repository.ReplicationLog;
+import com.airtripe.studentmanagement.repository.UnitOfWork;
+import com.airtripe.studentmanagement.service.CascadeDeleteService;
+import com.airtripe.studentmanagement.service.ChangeFeedService;
+import com.airtripe.studentmanagement.service.CourseStatsService;
+import com.airtripe.studentmanagement.service.GpaSummary;
+import com.airtripe.studentmanagement.service.LeaderboardService;
+import com.airtripe.studentmanagement.service.TermReport;
+import com.airtripe.studentmanagement.service.TermReportService;
+import com.airtripe.studentmanagement.service.Transcript;
+import com.airtripe.studentmanagement.service.TranscriptService;
+import com.airtripe.studentmanagement.util.AdaptiveConcurrencyLimiter;
+import com.airtripe.studentmanagement.util.ConnectionProvider;
+import com.airtripe.studentmanagement.util.EnrollmentListDTO;
+import com.airtripe.studentmanagement.util.HttpCompression;
+import com.airtripe.studentmanagement.util.EnrollmentRequest;
+import com.airtripe.studentmanagement.util.ErrorResponse;
+import com.airtripe.studentmanagement.util.GradeRequest;
+import com.airtripe.studentmanagement.util.MetricsCollector;
+import com.airtripe.studentmanagement.util.RestCodec;
+import com.airtripe.studentmanagement.util.SingleFlight;
+import com.airtripe.studentmanagement.util.StatusResponse;
+import com.fasterxml.jackson.core.JsonProcessingException;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import com.sun.net.httpserver.Filter;
+import com.sun.net.httpserver.HttpHandler;
 import com.sun.net.httpserver.HttpServer;
 import com.sun.net.httpserver.HttpExchange;
 
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
 import java.net.InetSocketAddress;
 import java.net.URI;
+import java.net.URLDecoder;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.sql.SQLException;
+import java.sql.SQLIntegrityConstraintViolationException;
+import java.sql.SQLTransientException;
+import java.time.DateTimeException;
 import java.time.LocalDate;
+import java.util.Base64;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Optional;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.stream.Collectors;
 
 public class RestServer {
     private static final Logger logger = LoggerFactory.getLogger(RestServer.class);
+    private static final String UNIQUE_VIOLATION = "23505"; // SQLSTATE of a unique index violation
+    // exchange attributes read by the admission filter
+    private static final String OVERLOADED = "sms.overloaded";
+    private static final String HEADERS_SENT_AT = "sms.headersSentAt";
+    private static final String JSON = "application/json";
+    private static final String SMILE = "application/x-jackson-smile";
     private final StudentRepository repository;
     private final CourseRepository courseRepository;
     private final EnrollmentRepository enrollmentRepository;
     private final HttpServer server;
-    private final ObjectMapper mapper = new ObjectMapper()
-            .registerModule(new JavaTimeModule())
-            .disable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS);
+    private final ExecutorService executor;
+    private ChangeEventBus eventBus; // optional; enables GET /events
+    private TranscriptService transcriptService; // optional; enables /students/{id}/transcript and /gpa
+    private CourseStatsService courseStatsService; // optional; enables /courses/{id}/stats
+    private LeaderboardService leaderboardService; // optional; enables /courses/{id}/top and /leaderboard
+    private TermReportService termReportService; // optional; enables /reports/term
+    private ReplicationLog replicationLog; // optional; adds replica lag to /metrics
+    private ConnectionProvider transactions; // optional; database whose writes are grouped into units of work
+    private CascadeDeleteService cascadeDeletes; // null without an enrollment repository
+    private OrphanSweeper orphanSweeper; // optional; adds sweep stats to /metrics
+    private ChangeFeedService changeFeedService; // optional; enables /changes
+    private Callable<String> h2ConsoleStarter; // optional; starts the H2 console on first /h2-console hit and returns its URL
+    private volatile boolean ready = true; // false while the application is still starting up
+    private final MetricsCollector metrics = new MetricsCollector();
+    // identical concurrent reads share one repository call; sms.singleflight.reuseMillis optionally reuses the result briefly
+    private final long readReuseMillis = Long.getLong("sms.singleflight.reuseMillis", 0L);
+    private final SingleFlight<String, List<Student>> studentSearches = new SingleFlight<>("students.search", metrics, readReuseMillis);
+    private final SingleFlight<String, List<Enrollment>> rosterReads = new SingleFlight<>("enrollments.byCourse", metrics, readReuseMillis);
+    // responses of at least sms.http.compressMinBytes (default 1024) are gzip/deflate-encoded when the client accepts it
+    private final HttpCompression compression = new HttpCompression(Integer.getInteger("sms.http.compressMinBytes", 1024));
+    // reads and writes are admitted against separate adaptive limits, so a spike of one cannot starve
+    // the other; each backs off when its requests run slower than sms.http.{read,write}TargetMillis
+    private final AdaptiveConcurrencyLimiter readLimiter = new AdaptiveConcurrencyLimiter("admission.reads", metrics,
+            Long.getLong("sms.http.readTargetMillis", 250L), 64, 8, 1024);
+    private final AdaptiveConcurrencyLimiter writeLimiter = new AdaptiveConcurrencyLimiter("admission.writes", metrics,
+            Long.getLong("sms.http.writeTargetMillis", 500L), 32, 4, 256);
+    // typed request binding and response encoding, JSON and Smile
+    private final RestCodec codec = new RestCodec();
 
     // backward-compatible constructor (students-only)
     public RestServer(StudentRepository repository, int port) throws IOException {
@@ -46,38 +124,194 @@ public class RestServer {
         this.repository = repository;
         this.courseRepository = courseRepository;
         this.enrollmentRepository = enrollmentRepository;
+        if (courseRepository != null && enrollmentRepository != null) {
+            this.cascadeDeletes = new CascadeDeleteService(repository, courseRepository, enrollmentRepository);
+        }
         this.server = HttpServer.create(new InetSocketAddress(port), 0);
-        server.createContext("/students", this::handleStudents);
-        server.createContext("/metrics", this::handleMetrics);
-        server.createContext("/h2-console", this::handleH2ConsoleRedirect);
-        if (courseRepository != null) server.createContext("/courses", this::handleCourses);
-        if (enrollmentRepository != null) server.createContext("/enrollments", this::handleEnrollments);
+        // handlers run on a pool rather than the dispatcher thread so long-lived /events streams don't block other requests
+        this.executor = Executors.newCachedThreadPool(r -> {
+            Thread t = new Thread(r, "rest-worker");
+            t.setDaemon(true);
+            return t;
+        });
+        server.setExecutor(executor);
+        server.createContext("/health", this::handleHealth); // not gated: it reports readiness
+        context("/students", this::handleStudents);
+        context("/metrics", this::handleMetrics);
+        context("/h2-console", this::handleH2ConsoleRedirect);
+        if (courseRepository != null) context("/courses", this::handleCourses);
+        if (enrollmentRepository != null) context("/enrollments", this::handleEnrollments);
+    }
+
+    // every context is gated on readiness and gets the read-consistency filter so routed repositories
+    // honor X-Min-Seq / X-Consistency; all but /metrics and the long-lived /events stream are admission-limited
+    private void context(String path, HttpHandler handler) {
+        List<Filter> filters = server.createContext(path, handler).getFilters();
+        filters.add(readinessFilter);
+        if (!path.equals("/metrics") && !path.equals("/events")) filters.add(admissionFilter);
+        filters.add(readConsistencyFilter);
+    }
+
+    private final Filter readinessFilter = new Filter() {
+        @Override
+        public void doFilter(HttpExchange ex, Chain chain) throws IOException {
+            if (!ready) {
+                ex.getResponseHeaders().add("Retry-After", "1");
+                writeJson(ex, 503, new ErrorResponse("starting"));
+                return;
+            }
+            chain.doFilter(ex);
+        }
+
+        @Override
+        public String description() { return "503 until startup completes"; }
+    };
+
+    private final Filter admissionFilter = new Filter() {
+        @Override
+        public void doFilter(HttpExchange ex, Chain chain) throws IOException {
+            String method = ex.getRequestMethod();
+            boolean read = "GET".equalsIgnoreCase(method) || "HEAD".equalsIgnoreCase(method);
+            AdaptiveConcurrencyLimiter limiter = read ? readLimiter : writeLimiter;
+            // enrollment writes are what a registration spike is for; they may use the reserved headroom
+            boolean priority = !read && ex.getHttpContext().getPath().equals("/enrollments");
+            if (!limiter.tryAcquire(priority)) {
+                ex.getResponseHeaders().add("Retry-After", "1");
+                writeJson(ex, 503, new ErrorResponse("overloaded"));
+                return;
+            }
+            long start = System.nanoTime();
+            try {
+                chain.doFilter(ex);
+            } finally {
+                // streamed responses count until their headers are sent, not until the client has read the body
+                Object headersSentAt = ex.getAttribute(HEADERS_SENT_AT);
+                long end = headersSentAt instanceof Long ? (Long) headersSentAt : System.nanoTime();
+                limiter.release(start, end, ex.getAttribute(OVERLOADED) != null);
+            }
+        }
+
+        @Override
+        public String description() { return "adaptive concurrency limit, 503 when exceeded"; }
+    };
+
+    private final Filter readConsistencyFilter = new Filter() {
+        @Override
+        public void doFilter(HttpExchange ex, Chain chain) throws IOException {
+            String minSeq = ex.getRequestHeaders().getFirst("X-Min-Seq");
+            if ("primary".equalsIgnoreCase(ex.getRequestHeaders().getFirst("X-Consistency"))) {
+                ReadConsistency.requirePrimary();
+            } else if (minSeq != null) {
+                try { ReadConsistency.requireAtLeast(Long.parseLong(minSeq.trim())); } catch (NumberFormatException ignored) { }
+            }
+            try {
+                chain.doFilter(ex);
+            } finally {
+                ReadConsistency.clear();
+            }
+        }
+
+        @Override
+        public String description() { return "read-your-writes routing"; }
+    };
+
+    /** Enable the Server-Sent Events stream at /events; call before {@link #start()}. */
+    public void setEventBus(ChangeEventBus eventBus) {
+        this.eventBus = eventBus;
+        context("/events", this::handleEvents);
+    }
+
+    public void setTranscriptService(TranscriptService transcriptService) { this.transcriptService = transcriptService; }
+
+    public void setCourseStatsService(CourseStatsService courseStatsService) { this.courseStatsService = courseStatsService; }
+
+    public void setLeaderboardService(LeaderboardService leaderboardService) {
+        this.leaderboardService = leaderboardService;
+        context("/leaderboard", this::handleLeaderboard);
+    }
+
+    public void setTermReportService(TermReportService termReportService) {
+        this.termReportService = termReportService;
+        context("/reports/term", this::handleTermReport);
+    }
+
+    public void setReplicationLog(ReplicationLog replicationLog) { this.replicationLog = replicationLog; }
+
+    /**
+     * Drop coalesced and reused reads on every committed write reported by {@code notifier}, so writes
+     * made outside the REST handlers (CLI, services, other servers sharing the repositories) are seen too.
+     */
+    public void setChangeNotifier(EntityChangeNotifier notifier) {
+        notifier.addListener(new EntityChangeListener() {
+            @Override public void onStudentSaved(Student s) { invalidateReads(); }
+            @Override public void onStudentRemoved(String studentId) { invalidateReads(); }
+            @Override public void onCourseSaved(Course c) { invalidateReads(); }
+            @Override public void onCourseRemoved(String courseId) { invalidateReads(); }
+            @Override public void onEnrollmentSaved(Enrollment e) { invalidateReads(); }
+            @Override public void onEnrollmentRemoved(String studentId, String courseId) { invalidateReads(); }
+            @Override public void onEnrollmentArchived(String studentId, String courseId) { invalidateReads(); }
+        });
+    }
+
+    /** Run enrollment writes and the lookups before them in one {@link UnitOfWork} on {@code primary}. */
+    public void setTransactions(ConnectionProvider primary) {
+        this.transactions = primary;
+        if (cascadeDeletes != null) cascadeDeletes = new CascadeDeleteService(repository, courseRepository, enrollmentRepository, primary);
     }
 
+    public void setOrphanSweeper(OrphanSweeper orphanSweeper) { this.orphanSweeper = orphanSweeper; }
+
+    public void setChangeFeedService(ChangeFeedService changeFeedService) {
+        this.changeFeedService = changeFeedService;
+        context("/changes", this::handleChanges);
+    }
+
+    /** Start the H2 console lazily: {@code starter} runs on the first /h2-console request and returns the console URL. */
+    public void setH2ConsoleStarter(Callable<String> starter) { this.h2ConsoleStarter = starter; }
+
+    /**
+     * While not ready, every endpoint except /health answers 503 with Retry-After, so the port can be
+     * opened before startup has finished.
+     */
+    public void setReady(boolean ready) { this.ready = ready; }
+
+    public boolean isReady() { return ready; }
+
     public void start() {
         server.start();
         logger.info("REST server started on {}", server.getAddress());
     }
 
     public void stop() {
+        if (eventBus != null) eventBus.closeAll();
         server.stop(0);
+        executor.shutdownNow();
         logger.info("REST server stopped");
     }
 
     private void handleH2ConsoleRedirect(HttpExchange ex) throws IOException {
         try {
             // Default H2 web console URL; if you change the H2 port in Main, update ConfigSingleton or this URL accordingly
-            String h2Url = System.getProperty("sms.h2.console.url", "http://localhost:8082/");
+            String h2Url = h2ConsoleStarter != null ? h2ConsoleStarter.call() : System.getProperty("sms.h2.console.url", "http://localhost:8082/");
             ex.getResponseHeaders().add("Location", h2Url);
             ex.sendResponseHeaders(302, -1);
         } catch (Exception e) {
             logger.error("Failed to redirect to H2 console", e);
-            writeJson(ex, 500, Map.of("error", e.getMessage()));
+            writeJson(ex, 500, new ErrorResponse(e.getMessage()));
         } finally {
             ex.close();
         }
     }
 
+    private void handleHealth(HttpExchange ex) throws IOException {
+        if (ready) {
+            writeJson(ex, 200, StatusResponse.UP);
+        } else {
+            ex.getResponseHeaders().add("Retry-After", "1");
+            writeJson(ex, 503, StatusResponse.STARTING);
+        }
+    }
+
     private void handleStudents(HttpExchange ex) throws IOException {
         try {
             String method = ex.getRequestMethod();
@@ -89,16 +323,18 @@ public class RestServer {
                 if (parts.length == 2 || parts.length == 0) {
                     // list all or search query
                     String q = getQueryParam(uri.getQuery(), "q");
-                    List<Student> list = repository.search(q);
-                    writeJson(ex, 200, list);
+                    Optional<String> version = repository.version();
+                    // a flight is only shared by requests that saw the same version, so its result is never older than the ETag
+                    writeTagged(ex, version, () -> studentSearches.execute(flightKey((q == null ? "" : q) + version.map(v -> "#" + v).orElse("")),
+                            () -> repository.search(q)));
                     return;
                 } else if (parts.length == 3) {
                     String id = parts[2];
-                    repository.findById(id).ifPresentOrElse(s -> {
-                        try { writeJson(ex, 200, s); } catch (IOException e) { throw new RuntimeException(e); }
-                    }, () -> {
-                        try { sendEmpty(ex, 404); } catch (IOException e) { throw new RuntimeException(e); }
-                    });
+                    writeTagged(ex, repository.version(id), () -> repository.findById(id).orElse(null));
+                    return;
+                } else if (parts.length == 4 && transcriptService != null && ("transcript".equals(parts[3]) || "gpa".equals(parts[3]))) {
+                    // GET /students/{id}/transcript or /students/{id}/gpa
+                    handleTranscript(ex, parts[2], "gpa".equals(parts[3]));
                     return;
                 }
             }
@@ -106,6 +342,7 @@ public class RestServer {
                 // create
                 Student s = readStudent(ex.getRequestBody());
                 repository.addStudent(s);
+                invalidateReads();
                 writeJson(ex, 201, s);
                 return;
             }
@@ -113,30 +350,170 @@ public class RestServer {
                 String id = parts[2];
                 Student s = readStudent(ex.getRequestBody());
                 boolean ok = repository.updateStudent(id, s);
+                invalidateReads();
                 if (ok) writeJson(ex, 200, s); else sendEmpty(ex, 404);
                 return;
             }
             else if ("DELETE".equalsIgnoreCase(method) && parts.length == 3) {
                 String id = parts[2];
-                boolean ok = repository.remove(id);
+                boolean ok = cascadeDeletes == null ? repository.remove(id) : cascadeDeletes.removeStudents(List.of(id)).get("students") > 0;
+                invalidateReads();
                 sendEmpty(ex, ok ? 204 : 404);
                 return;
             }
+            else if ("DELETE".equalsIgnoreCase(method) && parts.length == 2 && cascadeDeletes != null) {
+                // DELETE /students?ids=S1,S2,... removes a whole cohort with their enrollments
+                List<String> ids = idsParam(uri.getQuery());
+                if (ids.isEmpty()) { writeJson(ex, 400, new ErrorResponse("ids is required")); return; }
+                Map<String, Integer> removed = cascadeDeletes.removeStudents(ids);
+                invalidateReads();
+                writeJson(ex, 200, removed);
+                return;
+            }
             sendEmpty(ex, 405);
         } catch (Exception e) {
-            logger.error("Error handling students request", e);
-            writeJson(ex, 500, Map.of("error", e.getMessage()));
+            SQLException conflict = constraintViolation(e);
+            if (conflict != null) {
+                writeJson(ex, 409, new ErrorResponse(UNIQUE_VIOLATION.equals(conflict.getSQLState())
+                        ? "another student already uses this email" : "the student still has enrollments"));
+                return;
+            }
+            serverError(ex, "Error handling students request", e);
         }
     }
 
+    private void handleTranscript(HttpExchange ex, String studentId, boolean gpaOnly) throws IOException {
+        Object body = gpaOnly ? transcriptService.gpa(studentId).orElse(null) : transcriptService.transcript(studentId).orElse(null);
+        if (body == null) {
+            // no enrollments tracked: an empty transcript for a known student, 404 otherwise
+            if (repository.findById(studentId).isEmpty()) { sendEmpty(ex, 404); return; }
+            body = gpaOnly ? new GpaSummary(studentId, null, 0, 0) : new Transcript(studentId, List.of(), null, 0, 0);
+        }
+        writeJson(ex, 200, body);
+    }
+
+    private void handleLeaderboard(HttpExchange ex) throws IOException {
+        try {
+            if (!"GET".equalsIgnoreCase(ex.getRequestMethod())) { sendEmpty(ex, 405); return; }
+            // GET /leaderboard?k=100 -> top students by GPA
+            writeJson(ex, 200, leaderboardService.topByGpa(parseK(ex.getRequestURI().getQuery(), 100)));
+        } catch (Exception e) {
+            serverError(ex, "Error handling leaderboard request", e);
+        }
+    }
+
+    private void handleTermReport(HttpExchange ex) throws IOException {
+        if (!"GET".equalsIgnoreCase(ex.getRequestMethod())) { sendEmpty(ex, 405); return; }
+        TermReport report;
+        try {
+            report = termReportService.generate();
+        } catch (Exception e) {
+            serverError(ex, "Term report failed", e);
+            return;
+        }
+        // chunked: the body is written row by row instead of being buffered whole, through the compressor if accepted
+        String coding = HttpCompression.negotiate(ex.getRequestHeaders().getFirst("Accept-Encoding"));
+        ex.getResponseHeaders().add("Content-Type", "text/csv; charset=utf-8");
+        ex.getResponseHeaders().add("Vary", "Accept-Encoding");
+        if (coding != null) ex.getResponseHeaders().set("Content-Encoding", coding);
+        ex.sendResponseHeaders(200, 0);
+        ex.setAttribute(HEADERS_SENT_AT, System.nanoTime());
+        try (Writer w = new OutputStreamWriter(compression.wrap(ex.getResponseBody(), coding), StandardCharsets.UTF_8)) {
+            termReportService.writeCsv(report, w);
+        }
+    }
+
+    private void handleChanges(HttpExchange ex) throws IOException {
+        if (!"GET".equalsIgnoreCase(ex.getRequestMethod())) { sendEmpty(ex, 405); return; }
+        // GET /changes?since=<token>&limit=100 -> rows touched since the token, plus the next token
+        String query = ex.getRequestURI().getQuery();
+        try {
+            String limit = getQueryParam(query, "limit");
+            int pageSize = limit == null ? 100 : Integer.parseInt(limit);
+            writeJson(ex, 200, changeFeedService.changesSince(getQueryParam(query, "since"), pageSize));
+        } catch (IllegalArgumentException e) {
+            writeJson(ex, 400, new ErrorResponse(e.getMessage()));
+        } catch (Exception e) {
+            serverError(ex, "Error handling changes request", e);
+        }
+    }
+
+    private int parseK(String query, int defaultK) {
+        String k = getQueryParam(query, "k");
+        if (k == null) return defaultK;
+        try { return Integer.parseInt(k); } catch (NumberFormatException e) { return defaultK; }
+    }
+
     private void handleMetrics(HttpExchange ex) throws IOException {
         // simple metrics: number of students
         try {
             List<Student> all = repository.findAll();
-            Map<String, Object> m = Map.of("studentCount", all.size());
+            Map<String, Object> m = new LinkedHashMap<>();
+            m.put("studentCount", all.size());
+            m.put("counts", metrics.snapshotCounts());
+            m.put("studentSearchCoalesceRatio", studentSearches.getCoalesceRatio());
+            m.put("rosterCoalesceRatio", rosterReads.getCoalesceRatio());
+            if (replicationLog != null) m.put("replication", replicationLog.lagReport());
+            if (transactions != null) m.put("unitOfWork", UnitOfWork.getMetricsCollector().snapshotCounts());
+            if (orphanSweeper != null) {
+                Map<String, Object> sweeper = new LinkedHashMap<>(orphanSweeper.getMetricsCollector().snapshotCounts());
+                sweeper.put("lastRowsPerSecond", Math.round(orphanSweeper.getLastRowsPerSecond()));
+                m.put("orphanSweeper", sweeper);
+            }
+            if (changeFeedService != null) m.put("changeFeed", changeFeedService.getMetricsCollector().snapshotCounts());
+            Map<String, Object> compressed = new LinkedHashMap<>(compression.getMetricsCollector().snapshotCounts());
+            compressed.put("ratio", Math.round(compression.getRatio() * 1000) / 1000.0);
+            compressed.put("gzipAvgCpuMillis", compression.getAvgCpuMillis(HttpCompression.GZIP));
+            compressed.put("deflateAvgCpuMillis", compression.getAvgCpuMillis(HttpCompression.DEFLATE));
+            m.put("compression", compressed);
+            m.put("admission", Map.of("reads", admission(readLimiter, "admission.reads"), "writes", admission(writeLimiter, "admission.writes")));
             writeJson(ex, 200, m);
         } catch (Exception e) {
-            writeJson(ex, 500, Map.of("error", e.getMessage()));
+            writeJson(ex, 500, new ErrorResponse(e.getMessage()));
+        }
+    }
+
+    private Map<String, Object> admission(AdaptiveConcurrencyLimiter limiter, String name) {
+        Map<String, Object> group = new LinkedHashMap<>();
+        group.put("limit", limiter.getLimit());
+        group.put("inFlight", limiter.getInFlight());
+        group.put("accepted", metrics.getCount(name + ".accepted"));
+        group.put("shed", metrics.getCount(name + ".shed"));
+        group.put("shedPriority", metrics.getCount(name + ".shed.priority"));
+        return group;
+    }
+
+    private void handleEvents(HttpExchange ex) throws IOException {
+        if (!"GET".equalsIgnoreCase(ex.getRequestMethod())) { sendEmpty(ex, 405); return; }
+        String query = ex.getRequestURI().getQuery();
+        ChangeEventBus.Subscription sub = eventBus.subscribe(getQueryParam(query, "studentId"), getQueryParam(query, "courseId"));
+        ex.getResponseHeaders().add("Content-Type", "text/event-stream");
+        ex.getResponseHeaders().add("Cache-Control", "no-cache");
+        ex.sendResponseHeaders(200, 0);
+        try (OutputStream os = ex.getResponseBody()) {
+            os.write(": connected\n\n".getBytes(StandardCharsets.UTF_8));
+            os.flush();
+            while (true) {
+                ChangeEvent ev = sub.poll(15, TimeUnit.SECONDS);
+                if (ev != null) {
+                    String frame = "id: " + ev.getId() + "\nevent: " + ev.getType() + "\ndata: " + codec.writeString(ev.getData()) + "\n\n";
+                    os.write(frame.getBytes(StandardCharsets.UTF_8));
+                } else if (sub.isClosed()) {
+                    // buffer overflowed (or server stopping): tell the client to reconnect and resync
+                    os.write("event: disconnect\ndata: {\"reason\":\"slow-consumer\"}\n\n".getBytes(StandardCharsets.UTF_8));
+                    os.flush();
+                    break;
+                } else {
+                    os.write(": keepalive\n\n".getBytes(StandardCharsets.UTF_8));
+                }
+                os.flush();
+            }
+        } catch (IOException e) {
+            logger.debug("Event stream client disconnected: {}", e.getMessage());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } finally {
+            sub.close();
         }
     }
 
@@ -149,39 +526,57 @@ public class RestServer {
             if ("GET".equalsIgnoreCase(method)) {
                 if (parts.length == 2 || parts.length == 0) {
                     String q = getQueryParam(uri.getQuery(), "q");
-                    List<Course> list = courseRepository.search(q);
-                    writeJson(ex, 200, list);
+                    writeTagged(ex, courseRepository.version(), () -> courseRepository.search(q));
                     return;
                 } else if (parts.length == 3) {
                     String id = parts[2];
-                    courseRepository.findById(id).ifPresentOrElse(c -> {
-                        try { writeJson(ex, 200, c); } catch (IOException e) { throw new RuntimeException(e); }
-                    }, () -> {
-                        try { sendEmpty(ex, 404); } catch (IOException e) { throw new RuntimeException(e); }
-                    });
+                    writeTagged(ex, courseRepository.version(id), () -> courseRepository.findById(id).orElse(null));
+                    return;
+                } else if (parts.length == 4 && "stats".equals(parts[3]) && courseStatsService != null) {
+                    // GET /courses/{id}/stats served from the in-memory accumulators, not the enrollments table
+                    if (courseRepository.findById(parts[2]).isEmpty()) { sendEmpty(ex, 404); return; }
+                    writeJson(ex, 200, courseStatsService.stats(parts[2]));
+                    return;
+                } else if (parts.length == 4 && "top".equals(parts[3]) && leaderboardService != null) {
+                    // GET /courses/{id}/top?k=10
+                    writeJson(ex, 200, leaderboardService.topInCourse(parts[2], parseK(uri.getQuery(), 10)));
                     return;
                 }
             } else if ("POST".equalsIgnoreCase(method) && (parts.length == 2 || parts.length == 0)) {
                 Course c = readCourse(ex.getRequestBody());
                 courseRepository.addCourse(c);
+                invalidateReads();
                 writeJson(ex, 201, c);
                 return;
             } else if ("PUT".equalsIgnoreCase(method) && parts.length == 3) {
                 String id = parts[2];
                 Course c = readCourse(ex.getRequestBody());
                 boolean ok = courseRepository.updateCourse(id, c);
+                invalidateReads();
                 if (ok) writeJson(ex, 200, c); else sendEmpty(ex, 404);
                 return;
             } else if ("DELETE".equalsIgnoreCase(method) && parts.length == 3) {
                 String id = parts[2];
-                boolean ok = courseRepository.remove(id);
+                boolean ok = cascadeDeletes == null ? courseRepository.remove(id) : cascadeDeletes.removeCourses(List.of(id)).get("courses") > 0;
+                invalidateReads();
                 sendEmpty(ex, ok ? 204 : 404);
                 return;
+            } else if ("DELETE".equalsIgnoreCase(method) && parts.length == 2 && cascadeDeletes != null) {
+                // DELETE /courses?ids=C1,C2,... retires courses and removes their enrollments
+                List<String> ids = idsParam(uri.getQuery());
+                if (ids.isEmpty()) { writeJson(ex, 400, new ErrorResponse("ids is required")); return; }
+                Map<String, Integer> removed = cascadeDeletes.removeCourses(ids);
+                invalidateReads();
+                writeJson(ex, 200, removed);
+                return;
             }
             sendEmpty(ex, 405);
         } catch (Exception e) {
-            logger.error("Error handling courses request", e);
-            writeJson(ex, 500, Map.of("error", e.getMessage()));
+            if (constraintViolation(e) != null) {
+                writeJson(ex, 409, new ErrorResponse("the course still has enrollments"));
+                return;
+            }
+            serverError(ex, "Error handling courses request", e);
         }
     }
 
@@ -195,13 +590,20 @@ public class RestServer {
             if ("GET".equalsIgnoreCase(method)) {
                 String studentId = getQueryParam(uri.getQuery(), "studentId");
                 String courseId = getQueryParam(uri.getQuery(), "courseId");
+                // history=true adds archived (past-term) enrollments; by default only the current table is read
+                boolean history = "true".equalsIgnoreCase(getQueryParam(uri.getQuery(), "history"));
+                // archived rows carry no version, so history responses are validated by content hash
                 if (studentId != null) {
-                    List<Enrollment> list = enrollmentRepository.findByStudentId(studentId);
-                    writeJson(ex, 200, list);
+                    Optional<String> version = history ? Optional.empty() : enrollmentRepository.versionByStudentId(studentId);
+                    writeTagged(ex, version, () -> enrollmentView(uri.getQuery(), enrollmentRepository.findByStudentId(studentId, history)));
+                    return;
+                } else if (courseId != null && history) {
+                    writeTagged(ex, Optional.empty(), () -> enrollmentView(uri.getQuery(), enrollmentRepository.findByCourseId(courseId, true)));
                     return;
                 } else if (courseId != null) {
-                    List<Enrollment> list = enrollmentRepository.findByCourseId(courseId);
-                    writeJson(ex, 200, list);
+                    Optional<String> version = enrollmentRepository.versionByCourseId(courseId);
+                    writeTagged(ex, version, () -> enrollmentView(uri.getQuery(), rosterReads.execute(flightKey(courseId + version.map(v -> "#" + v).orElse("")),
+                            () -> enrollmentRepository.findByCourseId(courseId))));
                     return;
                 } else if (parts.length >= 4) {
                     // GET /enrollments/{studentId}/{courseId}
@@ -215,86 +617,224 @@ public class RestServer {
                     });
                     return;
                 } else {
-                    List<Enrollment> all = enrollmentRepository.findAll();
-                    writeJson(ex, 200, all);
+                    writeTagged(ex, enrollmentRepository.version(), () -> enrollmentView(uri.getQuery(), enrollmentRepository.findAll()));
                     return;
                 }
             } else if ("POST".equalsIgnoreCase(method) && (parts.length == 2 || parts.length == 0)) {
                 // create enrollment with JSON { "studentId": "S001", "courseId": "C101", "enrolledOn":"YYYY-MM-DD" }
-                Map<?,?> map = mapper.readValue(ex.getRequestBody(), Map.class);
-                String sid = (String) map.get("studentId");
-                String cid = (String) map.get("courseId");
-                String enrolledOn = (String) map.get("enrolledOn");
-                if (sid == null || cid == null) { writeJson(ex, 400, Map.of("error", "studentId and courseId required")); return; }
-                Optional<Student> sOpt = repository.findById(sid);
-                Optional<Course> cOpt = courseRepository.findById(cid);
-                if (sOpt.isEmpty() || cOpt.isEmpty()) { sendEmpty(ex, 404); return; }
-                LocalDate ld = enrolledOn == null ? LocalDate.now() : LocalDate.parse(enrolledOn);
-                Enrollment e = new Enrollment(sOpt.get(), cOpt.get(), ld);
-                enrollmentRepository.add(e);
+                EnrollmentRequest req = codec.readEnrollment(ex.getRequestBody());
+                String sid = req.getStudentId();
+                String cid = req.getCourseId();
+                if (sid == null || cid == null) { writeJson(ex, 400, new ErrorResponse("studentId and courseId required")); return; }
+                LocalDate ld = req.getEnrolledOn() == null ? LocalDate.now() : req.getEnrolledOn();
+                // the lookups and the write share one connection and commit
+                Enrollment e = inTransaction(() -> {
+                    Optional<Student> sOpt = repository.findById(sid);
+                    Optional<Course> cOpt = courseRepository.findById(cid);
+                    if (sOpt.isEmpty() || cOpt.isEmpty()) return null;
+                    return enrollmentRepository.add(new Enrollment(sOpt.get(), cOpt.get(), ld));
+                });
+                if (e == null) { sendEmpty(ex, 404); return; }
+                invalidateReads();
                 writeJson(ex, 201, e);
                 return;
             } else if ("PUT".equalsIgnoreCase(method) && parts.length >= 4) {
                 // PUT /enrollments/{studentId}/{courseId} with body { "grade": 9.5 }
                 String sid = parts[2];
                 String cid = parts[3];
-                Map<?,?> map = mapper.readValue(ex.getRequestBody(), Map.class);
-                Object gradeObj = map.get("grade");
-                if (gradeObj == null) { writeJson(ex, 400, Map.of("error", "grade is required")); return; }
-                double grade = ((Number) gradeObj).doubleValue();
-                // locate enrollment
-                Optional<Student> sOpt = repository.findById(sid);
-                Optional<Course> cOpt = courseRepository.findById(cid);
-                if (sOpt.isEmpty() || cOpt.isEmpty()) { sendEmpty(ex, 404); return; }
-                Optional<Enrollment> enOpt = enrollmentRepository.find(sOpt.get(), cOpt.get());
-                if (enOpt.isEmpty()) { sendEmpty(ex, 404); return; }
-                Enrollment e = enOpt.get();
-                e.setGrade(grade);
-                enrollmentRepository.add(e); // persist updated grade
+                GradeRequest req = codec.readGrade(ex.getRequestBody());
+                if (req.getGrade() == null) { writeJson(ex, 400, new ErrorResponse("grade is required")); return; }
+                double grade = req.getGrade();
+                Enrollment e = inTransaction(() -> {
+                    // locate enrollment
+                    Optional<Student> sOpt = repository.findById(sid);
+                    Optional<Course> cOpt = courseRepository.findById(cid);
+                    if (sOpt.isEmpty() || cOpt.isEmpty()) return null;
+                    Optional<Enrollment> enOpt = enrollmentRepository.find(sOpt.get(), cOpt.get());
+                    if (enOpt.isEmpty()) return null;
+                    enOpt.get().setGrade(grade);
+                    return enrollmentRepository.add(enOpt.get()); // persist updated grade
+                });
+                if (e == null) { sendEmpty(ex, 404); return; }
+                invalidateReads();
                 writeJson(ex, 200, e);
                 return;
             } else if ("DELETE".equalsIgnoreCase(method) && parts.length >= 4) {
                 String sid = parts[2];
                 String cid = parts[3];
                 boolean ok = enrollmentRepository.remove(sid, cid);
+                invalidateReads();
                 sendEmpty(ex, ok ? 204 : 404);
                 return;
             }
             sendEmpty(ex, 405);
         } catch (Exception e) {
-            logger.error("Error handling enrollments request", e);
-            writeJson(ex, 500, Map.of("error", e.getMessage()));
+            serverError(ex, "Error handling enrollments request", e);
         }
     }
 
+    // composite reads-then-write run as one unit of work when the repositories are JDBC-backed
+    private <T> T inTransaction(UnitOfWork.Work<T> work) throws Exception {
+        return transactions == null ? work.call() : UnitOfWork.run(transactions, work);
+    }
+
+    // writes must not be answered from a load that started before them; the handlers call this
+    // themselves as well, so it also holds when no change notifier is wired
+    private void invalidateReads() {
+        studentSearches.invalidateAll();
+        rosterReads.invalidateAll();
+    }
+
     private Student readStudent(InputStream is) throws IOException {
-        Map<?,?> map = mapper.readValue(is, Map.class);
-        String id = (String) map.get("id");
-        String name = (String) map.get("name");
-        String email = (String) map.get("email");
-        String dob = (String) map.get("dateOfBirth");
-        // accept either camelCase or snake_case for thesis
-        Object thesisObj = map.get("thesisTitle");
-        if (thesisObj == null) thesisObj = map.get("thesis_title");
-        String thesis = thesisObj == null ? null : thesisObj.toString();
-        LocalDate ld = dob == null ? LocalDate.now() : LocalDate.parse(dob);
-        if (thesis != null && !thesis.isBlank()) {
-            return StudentFactory.createGraduate(id, name, email, ld, thesis);
-        }
-        return StudentFactory.createUndergraduate(id, name, email, ld);
+        return codec.readStudent(is).toStudent();
     }
 
     private Course readCourse(InputStream is) throws IOException {
-        Map<?,?> map = mapper.readValue(is, Map.class);
-        String id = (String) map.get("id");
-        String name = (String) map.get("name");
-        Integer credits = map.get("credits") == null ? 0 : ((Number)map.get("credits")).intValue();
-        return new Course(id, name, credits);
+        return codec.readCourse(is).toCourse();
+    }
+
+    /**
+     * A GET answered with a strong ETag, or 304 if it matches If-None-Match. With a store version the
+     * check happens before anything is loaded or serialized; without one (in-memory store, replicas,
+     * history) the serialized body is hashed, which still saves the transfer. {@code load} returns null
+     * for 404.
+     */
+    private void writeTagged(HttpExchange ex, Optional<String> version, Callable<Object> load) throws Exception {
+        boolean smile = acceptsSmile(ex);
+        if (version.isPresent()) {
+            String etag = "\"v" + version.get() + (smile ? "-smile" : "") + "\"";
+            if (notModified(ex, etag)) return;
+            Object body = load.call();
+            if (body == null) { sendEmpty(ex, 404); return; }
+            ex.getResponseHeaders().set("ETag", etag);
+            writeJson(ex, 200, body);
+            return;
+        }
+        Object body = load.call();
+        if (body == null) { sendEmpty(ex, 404); return; }
+        byte[] bytes = encode(body, smile);
+        metrics.increment("etag.hashed", 1);
+        String etag = "\"h" + contentHash(bytes) + "\"";
+        if (notModified(ex, etag)) return;
+        ex.getResponseHeaders().set("ETag", etag);
+        writeJsonBytes(ex, 200, bytes, smile ? SMILE : JSON);
+    }
+
+    /**
+     * GET /enrollments bodies: the full nested objects by default; {@code view=compact} sends ids, date
+     * and grade only, and {@code include=students,courses} side-loads each referenced student/course once.
+     */
+    private Object enrollmentView(String query, List<Enrollment> list) {
+        if (!"compact".equals(getQueryParam(query, "view"))) return list;
+        String include = getQueryParam(query, "include");
+        List<String> parts = include == null ? List.of() : List.of(URLDecoder.decode(include, StandardCharsets.UTF_8).split(","));
+        return EnrollmentListDTO.of(list, parts.contains("students"), parts.contains("courses"));
+    }
+
+    // the repositories wrap SQL errors in RuntimeException; a unique or foreign-key violation is the client's conflict, not ours
+    // bad input is answered with 400; anything else is a 500, and only timeouts and rejected work
+    // tell the admission limiter that the server is overloaded
+    private void serverError(HttpExchange ex, String message, Exception e) throws IOException {
+        if (e instanceof JsonProcessingException || e instanceof IllegalArgumentException
+                || e instanceof InvalidDataException || e instanceof DateTimeException) {
+            writeJson(ex, 400, new ErrorResponse(e.getMessage()));
+            return;
+        }
+        logger.error(message, e);
+        for (Throwable t = e; t != null; t = t.getCause()) {
+            if (t instanceof SQLTransientException || t instanceof TimeoutException || t instanceof RejectedExecutionException) {
+                ex.setAttribute(OVERLOADED, Boolean.TRUE);
+                break;
+            }
+        }
+        writeJson(ex, 500, new ErrorResponse(e.getMessage()));
+    }
+
+    private static SQLException constraintViolation(Throwable e) {
+        for (Throwable t = e; t != null; t = t.getCause()) {
+            if (t instanceof SQLIntegrityConstraintViolationException) return (SQLException) t;
+        }
+        return null;
+    }
+
+    // Smile when the client lists it without ranking JSON higher
+    private static boolean acceptsSmile(HttpExchange ex) {
+        String accept = ex.getRequestHeaders().getFirst("Accept");
+        if (accept == null) return false;
+        double smile = 0, json = 0;
+        for (String part : accept.split(",")) {
+            String[] tokens = part.trim().split(";");
+            double q = 1.0;
+            for (int i = 1; i < tokens.length; i++) {
+                String param = tokens[i].trim();
+                if (param.startsWith("q=")) {
+                    try { q = Double.parseDouble(param.substring(2)); } catch (NumberFormatException e) { q = 0; }
+                }
+            }
+            String type = tokens[0].trim().toLowerCase(java.util.Locale.ROOT);
+            if (type.equals(SMILE)) smile = q;
+            else if (type.equals(JSON)) json = q;
+        }
+        return smile > 0 && smile >= json;
+    }
+
+    private byte[] encode(Object obj, boolean smile) throws IOException {
+        long start = System.nanoTime();
+        byte[] bytes = codec.write(obj, smile);
+        String format = smile ? "encode.smile" : "encode.json";
+        metrics.record(format, System.nanoTime() - start);
+        metrics.increment(format + ".bytes", bytes.length);
+        return bytes;
+    }
+
+    // If-None-Match uses the weak comparison, so W/"x" matches "x"; a tag for a compressed copy ("x-gzip")
+    // matches too, since the same data negotiated the same way is encoded the same way again
+    private boolean notModified(HttpExchange ex, String etag) throws IOException {
+        String header = ex.getRequestHeaders().getFirst("If-None-Match");
+        if (header == null) return false;
+        Optional<String> match = java.util.Arrays.stream(header.split(","))
+                .map(String::trim)
+                .map(t -> t.startsWith("W/") ? t.substring(2) : t)
+                .filter(t -> t.equals("*") || t.equals(etag) || t.equals(encodedTag(etag, HttpCompression.GZIP)) || t.equals(encodedTag(etag, HttpCompression.DEFLATE)))
+                .findFirst();
+        if (match.isEmpty()) return false;
+        metrics.increment("etag.notModified", 1);
+        ex.getResponseHeaders().set("ETag", match.get().equals("*") ? etag : match.get());
+        sendEmpty(ex, 304);
+        return true;
+    }
+
+    // strong validators differ per content-coding
+    private static String encodedTag(String etag, String coding) {
+        return etag.substring(0, etag.length() - 1) + "-" + coding + "\"";
+    }
+
+    private static String contentHash(byte[] bytes) {
+        try {
+            byte[] digest = MessageDigest.getInstance("SHA-256").digest(bytes);
+            return Base64.getUrlEncoder().withoutPadding().encodeToString(java.util.Arrays.copyOf(digest, 16));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
     }
 
     private void writeJson(HttpExchange ex, int code, Object obj) throws IOException {
-        byte[] bytes = mapper.writeValueAsBytes(obj);
-        ex.getResponseHeaders().add("Content-Type", "application/json");
+        boolean smile = acceptsSmile(ex);
+        writeJsonBytes(ex, code, encode(obj, smile), smile ? SMILE : JSON);
+    }
+
+    private void writeJsonBytes(HttpExchange ex, int code, byte[] bytes, String contentType) throws IOException {
+        String coding = HttpCompression.negotiate(ex.getRequestHeaders().getFirst("Accept-Encoding"));
+        byte[] encoded = compression.compress(bytes, coding);
+        ex.getResponseHeaders().add("Vary", "Accept, Accept-Encoding");
+        if (encoded != null) {
+            bytes = encoded;
+            ex.getResponseHeaders().set("Content-Encoding", coding);
+            String etag = ex.getResponseHeaders().getFirst("ETag");
+            if (etag != null) ex.getResponseHeaders().set("ETag", encodedTag(etag, coding));
+        }
+        ex.getResponseHeaders().add("Content-Type", contentType);
+        addWriteSeq(ex);
         ex.sendResponseHeaders(code, bytes.length);
         try (OutputStream os = ex.getResponseBody()) {
             os.write(bytes);
@@ -302,10 +842,30 @@ public class RestServer {
     }
 
     private void sendEmpty(HttpExchange ex, int code) throws IOException {
+        addWriteSeq(ex);
         ex.sendResponseHeaders(code, -1);
         ex.close();
     }
 
+    // reads with a consistency requirement only share a flight with reads that have the same requirement
+    private String flightKey(String key) {
+        long required = ReadConsistency.required();
+        return required == 0 ? key : key + "@" + required;
+    }
+
+    // lets a client pass X-Min-Seq on its next read to see this request's writes on a replica
+    private void addWriteSeq(HttpExchange ex) {
+        long seq = ReadConsistency.lastWriteSeq();
+        if (seq > 0) ex.getResponseHeaders().set("X-Write-Seq", Long.toString(seq));
+    }
+
+    private List<String> idsParam(String query) {
+        String ids = getQueryParam(query, "ids");
+        if (ids == null) return List.of();
+        return java.util.Arrays.stream(URLDecoder.decode(ids, StandardCharsets.UTF_8).split(","))
+                .map(String::trim).filter(id -> !id.isEmpty()).distinct().collect(Collectors.toList());
+    }
+
     private String getQueryParam(String query, String key) {
         if (query == null || query.isEmpty()) return null;
         return java.util.Arrays.stream(query.split("&"))
@@ -0,0 +1,33 @@
+package com.airtripe.studentmanagement.entity;
+
+import java.time.LocalDateTime;
+
+public class GradeEvent {
+    private final long seq;
+    private final String studentId;
+    private final String courseId;
+    private final Double grade;
+    private final Double previousGrade; // nullable
+    private final LocalDateTime createdAt;
+
+    public GradeEvent(long seq, String studentId, String courseId, Double grade, Double previousGrade, LocalDateTime createdAt) {
+        this.seq = seq;
+        this.studentId = studentId;
+        this.courseId = courseId;
+        this.grade = grade;
+        this.previousGrade = previousGrade;
+        this.createdAt = createdAt;
+    }
+
+    public long getSeq() { return seq; }
+    public String getStudentId() { return studentId; }
+    public String getCourseId() { return courseId; }
+    public Double getGrade() { return grade; }
+    public Double getPreviousGrade() { return previousGrade; }
+    public LocalDateTime getCreatedAt() { return createdAt; }
+
+    @Override
+    public String toString() {
+        return String.format("GradeEvent[seq=%d,student=%s,course=%s,grade=%s,previous=%s]", seq, studentId, courseId, grade, previousGrade);
+    }
+}
@@ -0,0 +1,28 @@
+package com.airtripe.studentmanagement.observer;
+
+public class ChangeEvent {
+    private final long id;
+    private final String type; // e.g. grade.assigned, student.saved, enrollment.removed
+    private final String studentId; // nullable
+    private final String courseId; // nullable
+    private final Object data; // nullable
+
+    public ChangeEvent(long id, String type, String studentId, String courseId, Object data) {
+        this.id = id;
+        this.type = type;
+        this.studentId = studentId;
+        this.courseId = courseId;
+        this.data = data;
+    }
+
+    public long getId() { return id; }
+    public String getType() { return type; }
+    public String getStudentId() { return studentId; }
+    public String getCourseId() { return courseId; }
+    public Object getData() { return data; }
+
+    @Override
+    public String toString() {
+        return String.format("ChangeEvent[id=%d,type=%s,student=%s,course=%s]", id, type, studentId, courseId);
+    }
+}
@@ -0,0 +1,124 @@
+package com.airtripe.studentmanagement.observer;
+
+import com.airtripe.studentmanagement.entity.Course;
+import com.airtripe.studentmanagement.entity.Enrollment;
+import com.airtripe.studentmanagement.entity.Student;
+import com.airtripe.studentmanagement.util.MetricsCollector;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Pushes grade assignments and repository mutations to live subscribers (the /events SSE stream).
+ * Every subscriber gets its own bounded buffer; a subscriber whose buffer is full is disconnected
+ * instead of slowing down the publisher or the other subscribers.
+ */
+public class ChangeEventBus implements EntityChangeListener, Enrollment.GradeListener {
+    private static final Logger logger = LoggerFactory.getLogger(ChangeEventBus.class);
+
+    private final int bufferSize;
+    private final Set<Subscription> subscriptions = ConcurrentHashMap.newKeySet();
+    private final AtomicLong nextId = new AtomicLong();
+    private final MetricsCollector metrics = new MetricsCollector();
+
+    public ChangeEventBus(int bufferSize) {
+        this.bufferSize = Math.max(1, bufferSize);
+    }
+
+    /** Subscribe to events, optionally filtered by student and/or course id (null = any). */
+    public Subscription subscribe(String studentId, String courseId) {
+        Subscription s = new Subscription(studentId, courseId, bufferSize);
+        subscriptions.add(s);
+        metrics.increment("events.subscribed", 1);
+        return s;
+    }
+
+    public void publish(String type, String studentId, String courseId, Object data) {
+        ChangeEvent ev = new ChangeEvent(nextId.incrementAndGet(), type, studentId, courseId, data);
+        metrics.increment("events.published", 1);
+        for (Subscription s : subscriptions) {
+            if (!s.matches(ev)) continue;
+            if (!s.queue.offer(ev)) {
+                logger.warn("Disconnecting slow event subscriber (student={}, course={})", s.studentId, s.courseId);
+                metrics.increment("events.slowDisconnects", 1);
+                s.close();
+            }
+        }
+    }
+
+    public int getSubscriberCount() { return subscriptions.size(); }
+
+    public void closeAll() { subscriptions.forEach(Subscription::close); }
+
+    @Override
+    public void onGradeAssigned(Enrollment e, Double grade) {
+        publish("grade.assigned", e.getStudent().getId(), e.getCourse().getId(), Map.of("studentId", e.getStudent().getId(), "courseId", e.getCourse().getId(), "grade", grade));
+    }
+
+    @Override
+    public void onStudentSaved(Student s) { publish("student.saved", s.getId(), null, s); }
+
+    @Override
+    public void onStudentRemoved(String studentId) { publish("student.removed", studentId, null, Map.of("id", studentId)); }
+
+    @Override
+    public void onCourseSaved(Course c) { publish("course.saved", null, c.getId(), c); }
+
+    @Override
+    public void onCourseRemoved(String courseId) { publish("course.removed", null, courseId, Map.of("id", courseId)); }
+
+    @Override
+    public void onEnrollmentSaved(Enrollment e) { publish("enrollment.saved", e.getStudent().getId(), e.getCourse().getId(), e); }
+
+    @Override
+    public void onEnrollmentRemoved(String studentId, String courseId) {
+        publish("enrollment.removed", studentId, courseId, Map.of("studentId", studentId, "courseId", courseId));
+    }
+
+    @Override
+    public void onEnrollmentArchived(String studentId, String courseId) {
+        publish("enrollment.archived", studentId, courseId, Map.of("studentId", studentId, "courseId", courseId));
+    }
+
+    public MetricsCollector getMetricsCollector() { return metrics; }
+
+    public class Subscription implements AutoCloseable {
+        private final String studentId;
+        private final String courseId;
+        private final BlockingQueue<ChangeEvent> queue;
+        private volatile boolean closed;
+
+        private Subscription(String studentId, String courseId, int capacity) {
+            this.studentId = studentId;
+            this.courseId = courseId;
+            this.queue = new ArrayBlockingQueue<>(capacity);
+        }
+
+        private boolean matches(ChangeEvent ev) {
+            if (studentId != null && !studentId.equals(ev.getStudentId())) return false;
+            return courseId == null || courseId.equals(ev.getCourseId());
+        }
+
+        /** Next event, or null on timeout or once the subscription has been closed. */
+        public ChangeEvent poll(long timeout, TimeUnit unit) throws InterruptedException {
+            if (closed) return null;
+            return queue.poll(timeout, unit);
+        }
+
+        public boolean isClosed() { return closed; }
+
+        @Override
+        public void close() {
+            closed = true;
+            queue.clear();
+            subscriptions.remove(this);
+        }
+    }
+}
@@ -0,0 +1,20 @@
+package com.airtripe.studentmanagement.observer;
+
+import com.airtripe.studentmanagement.entity.Course;
+import com.airtripe.studentmanagement.entity.Enrollment;
+import com.airtripe.studentmanagement.entity.Student;
+
+/**
+ * Callback for committed repository writes. All methods default to no-ops so listeners
+ * only override the mutations they care about.
+ */
+public interface EntityChangeListener {
+    default void onStudentSaved(Student s) {}
+    default void onStudentRemoved(String studentId) {}
+    default void onCourseSaved(Course c) {}
+    default void onCourseRemoved(String courseId) {}
+    default void onEnrollmentSaved(Enrollment e) {}
+    default void onEnrollmentRemoved(String studentId, String courseId) {}
+    /** Moved to the archive: gone from the current table, but still part of the student's and course's history. */
+    default void onEnrollmentArchived(String studentId, String courseId) {}
+}
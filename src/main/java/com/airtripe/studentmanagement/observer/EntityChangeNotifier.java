@@ -0,0 +1,41 @@
+package com.airtripe.studentmanagement.observer;
+
+import com.airtripe.studentmanagement.entity.Course;
+import com.airtripe.studentmanagement.entity.Enrollment;
+import com.airtripe.studentmanagement.entity.Student;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.function.Consumer;
+
+/**
+ * Fan-out point the repositories call after a write commits. A failing listener is logged and
+ * skipped so it can never fail the write that triggered it.
+ */
+public class EntityChangeNotifier {
+    private static final Logger logger = LoggerFactory.getLogger(EntityChangeNotifier.class);
+    private final List<EntityChangeListener> listeners = new CopyOnWriteArrayList<>();
+
+    public void addListener(EntityChangeListener l) { listeners.add(l); }
+    public void removeListener(EntityChangeListener l) { listeners.remove(l); }
+
+    public void studentSaved(Student s) { fire(l -> l.onStudentSaved(s)); }
+    public void studentRemoved(String studentId) { fire(l -> l.onStudentRemoved(studentId)); }
+    public void courseSaved(Course c) { fire(l -> l.onCourseSaved(c)); }
+    public void courseRemoved(String courseId) { fire(l -> l.onCourseRemoved(courseId)); }
+    public void enrollmentSaved(Enrollment e) { fire(l -> l.onEnrollmentSaved(e)); }
+    public void enrollmentRemoved(String studentId, String courseId) { fire(l -> l.onEnrollmentRemoved(studentId, courseId)); }
+    public void enrollmentArchived(String studentId, String courseId) { fire(l -> l.onEnrollmentArchived(studentId, courseId)); }
+
+    private void fire(Consumer<EntityChangeListener> call) {
+        for (EntityChangeListener l : listeners) {
+            try {
+                call.accept(l);
+            } catch (RuntimeException e) {
+                logger.error("Change listener {} failed", l, e);
+            }
+        }
+    }
+}
@@ -0,0 +1,145 @@
+package com.airtripe.studentmanagement.observer;
+
+import com.airtripe.studentmanagement.entity.Course;
+import com.airtripe.studentmanagement.entity.Enrollment;
+import com.airtripe.studentmanagement.entity.GradeEvent;
+import com.airtripe.studentmanagement.entity.Student;
+import com.airtripe.studentmanagement.repository.EnrollmentRepository;
+import com.airtripe.studentmanagement.repository.GradeOutboxJdbc;
+import com.airtripe.studentmanagement.util.MetricsCollector;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.time.LocalDate;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Delivers grade events from the outbox to {@link GradeNotificationService} listeners at-least-once.
+ * The consumer offset is persisted only after listeners return, so a crash or a throwing listener
+ * causes the event to be delivered again on the next poll.
+ */
+public class GradeEventRelay {
+    private static final Logger logger = LoggerFactory.getLogger(GradeEventRelay.class);
+    public static final String DEFAULT_CONSUMER = "grade-notifications";
+
+    private final GradeOutboxJdbc outbox;
+    private final EnrollmentRepository enrollmentRepository;
+    private final GradeNotificationService notificationService;
+    private final String consumer;
+    private final int batchSize;
+    private final MetricsCollector metrics = new MetricsCollector();
+    private long offset = -1; // loaded from the outbox on first use, once its tables exist
+    private boolean moreQueued; // the last poll read a full batch and got through all of it
+    private ScheduledExecutorService scheduler;
+
+    public GradeEventRelay(GradeOutboxJdbc outbox, EnrollmentRepository enrollmentRepository, GradeNotificationService notificationService) {
+        this(outbox, enrollmentRepository, notificationService, DEFAULT_CONSUMER, 100);
+    }
+
+    public GradeEventRelay(GradeOutboxJdbc outbox, EnrollmentRepository enrollmentRepository, GradeNotificationService notificationService, String consumer, int batchSize) {
+        this.outbox = outbox;
+        this.enrollmentRepository = enrollmentRepository;
+        this.notificationService = notificationService;
+        this.consumer = consumer;
+        this.batchSize = Math.max(1, batchSize);
+    }
+
+    /** Deliver one batch of pending events; returns how many were delivered. */
+    public synchronized int pollOnce() {
+        long start = System.nanoTime();
+        long offset = offset();
+        List<GradeEvent> events = outbox.readAfter(offset, batchSize);
+        int delivered = 0;
+        long lastDelivered = offset;
+        moreQueued = false;
+        try {
+            for (GradeEvent ev : events) {
+                // one keyed lookup; only the ids of these placeholders are read
+                Optional<Enrollment> e = enrollmentRepository.find(new Student(ev.getStudentId(), "", "", LocalDate.now()), new Course(ev.getCourseId(), "", 0));
+                if (e.isPresent()) {
+                    notificationService.publish(e.get(), ev.getGrade());
+                    delivered++;
+                } else {
+                    // enrollment removed since the event was written; nothing left to notify about
+                    logger.warn("Skipping grade event {}: enrollment no longer exists", ev.getSeq());
+                    metrics.increment("outbox.relay.skipped", 1);
+                }
+                lastDelivered = ev.getSeq();
+            }
+            // skipped events count too: a full batch of them still means more may be waiting
+            moreQueued = events.size() >= batchSize;
+        } catch (RuntimeException ex) {
+            logger.error("Grade event delivery failed after seq {}; will retry", lastDelivered, ex);
+            metrics.increment("outbox.relay.failures", 1);
+        } finally {
+            if (lastDelivered != offset) {
+                outbox.saveOffset(consumer, lastDelivered);
+                this.offset = lastDelivered;
+            }
+            metrics.increment("outbox.relay.delivered", delivered);
+            metrics.record("outbox.relay.poll", System.nanoTime() - start);
+        }
+        return delivered;
+    }
+
+    /** Rewind (or fast-forward) the consumer so the next poll delivers events with seq greater than {@code fromOffset}. */
+    public synchronized void replayFrom(long fromOffset) {
+        logger.info("Consumer {} replaying from offset {}", consumer, fromOffset);
+        outbox.saveOffset(consumer, fromOffset);
+        offset = fromOffset;
+    }
+
+    public synchronized long getOffset() { return offset(); }
+
+    /** Number of committed events this consumer has not yet processed. */
+    public synchronized long getLag() { return outbox.countAfter(offset()); }
+
+    private synchronized boolean drainMore() { return moreQueued && scheduler != null; }
+
+    private long offset() {
+        if (offset < 0) offset = outbox.loadOffset(consumer);
+        return offset;
+    }
+
+    public synchronized void start(long intervalMillis) {
+        if (scheduler != null) return;
+        scheduler = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread t = new Thread(r, "grade-event-relay");
+            t.setDaemon(true);
+            return t;
+        });
+        scheduler.scheduleWithFixedDelay(() -> {
+            try {
+                // drain while full batches keep coming back; a failed delivery waits for the next interval
+                do {
+                    pollOnce();
+                } while (drainMore());
+            } catch (Exception e) {
+                logger.error("Grade event relay poll failed", e);
+            }
+        }, 0, intervalMillis, TimeUnit.MILLISECONDS);
+        logger.info("Grade event relay started for consumer {}", consumer);
+    }
+
+    public void stop() {
+        ScheduledExecutorService s;
+        synchronized (this) {
+            s = scheduler;
+            scheduler = null;
+        }
+        if (s == null) return;
+        s.shutdown();
+        try {
+            if (!s.awaitTermination(5, TimeUnit.SECONDS)) s.shutdownNow();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            s.shutdownNow();
+        }
+    }
+
+    public MetricsCollector getMetricsCollector() { return metrics; }
+}
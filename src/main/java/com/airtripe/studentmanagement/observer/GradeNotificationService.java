@@ -6,7 +6,6 @@ import java.util.List;
 import java.util.Map;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.CopyOnWriteArrayList;
-import java.util.stream.Stream;
 
 public class GradeNotificationService {
     private final List<Enrollment.GradeListener> globalListeners = new CopyOnWriteArrayList<>();
@@ -44,5 +43,18 @@ public class GradeNotificationService {
         if (cList != null) cList.forEach(e::addListener);
     }
 
+    /**
+     * Deliver a grade directly to every matching listener (global, student-specific, course-specific)
+     * without going through Enrollment.setGrade. Used by the outbox relay; a listener exception propagates
+     * so the caller can retry the event.
+     */
+    public void publish(Enrollment e, Double grade) {
+        for (Enrollment.GradeListener l : globalListeners) l.onGradeAssigned(e, grade);
+        List<Enrollment.GradeListener> sList = studentListeners.get(e.getStudent().getId());
+        if (sList != null) for (Enrollment.GradeListener l : sList) l.onGradeAssigned(e, grade);
+        List<Enrollment.GradeListener> cList = courseListeners.get(e.getCourse().getId());
+        if (cList != null) for (Enrollment.GradeListener l : cList) l.onGradeAssigned(e, grade);
+    }
+
 }
 
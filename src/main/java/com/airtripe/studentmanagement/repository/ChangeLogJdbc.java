@@ -0,0 +1,136 @@
+package com.airtripe.studentmanagement.repository;
+
+import com.airtripe.studentmanagement.util.ConfigSingleton;
+import com.airtripe.studentmanagement.util.ConnectionProvider;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.sql.*;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Append-only log of every student, course and enrollment mutation. The JDBC repositories append
+ * on the same connection (and transaction) as the write itself, so a change is logged if and only
+ * if it was committed. {@code seq} is the monotonic change sequence that sync clients use as their
+ * token (see ChangeFeedService); it comes from {@link LogSequence}, so entries become visible in seq
+ * order and a token never moves past a change that has not committed yet, however long its
+ * transaction stays open.
+ */
+public class ChangeLogJdbc {
+    private static final Logger logger = LoggerFactory.getLogger(ChangeLogJdbc.class);
+
+    public static final String STUDENT = "student";
+    public static final String COURSE = "course";
+    public static final String ENROLLMENT = "enrollment";
+    public static final String UPSERT = "upsert";
+    public static final String DELETE = "delete";
+
+    private final ConnectionProvider config;
+
+    public ChangeLogJdbc() {
+        this(ConfigSingleton.getInstance());
+    }
+
+    public ChangeLogJdbc(ConnectionProvider config) {
+        this.config = config;
+    }
+
+    public void init() throws SQLException {
+        new SchemaMigrator(config, "change_log")
+                .step(1, "create change_log",
+                        "CREATE TABLE IF NOT EXISTS change_log (seq BIGINT GENERATED BY DEFAULT AS IDENTITY PRIMARY KEY, entity VARCHAR(20) NOT NULL, "
+                                + "entity_id VARCHAR(100) NOT NULL, related_id VARCHAR(100), op VARCHAR(10) NOT NULL, changed_at TIMESTAMP NOT NULL)")
+                .migrate();
+        try (Connection conn = config.getConnection()) {
+            LogSequence.init(conn, "change_log");
+        }
+    }
+
+    /**
+     * Record one change in the caller's transaction; the caller owns commit/rollback and must commit
+     * right after its last append (inside a {@link UnitOfWork} the append is deferred to its commit).
+     * {@code relatedId} is the course id of an enrollment (whose {@code entityId} is the student id).
+     */
+    public void append(Connection conn, String entity, String entityId, String relatedId, String op) throws SQLException {
+        appendAll(conn, entity, List.<String[]>of(new String[]{entityId, relatedId}), op);
+    }
+
+    /** Record the same change for many keys ({id} or {studentId, courseId}) as one JDBC batch. */
+    public void appendAll(Connection conn, String entity, List<String[]> keys, String op) throws SQLException {
+        if (keys.isEmpty()) return;
+        UnitOfWork.beforeCommit(config, conn, c -> {
+            String sql = "INSERT INTO change_log (seq, entity, entity_id, related_id, op, changed_at) VALUES (?, ?, ?, ?, ?, LOCALTIMESTAMP)";
+            long seq = LogSequence.reserve(c, keys.size());
+            try (PreparedStatement ps = c.prepareStatement(sql)) {
+                for (String[] key : keys) {
+                    ps.setLong(1, seq++);
+                    ps.setString(2, entity);
+                    ps.setString(3, key[0]);
+                    ps.setString(4, key.length > 1 ? key[1] : null);
+                    ps.setString(5, op);
+                    ps.addBatch();
+                }
+                ps.executeBatch();
+            }
+        });
+    }
+
+    /** Changes with seq greater than {@code since}, in seq order. */
+    public List<Change> readAfter(long since, int limit) {
+        String sql = "SELECT seq, entity, entity_id, related_id, op, changed_at FROM change_log WHERE seq > ? ORDER BY seq LIMIT ?";
+        List<Change> out = new ArrayList<>();
+        try (Connection conn = config.getConnection(); PreparedStatement ps = conn.prepareStatement(sql)) {
+            ps.setLong(1, since);
+            ps.setInt(2, limit);
+            try (ResultSet rs = ps.executeQuery()) {
+                while (rs.next()) {
+                    out.add(new Change(rs.getLong("seq"), rs.getString("entity"), rs.getString("entity_id"),
+                            rs.getString("related_id"), rs.getString("op"), rs.getTimestamp("changed_at").toLocalDateTime()));
+                }
+            }
+            return out;
+        } catch (SQLException e) {
+            logger.error("Failed to read changes after {}", since, e);
+            throw new RuntimeException(e);
+        }
+    }
+
+    /** The highest seq logged so far, or 0. */
+    public long latestSeq() {
+        try (Connection conn = config.getConnection(); Statement st = conn.createStatement();
+             ResultSet rs = st.executeQuery("SELECT COALESCE(MAX(seq), 0) FROM change_log")) {
+            rs.next();
+            return rs.getLong(1);
+        } catch (SQLException e) {
+            logger.error("Failed to read latest change seq", e);
+            throw new RuntimeException(e);
+        }
+    }
+
+    public static final class Change {
+        private final long seq;
+        private final String entity;
+        private final String entityId;
+        private final String relatedId;
+        private final String op;
+        private final LocalDateTime changedAt;
+
+        public Change(long seq, String entity, String entityId, String relatedId, String op, LocalDateTime changedAt) {
+            this.seq = seq;
+            this.entity = entity;
+            this.entityId = entityId;
+            this.relatedId = relatedId;
+            this.op = op;
+            this.changedAt = changedAt;
+        }
+
+        public long getSeq() { return seq; }
+        public String getEntity() { return entity; }
+        public String getEntityId() { return entityId; }
+        public String getRelatedId() { return relatedId; }
+        public String getOp() { return op; }
+        public LocalDateTime getChangedAt() { return changedAt; }
+    }
+}
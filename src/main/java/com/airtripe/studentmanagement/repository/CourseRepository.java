@@ -3,6 +3,7 @@ package com.airtripe.studentmanagement.repository;
 
 import com.airtripe.studentmanagement.entity.Course;
 
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
@@ -12,7 +13,17 @@ public interface CourseRepository {
     List<Course> findAll();
     List<Course> search(String query);
     boolean remove(String id);
+    /** Remove every listed course; returns how many existed. Stores that can should do this in one statement. */
+    default int removeAll(Collection<String> ids) {
+        int removed = 0;
+        for (String id : ids) if (remove(id)) removed++;
+        return removed;
+    }
     boolean updateCourse(String id, Course updated);
+    /** An opaque token that changes whenever course {@code id} does; empty if the store does not track versions. */
+    default Optional<String> version(String id) { return Optional.empty(); }
+    /** Likewise for the whole collection, so also for any search over it. */
+    default Optional<String> version() { return Optional.empty(); }
     void init() throws Exception;
 }
 
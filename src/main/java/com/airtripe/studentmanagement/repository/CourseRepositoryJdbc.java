@@ -2,38 +2,80 @@
 package com.airtripe.studentmanagement.repository;
 
 import com.airtripe.studentmanagement.entity.Course;
+import com.airtripe.studentmanagement.observer.EntityChangeNotifier;
 import com.airtripe.studentmanagement.util.ConfigSingleton;
+import com.airtripe.studentmanagement.util.ConnectionProvider;
 import com.airtripe.studentmanagement.util.MetricsCollector;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import java.sql.*;
 import java.util.ArrayList;
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
 public class CourseRepositoryJdbc implements CourseRepository {
     private static final Logger logger = LoggerFactory.getLogger(CourseRepositoryJdbc.class);
-    private final ConfigSingleton config = ConfigSingleton.getInstance();
+    private final ConnectionProvider config;
     private final MetricsCollector metrics = new MetricsCollector();
+    private final ChangeLogJdbc changeLog;
+    private final EnrollmentAggregatesJdbc aggregates;
+    private EntityChangeNotifier changeNotifier; // optional, set by the application wiring
+    private boolean initialized;
+
+    public CourseRepositoryJdbc() {
+        this(ConfigSingleton.getInstance());
+    }
+
+    // point the repository at a specific database (e.g. one shard)
+    public CourseRepositoryJdbc(ConnectionProvider config) {
+        this.config = config;
+        this.changeLog = new ChangeLogJdbc(config);
+        this.aggregates = new EnrollmentAggregatesJdbc(config);
+    }
 
     @Override
-    public void init() throws Exception {
-        try (Connection conn = config.getConnection(); Statement st = conn.createStatement()) {
-            st.execute("CREATE TABLE IF NOT EXISTS courses (id VARCHAR(100) PRIMARY KEY, name VARCHAR(255), credits INT)");
-            logger.info("courses table ensured");
-        }
+    public synchronized void init() throws Exception {
+        if (initialized) return; // idempotent: EnrollmentRepositoryJdbc.init also initializes its parents
+        int version = new SchemaMigrator(config, "courses")
+                .step(1, "create courses", "CREATE TABLE IF NOT EXISTS courses (id VARCHAR(100) PRIMARY KEY, name VARCHAR(255), credits INT)")
+                .step(2, "lowercase search columns",
+                        "ALTER TABLE courses ADD COLUMN IF NOT EXISTS id_lower VARCHAR(100) GENERATED ALWAYS AS (LOWER(id))",
+                        "ALTER TABLE courses ADD COLUMN IF NOT EXISTS name_lower VARCHAR(255) GENERATED ALWAYS AS (LOWER(name))",
+                        "CREATE INDEX IF NOT EXISTS idx_courses_name_lower ON courses(name_lower)")
+                .step(3, "row versions", RowVersions.CREATE_SEQUENCE, RowVersions.addColumn("courses"))
+                .migrate();
+        changeLog.init();
+        logger.info("courses table ensured (schema v{})", version);
+        initialized = true;
     }
 
     @Override
     public Course addCourse(Course c) {
         long start = System.nanoTime();
-        String sql = "MERGE INTO courses (id, name, credits) KEY(id) VALUES (?, ?, ?)";
-        try (Connection conn = config.getConnection(); PreparedStatement ps = conn.prepareStatement(sql)) {
-            ps.setString(1, c.getId());
-            ps.setString(2, c.getName());
-            ps.setInt(3, c.getCredits());
-            ps.executeUpdate();
+        String sql = "MERGE INTO courses (id, name, credits, version) KEY(id) VALUES (?, ?, ?, " + RowVersions.NEXT + ")";
+        try (Connection conn = UnitOfWork.connection(config)) {
+            conn.setAutoCommit(false);
+            try (PreparedStatement ps = conn.prepareStatement(sql)) {
+                // enrollment writes re-save their course: an unchanged row keeps its version and is not logged or re-announced
+                Course previous = lockRow(conn, c.getId());
+                if (previous != null && InMemoryCourseRepository.sameRow(previous, c)) {
+                    conn.commit();
+                    return c;
+                }
+                ps.setString(1, c.getId());
+                ps.setString(2, c.getName());
+                ps.setInt(3, c.getCredits());
+                ps.executeUpdate();
+                if (previous != null) aggregates.recredit(conn, c.getId(), c.getCredits() - previous.getCredits());
+                changeLog.append(conn, ChangeLogJdbc.COURSE, c.getId(), null, ChangeLogJdbc.UPSERT);
+                conn.commit();
+            } catch (SQLException ex) {
+                conn.rollback();
+                throw ex;
+            }
+            if (changeNotifier != null) UnitOfWork.afterCommit(config, () -> changeNotifier.courseSaved(c));
             return c;
         } catch (SQLException e) {
             logger.error("Failed to add course {}", c.getId(), e);
@@ -47,7 +89,7 @@ public class CourseRepositoryJdbc implements CourseRepository {
     public Optional<Course> findById(String id) {
         long start = System.nanoTime();
         String sql = "SELECT id, name, credits FROM courses WHERE id = ?";
-        try (Connection conn = config.getConnection(); PreparedStatement ps = conn.prepareStatement(sql)) {
+        try (Connection conn = UnitOfWork.connection(config); PreparedStatement ps = conn.prepareStatement(sql)) {
             ps.setString(1, id);
             try (ResultSet rs = ps.executeQuery()) {
                 if (rs.next()) return Optional.of(mapRow(rs));
@@ -66,7 +108,7 @@ public class CourseRepositoryJdbc implements CourseRepository {
         long start = System.nanoTime();
         String sql = "SELECT id, name, credits FROM courses ORDER BY id";
         List<Course> list = new ArrayList<>();
-        try (Connection conn = config.getConnection(); PreparedStatement ps = conn.prepareStatement(sql); ResultSet rs = ps.executeQuery()) {
+        try (Connection conn = UnitOfWork.connection(config); PreparedStatement ps = conn.prepareStatement(sql); ResultSet rs = ps.executeQuery()) {
             while (rs.next()) list.add(mapRow(rs));
             return list;
         } catch (SQLException e) {
@@ -82,9 +124,9 @@ public class CourseRepositoryJdbc implements CourseRepository {
         long start = System.nanoTime();
         if (query == null || query.isEmpty()) return findAll();
         String q = "%" + query.toLowerCase() + "%";
-        String sql = "SELECT id, name, credits FROM courses WHERE LOWER(id) LIKE ? OR LOWER(name) LIKE ? ORDER BY id";
+        String sql = "SELECT id, name, credits FROM courses WHERE id_lower LIKE ? OR name_lower LIKE ? ORDER BY id";
         List<Course> list = new ArrayList<>();
-        try (Connection conn = config.getConnection(); PreparedStatement ps = conn.prepareStatement(sql)) {
+        try (Connection conn = UnitOfWork.connection(config); PreparedStatement ps = conn.prepareStatement(sql)) {
             ps.setString(1, q);
             ps.setString(2, q);
             try (ResultSet rs = ps.executeQuery()) {
@@ -103,9 +145,20 @@ public class CourseRepositoryJdbc implements CourseRepository {
     public boolean remove(String id) {
         long start = System.nanoTime();
         String sql = "DELETE FROM courses WHERE id = ?";
-        try (Connection conn = config.getConnection(); PreparedStatement ps = conn.prepareStatement(sql)) {
-            ps.setString(1, id);
-            return ps.executeUpdate() > 0;
+        try (Connection conn = UnitOfWork.connection(config)) {
+            conn.setAutoCommit(false);
+            boolean removed;
+            try (PreparedStatement ps = conn.prepareStatement(sql)) {
+                ps.setString(1, id);
+                removed = ps.executeUpdate() > 0;
+                if (removed) changeLog.append(conn, ChangeLogJdbc.COURSE, id, null, ChangeLogJdbc.DELETE);
+                conn.commit();
+            } catch (SQLException ex) {
+                conn.rollback();
+                throw ex;
+            }
+            if (removed && changeNotifier != null) UnitOfWork.afterCommit(config, () -> changeNotifier.courseRemoved(id));
+            return removed;
         } catch (SQLException e) {
             logger.error("Delete failed for course {}", id, e);
             throw new RuntimeException(e);
@@ -114,15 +167,65 @@ public class CourseRepositoryJdbc implements CourseRepository {
         }
     }
 
+    // one DELETE for the whole set. The foreign keys refuse it while any of these course still has enrollments:
+    // CascadeDeleteService removes those first, through the enrollment repository.
+    @Override
+    public int removeAll(Collection<String> ids) {
+        if (ids.isEmpty()) return 0;
+        long start = System.nanoTime();
+        String sql = "SELECT id FROM OLD TABLE (DELETE FROM courses WHERE id = ANY(?))";
+        try (Connection conn = UnitOfWork.connection(config)) {
+            conn.setAutoCommit(false);
+            List<String> removed = new ArrayList<>();
+            List<String[]> keys = new ArrayList<>();
+            try (PreparedStatement ps = conn.prepareStatement(sql)) {
+                ps.setArray(1, conn.createArrayOf("VARCHAR", ids.toArray()));
+                try (ResultSet rs = ps.executeQuery()) {
+                    while (rs.next()) {
+                        removed.add(rs.getString(1));
+                        keys.add(new String[]{rs.getString(1)});
+                    }
+                }
+                changeLog.appendAll(conn, ChangeLogJdbc.COURSE, keys, ChangeLogJdbc.DELETE);
+                conn.commit();
+            } catch (SQLException ex) {
+                conn.rollback();
+                throw ex;
+            }
+            if (changeNotifier != null) UnitOfWork.afterCommit(config, () -> removed.forEach(changeNotifier::courseRemoved));
+            return removed.size();
+        } catch (SQLException e) {
+            logger.error("Bulk delete of {} courses failed", ids.size(), e);
+            throw new RuntimeException(e);
+        } finally {
+            metrics.record("courses.removeAll", System.nanoTime() - start);
+        }
+    }
+
     @Override
     public boolean updateCourse(String id, Course updated) {
         long start = System.nanoTime();
-        String sql = "UPDATE courses SET name = ?, credits = ? WHERE id = ?";
-        try (Connection conn = config.getConnection(); PreparedStatement ps = conn.prepareStatement(sql)) {
-            ps.setString(1, updated.getName());
-            ps.setInt(2, updated.getCredits());
-            ps.setString(3, id);
-            return ps.executeUpdate() > 0;
+        String sql = "UPDATE courses SET name = ?, credits = ?, version = " + RowVersions.NEXT + " WHERE id = ?";
+        try (Connection conn = UnitOfWork.connection(config)) {
+            conn.setAutoCommit(false);
+            boolean updatedRow;
+            try (PreparedStatement ps = conn.prepareStatement(sql)) {
+                Course previous = lockRow(conn, id);
+                ps.setString(1, updated.getName());
+                ps.setInt(2, updated.getCredits());
+                ps.setString(3, id);
+                updatedRow = previous != null && ps.executeUpdate() > 0;
+                if (updatedRow) {
+                    aggregates.recredit(conn, id, updated.getCredits() - previous.getCredits());
+                    changeLog.append(conn, ChangeLogJdbc.COURSE, id, null, ChangeLogJdbc.UPSERT);
+                }
+                conn.commit();
+            } catch (SQLException ex) {
+                conn.rollback();
+                throw ex;
+            }
+            if (updatedRow && changeNotifier != null) UnitOfWork.afterCommit(config, () -> changeNotifier.courseSaved(updated));
+            return updatedRow;
         } catch (SQLException e) {
             logger.error("Update failed for course {}", id, e);
             throw new RuntimeException(e);
@@ -131,6 +234,37 @@ public class CourseRepositoryJdbc implements CourseRepository {
         }
     }
 
+    @Override
+    public Optional<String> version(String id) {
+        try {
+            return RowVersions.ofRow(config, "SELECT version FROM courses WHERE id = ?", id);
+        } catch (SQLException e) {
+            logger.error("Failed to read version of course {}", id, e);
+            throw new RuntimeException(e);
+        }
+    }
+
+    @Override
+    public Optional<String> version() {
+        try {
+            return RowVersions.ofSet(config, "SELECT version AS v FROM courses");
+        } catch (SQLException e) {
+            logger.error("Failed to read courses version", e);
+            throw new RuntimeException(e);
+        }
+    }
+
+    // the stored row, locked for the rest of the transaction, or null if there is none. Its credits are what the
+    // summary tables were weighted with, so a credit change re-weights them by the difference.
+    private Course lockRow(Connection conn, String id) throws SQLException {
+        try (PreparedStatement ps = conn.prepareStatement("SELECT id, name, credits FROM courses WHERE id = ? FOR UPDATE")) {
+            ps.setString(1, id);
+            try (ResultSet rs = ps.executeQuery()) {
+                return rs.next() ? mapRow(rs) : null;
+            }
+        }
+    }
+
     private Course mapRow(ResultSet rs) throws SQLException {
         String id = rs.getString("id");
         String name = rs.getString("name");
@@ -138,6 +272,8 @@ public class CourseRepositoryJdbc implements CourseRepository {
         return new Course(id, name, credits);
     }
 
+    public void setChangeNotifier(EntityChangeNotifier changeNotifier) { this.changeNotifier = changeNotifier; }
+
     public MetricsCollector getMetricsCollector() { return metrics; }
 }
 
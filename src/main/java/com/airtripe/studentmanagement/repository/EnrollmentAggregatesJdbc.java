@@ -0,0 +1,172 @@
+package com.airtripe.studentmanagement.repository;
+
+import com.airtripe.studentmanagement.util.ConfigSingleton;
+import com.airtripe.studentmanagement.util.ConnectionProvider;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.sql.*;
+
+/**
+ * Summary tables kept in step with the enrollments table:
+ * course_enrollment_stats (enrollment_count, graded_count, grade_sum per course) and
+ * student_credit_totals (enrollment_count, credits per student). Deltas are applied by
+ * {@link EnrollmentRepositoryJdbc} on the same connection and transaction as the row change, so
+ * SQL dashboards (e.g. in the H2 console) read one row per course/student instead of grouping
+ * the whole enrollments table. Archived enrollments still count (archiving moves a row, it does not
+ * undo it); only deleting or purging one subtracts it. Credits are taken from the course row when the
+ * enrollment is created and re-weighted by {@link #recredit} when the course's credits change;
+ * {@link #rebuild()} recomputes everything from enrollments plus the archive.
+ */
+public class EnrollmentAggregatesJdbc {
+    private static final Logger logger = LoggerFactory.getLogger(EnrollmentAggregatesJdbc.class);
+    private static final String ALL_ROWS = "(SELECT student_id, course_id, grade FROM enrollments "
+            + "UNION ALL SELECT student_id, course_id, grade FROM enrollments_archive)";
+    private final ConnectionProvider config;
+
+    public EnrollmentAggregatesJdbc() {
+        this(ConfigSingleton.getInstance());
+    }
+
+    public EnrollmentAggregatesJdbc(ConnectionProvider config) {
+        this.config = config;
+    }
+
+    public void init() throws SQLException {
+        try (Connection conn = config.getConnection(); Statement st = conn.createStatement()) {
+            st.execute("CREATE TABLE IF NOT EXISTS course_enrollment_stats (course_id VARCHAR(100) PRIMARY KEY, enrollment_count BIGINT NOT NULL, graded_count BIGINT NOT NULL, grade_sum DOUBLE NOT NULL)");
+            st.execute("CREATE TABLE IF NOT EXISTS student_credit_totals (student_id VARCHAR(100) PRIMARY KEY, enrollment_count BIGINT NOT NULL, credits BIGINT NOT NULL)");
+            logger.info("enrollment summary tables ensured");
+        }
+    }
+
+    /**
+     * Apply the effect of one enrollment row changing from ({@code existed}, {@code previousGrade})
+     * to ({@code exists}, {@code grade}) using the caller's connection; the caller owns commit/rollback.
+     */
+    public void apply(Connection conn, String studentId, String courseId, boolean existed, Double previousGrade, boolean exists, Double grade) throws SQLException {
+        long enrolled = (exists ? 1 : 0) - (existed ? 1 : 0);
+        Double newGrade = exists ? grade : null;
+        long graded = (newGrade != null ? 1 : 0) - (previousGrade != null ? 1 : 0);
+        double sum = (newGrade != null ? newGrade : 0.0) - (previousGrade != null ? previousGrade : 0.0);
+        if (enrolled != 0 || graded != 0 || sum != 0.0) {
+            String sql = "MERGE INTO course_enrollment_stats t USING (VALUES (CAST(? AS VARCHAR(100)), CAST(? AS BIGINT), CAST(? AS BIGINT), CAST(? AS DOUBLE))) s(course_id, e, g, gs) ON t.course_id = s.course_id "
+                    + "WHEN MATCHED THEN UPDATE SET enrollment_count = t.enrollment_count + s.e, graded_count = t.graded_count + s.g, grade_sum = t.grade_sum + s.gs "
+                    + "WHEN NOT MATCHED THEN INSERT (course_id, enrollment_count, graded_count, grade_sum) VALUES (s.course_id, s.e, s.g, s.gs)";
+            try (PreparedStatement ps = conn.prepareStatement(sql)) {
+                ps.setString(1, courseId);
+                ps.setLong(2, enrolled);
+                ps.setLong(3, graded);
+                ps.setDouble(4, sum);
+                ps.executeUpdate();
+            }
+        }
+        if (enrolled != 0) {
+            String sql = "MERGE INTO student_credit_totals t USING (SELECT CAST(? AS VARCHAR(100)) student_id, CAST(? AS BIGINT) e, "
+                    + "CAST(? AS BIGINT) * COALESCE((SELECT credits FROM courses WHERE id = ?), 0) c) s ON t.student_id = s.student_id "
+                    + "WHEN MATCHED THEN UPDATE SET enrollment_count = t.enrollment_count + s.e, credits = t.credits + s.c "
+                    + "WHEN NOT MATCHED THEN INSERT (student_id, enrollment_count, credits) VALUES (s.student_id, s.e, s.c)";
+            try (PreparedStatement ps = conn.prepareStatement(sql)) {
+                ps.setString(1, studentId);
+                ps.setLong(2, enrolled);
+                ps.setLong(3, enrolled);
+                ps.setString(4, courseId);
+                ps.executeUpdate();
+            }
+        }
+        if (enrolled < 0) {
+            // keep the tables identical to what rebuild() would produce: no zero-count rows
+            try (PreparedStatement ps = conn.prepareStatement("DELETE FROM course_enrollment_stats WHERE course_id = ? AND enrollment_count = 0")) {
+                ps.setString(1, courseId);
+                ps.executeUpdate();
+            }
+            try (PreparedStatement ps = conn.prepareStatement("DELETE FROM student_credit_totals WHERE student_id = ? AND enrollment_count = 0")) {
+                ps.setString(1, studentId);
+                ps.executeUpdate();
+            }
+        }
+    }
+
+    /**
+     * Subtract every enrollment matching {@code filter} (a condition on enrollments aliased {@code e},
+     * with {@code params} bound in order) as two set-based MERGEs; call before those rows are deleted,
+     * on the caller's connection.
+     */
+    public void subtract(Connection conn, String filter, Object... params) throws SQLException {
+        subtractFrom(conn, "enrollments", filter, params);
+    }
+
+    /** {@link #subtract} for rows of {@code table} (enrollments or enrollments_archive). */
+    public void subtractFrom(Connection conn, String table, String filter, Object... params) throws SQLException {
+        String courseSql = "MERGE INTO course_enrollment_stats t USING (SELECT e.course_id, COUNT(*) n, COUNT(e.grade) g, COALESCE(SUM(e.grade), 0) gs "
+                + "FROM " + table + " e WHERE " + filter + " GROUP BY e.course_id) s ON t.course_id = s.course_id "
+                + "WHEN MATCHED THEN UPDATE SET enrollment_count = t.enrollment_count - s.n, graded_count = t.graded_count - s.g, grade_sum = t.grade_sum - s.gs";
+        String studentSql = "MERGE INTO student_credit_totals t USING (SELECT e.student_id, COUNT(*) n, COALESCE(SUM(c.credits), 0) cr "
+                + "FROM " + table + " e LEFT JOIN courses c ON c.id = e.course_id WHERE " + filter + " GROUP BY e.student_id) s ON t.student_id = s.student_id "
+                + "WHEN MATCHED THEN UPDATE SET enrollment_count = t.enrollment_count - s.n, credits = t.credits - s.cr";
+        for (String sql : new String[]{courseSql, studentSql}) {
+            try (PreparedStatement ps = conn.prepareStatement(sql)) {
+                for (int i = 0; i < params.length; i++) ps.setObject(i + 1, params[i]);
+                ps.executeUpdate();
+            }
+        }
+        try (Statement st = conn.createStatement()) {
+            st.executeUpdate("DELETE FROM course_enrollment_stats WHERE enrollment_count = 0");
+            st.executeUpdate("DELETE FROM student_credit_totals WHERE enrollment_count = 0");
+        }
+    }
+
+    /**
+     * Add {@code delta} credits per enrollment (current or archived) in {@code courseId} to each of its
+     * students' totals, on the caller's connection. {@link CourseRepositoryJdbc} calls this in the
+     * transaction that changes the course's credits, after locking the course row; enrollment writes take
+     * that lock too, so none of them lands between the count and the update. A no-op in a database
+     * without the summary tables (a course repository used on its own).
+     */
+    public void recredit(Connection conn, String courseId, long delta) throws SQLException {
+        if (delta == 0 || !tablesExist(conn)) return;
+        String sql = "MERGE INTO student_credit_totals t USING (SELECT e.student_id, COUNT(*) n FROM "
+                + "(SELECT student_id FROM enrollments WHERE course_id = ? UNION ALL SELECT student_id FROM enrollments_archive WHERE course_id = ?) e "
+                + "GROUP BY e.student_id) s ON t.student_id = s.student_id "
+                + "WHEN MATCHED THEN UPDATE SET credits = t.credits + s.n * CAST(? AS BIGINT)";
+        try (PreparedStatement ps = conn.prepareStatement(sql)) {
+            ps.setString(1, courseId);
+            ps.setString(2, courseId);
+            ps.setLong(3, delta);
+            ps.executeUpdate();
+        }
+    }
+
+    private static boolean tablesExist(Connection conn) throws SQLException {
+        for (String table : new String[]{"STUDENT_CREDIT_TOTALS", "ENROLLMENTS_ARCHIVE"}) {
+            try (ResultSet rs = conn.getMetaData().getTables(null, null, table, null)) {
+                if (!rs.next()) return false;
+            }
+        }
+        return true;
+    }
+
+    /** Recompute both summary tables from enrollments, enrollments_archive and courses in one transaction. */
+    public void rebuild() {
+        long start = System.nanoTime();
+        try (Connection conn = config.getConnection()) {
+            conn.setAutoCommit(false);
+            try (Statement st = conn.createStatement()) {
+                st.executeUpdate("DELETE FROM course_enrollment_stats");
+                st.executeUpdate("DELETE FROM student_credit_totals");
+                st.executeUpdate("INSERT INTO course_enrollment_stats (course_id, enrollment_count, graded_count, grade_sum) "
+                        + "SELECT course_id, COUNT(*), COUNT(grade), COALESCE(SUM(grade), 0) FROM " + ALL_ROWS + " e GROUP BY course_id");
+                st.executeUpdate("INSERT INTO student_credit_totals (student_id, enrollment_count, credits) "
+                        + "SELECT e.student_id, COUNT(*), COALESCE(SUM(c.credits), 0) FROM " + ALL_ROWS + " e LEFT JOIN courses c ON c.id = e.course_id GROUP BY e.student_id");
+                conn.commit();
+            } catch (SQLException ex) {
+                conn.rollback();
+                throw ex;
+            }
+            logger.info("Enrollment summary tables rebuilt in {} ms", (System.nanoTime() - start) / 1_000_000);
+        } catch (SQLException e) {
+            logger.error("Failed to rebuild enrollment summary tables", e);
+            throw new RuntimeException(e);
+        }
+    }
+}
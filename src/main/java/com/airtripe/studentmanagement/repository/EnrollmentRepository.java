@@ -5,6 +5,7 @@ import com.airtripe.studentmanagement.entity.Enrollment;
 import com.airtripe.studentmanagement.entity.Student;
 import com.airtripe.studentmanagement.entity.Course;
 
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
@@ -15,6 +16,35 @@ public interface EnrollmentRepository {
     List<Enrollment> findByCourseId(String courseId);
     List<Enrollment> findAll();
     boolean remove(String studentId, String courseId);
+    /** With {@code includeArchived}, also archived enrollments; stores without an archive return the current ones. */
+    default List<Enrollment> findByStudentId(String studentId, boolean includeArchived) { return findByStudentId(studentId); }
+    default List<Enrollment> findByCourseId(String courseId, boolean includeArchived) { return findByCourseId(courseId); }
+    default List<Enrollment> findAll(boolean includeArchived) { return findAll(); }
+    /** Remove all enrollments of the listed students; returns the number of rows removed. */
+    default int removeByStudentIds(Collection<String> studentIds) {
+        int removed = 0;
+        for (String sid : studentIds) {
+            for (Enrollment e : findByStudentId(sid)) if (remove(sid, e.getCourse().getId())) removed++;
+        }
+        return removed;
+    }
+    /** Remove all enrollments in the listed courses; returns the number of rows removed. */
+    default int removeByCourseIds(Collection<String> courseIds) {
+        int removed = 0;
+        for (String cid : courseIds) {
+            for (Enrollment e : findByCourseId(cid)) if (remove(e.getStudent().getId(), cid)) removed++;
+        }
+        return removed;
+    }
+    /**
+     * An opaque token that changes whenever {@link #findByCourseId(String)} would return something different
+     * (including a change to an enrolled student or the course itself); empty if the store does not track versions.
+     */
+    default Optional<String> versionByCourseId(String courseId) { return Optional.empty(); }
+    /** Likewise for {@link #findByStudentId(String)}. */
+    default Optional<String> versionByStudentId(String studentId) { return Optional.empty(); }
+    /** Likewise for {@link #findAll()}. */
+    default Optional<String> version() { return Optional.empty(); }
     void init() throws Exception;
 }
 
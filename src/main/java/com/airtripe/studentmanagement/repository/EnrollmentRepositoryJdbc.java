@@ -3,7 +3,9 @@ package com.airtripe.studentmanagement.repository;
 import com.airtripe.studentmanagement.entity.Enrollment;
 import com.airtripe.studentmanagement.entity.Student;
 import com.airtripe.studentmanagement.entity.Course;
+import com.airtripe.studentmanagement.observer.EntityChangeNotifier;
 import com.airtripe.studentmanagement.util.ConfigSingleton;
+import com.airtripe.studentmanagement.util.ConnectionProvider;
 import com.airtripe.studentmanagement.util.MetricsCollector;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -11,17 +13,24 @@ import org.slf4j.LoggerFactory;
 import java.sql.*;
 import java.time.LocalDate;
 import java.util.ArrayList;
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
+import java.util.concurrent.atomic.AtomicInteger;
 
 public class EnrollmentRepositoryJdbc implements EnrollmentRepository {
     private static final Logger logger = LoggerFactory.getLogger(EnrollmentRepositoryJdbc.class);
-    private final ConfigSingleton config = ConfigSingleton.getInstance();
+    private final ConnectionProvider config;
     private final MetricsCollector metrics = new MetricsCollector();
+    private EntityChangeNotifier changeNotifier; // optional, set by the application wiring
+    private boolean initialized;
 
     // use repository interfaces so this class can accept different implementations
     private final StudentRepository studentRepo;
     private final CourseRepository courseRepo;
+    private final GradeOutboxJdbc outbox;
+    private final EnrollmentAggregatesJdbc aggregates;
+    private final ChangeLogJdbc changeLog;
 
     // default no-arg constructor for compatibility: uses JDBC implementations
     public EnrollmentRepositoryJdbc() {
@@ -30,19 +39,70 @@ public class EnrollmentRepositoryJdbc implements EnrollmentRepository {
 
     // constructor for DI/testing
     public EnrollmentRepositoryJdbc(StudentRepository studentRepo, CourseRepository courseRepo) {
+        this(studentRepo, courseRepo, ConfigSingleton.getInstance());
+    }
+
+    // enrollments (and their outbox/summary tables) live in the database behind {@code config}
+    public EnrollmentRepositoryJdbc(StudentRepository studentRepo, CourseRepository courseRepo, ConnectionProvider config) {
         this.studentRepo = studentRepo;
         this.courseRepo = courseRepo;
+        this.config = config;
+        this.outbox = new GradeOutboxJdbc(config);
+        this.aggregates = new EnrollmentAggregatesJdbc(config);
+        this.changeLog = new ChangeLogJdbc(config);
     }
 
     @Override
-    public void init() throws Exception {
-        // ensure dependent tables
+    public synchronized void init() throws Exception {
+        if (initialized) return;
+        // ensure dependent tables (their init is idempotent, so this is cheap if already done)
         studentRepo.init();
         courseRepo.init();
-        try (Connection conn = config.getConnection(); Statement st = conn.createStatement()) {
-            st.execute("CREATE TABLE IF NOT EXISTS enrollments (student_id VARCHAR(100), course_id VARCHAR(100), enrolled_on DATE, grade DOUBLE, PRIMARY KEY(student_id, course_id))");
-            logger.info("enrollments table ensured");
-        }
+        AtomicInteger orphans = new AtomicInteger();
+        int version = new SchemaMigrator(config, "enrollments")
+                .step(1, "create enrollments",
+                        "CREATE TABLE IF NOT EXISTS enrollments (student_id VARCHAR(100), course_id VARCHAR(100), enrolled_on DATE, grade DOUBLE, PRIMARY KEY(student_id, course_id))")
+                // the primary key leads with student_id, so findByCourseId needs its own index (ordered like its ORDER BY)
+                .step(2, "course index", "CREATE INDEX IF NOT EXISTS idx_enrollments_course ON enrollments(course_id, student_id)")
+                // rows left behind by earlier parent deletes would violate the constraints, so drop them first
+                .step(3, "foreign keys", st -> {
+                    orphans.set(st.executeUpdate("DELETE FROM enrollments e WHERE NOT EXISTS (SELECT 1 FROM students s WHERE s.id = e.student_id)"
+                            + " OR NOT EXISTS (SELECT 1 FROM courses c WHERE c.id = e.course_id)"));
+                    if (orphans.get() > 0) logger.warn("Removed {} enrollments whose student or course no longer exists", orphans.get());
+                    st.execute("ALTER TABLE enrollments ADD CONSTRAINT IF NOT EXISTS fk_enrollments_student FOREIGN KEY (student_id) REFERENCES students(id) ON DELETE CASCADE");
+                    st.execute("ALTER TABLE enrollments ADD CONSTRAINT IF NOT EXISTS fk_enrollments_course FOREIGN KEY (course_id) REFERENCES courses(id) ON DELETE CASCADE");
+                })
+                // past terms move to enrollments_archive (see archiveBefore); enrolled_on drives both sides
+                .step(4, "archive",
+                        "CREATE INDEX IF NOT EXISTS idx_enrollments_enrolled_on ON enrollments(enrolled_on)",
+                        "CREATE TABLE IF NOT EXISTS enrollments_archive (student_id VARCHAR(100), course_id VARCHAR(100), enrolled_on DATE, grade DOUBLE, archived_at TIMESTAMP, "
+                                + "PRIMARY KEY(student_id, course_id, enrolled_on), "
+                                + "CONSTRAINT fk_archive_student FOREIGN KEY (student_id) REFERENCES students(id) ON DELETE CASCADE, "
+                                + "CONSTRAINT fk_archive_course FOREIGN KEY (course_id) REFERENCES courses(id) ON DELETE CASCADE)",
+                        "CREATE INDEX IF NOT EXISTS idx_enrollments_archive_course ON enrollments_archive(course_id)",
+                        "CREATE INDEX IF NOT EXISTS idx_enrollments_archive_enrolled_on ON enrollments_archive(enrolled_on)")
+                .step(5, "row versions", RowVersions.CREATE_SEQUENCE, RowVersions.addColumn("enrollments"))
+                // a cascade deleted enrollments behind the summary tables, change log and listeners; parents are
+                // now removed through CascadeDeleteService, which deletes their enrollments through this repository
+                .step(6, "restrict parent deletes",
+                        "ALTER TABLE enrollments DROP CONSTRAINT IF EXISTS fk_enrollments_student",
+                        "ALTER TABLE enrollments DROP CONSTRAINT IF EXISTS fk_enrollments_course",
+                        "ALTER TABLE enrollments ADD CONSTRAINT fk_enrollments_student FOREIGN KEY (student_id) REFERENCES students(id)",
+                        "ALTER TABLE enrollments ADD CONSTRAINT fk_enrollments_course FOREIGN KEY (course_id) REFERENCES courses(id)")
+                // archived rows count in the summary tables too, so they may not vanish behind them either
+                .step(7, "restrict parent deletes (archive)",
+                        "ALTER TABLE enrollments_archive DROP CONSTRAINT IF EXISTS fk_archive_student",
+                        "ALTER TABLE enrollments_archive DROP CONSTRAINT IF EXISTS fk_archive_course",
+                        "ALTER TABLE enrollments_archive ADD CONSTRAINT fk_archive_student FOREIGN KEY (student_id) REFERENCES students(id)",
+                        "ALTER TABLE enrollments_archive ADD CONSTRAINT fk_archive_course FOREIGN KEY (course_id) REFERENCES courses(id)")
+                .migrate();
+        logger.info("enrollments table ensured (schema v{})", version);
+        outbox.init();
+        aggregates.init();
+        changeLog.init();
+        // the summary tables may still count the orphans step 3 removed
+        if (orphans.get() > 0) aggregates.rebuild();
+        initialized = true;
     }
 
     @Override
@@ -51,27 +111,96 @@ public class EnrollmentRepositoryJdbc implements EnrollmentRepository {
         // ensure student and course exist (MERGE semantics in their repos)
         studentRepo.addStudent(e.getStudent());
         courseRepo.addCourse(e.getCourse());
-        String sql = "MERGE INTO enrollments (student_id, course_id, enrolled_on, grade) KEY(student_id, course_id) VALUES (?, ?, ?, ?)";
-        try (Connection conn = config.getConnection(); PreparedStatement ps = conn.prepareStatement(sql)) {
-            ps.setString(1, e.getStudent().getId());
-            ps.setString(2, e.getCourse().getId());
-            ps.setDate(3, Date.valueOf(e.getEnrolledOn()));
-            if (e.getGrade().isPresent()) ps.setDouble(4, e.getGrade().get()); else ps.setNull(4, Types.DOUBLE);
-            ps.executeUpdate();
+        String sid = e.getStudent().getId();
+        String cid = e.getCourse().getId();
+        Double grade = e.getGrade().orElse(null);
+        String sql = "MERGE INTO enrollments (student_id, course_id, enrolled_on, grade, version) KEY(student_id, course_id) VALUES (?, ?, ?, ?, " + RowVersions.NEXT + ")";
+        try (Connection conn = UnitOfWork.connection(config)) {
+            // the MERGE, its outbox and change-log rows and the summary-table deltas commit (or roll back) together
+            conn.setAutoCommit(false);
+            try {
+                lockParents(conn, sid, cid);
+                ExistingRow existing = selectExisting(conn, sid, cid);
+                Double previous = existing == null ? null : existing.grade;
+                try (PreparedStatement ps = conn.prepareStatement(sql)) {
+                    ps.setString(1, sid);
+                    ps.setString(2, cid);
+                    ps.setDate(3, Date.valueOf(e.getEnrolledOn()));
+                    if (grade != null) ps.setDouble(4, grade); else ps.setNull(4, Types.DOUBLE);
+                    ps.executeUpdate();
+                }
+                aggregates.apply(conn, sid, cid, existing != null, previous, true, grade);
+                // log appends come last: they hold the log sequence lock until the commit
+                if (grade != null && !grade.equals(previous)) {
+                    outbox.append(conn, sid, cid, grade, previous);
+                }
+                changeLog.append(conn, ChangeLogJdbc.ENROLLMENT, sid, cid, ChangeLogJdbc.UPSERT);
+                conn.commit();
+            } catch (SQLException ex) {
+                conn.rollback();
+                throw ex;
+            }
+            if (changeNotifier != null) UnitOfWork.afterCommit(config, () -> changeNotifier.enrollmentSaved(e));
             return e;
         } catch (SQLException ex) {
-            logger.error("Failed to add enrollment {}-{}", e.getStudent().getId(), e.getCourse().getId(), ex);
+            logger.error("Failed to add enrollment {}-{}", sid, cid, ex);
             throw new RuntimeException(ex);
         } finally {
             metrics.record("enrollments.add", System.nanoTime() - start);
         }
     }
 
+    // FOR UPDATE on a missing enrollment row locks nothing, so two first inserts of the same pair would
+    // both see no row and both count it in the summary tables. Writers of a pair serialize on its
+    // parents instead (student, then course, the order every enrollment write takes them in); this
+    // also keeps a cascade delete of either parent from racing the insert.
+    private static void lockParents(Connection conn, String studentId, String courseId) throws SQLException {
+        lockRows(conn, "students", conn.createArrayOf("VARCHAR", new Object[]{studentId}));
+        lockRows(conn, "courses", conn.createArrayOf("VARCHAR", new Object[]{courseId}));
+    }
+
+    private static void lockRows(Connection conn, String table, Array ids) throws SQLException {
+        try (PreparedStatement ps = conn.prepareStatement("SELECT id FROM " + table + " WHERE id = ANY(?) ORDER BY id FOR UPDATE")) {
+            ps.setArray(1, ids);
+            ps.executeQuery().close();
+        }
+    }
+
+    // the courses of every current or archived row matching column = ANY(ids), after their students (the usual
+    // order): the credits subtracted for those rows then can't change under a concurrent course update
+    private static void lockCoursesOf(Connection conn, String column, Array ids) throws SQLException {
+        String sql = "SELECT id FROM courses WHERE id IN (SELECT course_id FROM enrollments WHERE " + column + " = ANY(?) "
+                + "UNION SELECT course_id FROM enrollments_archive WHERE " + column + " = ANY(?)) ORDER BY id FOR UPDATE";
+        try (PreparedStatement ps = conn.prepareStatement(sql)) {
+            ps.setArray(1, ids);
+            ps.setArray(2, ids);
+            ps.executeQuery().close();
+        }
+    }
+
+    // the current row, or null if there is none; read inside the write transaction
+    private ExistingRow selectExisting(Connection conn, String studentId, String courseId) throws SQLException {
+        String sql = "SELECT grade FROM enrollments WHERE student_id = ? AND course_id = ? FOR UPDATE";
+        try (PreparedStatement ps = conn.prepareStatement(sql)) {
+            ps.setString(1, studentId);
+            ps.setString(2, courseId);
+            try (ResultSet rs = ps.executeQuery()) {
+                return rs.next() ? new ExistingRow(rs.getObject("grade", Double.class)) : null;
+            }
+        }
+    }
+
+    private static final class ExistingRow {
+        final Double grade;
+
+        ExistingRow(Double grade) { this.grade = grade; }
+    }
+
     @Override
     public Optional<Enrollment> find(Student student, Course course) {
         long start = System.nanoTime();
         String sql = "SELECT student_id, course_id, enrolled_on, grade FROM enrollments WHERE student_id = ? AND course_id = ?";
-        try (Connection conn = config.getConnection(); PreparedStatement ps = conn.prepareStatement(sql)) {
+        try (Connection conn = UnitOfWork.connection(config); PreparedStatement ps = conn.prepareStatement(sql)) {
             ps.setString(1, student.getId());
             ps.setString(2, course.getId());
             try (ResultSet rs = ps.executeQuery()) {
@@ -91,7 +220,7 @@ public class EnrollmentRepositoryJdbc implements EnrollmentRepository {
         long start = System.nanoTime();
         String sql = "SELECT student_id, course_id, enrolled_on, grade FROM enrollments WHERE student_id = ? ORDER BY course_id";
         List<Enrollment> out = new ArrayList<>();
-        try (Connection conn = config.getConnection(); PreparedStatement ps = conn.prepareStatement(sql)) {
+        try (Connection conn = UnitOfWork.connection(config); PreparedStatement ps = conn.prepareStatement(sql)) {
             ps.setString(1, studentId);
             try (ResultSet rs = ps.executeQuery()) {
                 while (rs.next()) out.add(mapRow(rs));
@@ -110,7 +239,7 @@ public class EnrollmentRepositoryJdbc implements EnrollmentRepository {
         long start = System.nanoTime();
         String sql = "SELECT student_id, course_id, enrolled_on, grade FROM enrollments WHERE course_id = ? ORDER BY student_id";
         List<Enrollment> out = new ArrayList<>();
-        try (Connection conn = config.getConnection(); PreparedStatement ps = conn.prepareStatement(sql)) {
+        try (Connection conn = UnitOfWork.connection(config); PreparedStatement ps = conn.prepareStatement(sql)) {
             ps.setString(1, courseId);
             try (ResultSet rs = ps.executeQuery()) {
                 while (rs.next()) out.add(mapRow(rs));
@@ -124,12 +253,174 @@ public class EnrollmentRepositoryJdbc implements EnrollmentRepository {
         }
     }
 
+    @Override
+    public List<Enrollment> findByStudentId(String studentId, boolean includeArchived) {
+        if (!includeArchived) return findByStudentId(studentId);
+        return findWithHistory("student_id", studentId, "enrollments.findByStudentWithHistory");
+    }
+
+    @Override
+    public List<Enrollment> findByCourseId(String courseId, boolean includeArchived) {
+        if (!includeArchived) return findByCourseId(courseId);
+        return findWithHistory("course_id", courseId, "enrollments.findByCourseWithHistory");
+    }
+
+    // the opt-in historical scan: current rows plus the archive, oldest first
+    private List<Enrollment> findWithHistory(String column, String id, String metric) {
+        long start = System.nanoTime();
+        String sql = "SELECT student_id, course_id, enrolled_on, grade FROM enrollments WHERE " + column + " = ? "
+                + "UNION ALL SELECT student_id, course_id, enrolled_on, grade FROM enrollments_archive WHERE " + column + " = ? "
+                + "ORDER BY enrolled_on, student_id, course_id";
+        List<Enrollment> out = new ArrayList<>();
+        try (Connection conn = UnitOfWork.connection(config); PreparedStatement ps = conn.prepareStatement(sql)) {
+            ps.setString(1, id);
+            ps.setString(2, id);
+            try (ResultSet rs = ps.executeQuery()) {
+                while (rs.next()) out.add(mapRow(rs));
+            }
+            return out;
+        } catch (SQLException e) {
+            logger.error("Failed to read enrollment history for {} {}", column, id, e);
+            throw new RuntimeException(e);
+        } finally {
+            metrics.record(metric, System.nanoTime() - start);
+        }
+    }
+
+    /**
+     * Move enrollments that started before {@code cutoff} to enrollments_archive, {@code batchSize}
+     * rows per transaction so the hot table is never locked for long. This is a storage move: the
+     * summary tables keep counting the rows and listeners are told they were archived, not removed,
+     * so transcripts, statistics and credit totals still include past terms. Returns the number of
+     * rows archived.
+     */
+    public int archiveBefore(LocalDate cutoff, int batchSize) {
+        long start = System.nanoTime();
+        // the batch is read (and locked) once; the copy and the delete are bound to exactly those keys
+        String batch = "(e.student_id, e.course_id) IN (SELECT * FROM UNNEST(?, ?))";
+        int total = 0;
+        try (Connection conn = config.getConnection()) {
+            conn.setAutoCommit(false);
+            while (true) {
+                List<String[]> moved = new ArrayList<>();
+                try {
+                    try (PreparedStatement ps = conn.prepareStatement("SELECT student_id, course_id FROM enrollments WHERE enrolled_on < ? "
+                            + "ORDER BY enrolled_on, student_id, course_id LIMIT ? FOR UPDATE")) {
+                        ps.setDate(1, Date.valueOf(cutoff));
+                        ps.setInt(2, batchSize);
+                        try (ResultSet rs = ps.executeQuery()) {
+                            while (rs.next()) moved.add(new String[]{rs.getString(1), rs.getString(2)});
+                        }
+                    }
+                    if (!moved.isEmpty()) {
+                        Array studentIds = column(conn, "VARCHAR", moved, 0);
+                        Array courseIds = column(conn, "VARCHAR", moved, 1);
+                        try (PreparedStatement ps = conn.prepareStatement("MERGE INTO enrollments_archive (student_id, course_id, enrolled_on, grade, archived_at) "
+                                + "KEY(student_id, course_id, enrolled_on) SELECT e.student_id, e.course_id, e.enrolled_on, e.grade, CURRENT_TIMESTAMP FROM enrollments e WHERE " + batch)) {
+                            ps.setArray(1, studentIds);
+                            ps.setArray(2, courseIds);
+                            ps.executeUpdate();
+                        }
+                        try (PreparedStatement ps = conn.prepareStatement("DELETE FROM enrollments e WHERE " + batch)) {
+                            ps.setArray(1, studentIds);
+                            ps.setArray(2, courseIds);
+                            ps.executeUpdate();
+                        }
+                        // to a sync client an archived row is gone from the current roster
+                        changeLog.appendAll(conn, ChangeLogJdbc.ENROLLMENT, moved, ChangeLogJdbc.DELETE);
+                    }
+                    conn.commit();
+                } catch (SQLException ex) {
+                    conn.rollback();
+                    throw ex;
+                }
+                total += moved.size();
+                if (changeNotifier != null) moved.forEach(k -> changeNotifier.enrollmentArchived(k[0], k[1]));
+                if (moved.size() < batchSize) break;
+            }
+            logger.info("Archived {} enrollments from before {}", total, cutoff);
+            return total;
+        } catch (SQLException e) {
+            logger.error("Archiving enrollments before {} failed after {} rows", cutoff, total, e);
+            throw new RuntimeException(e);
+        } finally {
+            metrics.record("enrollments.archive", System.nanoTime() - start);
+        }
+    }
+
+    /**
+     * Permanently delete archived enrollments that started before {@code cutoff}, in batches. Unlike
+     * archiving this does take them out of the summary tables, and listeners see a removal for every
+     * purged (student, course) pair that is not also in the current table.
+     */
+    public int purgeArchiveBefore(LocalDate cutoff, int batchSize) {
+        long start = System.nanoTime();
+        String batch = "(e.student_id, e.course_id, e.enrolled_on) IN (SELECT * FROM UNNEST(?, ?, ?))";
+        int total = 0;
+        try (Connection conn = config.getConnection()) {
+            conn.setAutoCommit(false);
+            while (true) {
+                List<Object[]> purged = new ArrayList<>();
+                List<String[]> gone = new ArrayList<>();
+                try {
+                    try (PreparedStatement ps = conn.prepareStatement("SELECT student_id, course_id, enrolled_on FROM enrollments_archive WHERE enrolled_on < ? "
+                            + "ORDER BY enrolled_on, student_id, course_id LIMIT ? FOR UPDATE")) {
+                        ps.setDate(1, Date.valueOf(cutoff));
+                        ps.setInt(2, batchSize);
+                        try (ResultSet rs = ps.executeQuery()) {
+                            while (rs.next()) purged.add(new Object[]{rs.getString(1), rs.getString(2), rs.getDate(3)});
+                        }
+                    }
+                    if (!purged.isEmpty()) {
+                        Object[] keys = {column(conn, "VARCHAR", purged, 0), column(conn, "VARCHAR", purged, 1), column(conn, "DATE", purged, 2)};
+                        lockRows(conn, "courses", (Array) keys[1]); // subtracted at the credits a concurrent course update can't change
+                        aggregates.subtractFrom(conn, "enrollments_archive", batch, keys);
+                        try (PreparedStatement ps = conn.prepareStatement("SELECT DISTINCT e.student_id, e.course_id FROM enrollments_archive e WHERE " + batch
+                                + " AND NOT EXISTS (SELECT 1 FROM enrollments l WHERE l.student_id = e.student_id AND l.course_id = e.course_id)")) {
+                            for (int i = 0; i < keys.length; i++) ps.setObject(i + 1, keys[i]);
+                            try (ResultSet rs = ps.executeQuery()) {
+                                while (rs.next()) gone.add(new String[]{rs.getString(1), rs.getString(2)});
+                            }
+                        }
+                        try (PreparedStatement ps = conn.prepareStatement("DELETE FROM enrollments_archive e WHERE " + batch)) {
+                            for (int i = 0; i < keys.length; i++) ps.setObject(i + 1, keys[i]);
+                            ps.executeUpdate();
+                        }
+                    }
+                    conn.commit();
+                } catch (SQLException ex) {
+                    conn.rollback();
+                    throw ex;
+                }
+                total += purged.size();
+                if (changeNotifier != null) gone.forEach(k -> changeNotifier.enrollmentRemoved(k[0], k[1]));
+                if (purged.size() < batchSize) break;
+            }
+            return total;
+        } catch (SQLException e) {
+            logger.error("Purging archived enrollments before {} failed after {} rows", cutoff, total, e);
+            throw new RuntimeException(e);
+        } finally {
+            metrics.record("enrollments.purgeArchive", System.nanoTime() - start);
+        }
+    }
+
+    // one column of a batch of keys, as an array for UNNEST
+    private static Array column(Connection conn, String type, List<? extends Object[]> keys, int index) throws SQLException {
+        Object[] values = new Object[keys.size()];
+        for (int i = 0; i < values.length; i++) {
+            Object[] key = keys.get(i);
+            values[i] = key[index];
+        }
+        return conn.createArrayOf(type, values);
+    }
+
     @Override
     public List<Enrollment> findAll() {
         long start = System.nanoTime();
         String sql = "SELECT student_id, course_id, enrolled_on, grade FROM enrollments ORDER BY student_id, course_id";
         List<Enrollment> out = new ArrayList<>();
-        try (Connection conn = config.getConnection(); PreparedStatement ps = conn.prepareStatement(sql); ResultSet rs = ps.executeQuery()) {
+        try (Connection conn = UnitOfWork.connection(config); PreparedStatement ps = conn.prepareStatement(sql); ResultSet rs = ps.executeQuery()) {
             while (rs.next()) out.add(mapRow(rs));
             return out;
         } catch (SQLException e) {
@@ -140,14 +431,51 @@ public class EnrollmentRepositoryJdbc implements EnrollmentRepository {
         }
     }
 
+    @Override
+    public List<Enrollment> findAll(boolean includeArchived) {
+        if (!includeArchived) return findAll();
+        long start = System.nanoTime();
+        String sql = "SELECT student_id, course_id, enrolled_on, grade FROM enrollments "
+                + "UNION ALL SELECT student_id, course_id, enrolled_on, grade FROM enrollments_archive ORDER BY enrolled_on, student_id, course_id";
+        List<Enrollment> out = new ArrayList<>();
+        try (Connection conn = UnitOfWork.connection(config); PreparedStatement ps = conn.prepareStatement(sql); ResultSet rs = ps.executeQuery()) {
+            while (rs.next()) out.add(mapRow(rs));
+            return out;
+        } catch (SQLException e) {
+            logger.error("Failed to fetch enrollment history", e);
+            throw new RuntimeException(e);
+        } finally {
+            metrics.record("enrollments.findAllWithHistory", System.nanoTime() - start);
+        }
+    }
+
     @Override
     public boolean remove(String studentId, String courseId) {
         long start = System.nanoTime();
         String sql = "DELETE FROM enrollments WHERE student_id = ? AND course_id = ?";
-        try (Connection conn = config.getConnection(); PreparedStatement ps = conn.prepareStatement(sql)) {
-            ps.setString(1, studentId);
-            ps.setString(2, courseId);
-            return ps.executeUpdate() > 0;
+        try (Connection conn = UnitOfWork.connection(config)) {
+            conn.setAutoCommit(false);
+            boolean removed;
+            try {
+                // the course lock keeps a concurrent credit change from re-weighting this row after we subtract it
+                lockParents(conn, studentId, courseId);
+                ExistingRow existing = selectExisting(conn, studentId, courseId);
+                try (PreparedStatement ps = conn.prepareStatement(sql)) {
+                    ps.setString(1, studentId);
+                    ps.setString(2, courseId);
+                    removed = ps.executeUpdate() > 0;
+                }
+                if (removed) {
+                    aggregates.apply(conn, studentId, courseId, true, existing == null ? null : existing.grade, false, null);
+                    changeLog.append(conn, ChangeLogJdbc.ENROLLMENT, studentId, courseId, ChangeLogJdbc.DELETE);
+                }
+                conn.commit();
+            } catch (SQLException ex) {
+                conn.rollback();
+                throw ex;
+            }
+            if (removed && changeNotifier != null) UnitOfWork.afterCommit(config, () -> changeNotifier.enrollmentRemoved(studentId, courseId));
+            return removed;
         } catch (SQLException e) {
             logger.error("Delete failed for enrollment {}-{}", studentId, courseId, e);
             throw new RuntimeException(e);
@@ -156,6 +484,92 @@ public class EnrollmentRepositoryJdbc implements EnrollmentRepository {
         }
     }
 
+    @Override
+    public int removeByStudentIds(Collection<String> studentIds) {
+        return removeWhere("student_id", "students", studentIds, "enrollments.removeByStudents");
+    }
+
+    @Override
+    public int removeByCourseIds(Collection<String> courseIds) {
+        return removeWhere("course_id", "courses", courseIds, "enrollments.removeByCourses");
+    }
+
+    // summary-table deltas and a single DELETE for every matching row, in one transaction. The parent
+    // rows are locked first: inside a unit of work that goes on to delete the parents (CascadeDeleteService),
+    // a concurrent add() waits on them instead of committing an enrollment the parent delete would remove
+    // behind the summary tables' and listeners' backs.
+    private int removeWhere(String column, String parentTable, Collection<String> ids, String metric) {
+        if (ids.isEmpty()) return 0;
+        long start = System.nanoTime();
+        String sql = "SELECT student_id, course_id FROM OLD TABLE (DELETE FROM enrollments WHERE " + column + " = ANY(?))";
+        try (Connection conn = UnitOfWork.connection(config)) {
+            conn.setAutoCommit(false);
+            List<String[]> removed = new ArrayList<>();
+            try {
+                Array keys = conn.createArrayOf("VARCHAR", ids.toArray());
+                lockRows(conn, parentTable, keys);
+                if (!"courses".equals(parentTable)) lockCoursesOf(conn, column, keys);
+                aggregates.subtract(conn, "e." + column + " = ANY(?)", keys);
+                try (PreparedStatement ps = conn.prepareStatement(sql)) {
+                    ps.setArray(1, keys);
+                    try (ResultSet rs = ps.executeQuery()) {
+                        while (rs.next()) removed.add(new String[]{rs.getString(1), rs.getString(2)});
+                    }
+                }
+                // the parents' archived history goes too, and leaves the summary tables with it
+                aggregates.subtractFrom(conn, "enrollments_archive", "e." + column + " = ANY(?)", keys);
+                try (PreparedStatement ps = conn.prepareStatement("DELETE FROM enrollments_archive WHERE " + column + " = ANY(?)")) {
+                    ps.setArray(1, keys);
+                    ps.executeUpdate();
+                }
+                changeLog.appendAll(conn, ChangeLogJdbc.ENROLLMENT, removed, ChangeLogJdbc.DELETE);
+                conn.commit();
+            } catch (SQLException ex) {
+                conn.rollback();
+                throw ex;
+            }
+            if (changeNotifier != null) UnitOfWork.afterCommit(config, () -> removed.forEach(k -> changeNotifier.enrollmentRemoved(k[0], k[1])));
+            return removed.size();
+        } catch (SQLException e) {
+            logger.error("Bulk delete of enrollments by {} failed", column, e);
+            throw new RuntimeException(e);
+        } finally {
+            metrics.record(metric, System.nanoTime() - start);
+        }
+    }
+
+    // a roster nests the full student and course, so their row versions count alongside the enrollments'
+    @Override
+    public Optional<String> versionByCourseId(String courseId) {
+        return versionOf("SELECT e.version AS v FROM enrollments e WHERE e.course_id = ? "
+                + "UNION ALL SELECT s.version FROM enrollments e JOIN students s ON s.id = e.student_id WHERE e.course_id = ? "
+                + "UNION ALL SELECT c.version FROM courses c WHERE c.id = ?", courseId, courseId, courseId);
+    }
+
+    @Override
+    public Optional<String> versionByStudentId(String studentId) {
+        return versionOf("SELECT e.version AS v FROM enrollments e WHERE e.student_id = ? "
+                + "UNION ALL SELECT c.version FROM enrollments e JOIN courses c ON c.id = e.course_id WHERE e.student_id = ? "
+                + "UNION ALL SELECT s.version FROM students s WHERE s.id = ?", studentId, studentId, studentId);
+    }
+
+    @Override
+    public Optional<String> version() {
+        return versionOf("SELECT version AS v FROM enrollments UNION ALL SELECT version FROM students UNION ALL SELECT version FROM courses");
+    }
+
+    private Optional<String> versionOf(String versionsSql, String... params) {
+        long start = System.nanoTime();
+        try {
+            return RowVersions.ofSet(config, versionsSql, params);
+        } catch (SQLException e) {
+            logger.error("Failed to read enrollments version", e);
+            throw new RuntimeException(e);
+        } finally {
+            metrics.record("enrollments.version", System.nanoTime() - start);
+        }
+    }
+
     private Enrollment mapRow(ResultSet rs) throws SQLException {
         String sid = rs.getString("student_id");
         String cid = rs.getString("course_id");
@@ -172,5 +586,12 @@ public class EnrollmentRepositoryJdbc implements EnrollmentRepository {
         return e;
     }
 
+    public void setChangeNotifier(EntityChangeNotifier changeNotifier) { this.changeNotifier = changeNotifier; }
+
+    public GradeOutboxJdbc getOutbox() { return outbox; }
+
+    /** Recompute course_enrollment_stats and student_credit_totals from the enrollments table. */
+    public void rebuildAggregates() { aggregates.rebuild(); }
+
     public MetricsCollector getMetricsCollector() { return metrics; }
 }
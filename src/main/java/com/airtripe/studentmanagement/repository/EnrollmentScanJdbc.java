@@ -0,0 +1,141 @@
+package com.airtripe.studentmanagement.repository;
+
+import com.airtripe.studentmanagement.util.ConfigSingleton;
+import com.airtripe.studentmanagement.util.ConnectionProvider;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.math.BigInteger;
+import java.sql.*;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Raw, forward-only scans over the enrollments table for bulk jobs. Unlike
+ * {@link EnrollmentRepositoryJdbc#findAll()} this joins course credits in SQL and never materializes
+ * Student/Course objects, and it can split the table into student_id key ranges so ranges can be
+ * scanned in parallel on separate connections.
+ */
+public class EnrollmentScanJdbc {
+    private static final Logger logger = LoggerFactory.getLogger(EnrollmentScanJdbc.class);
+    private static final int SPLIT_CHARS = 8; // key-space interpolation looks at this many chars past the common prefix
+    private final ConnectionProvider config;
+
+    public EnrollmentScanJdbc() {
+        this(ConfigSingleton.getInstance());
+    }
+
+    public EnrollmentScanJdbc(ConnectionProvider config) {
+        this.config = config;
+    }
+
+    @FunctionalInterface
+    public interface RowConsumer {
+        void accept(String studentId, String courseId, Double grade, int credits);
+    }
+
+    /**
+     * Split points that divide the enrollments into roughly {@code partitions} student_id ranges.
+     * Returns at most partitions-1 ascending, distinct keys; an empty list means "one range".
+     * The bounds come from the primary key index alone: MIN and MAX student_id, evenly spaced keys
+     * between them, each moved up to the first student_id at or after it. Nothing is counted or
+     * numbered, so the cost doesn't grow with the table; the ranges are even when ids are spread
+     * evenly over their key space (as sequential ids are) and merely uneven otherwise.
+     */
+    public List<String> partitionBounds(int partitions) {
+        List<String> bounds = new ArrayList<>();
+        if (partitions <= 1) return bounds;
+        try (Connection conn = config.getConnection()) {
+            String min;
+            String max;
+            try (Statement st = conn.createStatement(); ResultSet rs = st.executeQuery("SELECT MIN(student_id), MAX(student_id) FROM enrollments")) {
+                rs.next();
+                min = rs.getString(1);
+                max = rs.getString(2);
+            }
+            if (min == null || min.equals(max)) return bounds;
+            try (PreparedStatement ps = conn.prepareStatement("SELECT student_id FROM enrollments WHERE student_id >= ? ORDER BY student_id LIMIT 1")) {
+                for (String split : splitKeySpace(min, max, partitions)) {
+                    ps.setString(1, split);
+                    try (ResultSet rs = ps.executeQuery()) {
+                        String key = rs.next() ? rs.getString(1) : null;
+                        // a bound equal to min or to the previous bound would only add an empty range
+                        if (key != null && key.compareTo(min) > 0 && (bounds.isEmpty() || key.compareTo(bounds.get(bounds.size() - 1)) > 0)) bounds.add(key);
+                    }
+                }
+            }
+            return bounds;
+        } catch (SQLException e) {
+            logger.error("Failed to compute enrollment partition bounds", e);
+            throw new RuntimeException(e);
+        }
+    }
+
+    // partitions-1 keys evenly spaced between min and max in String.compareTo order (H2's VARCHAR order). After their
+    // common prefix both are read as SPLIT_CHARS-digit numbers whose digits span only the chars they use (digits for
+    // "S0001".."S9999"), plus one below the lowest standing for "no char" so shorter keys sort first
+    static List<String> splitKeySpace(String min, String max, int partitions) {
+        int prefix = 0;
+        while (prefix < min.length() && prefix < max.length() && min.charAt(prefix) == max.charAt(prefix)) prefix++;
+        int low = Character.MAX_VALUE;
+        int high = 0;
+        for (String key : new String[]{min, max}) {
+            for (int j = prefix; j < Math.min(key.length(), prefix + SPLIT_CHARS); j++) {
+                low = Math.min(low, key.charAt(j));
+                high = Math.max(high, key.charAt(j));
+            }
+        }
+        // keys of one length (the usual fixed-width ids) never need the "no char" digit, which would skew the split
+        int zero = min.length() == max.length() ? low : Math.max(low, 1) - 1;
+        BigInteger radix = BigInteger.valueOf(high - zero + 1);
+        BigInteger lo = digits(min, prefix, zero, radix);
+        BigInteger span = digits(max, prefix, zero, radix).subtract(lo);
+        List<String> splits = new ArrayList<>();
+        for (int k = 1; k < partitions; k++) {
+            BigInteger point = lo.add(span.multiply(BigInteger.valueOf(k)).divide(BigInteger.valueOf(partitions)));
+            char[] chars = new char[SPLIT_CHARS];
+            for (int j = SPLIT_CHARS - 1; j >= 0; j--) {
+                BigInteger[] qr = point.divideAndRemainder(radix);
+                chars[j] = (char) (zero + qr[1].intValue());
+                point = qr[0];
+            }
+            int len = SPLIT_CHARS;
+            while (zero < low && len > 0 && chars[len - 1] == zero) len--;
+            splits.add(min.substring(0, prefix) + new String(chars, 0, len));
+        }
+        return splits;
+    }
+
+    private static BigInteger digits(String key, int from, int zero, BigInteger radix) {
+        BigInteger value = BigInteger.ZERO;
+        for (int j = 0; j < SPLIT_CHARS; j++) {
+            int digit = from + j < key.length() ? key.charAt(from + j) - zero : 0;
+            value = value.multiply(radix).add(BigInteger.valueOf(digit));
+        }
+        return value;
+    }
+
+    /** Stream every enrollment with {@code from <= student_id < to} (null bounds are open) to {@code consumer}. */
+    public long scanRange(String from, String to, RowConsumer consumer) {
+        StringBuilder sql = new StringBuilder("SELECT e.student_id, e.course_id, e.grade, c.credits FROM enrollments e LEFT JOIN courses c ON c.id = e.course_id WHERE 1=1");
+        if (from != null) sql.append(" AND e.student_id >= ?");
+        if (to != null) sql.append(" AND e.student_id < ?");
+        long rows = 0;
+        try (Connection conn = config.getConnection(); PreparedStatement ps = conn.prepareStatement(sql.toString())) {
+            int i = 1;
+            if (from != null) ps.setString(i++, from);
+            if (to != null) ps.setString(i, to);
+            ps.setFetchSize(1000);
+            try (ResultSet rs = ps.executeQuery()) {
+                while (rs.next()) {
+                    consumer.accept(rs.getString(1), rs.getString(2), rs.getObject(3, Double.class), rs.getInt(4));
+                    rows++;
+                }
+            }
+            return rows;
+        } catch (SQLException e) {
+            logger.error("Enrollment range scan [{}, {}) failed", from, to, e);
+            throw new RuntimeException(e);
+        }
+    }
+}
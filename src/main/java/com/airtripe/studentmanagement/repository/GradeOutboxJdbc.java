@@ -0,0 +1,119 @@
+package com.airtripe.studentmanagement.repository;
+
+import com.airtripe.studentmanagement.entity.GradeEvent;
+import com.airtripe.studentmanagement.util.ConfigSingleton;
+import com.airtripe.studentmanagement.util.ConnectionProvider;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.sql.*;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Append-only outbox of grade events. Rows are appended by {@link EnrollmentRepositoryJdbc#add}
+ * on the same connection (and transaction) as the enrollments MERGE, so an event exists if and
+ * only if the grade change was committed. Consumers track their position in grade_event_offsets.
+ * Seqs come from {@link LogSequence}, so they become visible in seq order and a consumer can never
+ * move past an event that has not committed yet.
+ */
+public class GradeOutboxJdbc {
+    private static final Logger logger = LoggerFactory.getLogger(GradeOutboxJdbc.class);
+    private final ConnectionProvider config;
+
+    public GradeOutboxJdbc() {
+        this(ConfigSingleton.getInstance());
+    }
+
+    public GradeOutboxJdbc(ConnectionProvider config) {
+        this.config = config;
+    }
+
+    public void init() throws SQLException {
+        try (Connection conn = config.getConnection(); Statement st = conn.createStatement()) {
+            st.execute("CREATE TABLE IF NOT EXISTS grade_events (seq BIGINT GENERATED BY DEFAULT AS IDENTITY PRIMARY KEY, student_id VARCHAR(100), course_id VARCHAR(100), grade DOUBLE, previous_grade DOUBLE, created_at TIMESTAMP)");
+            st.execute("CREATE TABLE IF NOT EXISTS grade_event_offsets (consumer VARCHAR(100) PRIMARY KEY, last_seq BIGINT)");
+            LogSequence.init(conn, "grade_events");
+            logger.info("grade_events outbox tables ensured");
+        }
+    }
+
+    /**
+     * Append an event in the caller's transaction; the caller owns commit/rollback and must commit
+     * right after its last append (inside a {@link UnitOfWork} the append is deferred to its commit).
+     */
+    public void append(Connection conn, String studentId, String courseId, Double grade, Double previousGrade) throws SQLException {
+        UnitOfWork.beforeCommit(config, conn, c -> {
+            String sql = "INSERT INTO grade_events (seq, student_id, course_id, grade, previous_grade, created_at) VALUES (?, ?, ?, ?, ?, CURRENT_TIMESTAMP)";
+            try (PreparedStatement ps = c.prepareStatement(sql)) {
+                ps.setLong(1, LogSequence.reserve(c, 1));
+                ps.setString(2, studentId);
+                ps.setString(3, courseId);
+                if (grade != null) ps.setDouble(4, grade); else ps.setNull(4, Types.DOUBLE);
+                if (previousGrade != null) ps.setDouble(5, previousGrade); else ps.setNull(5, Types.DOUBLE);
+                ps.executeUpdate();
+            }
+        });
+    }
+
+    /** Events with seq strictly greater than {@code offset}, in seq order. */
+    public List<GradeEvent> readAfter(long offset, int limit) {
+        String sql = "SELECT seq, student_id, course_id, grade, previous_grade, created_at FROM grade_events WHERE seq > ? ORDER BY seq LIMIT ?";
+        List<GradeEvent> out = new ArrayList<>();
+        try (Connection conn = config.getConnection(); PreparedStatement ps = conn.prepareStatement(sql)) {
+            ps.setLong(1, offset);
+            ps.setInt(2, limit);
+            try (ResultSet rs = ps.executeQuery()) {
+                while (rs.next()) {
+                    Timestamp ts = rs.getTimestamp("created_at");
+                    out.add(new GradeEvent(rs.getLong("seq"), rs.getString("student_id"), rs.getString("course_id"),
+                            rs.getObject("grade", Double.class), rs.getObject("previous_grade", Double.class),
+                            ts == null ? null : ts.toLocalDateTime()));
+                }
+            }
+            return out;
+        } catch (SQLException e) {
+            logger.error("Failed to read grade events after {}", offset, e);
+            throw new RuntimeException(e);
+        }
+    }
+
+    public long loadOffset(String consumer) {
+        String sql = "SELECT last_seq FROM grade_event_offsets WHERE consumer = ?";
+        try (Connection conn = config.getConnection(); PreparedStatement ps = conn.prepareStatement(sql)) {
+            ps.setString(1, consumer);
+            try (ResultSet rs = ps.executeQuery()) {
+                return rs.next() ? rs.getLong(1) : 0L;
+            }
+        } catch (SQLException e) {
+            logger.error("Failed to load offset for consumer {}", consumer, e);
+            throw new RuntimeException(e);
+        }
+    }
+
+    public void saveOffset(String consumer, long lastSeq) {
+        String sql = "MERGE INTO grade_event_offsets (consumer, last_seq) KEY(consumer) VALUES (?, ?)";
+        try (Connection conn = config.getConnection(); PreparedStatement ps = conn.prepareStatement(sql)) {
+            ps.setString(1, consumer);
+            ps.setLong(2, lastSeq);
+            ps.executeUpdate();
+        } catch (SQLException e) {
+            logger.error("Failed to save offset {} for consumer {}", lastSeq, consumer, e);
+            throw new RuntimeException(e);
+        }
+    }
+
+    public long countAfter(long offset) {
+        String sql = "SELECT COUNT(*) FROM grade_events WHERE seq > ?";
+        try (Connection conn = config.getConnection(); PreparedStatement ps = conn.prepareStatement(sql)) {
+            ps.setLong(1, offset);
+            try (ResultSet rs = ps.executeQuery()) {
+                rs.next();
+                return rs.getLong(1);
+            }
+        } catch (SQLException e) {
+            logger.error("Failed to count grade events after {}", offset, e);
+            throw new RuntimeException(e);
+        }
+    }
+}
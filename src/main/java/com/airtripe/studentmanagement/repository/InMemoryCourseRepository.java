@@ -0,0 +1,79 @@
+package com.airtripe.studentmanagement.repository;
+
+import com.airtripe.studentmanagement.entity.Course;
+import com.airtripe.studentmanagement.observer.EntityChangeNotifier;
+import com.airtripe.studentmanagement.util.MetricsCollector;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Objects;
+import java.util.Optional;
+
+/** Thread-safe in-process CourseRepository; Course is immutable, so instances are shared. */
+public class InMemoryCourseRepository implements CourseRepository {
+    private final SnapshotMap<Course> courses = new SnapshotMap<>();
+    private final MetricsCollector metrics = new MetricsCollector();
+    private EntityChangeNotifier changeNotifier; // optional, set by the application wiring
+
+    @Override
+    public void init() {
+        // nothing to create
+    }
+
+    @Override
+    public Course addCourse(Course c) {
+        long start = System.nanoTime();
+        Course previous = courses.put(c.getId(), c);
+        // enrollment writes re-save their course; only a real change is announced
+        if (changeNotifier != null && (previous == null || !sameRow(previous, c))) changeNotifier.courseSaved(c);
+        metrics.record("courses.add", System.nanoTime() - start);
+        return c;
+    }
+
+    @Override
+    public Optional<Course> findById(String id) {
+        return Optional.ofNullable(courses.get(id));
+    }
+
+    @Override
+    public List<Course> findAll() {
+        long start = System.nanoTime();
+        List<Course> out = new ArrayList<>(courses.snapshot());
+        metrics.record("courses.findAll", System.nanoTime() - start);
+        return out;
+    }
+
+    @Override
+    public List<Course> search(String query) {
+        if (query == null || query.isEmpty()) return findAll();
+        String q = query.toLowerCase();
+        List<Course> out = new ArrayList<>();
+        for (Course c : courses.snapshot()) {
+            if (c.getId().toLowerCase().contains(q) || c.getName().toLowerCase().contains(q)) out.add(c);
+        }
+        return out;
+    }
+
+    @Override
+    public boolean remove(String id) {
+        boolean removed = courses.remove(id) != null;
+        if (removed && changeNotifier != null) changeNotifier.courseRemoved(id);
+        return removed;
+    }
+
+    @Override
+    public boolean updateCourse(String id, Course updated) {
+        boolean updatedRow = courses.compute(id, (k, old) -> old == null ? null : new Course(k, updated.getName(), updated.getCredits())) != null;
+        if (updatedRow && changeNotifier != null) changeNotifier.courseSaved(updated);
+        return updatedRow;
+    }
+
+    /** Whether storing {@code b} over {@code a} would change any stored column. */
+    static boolean sameRow(Course a, Course b) {
+        return Objects.equals(a.getName(), b.getName()) && a.getCredits() == b.getCredits();
+    }
+
+    public void setChangeNotifier(EntityChangeNotifier changeNotifier) { this.changeNotifier = changeNotifier; }
+
+    public MetricsCollector getMetricsCollector() { return metrics; }
+}
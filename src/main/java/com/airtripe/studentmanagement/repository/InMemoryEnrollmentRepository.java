@@ -0,0 +1,164 @@
+package com.airtripe.studentmanagement.repository;
+
+import com.airtripe.studentmanagement.entity.Course;
+import com.airtripe.studentmanagement.entity.Enrollment;
+import com.airtripe.studentmanagement.entity.Student;
+import com.airtripe.studentmanagement.observer.EntityChangeNotifier;
+import com.airtripe.studentmanagement.util.MetricsCollector;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListSet;
+
+/**
+ * Thread-safe in-process EnrollmentRepository. Rows are immutable values keyed by
+ * student id + course id, so per-student lookups are a range scan in course order; a
+ * course -> student id index serves rosters in student order. Writes to one key are serialized
+ * by a lock stripe (keeping the row and the index in step); reads take no locks. Enrollments are
+ * rebuilt on every read from the student/course repositories, like JDBC rows.
+ */
+public class InMemoryEnrollmentRepository implements EnrollmentRepository {
+    private static final char SEP = '\u0000';
+    private static final int STRIPES = 64;
+
+    private final StudentRepository studentRepo;
+    private final CourseRepository courseRepo;
+    private final SnapshotMap<Row> rows = new SnapshotMap<>();
+    private final ConcurrentHashMap<String, Set<String>> studentsByCourse = new ConcurrentHashMap<>();
+    private final Object[] stripes = new Object[STRIPES];
+    private final MetricsCollector metrics = new MetricsCollector();
+    private EntityChangeNotifier changeNotifier; // optional, set by the application wiring
+    private Enrollment.GradeListener gradeListener; // optional; called when a stored grade changes
+
+    public InMemoryEnrollmentRepository(StudentRepository studentRepo, CourseRepository courseRepo) {
+        this.studentRepo = studentRepo;
+        this.courseRepo = courseRepo;
+        for (int i = 0; i < STRIPES; i++) stripes[i] = new Object();
+    }
+
+    @Override
+    public void init() throws Exception {
+        studentRepo.init();
+        courseRepo.init();
+    }
+
+    @Override
+    public Enrollment add(Enrollment e) {
+        long start = System.nanoTime();
+        studentRepo.addStudent(e.getStudent());
+        courseRepo.addCourse(e.getCourse());
+        String sid = e.getStudent().getId();
+        String cid = e.getCourse().getId();
+        Double grade = e.getGrade().orElse(null);
+        Row previous;
+        synchronized (stripeFor(sid, cid)) {
+            previous = rows.put(key(sid, cid), new Row(sid, cid, e.getEnrolledOn(), grade));
+            studentsByCourse.computeIfAbsent(cid, k -> new ConcurrentSkipListSet<>()).add(sid);
+        }
+        if (changeNotifier != null) changeNotifier.enrollmentSaved(e);
+        if (gradeListener != null && grade != null && (previous == null || !grade.equals(previous.grade))) {
+            gradeListener.onGradeAssigned(e, grade);
+        }
+        metrics.record("enrollments.add", System.nanoTime() - start);
+        return e;
+    }
+
+    @Override
+    public Optional<Enrollment> find(Student student, Course course) {
+        Row r = rows.get(key(student.getId(), course.getId()));
+        return r == null ? Optional.empty() : Optional.of(materialize(r));
+    }
+
+    @Override
+    public List<Enrollment> findByStudentId(String studentId) {
+        long start = System.nanoTime();
+        List<Enrollment> out = new ArrayList<>();
+        // keys sort as studentId, SEP, courseId: the student's rows are one contiguous range
+        for (Row r : rows.range(studentId + SEP, studentId + (char) (SEP + 1))) out.add(materialize(r));
+        metrics.record("enrollments.findByStudent", System.nanoTime() - start);
+        return out;
+    }
+
+    @Override
+    public List<Enrollment> findByCourseId(String courseId) {
+        long start = System.nanoTime();
+        List<Enrollment> out = new ArrayList<>();
+        Set<String> ids = studentsByCourse.get(courseId);
+        if (ids != null) {
+            for (String sid : ids) {
+                Row r = rows.get(key(sid, courseId));
+                if (r != null) out.add(materialize(r));
+            }
+        }
+        metrics.record("enrollments.findByCourse", System.nanoTime() - start);
+        return out;
+    }
+
+    @Override
+    public List<Enrollment> findAll() {
+        long start = System.nanoTime();
+        List<Row> snapshot = rows.snapshot();
+        List<Enrollment> out = new ArrayList<>(snapshot.size());
+        for (Row r : snapshot) out.add(materialize(r));
+        metrics.record("enrollments.findAll", System.nanoTime() - start);
+        return out;
+    }
+
+    @Override
+    public boolean remove(String studentId, String courseId) {
+        long start = System.nanoTime();
+        boolean removed;
+        synchronized (stripeFor(studentId, courseId)) {
+            removed = rows.remove(key(studentId, courseId)) != null;
+            Set<String> ids = studentsByCourse.get(courseId);
+            if (ids != null) ids.remove(studentId);
+        }
+        if (removed && changeNotifier != null) changeNotifier.enrollmentRemoved(studentId, courseId);
+        metrics.record("enrollments.delete", System.nanoTime() - start);
+        return removed;
+    }
+
+    private Enrollment materialize(Row r) {
+        Optional<Student> s = studentRepo.findById(r.studentId);
+        Optional<Course> c = courseRepo.findById(r.courseId);
+        if (s.isEmpty() || c.isEmpty()) {
+            throw new IllegalStateException("Enrollment references missing student or course: " + r.studentId + "+" + r.courseId);
+        }
+        Enrollment e = new Enrollment(s.get(), c.get(), r.enrolledOn);
+        if (r.grade != null) e.setGrade(r.grade);
+        return e;
+    }
+
+    private Object stripeFor(String studentId, String courseId) {
+        return stripes[Math.floorMod(Objects.hash(studentId, courseId), STRIPES)];
+    }
+
+    private static String key(String studentId, String courseId) {
+        return studentId + SEP + courseId;
+    }
+
+    public void setChangeNotifier(EntityChangeNotifier changeNotifier) { this.changeNotifier = changeNotifier; }
+
+    public void setGradeListener(Enrollment.GradeListener gradeListener) { this.gradeListener = gradeListener; }
+
+    public MetricsCollector getMetricsCollector() { return metrics; }
+
+    private static final class Row {
+        final String studentId;
+        final String courseId;
+        final LocalDate enrolledOn;
+        final Double grade;
+
+        Row(String studentId, String courseId, LocalDate enrolledOn, Double grade) {
+            this.studentId = studentId;
+            this.courseId = courseId;
+            this.enrolledOn = enrolledOn;
+            this.grade = grade;
+        }
+    }
+}
@@ -0,0 +1,113 @@
+package com.airtripe.studentmanagement.repository;
+
+import com.airtripe.studentmanagement.entity.GraduateStudent;
+import com.airtripe.studentmanagement.entity.Student;
+import com.airtripe.studentmanagement.factory.StudentFactory;
+import com.airtripe.studentmanagement.observer.EntityChangeNotifier;
+import com.airtripe.studentmanagement.util.MetricsCollector;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Objects;
+import java.util.Optional;
+
+/**
+ * Thread-safe in-process StudentRepository, a drop-in replacement for StudentRepositoryJdbc
+ * (sms.repository=memory). Students are stored without their grade maps and handed out as fresh
+ * copies, the same as rows mapped from JDBC, so callers can't mutate the store or race on a
+ * shared grades HashMap.
+ */
+public class InMemoryStudentRepository implements StudentRepository {
+    private final SnapshotMap<Student> students = new SnapshotMap<>();
+    private final MetricsCollector metrics = new MetricsCollector();
+    private EntityChangeNotifier changeNotifier; // optional, set by the application wiring
+
+    @Override
+    public void init() {
+        // nothing to create
+    }
+
+    @Override
+    public Student addStudent(Student s) {
+        long start = System.nanoTime();
+        Student previous = students.put(s.getId(), copy(s.getId(), s));
+        // enrollment writes re-save their student; only a real change is announced
+        if (changeNotifier != null && (previous == null || !sameRow(previous, s))) changeNotifier.studentSaved(s);
+        metrics.record("students.add", System.nanoTime() - start);
+        return s;
+    }
+
+    @Override
+    public Optional<Student> findById(String id) {
+        long start = System.nanoTime();
+        Student s = students.get(id);
+        metrics.record("students.findById", System.nanoTime() - start);
+        return s == null ? Optional.empty() : Optional.of(copy(id, s));
+    }
+
+    @Override
+    public List<Student> findAll() {
+        long start = System.nanoTime();
+        List<Student> snapshot = students.snapshot();
+        List<Student> out = new ArrayList<>(snapshot.size());
+        for (Student s : snapshot) out.add(copy(s.getId(), s));
+        metrics.record("students.findAll", System.nanoTime() - start);
+        return out;
+    }
+
+    @Override
+    public List<Student> search(String query) {
+        if (query == null || query.isEmpty()) return findAll();
+        long start = System.nanoTime();
+        List<Student> out = new ArrayList<>();
+        for (Student s : students.snapshot()) {
+            if (s.matches(query)) out.add(copy(s.getId(), s));
+        }
+        metrics.record("students.search", System.nanoTime() - start);
+        return out;
+    }
+
+    @Override
+    public boolean remove(String id) {
+        long start = System.nanoTime();
+        boolean removed = students.remove(id) != null;
+        if (removed && changeNotifier != null) changeNotifier.studentRemoved(id);
+        metrics.record("students.delete", System.nanoTime() - start);
+        return removed;
+    }
+
+    @Override
+    public boolean updateStudent(String id, Student updated) {
+        long start = System.nanoTime();
+        // like the JDBC UPDATE: only an existing row changes, and it keeps its id
+        boolean updatedRow = students.compute(id, (k, old) -> old == null ? null : copy(k, updated)) != null;
+        if (updatedRow && changeNotifier != null) changeNotifier.studentSaved(updated);
+        metrics.record("students.update", System.nanoTime() - start);
+        return updatedRow;
+    }
+
+    /** Whether storing {@code b} over {@code a} would change any stored column. */
+    static boolean sameRow(Student a, Student b) {
+        return Objects.equals(a.getName(), b.getName()) && Objects.equals(a.getEmail(), b.getEmail())
+                && Objects.equals(a.getDateOfBirth(), b.getDateOfBirth()) && Objects.equals(thesis(a), thesis(b));
+    }
+
+    private static String thesis(Student s) {
+        String thesis = s instanceof GraduateStudent ? ((GraduateStudent) s).getThesisTitle() : null;
+        return thesis == null || thesis.isEmpty() ? null : thesis;
+    }
+
+    static Student copy(String id, Student s) {
+        if (s instanceof GraduateStudent) {
+            String thesis = ((GraduateStudent) s).getThesisTitle();
+            if (thesis != null && !thesis.isEmpty()) {
+                return StudentFactory.createGraduate(id, s.getName(), s.getEmail(), s.getDateOfBirth(), thesis);
+            }
+        }
+        return StudentFactory.createUndergraduate(id, s.getName(), s.getEmail(), s.getDateOfBirth());
+    }
+
+    public void setChangeNotifier(EntityChangeNotifier changeNotifier) { this.changeNotifier = changeNotifier; }
+
+    public MetricsCollector getMetricsCollector() { return metrics; }
+}
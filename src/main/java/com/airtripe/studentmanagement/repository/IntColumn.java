@@ -0,0 +1,36 @@
+package com.airtripe.studentmanagement.repository;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+
+/** Growable column of ints in a direct (off-heap) buffer. Not thread-safe; callers lock. */
+final class IntColumn {
+    private ByteBuffer buf;
+
+    IntColumn(int initialCapacity) {
+        buf = ByteBuffer.allocateDirect(Math.max(initialCapacity, 16) * Integer.BYTES).order(ByteOrder.nativeOrder());
+    }
+
+    int get(int index) { return buf.getInt(index * Integer.BYTES); }
+
+    void set(int index, int value) {
+        ensureCapacity(index + 1);
+        buf.putInt(index * Integer.BYTES, value);
+    }
+
+    int capacity() { return buf.capacity() / Integer.BYTES; }
+
+    void ensureCapacity(int entries) {
+        if (entries <= capacity()) return;
+        long wanted = Math.max((long) capacity() * 2, entries);
+        if (wanted * Integer.BYTES > Integer.MAX_VALUE) throw new IllegalStateException("column exceeds 2 GB");
+        ByteBuffer bigger = ByteBuffer.allocateDirect((int) wanted * Integer.BYTES).order(ByteOrder.nativeOrder());
+        ByteBuffer old = buf.duplicate();
+        old.clear();
+        bigger.put(old);
+        bigger.clear();
+        buf = bigger;
+    }
+
+    long bytes() { return buf.capacity(); }
+}
@@ -0,0 +1,43 @@
+package com.airtripe.studentmanagement.repository;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+
+/**
+ * Commit-ordered sequence numbers for the append-only logs (grade_events, change_log), so readers can
+ * page through them with a plain {@code seq > cursor}. An IDENTITY column hands numbers out at insert
+ * time: a transaction holding seq 5 can commit after one holding seq 6, and a reader already past 6
+ * never sees 5. Here a writer takes its numbers by updating the single log_sequence row, which stays
+ * locked until the writer commits or rolls back. The next writer waits on that lock, so numbers become
+ * visible in the order they were handed out, and a rollback returns its numbers. Appends run as the
+ * last step before commit (see {@link UnitOfWork#beforeCommit}), so the lock is held only briefly and
+ * a writer holding it never waits for another row lock.
+ */
+final class LogSequence {
+    private LogSequence() {}
+
+    /** Create the counter if needed and move it past every seq already in {@code table}. */
+    static void init(Connection conn, String table) throws SQLException {
+        try (Statement st = conn.createStatement()) {
+            st.execute("CREATE TABLE IF NOT EXISTS log_sequence (id INT PRIMARY KEY, last_seq BIGINT NOT NULL)");
+            st.execute("INSERT INTO log_sequence (id, last_seq) SELECT 1, 0 WHERE NOT EXISTS (SELECT 1 FROM log_sequence)");
+            st.execute("UPDATE log_sequence SET last_seq = (SELECT MAX(seq) FROM " + table + ") WHERE last_seq < (SELECT COALESCE(MAX(seq), 0) FROM " + table + ")");
+        }
+    }
+
+    /** Reserve {@code count} consecutive numbers in the caller's transaction and return the first. */
+    static long reserve(Connection conn, int count) throws SQLException {
+        if (conn.getAutoCommit()) throw new IllegalStateException("log appends must run inside a transaction");
+        try (PreparedStatement ps = conn.prepareStatement("UPDATE log_sequence SET last_seq = last_seq + ? WHERE id = 1")) {
+            ps.setInt(1, count);
+            ps.executeUpdate();
+        }
+        try (Statement st = conn.createStatement(); ResultSet rs = st.executeQuery("SELECT last_seq FROM log_sequence WHERE id = 1")) {
+            rs.next();
+            return rs.getLong(1) - count + 1;
+        }
+    }
+}
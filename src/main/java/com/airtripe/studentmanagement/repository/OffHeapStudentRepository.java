@@ -0,0 +1,283 @@
+package com.airtripe.studentmanagement.repository;
+
+import com.airtripe.studentmanagement.entity.GraduateStudent;
+import com.airtripe.studentmanagement.entity.Student;
+import com.airtripe.studentmanagement.factory.StudentFactory;
+import com.airtripe.studentmanagement.observer.EntityChangeNotifier;
+import com.airtripe.studentmanagement.util.MetricsCollector;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.Consumer;
+
+/**
+ * StudentRepository for very large, mostly read-only rosters (e.g. alumni). Rows are stored
+ * column-wise in direct buffers outside the Java heap: four string refs into an off-heap
+ * {@link StringPool} plus an int epoch-day date, about 20 bytes per row plus the distinct string
+ * bytes, instead of a Student object graph per row. {@link #scan} walks rows through one reused
+ * {@link StudentView} flyweight without creating a Student; the StudentRepository methods build
+ * Students only for the rows they return.
+ * <p>
+ * Deleted rows are tombstoned and their strings stay in the pool. Reads share a lock and writes
+ * take it exclusively, since a write may reallocate a column.
+ */
+public class OffHeapStudentRepository implements StudentRepository {
+    private static final int NONE = -1;
+
+    private final StringPool strings = new StringPool();
+    private final IntColumn idCol = new IntColumn(1024);
+    private final IntColumn nameCol = new IntColumn(1024);
+    private final IntColumn emailCol = new IntColumn(1024);
+    private final IntColumn dobCol = new IntColumn(1024);      // epoch day
+    private final IntColumn thesisCol = new IntColumn(1024);   // string ref or NONE
+    private final IntColumn rowByIdRef = new IntColumn(1024);  // id string ref -> row + 1, 0 = absent
+    private final IntColumn sortedRows = new IntColumn(1024);  // live rows by id; rebuilt after inserts/deletes
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+    private final MetricsCollector metrics = new MetricsCollector();
+    private EntityChangeNotifier changeNotifier; // optional, set by the application wiring
+    private int rows;      // rows ever allocated, including tombstones
+    private int live;
+    private boolean sortedValid = true;
+    private int sortedCount;
+
+    @Override
+    public void init() {
+        // nothing to create
+    }
+
+    @Override
+    public Student addStudent(Student s) {
+        long start = System.nanoTime();
+        boolean changed = true;
+        lock.writeLock().lock();
+        try {
+            int idRef = strings.intern(s.getId());
+            int row = findRow(idRef);
+            if (row < 0) {
+                row = rows++;
+                idCol.set(row, idRef);
+                rowByIdRef.set(idRef, row + 1);
+                live++;
+                sortedValid = false;
+            } else if (InMemoryStudentRepository.sameRow(materialize(row), s)) {
+                changed = false; // enrollment writes re-save their student; only a real change is announced
+            }
+            if (changed) writeFields(row, s);
+        } finally {
+            lock.writeLock().unlock();
+        }
+        if (changed && changeNotifier != null) changeNotifier.studentSaved(s);
+        metrics.record("students.add", System.nanoTime() - start);
+        return s;
+    }
+
+    @Override
+    public Optional<Student> findById(String id) {
+        long start = System.nanoTime();
+        lock.readLock().lock();
+        try {
+            int idRef = strings.lookup(id);
+            int row = idRef < 0 ? NONE : findRow(idRef);
+            return row < 0 ? Optional.empty() : Optional.of(materialize(row));
+        } finally {
+            lock.readLock().unlock();
+            metrics.record("students.findById", System.nanoTime() - start);
+        }
+    }
+
+    @Override
+    public List<Student> findAll() {
+        long start = System.nanoTime();
+        List<Student> out = new ArrayList<>();
+        scan(v -> out.add(v.toStudent()));
+        metrics.record("students.findAll", System.nanoTime() - start);
+        return out;
+    }
+
+    @Override
+    public List<Student> search(String query) {
+        if (query == null || query.isEmpty()) return findAll();
+        long start = System.nanoTime();
+        String q = query.toLowerCase();
+        List<Student> out = new ArrayList<>();
+        scan(v -> {
+            if (v.getId().toLowerCase().contains(q) || v.getName().toLowerCase().contains(q) || v.getEmail().toLowerCase().contains(q)) {
+                out.add(v.toStudent());
+            }
+        });
+        metrics.record("students.search", System.nanoTime() - start);
+        return out;
+    }
+
+    @Override
+    public boolean remove(String id) {
+        long start = System.nanoTime();
+        boolean removed = false;
+        lock.writeLock().lock();
+        try {
+            int idRef = strings.lookup(id);
+            int row = idRef < 0 ? NONE : findRow(idRef);
+            if (row >= 0) {
+                rowByIdRef.set(idRef, 0);
+                idCol.set(row, NONE);
+                live--;
+                sortedValid = false;
+                removed = true;
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+        if (removed && changeNotifier != null) changeNotifier.studentRemoved(id);
+        metrics.record("students.delete", System.nanoTime() - start);
+        return removed;
+    }
+
+    @Override
+    public boolean updateStudent(String id, Student updated) {
+        long start = System.nanoTime();
+        boolean updatedRow = false;
+        lock.writeLock().lock();
+        try {
+            int idRef = strings.lookup(id);
+            int row = idRef < 0 ? NONE : findRow(idRef);
+            if (row >= 0) {
+                writeFields(row, updated);
+                updatedRow = true;
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+        if (updatedRow && changeNotifier != null) changeNotifier.studentSaved(updated);
+        metrics.record("students.update", System.nanoTime() - start);
+        return updatedRow;
+    }
+
+    /**
+     * Visit every student in id order through a single reused view. The view is only valid inside
+     * the callback; call {@link StudentView#toStudent()} to keep a row. Writers wait until the scan ends.
+     */
+    public void scan(Consumer<StudentView> visitor) {
+        while (true) {
+            ensureSorted();
+            lock.readLock().lock();
+            try {
+                if (!sortedValid) continue; // a write slipped in between sorting and locking
+                StudentView view = new StudentView();
+                for (int i = 0; i < sortedCount; i++) {
+                    view.row = sortedRows.get(i);
+                    visitor.accept(view);
+                }
+                return;
+            } finally {
+                lock.readLock().unlock();
+            }
+        }
+    }
+
+    public int size() {
+        lock.readLock().lock();
+        try { return live; } finally { lock.readLock().unlock(); }
+    }
+
+    /** Off-heap bytes currently reserved by the columns and the string pool. */
+    public long offHeapBytes() {
+        lock.readLock().lock();
+        try {
+            return strings.bytes() + idCol.bytes() + nameCol.bytes() + emailCol.bytes() + dobCol.bytes()
+                    + thesisCol.bytes() + rowByIdRef.bytes() + sortedRows.bytes();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    public void setChangeNotifier(EntityChangeNotifier changeNotifier) { this.changeNotifier = changeNotifier; }
+
+    public MetricsCollector getMetricsCollector() { return metrics; }
+
+    private int findRow(int idRef) {
+        return idRef < rowByIdRef.capacity() ? rowByIdRef.get(idRef) - 1 : NONE;
+    }
+
+    private void writeFields(int row, Student s) {
+        nameCol.set(row, strings.intern(s.getName()));
+        emailCol.set(row, strings.intern(s.getEmail()));
+        dobCol.set(row, (int) s.getDateOfBirth().toEpochDay());
+        String thesis = s instanceof GraduateStudent ? ((GraduateStudent) s).getThesisTitle() : null;
+        thesisCol.set(row, thesis == null || thesis.isEmpty() ? NONE : strings.intern(thesis));
+    }
+
+    private Student materialize(int row) {
+        String id = strings.get(idCol.get(row));
+        String name = strings.get(nameCol.get(row));
+        String email = strings.get(emailCol.get(row));
+        LocalDate dob = LocalDate.ofEpochDay(dobCol.get(row));
+        int thesis = thesisCol.get(row);
+        return thesis == NONE ? StudentFactory.createUndergraduate(id, name, email, dob)
+                : StudentFactory.createGraduate(id, name, email, dob, strings.get(thesis));
+    }
+
+    // id order is kept as a row permutation that is only re-sorted after rows are added or removed
+    private void ensureSorted() {
+        lock.readLock().lock();
+        try {
+            if (sortedValid) return;
+        } finally {
+            lock.readLock().unlock();
+        }
+        lock.writeLock().lock();
+        try {
+            if (sortedValid) return;
+            int[] order = new int[live];
+            int n = 0;
+            for (int row = 0; row < rows; row++) {
+                if (idCol.get(row) != NONE) order[n++] = row;
+            }
+            sortById(order, new int[n], 0, n);
+            sortedRows.ensureCapacity(n);
+            for (int i = 0; i < n; i++) sortedRows.set(i, order[i]);
+            sortedCount = n;
+            sortedValid = true;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    // merge sort of row numbers by id, on primitive arrays so sorting millions of rows doesn't box
+    private void sortById(int[] a, int[] tmp, int from, int to) {
+        if (to - from < 2) return;
+        int mid = (from + to) >>> 1;
+        sortById(a, tmp, from, mid);
+        sortById(a, tmp, mid, to);
+        if (strings.compare(idCol.get(a[mid - 1]), idCol.get(a[mid])) <= 0) return;
+        System.arraycopy(a, from, tmp, from, to - from);
+        int i = from, j = mid, k = from;
+        while (i < mid && j < to) {
+            a[k++] = strings.compare(idCol.get(tmp[i]), idCol.get(tmp[j])) <= 0 ? tmp[i++] : tmp[j++];
+        }
+        while (i < mid) a[k++] = tmp[i++];
+        while (j < to) a[k++] = tmp[j++];
+    }
+
+    /** Flyweight over one row; string getters decode on demand, {@link #getEpochDay()} reads the column directly. */
+    public final class StudentView {
+        private int row;
+
+        private StudentView() {}
+
+        public String getId() { return strings.get(idCol.get(row)); }
+        public String getName() { return strings.get(nameCol.get(row)); }
+        public String getEmail() { return strings.get(emailCol.get(row)); }
+        public int getEpochDay() { return dobCol.get(row); }
+        public LocalDate getDateOfBirth() { return LocalDate.ofEpochDay(dobCol.get(row)); }
+        public boolean isGraduate() { return thesisCol.get(row) != NONE; }
+        public String getThesisTitle() {
+            int ref = thesisCol.get(row);
+            return ref == NONE ? null : strings.get(ref);
+        }
+
+        public Student toStudent() { return materialize(row); }
+    }
+}
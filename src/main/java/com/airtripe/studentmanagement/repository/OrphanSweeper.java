@@ -0,0 +1,118 @@
+package com.airtripe.studentmanagement.repository;
+
+import com.airtripe.studentmanagement.util.ConfigSingleton;
+import com.airtripe.studentmanagement.util.ConnectionProvider;
+import com.airtripe.studentmanagement.util.MetricsCollector;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Background cleanup of rows whose parent no longer exists: enrollments without a student or
+ * course (databases written before the foreign keys, or by tools that bypass them) and summary-table
+ * rows for deleted students/courses. Deletes run in bounded batches so a sweep never holds long
+ * locks on the enrollments table; each sweep reports how many rows it removed and at what rate.
+ */
+public class OrphanSweeper {
+    private static final Logger logger = LoggerFactory.getLogger(OrphanSweeper.class);
+
+    private static final String[] SWEEPS = {
+            "DELETE FROM enrollments e WHERE (NOT EXISTS (SELECT 1 FROM students s WHERE s.id = e.student_id)"
+                    + " OR NOT EXISTS (SELECT 1 FROM courses c WHERE c.id = e.course_id)) LIMIT ?",
+            "DELETE FROM course_enrollment_stats t WHERE NOT EXISTS (SELECT 1 FROM courses c WHERE c.id = t.course_id) LIMIT ?",
+            "DELETE FROM student_credit_totals t WHERE NOT EXISTS (SELECT 1 FROM students s WHERE s.id = t.student_id) LIMIT ?"
+    };
+
+    private final ConnectionProvider config;
+    private final int batchSize;
+    private final EnrollmentAggregatesJdbc aggregates;
+    private final MetricsCollector metrics = new MetricsCollector();
+    private volatile double lastRowsPerSecond;
+    private ScheduledExecutorService scheduler;
+
+    public OrphanSweeper() {
+        this(ConfigSingleton.getInstance(), 1000);
+    }
+
+    public OrphanSweeper(ConnectionProvider config, int batchSize) {
+        this.config = config;
+        this.batchSize = batchSize;
+        this.aggregates = new EnrollmentAggregatesJdbc(config);
+    }
+
+    /** Run one full sweep; returns the number of rows deleted. */
+    public synchronized int sweepOnce() {
+        long start = System.nanoTime();
+        int total = 0;
+        int orphanedEnrollments = 0;
+        try (Connection conn = config.getConnection()) {
+            for (int i = 0; i < SWEEPS.length; i++) {
+                int n;
+                do {
+                    try (PreparedStatement ps = conn.prepareStatement(SWEEPS[i])) {
+                        ps.setInt(1, batchSize);
+                        n = ps.executeUpdate();
+                    }
+                    total += n;
+                    if (i == 0) orphanedEnrollments += n;
+                } while (n >= batchSize);
+            }
+        } catch (SQLException e) {
+            logger.error("Orphan sweep failed after {} rows", total, e);
+            throw new RuntimeException(e);
+        } finally {
+            long nanos = System.nanoTime() - start;
+            metrics.record("orphans.sweep", nanos);
+            metrics.increment("orphans.deleted", total);
+            lastRowsPerSecond = total * 1_000_000_000.0 / Math.max(nanos, 1);
+        }
+        // the summary tables still count the orphaned enrollments that were just removed
+        if (orphanedEnrollments > 0) aggregates.rebuild();
+        if (total > 0) logger.info("Orphan sweep removed {} rows ({} rows/s)", total, String.format("%.0f", lastRowsPerSecond));
+        return total;
+    }
+
+    /** Deletion rate of the most recent sweep. */
+    public double getLastRowsPerSecond() { return lastRowsPerSecond; }
+
+    public synchronized void start(long intervalMillis) {
+        if (scheduler != null) return;
+        scheduler = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread t = new Thread(r, "orphan-sweeper");
+            t.setDaemon(true);
+            return t;
+        });
+        scheduler.scheduleWithFixedDelay(() -> {
+            try {
+                sweepOnce();
+            } catch (Exception e) {
+                logger.error("Orphan sweep failed", e);
+            }
+        }, intervalMillis, intervalMillis, TimeUnit.MILLISECONDS);
+        logger.info("Orphan sweeper started (every {} ms, batches of {})", intervalMillis, batchSize);
+    }
+
+    public void stop() {
+        ScheduledExecutorService s;
+        synchronized (this) {
+            s = scheduler;
+            scheduler = null;
+        }
+        if (s == null) return;
+        s.shutdown();
+        try {
+            if (!s.awaitTermination(5, TimeUnit.SECONDS)) s.shutdownNow();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            s.shutdownNow();
+        }
+    }
+
+    public MetricsCollector getMetricsCollector() { return metrics; }
+}
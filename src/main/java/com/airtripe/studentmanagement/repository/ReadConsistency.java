@@ -0,0 +1,40 @@
+package com.airtripe.studentmanagement.repository;
+
+/**
+ * Per-thread read requirements for the routing repositories. A request that must observe a
+ * given write sets {@link #requireAtLeast(long)} with the sequence number returned for that write
+ * (RestServer maps this from the X-Min-Seq header); writes made on the current thread raise the
+ * requirement automatically, so a handler always reads its own writes. Call {@link #clear()}
+ * when the request ends.
+ */
+public final class ReadConsistency {
+    /** Requirement meaning "read from the primary". */
+    public static final long PRIMARY = Long.MAX_VALUE;
+
+    private static final ThreadLocal<long[]> STATE = ThreadLocal.withInitial(() -> new long[2]); // {required, lastWrite}
+
+    private ReadConsistency() {}
+
+    public static void requireAtLeast(long seq) {
+        long[] s = STATE.get();
+        s[0] = Math.max(s[0], seq);
+    }
+
+    public static void requirePrimary() { STATE.get()[0] = PRIMARY; }
+
+    /** Minimum replica sequence a read on this thread may be served from. */
+    public static long required() {
+        long[] s = STATE.get();
+        return Math.max(s[0], s[1]);
+    }
+
+    /** Sequence of the last replicated write made on this thread, or 0. */
+    public static long lastWriteSeq() { return STATE.get()[1]; }
+
+    static void noteWrite(long seq) {
+        long[] s = STATE.get();
+        s[1] = Math.max(s[1], seq);
+    }
+
+    public static void clear() { STATE.remove(); }
+}
@@ -0,0 +1,275 @@
+package com.airtripe.studentmanagement.repository;
+
+import com.airtripe.studentmanagement.entity.Course;
+import com.airtripe.studentmanagement.entity.Enrollment;
+import com.airtripe.studentmanagement.entity.Student;
+import com.airtripe.studentmanagement.observer.EntityChangeListener;
+import com.airtripe.studentmanagement.util.MetricsCollector;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.time.LocalDate;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
+import java.util.function.Function;
+
+/**
+ * In-process replication from the primary repositories to read replicas. Register it as an
+ * {@link EntityChangeListener} on the primaries' notifier: every committed write is given a
+ * sequence number and queued, in order, to each replica's single applier thread. Applying an
+ * entry re-reads the row from the primary and upserts or deletes it on the replica, so entries are
+ * idempotent and the replica converges even if two writers' events arrive out of commit order.
+ * The routing repositories ask {@link #route} for a replica that has applied at least
+ * {@link ReadConsistency#required()}, falling back to the primary. A replica that fails to apply an
+ * entry stops serving reads until a full resync from the primary succeeds; failed resyncs are
+ * retried every {@link #RESYNC_RETRY_MILLIS}.
+ */
+public class ReplicationLog implements EntityChangeListener {
+    private static final Logger logger = LoggerFactory.getLogger(ReplicationLog.class);
+    static final long RESYNC_RETRY_MILLIS = 1000;
+
+    private final StudentRepository primaryStudents;
+    private final CourseRepository primaryCourses;
+    private final EnrollmentRepository primaryEnrollments;
+    private final List<Replica> replicas = new CopyOnWriteArrayList<>();
+    private final AtomicInteger nextReplica = new AtomicInteger();
+    private final MetricsCollector metrics = new MetricsCollector();
+    private long lastSeq; // guarded by this
+
+    public ReplicationLog(StudentRepository primaryStudents, CourseRepository primaryCourses, EnrollmentRepository primaryEnrollments) {
+        this.primaryStudents = primaryStudents;
+        this.primaryCourses = primaryCourses;
+        this.primaryEnrollments = primaryEnrollments;
+    }
+
+    /**
+     * Attach a replica. Its schema is initialized and it is seeded with a full copy of the primary
+     * on its applier thread; until the copy finishes reads are not routed to it.
+     */
+    public Replica addReplica(String name, StudentRepository students, CourseRepository courses, EnrollmentRepository enrollments) throws Exception {
+        enrollments.init();
+        Replica r = new Replica(name, students, courses, enrollments);
+        synchronized (this) {
+            // registered under the lock so no write falls between the seed and the first queued entry
+            replicas.add(r);
+            r.submit(lastSeq, this::seed);
+        }
+        return r;
+    }
+
+    private void seed(Replica r) {
+        for (Student s : primaryStudents.findAll()) r.students.addStudent(s);
+        for (Course c : primaryCourses.findAll()) r.courses.addCourse(c);
+        for (Enrollment e : primaryEnrollments.findAll()) r.enrollments.add(e);
+        logger.info("Replica {} seeded from primary", r.name);
+    }
+
+    // the seed plus deleting what the primary no longer has, in case the failed entry was a delete
+    private void resync(Replica r) {
+        Set<String> enrollmentKeys = new HashSet<>();
+        for (Enrollment e : primaryEnrollments.findAll()) enrollmentKeys.add(e.getStudent().getId() + '\u0000' + e.getCourse().getId());
+        for (Enrollment e : r.enrollments.findAll()) {
+            if (!enrollmentKeys.contains(e.getStudent().getId() + '\u0000' + e.getCourse().getId())) {
+                r.enrollments.remove(e.getStudent().getId(), e.getCourse().getId());
+            }
+        }
+        Set<String> studentIds = new HashSet<>();
+        for (Student s : primaryStudents.findAll()) studentIds.add(s.getId());
+        for (Student s : r.students.findAll()) if (!studentIds.contains(s.getId())) r.students.remove(s.getId());
+        Set<String> courseIds = new HashSet<>();
+        for (Course c : primaryCourses.findAll()) courseIds.add(c.getId());
+        for (Course c : r.courses.findAll()) if (!courseIds.contains(c.getId())) r.courses.remove(c.getId());
+        seed(r);
+    }
+
+    /** The repository a read should use: a caught-up replica's view, or {@code primary}. */
+    <T> T route(T primary, Function<Replica, T> view) {
+        // inside a unit of work reads must see that unit's uncommitted writes
+        long required = UnitOfWork.current() != null ? ReadConsistency.PRIMARY : ReadConsistency.required();
+        if (required != ReadConsistency.PRIMARY) {
+            int n = replicas.size();
+            int first = Math.floorMod(nextReplica.getAndIncrement(), Math.max(n, 1));
+            for (int i = 0; i < n; i++) {
+                Replica r = replicas.get((first + i) % n);
+                if (r.healthy && r.seeded && r.appliedSeq >= required) {
+                    metrics.increment("replication.reads.replica", 1);
+                    return view.apply(r);
+                }
+            }
+        }
+        metrics.increment("replication.reads.primary", 1);
+        return primary;
+    }
+
+    private long append(Consumer<Replica> entry) {
+        long seq;
+        synchronized (this) {
+            seq = ++lastSeq;
+            for (Replica r : replicas) r.submit(seq, entry);
+        }
+        ReadConsistency.noteWrite(seq);
+        return seq;
+    }
+
+    @Override
+    public void onStudentSaved(Student s) { refreshStudent(s.getId()); }
+
+    @Override
+    public void onStudentRemoved(String studentId) { refreshStudent(studentId); }
+
+    @Override
+    public void onCourseSaved(Course c) { refreshCourse(c.getId()); }
+
+    @Override
+    public void onCourseRemoved(String courseId) { refreshCourse(courseId); }
+
+    @Override
+    public void onEnrollmentSaved(Enrollment e) { refreshEnrollment(e.getStudent().getId(), e.getCourse().getId()); }
+
+    @Override
+    public void onEnrollmentRemoved(String studentId, String courseId) { refreshEnrollment(studentId, courseId); }
+
+    @Override
+    public void onEnrollmentArchived(String studentId, String courseId) { refreshEnrollment(studentId, courseId); }
+
+    private void refreshStudent(String id) {
+        append(r -> {
+            Optional<Student> current = primaryStudents.findById(id);
+            if (current.isPresent()) r.students.addStudent(current.get()); else r.students.remove(id);
+        });
+    }
+
+    private void refreshCourse(String id) {
+        append(r -> {
+            Optional<Course> current = primaryCourses.findById(id);
+            if (current.isPresent()) r.courses.addCourse(current.get()); else r.courses.remove(id);
+        });
+    }
+
+    private void refreshEnrollment(String studentId, String courseId) {
+        append(r -> {
+            Optional<Enrollment> current = primaryEnrollments.find(new Student(studentId, "", "", LocalDate.now()), new Course(courseId, "", 0));
+            if (current.isPresent()) r.enrollments.add(current.get()); else r.enrollments.remove(studentId, courseId);
+        });
+    }
+
+    public synchronized long getLastSeq() { return lastSeq; }
+
+    public List<Replica> getReplicas() { return replicas; }
+
+    /** Per-replica applied sequence, lag in entries and age of the oldest unapplied entry. */
+    public Map<String, Object> lagReport() {
+        long last = getLastSeq();
+        Map<String, Object> out = new LinkedHashMap<>();
+        out.put("lastSeq", last);
+        for (Replica r : replicas) {
+            Map<String, Object> m = new LinkedHashMap<>();
+            m.put("appliedSeq", r.appliedSeq);
+            m.put("lagEntries", Math.max(0, last - r.appliedSeq));
+            m.put("lagMillis", r.lagMillis());
+            m.put("healthy", r.healthy);
+            out.put(r.name, m);
+        }
+        return out;
+    }
+
+    /** Wait until every replica has applied everything appended so far; mainly for tests. */
+    public boolean awaitCaughtUp(long timeoutMillis) throws InterruptedException {
+        long target = getLastSeq();
+        long deadline = System.currentTimeMillis() + timeoutMillis;
+        for (Replica r : replicas) {
+            while (r.appliedSeq < target || !r.seeded) {
+                if (System.currentTimeMillis() > deadline) return false;
+                Thread.sleep(5);
+            }
+        }
+        return true;
+    }
+
+    public void shutdown() {
+        for (Replica r : replicas) r.applier.shutdownNow();
+    }
+
+    public MetricsCollector getMetricsCollector() { return metrics; }
+
+    public final class Replica {
+        private final String name;
+        final StudentRepository students;
+        final CourseRepository courses;
+        final EnrollmentRepository enrollments;
+        private final ScheduledExecutorService applier;
+        // seq -> enqueue time of entries not yet applied, for time-based lag
+        private final ConcurrentSkipListMap<Long, Long> pending = new ConcurrentSkipListMap<>();
+        private volatile long appliedSeq;
+        private volatile boolean seeded;
+        private volatile boolean healthy = true;
+
+        private Replica(String name, StudentRepository students, CourseRepository courses, EnrollmentRepository enrollments) {
+            this.name = name;
+            this.students = students;
+            this.courses = courses;
+            this.enrollments = enrollments;
+            this.applier = Executors.newSingleThreadScheduledExecutor(runnable -> {
+                Thread t = new Thread(runnable, "replica-" + name);
+                t.setDaemon(true);
+                return t;
+            });
+        }
+
+        private void submit(long seq, Consumer<Replica> entry) {
+            pending.put(seq, System.nanoTime());
+            applier.execute(() -> {
+                long start = System.nanoTime();
+                try {
+                    entry.accept(this);
+                } catch (RuntimeException ex) {
+                    // a skipped entry would leave the replica silently stale, so stop serving reads from it
+                    metrics.increment("replication.applyFailures", 1);
+                    logger.error("Replica {} failed to apply seq {}; routing reads to primary", name, seq, ex);
+                    if (healthy) {
+                        healthy = false;
+                        applier.execute(this::recover);
+                    }
+                } finally {
+                    appliedSeq = Math.max(appliedSeq, seq);
+                    seeded = true;
+                    pending.remove(seq);
+                    metrics.record("replication.apply", System.nanoTime() - start);
+                }
+            });
+        }
+
+        // runs on the applier after the entries queued so far; later entries re-read the primary anyway
+        private void recover() {
+            try {
+                resync(this);
+                healthy = true;
+                metrics.increment("replication.resyncs", 1);
+                logger.info("Replica {} resynced from primary; serving reads again", name);
+            } catch (RuntimeException ex) {
+                logger.warn("Replica {} resync failed; retrying in {} ms", name, RESYNC_RETRY_MILLIS, ex);
+                applier.schedule(this::recover, RESYNC_RETRY_MILLIS, TimeUnit.MILLISECONDS);
+            }
+        }
+
+        long lagMillis() {
+            Map.Entry<Long, Long> oldest = pending.firstEntry();
+            return oldest == null ? 0 : TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - oldest.getValue());
+        }
+
+        public String getName() { return name; }
+        public long getAppliedSeq() { return appliedSeq; }
+        public boolean isHealthy() { return healthy; }
+    }
+}
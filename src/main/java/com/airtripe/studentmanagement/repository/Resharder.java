@@ -0,0 +1,157 @@
+package com.airtripe.studentmanagement.repository;
+
+import com.airtripe.studentmanagement.util.JdbcConnectionProvider;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.sql.*;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Offline resharding: copies every course, student, enrollment and archived enrollment from one shard
+ * layout to another and, where a source database is reused in the new layout, deletes the rows that now
+ * route elsewhere. Rows are copied with plain batched MERGEs rather than through the repositories, so
+ * nothing is written to the grade outbox or change log and no listener hears about them: a reshard
+ * moves history, it does not replay it. The summary tables of every target shard are rebuilt at the end.
+ * Run it with the application stopped, after its grade relays have caught up (undelivered events stay in
+ * the outbox of the shard they were written to):
+ * <pre>
+ * java -cp app.jar com.airtripe.studentmanagement.repository.Resharder \
+ *     --from jdbc:h2:./data/s0,jdbc:h2:./data/s1 --to jdbc:h2:./data/s0,jdbc:h2:./data/s1,jdbc:h2:./data/s2
+ * </pre>
+ * Copies are MERGEs, so an interrupted run can simply be started again.
+ */
+public class Resharder {
+    private static final Logger logger = LoggerFactory.getLogger(Resharder.class);
+    private static final int BATCH_SIZE = 500;
+
+    private final List<JdbcConnectionProvider> source;
+    private final List<JdbcConnectionProvider> target;
+
+    public Resharder(List<JdbcConnectionProvider> source, List<JdbcConnectionProvider> target) {
+        this.source = source;
+        this.target = target;
+    }
+
+    /** @return number of rows (students, enrollments and archived enrollments) moved off their old shard */
+    public long run() throws Exception {
+        ShardedEnrollmentRepository fromEnrollments = new ShardedEnrollmentRepository(new ShardedStudentRepository(source));
+        ShardedEnrollmentRepository toEnrollments = new ShardedEnrollmentRepository(new ShardedStudentRepository(target));
+        fromEnrollments.init();
+        toEnrollments.init();
+
+        long copied = 0;
+        long moved = 0;
+        for (JdbcConnectionProvider from : source) {
+            String sourceUrl = from.getJdbcUrl();
+            List<Connection> to = new ArrayList<>();
+            try (Connection src = from.getConnection()) {
+                for (JdbcConnectionProvider t : target) {
+                    Connection conn = t.getConnection();
+                    to.add(conn);
+                    conn.setAutoCommit(false);
+                }
+                // parents before children, so every row's foreign keys are already satisfied on its target
+                copied += copy(src, sourceUrl, to, false, "SELECT id, name, credits FROM courses",
+                        "MERGE INTO courses (id, name, credits) KEY(id) VALUES (?, ?, ?)");
+                copied += copy(src, sourceUrl, to, true, "SELECT id, name, email, dob, thesis_title FROM students",
+                        "MERGE INTO students (id, name, email, dob, thesis_title) KEY(id) VALUES (?, ?, ?, ?, ?)");
+                copied += copy(src, sourceUrl, to, true, "SELECT student_id, course_id, enrolled_on, grade FROM enrollments",
+                        "MERGE INTO enrollments (student_id, course_id, enrolled_on, grade) KEY(student_id, course_id) VALUES (?, ?, ?, ?)");
+                copied += copy(src, sourceUrl, to, true, "SELECT student_id, course_id, enrolled_on, grade, archived_at FROM enrollments_archive",
+                        "MERGE INTO enrollments_archive (student_id, course_id, enrolled_on, grade, archived_at) KEY(student_id, course_id, enrolled_on) VALUES (?, ?, ?, ?, ?)");
+                for (Connection conn : to) conn.commit();
+                // this database is also a target shard: drop what now belongs to a different one
+                if (target.stream().anyMatch(t -> t.getJdbcUrl().equals(sourceUrl))) moved += dropMoved(src, sourceUrl);
+            } finally {
+                for (Connection conn : to) conn.close();
+            }
+        }
+        toEnrollments.rebuildAggregates();
+        logger.info("Resharded {} -> {} shards: {} rows copied, {} moved", source.size(), target.size(), copied, moved);
+        return moved;
+    }
+
+    // copy every row of select into the target shard its first column (a student id) routes to, or into every
+    // target shard when not routed (courses are reference data held by each shard); the source's own database is skipped
+    private long copy(Connection src, String sourceUrl, List<Connection> to, boolean routed, String select, String merge) throws SQLException {
+        List<PreparedStatement> statements = new ArrayList<>();
+        int[] pending = new int[to.size()];
+        long copied = 0;
+        try (Statement st = src.createStatement(); ResultSet rs = st.executeQuery(select)) {
+            for (Connection conn : to) statements.add(conn.prepareStatement(merge));
+            int columns = rs.getMetaData().getColumnCount();
+            while (rs.next()) {
+                int only = routed ? ShardRouter.shardFor(rs.getString(1), to.size()) : -1;
+                for (int t = 0; t < to.size(); t++) {
+                    if ((only >= 0 && t != only) || sameShard(sourceUrl, t)) continue;
+                    PreparedStatement ps = statements.get(t);
+                    for (int c = 1; c <= columns; c++) ps.setObject(c, rs.getObject(c));
+                    ps.addBatch();
+                    copied++;
+                    if (++pending[t] == BATCH_SIZE) {
+                        ps.executeBatch();
+                        pending[t] = 0;
+                    }
+                }
+            }
+            for (int t = 0; t < to.size(); t++) {
+                if (pending[t] > 0) statements.get(t).executeBatch();
+            }
+            return copied;
+        } finally {
+            for (PreparedStatement ps : statements) ps.close();
+        }
+    }
+
+    // delete the students that route to another shard, archived enrollments and enrollments first (their
+    // foreign keys refuse a parent delete while either remains), in one transaction
+    private long dropMoved(Connection src, String sourceUrl) throws SQLException {
+        List<String> ids = new ArrayList<>();
+        try (Statement st = src.createStatement(); ResultSet rs = st.executeQuery("SELECT id FROM students")) {
+            while (rs.next()) {
+                if (!sameShard(sourceUrl, ShardRouter.shardFor(rs.getString(1), target.size()))) ids.add(rs.getString(1));
+            }
+        }
+        if (ids.isEmpty()) return 0;
+        long moved = 0;
+        src.setAutoCommit(false);
+        try {
+            Array keys = src.createArrayOf("VARCHAR", ids.toArray());
+            for (String sql : new String[]{"DELETE FROM enrollments_archive WHERE student_id = ANY(?)",
+                    "DELETE FROM enrollments WHERE student_id = ANY(?)", "DELETE FROM students WHERE id = ANY(?)"}) {
+                try (PreparedStatement ps = src.prepareStatement(sql)) {
+                    ps.setArray(1, keys);
+                    moved += ps.executeUpdate();
+                }
+            }
+            src.commit();
+            return moved;
+        } catch (SQLException ex) {
+            src.rollback();
+            throw ex;
+        }
+    }
+
+    private boolean sameShard(String sourceUrl, int targetIndex) {
+        return target.get(targetIndex).getJdbcUrl().equals(sourceUrl);
+    }
+
+    public static void main(String[] args) throws Exception {
+        String from = null;
+        String to = null;
+        for (int i = 0; i + 1 < args.length; i += 2) {
+            if ("--from".equals(args[i])) from = args[i + 1];
+            else if ("--to".equals(args[i])) to = args[i + 1];
+        }
+        if (from == null || to == null) {
+            System.err.println("usage: Resharder --from url[,url...] --to url[,url...]");
+            System.exit(2);
+        }
+        String user = System.getProperty("sms.jdbc.user", "sa");
+        String password = System.getProperty("sms.jdbc.password", "");
+        long moved = new Resharder(JdbcConnectionProvider.fromUrls(from, user, password), JdbcConnectionProvider.fromUrls(to, user, password)).run();
+        System.out.println("Reshard complete; " + moved + " rows moved");
+    }
+}
@@ -0,0 +1,44 @@
+package com.airtripe.studentmanagement.repository;
+
+import com.airtripe.studentmanagement.entity.Course;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+
+/** Writes go to the primary; reads go to a replica that satisfies {@link ReadConsistency}. */
+public class RoutingCourseRepository implements CourseRepository {
+    private final CourseRepository primary;
+    private final ReplicationLog replication;
+
+    public RoutingCourseRepository(CourseRepository primary, ReplicationLog replication) {
+        this.primary = primary;
+        this.replication = replication;
+    }
+
+    @Override
+    public void init() throws Exception { primary.init(); }
+
+    @Override
+    public Course addCourse(Course c) { return primary.addCourse(c); }
+
+    @Override
+    public boolean remove(String id) { return primary.remove(id); }
+
+    @Override
+    public int removeAll(Collection<String> ids) { return primary.removeAll(ids); }
+
+    @Override
+    public boolean updateCourse(String id, Course updated) { return primary.updateCourse(id, updated); }
+
+    @Override
+    public Optional<Course> findById(String id) { return reader().findById(id); }
+
+    @Override
+    public List<Course> findAll() { return reader().findAll(); }
+
+    @Override
+    public List<Course> search(String query) { return reader().search(query); }
+
+    private CourseRepository reader() { return replication.route(primary, r -> r.courses); }
+}
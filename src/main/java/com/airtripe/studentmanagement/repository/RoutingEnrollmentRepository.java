@@ -0,0 +1,65 @@
+package com.airtripe.studentmanagement.repository;
+
+import com.airtripe.studentmanagement.entity.Course;
+import com.airtripe.studentmanagement.entity.Enrollment;
+import com.airtripe.studentmanagement.entity.Student;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+
+/** Writes go to the primary; reads go to a replica that satisfies {@link ReadConsistency}. */
+public class RoutingEnrollmentRepository implements EnrollmentRepository {
+    private final EnrollmentRepository primary;
+    private final ReplicationLog replication;
+
+    public RoutingEnrollmentRepository(EnrollmentRepository primary, ReplicationLog replication) {
+        this.primary = primary;
+        this.replication = replication;
+    }
+
+    @Override
+    public void init() throws Exception { primary.init(); }
+
+    @Override
+    public Enrollment add(Enrollment e) { return primary.add(e); }
+
+    @Override
+    public boolean remove(String studentId, String courseId) { return primary.remove(studentId, courseId); }
+
+    // the archive lives only on the primary
+    @Override
+    public List<Enrollment> findByStudentId(String studentId, boolean includeArchived) {
+        return includeArchived ? primary.findByStudentId(studentId, true) : findByStudentId(studentId);
+    }
+
+    @Override
+    public List<Enrollment> findByCourseId(String courseId, boolean includeArchived) {
+        return includeArchived ? primary.findByCourseId(courseId, true) : findByCourseId(courseId);
+    }
+
+    @Override
+    public int removeByStudentIds(Collection<String> studentIds) { return primary.removeByStudentIds(studentIds); }
+
+    @Override
+    public int removeByCourseIds(Collection<String> courseIds) { return primary.removeByCourseIds(courseIds); }
+
+    @Override
+    public Optional<Enrollment> find(Student student, Course course) { return reader().find(student, course); }
+
+    @Override
+    public List<Enrollment> findByStudentId(String studentId) { return reader().findByStudentId(studentId); }
+
+    @Override
+    public List<Enrollment> findByCourseId(String courseId) { return reader().findByCourseId(courseId); }
+
+    @Override
+    public List<Enrollment> findAll() { return reader().findAll(); }
+
+    @Override
+    public List<Enrollment> findAll(boolean includeArchived) {
+        return includeArchived ? primary.findAll(true) : findAll();
+    }
+
+    private EnrollmentRepository reader() { return replication.route(primary, r -> r.enrollments); }
+}
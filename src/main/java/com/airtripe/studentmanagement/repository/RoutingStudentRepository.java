@@ -0,0 +1,44 @@
+package com.airtripe.studentmanagement.repository;
+
+import com.airtripe.studentmanagement.entity.Student;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+
+/** Writes go to the primary; reads go to a replica that satisfies {@link ReadConsistency}. */
+public class RoutingStudentRepository implements StudentRepository {
+    private final StudentRepository primary;
+    private final ReplicationLog replication;
+
+    public RoutingStudentRepository(StudentRepository primary, ReplicationLog replication) {
+        this.primary = primary;
+        this.replication = replication;
+    }
+
+    @Override
+    public void init() throws Exception { primary.init(); }
+
+    @Override
+    public Student addStudent(Student s) { return primary.addStudent(s); }
+
+    @Override
+    public boolean remove(String id) { return primary.remove(id); }
+
+    @Override
+    public int removeAll(Collection<String> ids) { return primary.removeAll(ids); }
+
+    @Override
+    public boolean updateStudent(String id, Student updated) { return primary.updateStudent(id, updated); }
+
+    @Override
+    public Optional<Student> findById(String id) { return reader().findById(id); }
+
+    @Override
+    public List<Student> findAll() { return reader().findAll(); }
+
+    @Override
+    public List<Student> search(String query) { return reader().search(query); }
+
+    private StudentRepository reader() { return replication.route(primary, r -> r.students); }
+}
@@ -0,0 +1,53 @@
+package com.airtripe.studentmanagement.repository;
+
+import com.airtripe.studentmanagement.util.ConnectionProvider;
+
+import java.math.BigDecimal;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.Optional;
+
+/**
+ * Row versions for cheap HTTP validators. Every insert or update of a student, course or enrollment
+ * stamps the row with the next value of one shared sequence, so a version is never reused and changes
+ * whenever the row does. A single row's token is its version; a set of rows (a roster, a whole table)
+ * is summarized by the count, sum and xor of its versions, which changes on any insert, update or
+ * delete in the set. Computing either reads only the version columns, never the rows themselves.
+ */
+final class RowVersions {
+    static final String CREATE_SEQUENCE = "CREATE SEQUENCE IF NOT EXISTS row_version_seq";
+    static final String NEXT = "NEXT VALUE FOR row_version_seq";
+
+    private RowVersions() {}
+
+    static String addColumn(String table) {
+        return "ALTER TABLE " + table + " ADD COLUMN IF NOT EXISTS version BIGINT DEFAULT " + NEXT + " NOT NULL";
+    }
+
+    /** The version of the row {@code sql} selects, or empty if there is no such row. */
+    static Optional<String> ofRow(ConnectionProvider config, String sql, String... params) throws SQLException {
+        try (Connection conn = UnitOfWork.connection(config); PreparedStatement ps = prepare(conn, sql, params);
+             ResultSet rs = ps.executeQuery()) {
+            return rs.next() ? Optional.of(Long.toString(rs.getLong(1), 36)) : Optional.empty();
+        }
+    }
+
+    /** A token for the set of versions {@code versionsSql} selects (one column, named {@code v}). */
+    static Optional<String> ofSet(ConnectionProvider config, String versionsSql, String... params) throws SQLException {
+        String sql = "SELECT COUNT(*), COALESCE(SUM(v), 0), COALESCE(BIT_XOR_AGG(v), 0) FROM (" + versionsSql + ") versions";
+        try (Connection conn = UnitOfWork.connection(config); PreparedStatement ps = prepare(conn, sql, params);
+             ResultSet rs = ps.executeQuery()) {
+            rs.next();
+            BigDecimal sum = rs.getBigDecimal(2);
+            return Optional.of(Long.toString(rs.getLong(1), 36) + "-" + sum.toBigInteger().toString(36) + "-" + Long.toString(rs.getLong(3), 36));
+        }
+    }
+
+    private static PreparedStatement prepare(Connection conn, String sql, String... params) throws SQLException {
+        PreparedStatement ps = conn.prepareStatement(sql);
+        for (int i = 0; i < params.length; i++) ps.setString(i + 1, params[i]);
+        return ps;
+    }
+}
@@ -0,0 +1,113 @@
+package com.airtripe.studentmanagement.repository;
+
+import com.airtripe.studentmanagement.util.ConnectionProvider;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Versioned schema changes for one table owner (students, courses, enrollments). The version
+ * each owner has reached is kept in {@code schema_version}, so a step runs once per database. H2
+ * commits DDL immediately, so steps are written to be safe to re-run (IF NOT EXISTS): a crash
+ * between a step and its version update just repeats the step on the next start.
+ */
+public class SchemaMigrator {
+    private static final Logger logger = LoggerFactory.getLogger(SchemaMigrator.class);
+    // the startup phases migrate students and courses concurrently; they share schema_version
+    private static final Object LOCK = new Object();
+
+    @FunctionalInterface
+    public interface Step {
+        void apply(Statement st) throws SQLException;
+    }
+
+    private final ConnectionProvider config;
+    private final String owner;
+    private final List<Migration> migrations = new ArrayList<>();
+
+    public SchemaMigrator(ConnectionProvider config, String owner) {
+        this.config = config;
+        this.owner = owner;
+    }
+
+    /** Add the step that brings the schema to {@code version}; steps must be added in version order. */
+    public SchemaMigrator step(int version, String description, Step step) {
+        if (!migrations.isEmpty() && migrations.get(migrations.size() - 1).version >= version) {
+            throw new IllegalArgumentException(owner + " migration " + version + " is out of order");
+        }
+        migrations.add(new Migration(version, description, step));
+        return this;
+    }
+
+    /** A step made of plain DDL statements, run in order. */
+    public SchemaMigrator step(int version, String description, String... sql) {
+        return step(version, description, st -> {
+            for (String s : sql) st.execute(s);
+        });
+    }
+
+    /** Apply every step above the recorded version; returns the version the schema is now at. */
+    public int migrate() throws SQLException {
+        synchronized (LOCK) {
+            try (Connection conn = config.getConnection(); Statement st = conn.createStatement()) {
+                ensureVersionTable(st);
+                int current = readVersion(conn, owner);
+                for (Migration m : migrations) {
+                    if (m.version <= current) continue;
+                    long start = System.nanoTime();
+                    m.step.apply(st);
+                    try (PreparedStatement ps = conn.prepareStatement(
+                            "MERGE INTO schema_version (owner, version, description, applied_at) KEY(owner) VALUES (?, ?, ?, CURRENT_TIMESTAMP)")) {
+                        ps.setString(1, owner);
+                        ps.setInt(2, m.version);
+                        ps.setString(3, m.description);
+                        ps.executeUpdate();
+                    }
+                    current = m.version;
+                    logger.info("{} schema migrated to v{} ({}) in {} ms", owner, m.version, m.description, (System.nanoTime() - start) / 1_000_000);
+                }
+                return current;
+            }
+        }
+    }
+
+    /** The version recorded for {@code owner}, or 0 if it has never been migrated. */
+    public static int currentVersion(ConnectionProvider config, String owner) throws SQLException {
+        try (Connection conn = config.getConnection(); Statement st = conn.createStatement()) {
+            ensureVersionTable(st);
+            return readVersion(conn, owner);
+        }
+    }
+
+    private static void ensureVersionTable(Statement st) throws SQLException {
+        st.execute("CREATE TABLE IF NOT EXISTS schema_version (owner VARCHAR(100) PRIMARY KEY, version INT NOT NULL, description VARCHAR(255), applied_at TIMESTAMP)");
+    }
+
+    private static int readVersion(Connection conn, String owner) throws SQLException {
+        try (PreparedStatement ps = conn.prepareStatement("SELECT version FROM schema_version WHERE owner = ?")) {
+            ps.setString(1, owner);
+            try (ResultSet rs = ps.executeQuery()) {
+                return rs.next() ? rs.getInt(1) : 0;
+            }
+        }
+    }
+
+    private static final class Migration {
+        final int version;
+        final String description;
+        final Step step;
+
+        Migration(int version, String description, Step step) {
+            this.version = version;
+            this.description = description;
+            this.step = step;
+        }
+    }
+}
@@ -0,0 +1,73 @@
+package com.airtripe.studentmanagement.repository;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.PriorityQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.function.Function;
+
+/**
+ * Hash routing and result merging shared by the sharded repositories. A student and all of
+ * their enrollments live on shard {@code floorMod(studentId.hashCode(), shardCount)};
+ * String.hashCode is specified by the JLS, so the mapping is stable across JVMs and restarts.
+ */
+final class ShardRouter {
+    private ShardRouter() {}
+
+    static int shardFor(String studentId, int shardCount) {
+        return Math.floorMod(studentId.hashCode(), shardCount);
+    }
+
+    /** A fixed pool with one daemon thread per shard, for {@link #scatter}. */
+    static ExecutorService scatterPool(int shardCount) {
+        return Executors.newFixedThreadPool(shardCount, r -> {
+            Thread t = new Thread(r, "shard-scatter");
+            t.setDaemon(true);
+            return t;
+        });
+    }
+
+    /**
+     * Run {@code query} against every shard concurrently on {@code pool} and return the results in
+     * shard order. The queries block on JDBC, so they get their own pool rather than the common one.
+     */
+    static <S, T> List<List<T>> scatter(ExecutorService pool, List<S> shards, Function<S, List<T>> query) {
+        List<Future<List<T>>> pending = new ArrayList<>(shards.size());
+        for (S shard : shards) pending.add(pool.submit(() -> query.apply(shard)));
+        List<List<T>> out = new ArrayList<>(shards.size());
+        try {
+            for (Future<List<T>> f : pending) out.add(f.get());
+            return out;
+        } catch (InterruptedException e) {
+            pending.forEach(f -> f.cancel(true));
+            Thread.currentThread().interrupt();
+            throw new RuntimeException(e);
+        } catch (ExecutionException e) {
+            pending.forEach(f -> f.cancel(true));
+            throw e.getCause() instanceof RuntimeException re ? re : new RuntimeException(e.getCause());
+        }
+    }
+
+    /** k-way merge of per-shard lists that are each already sorted by {@code order}. */
+    static <T> List<T> mergeSorted(List<List<T>> sorted, Comparator<? super T> order) {
+        int total = 0;
+        for (List<T> l : sorted) total += l.size();
+        List<T> out = new ArrayList<>(total);
+        // heap entries are {list index, position}
+        PriorityQueue<int[]> heap = new PriorityQueue<>((a, b) -> order.compare(sorted.get(a[0]).get(a[1]), sorted.get(b[0]).get(b[1])));
+        for (int i = 0; i < sorted.size(); i++) {
+            if (!sorted.get(i).isEmpty()) heap.add(new int[]{i, 0});
+        }
+        while (!heap.isEmpty()) {
+            int[] top = heap.poll();
+            List<T> l = sorted.get(top[0]);
+            out.add(l.get(top[1]));
+            if (top[1] + 1 < l.size()) heap.add(new int[]{top[0], top[1] + 1});
+        }
+        return out;
+    }
+}
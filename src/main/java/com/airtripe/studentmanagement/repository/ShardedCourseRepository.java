@@ -0,0 +1,76 @@
+package com.airtripe.studentmanagement.repository;
+
+import com.airtripe.studentmanagement.entity.Course;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * Courses for a sharded deployment: the primary database holds the authoritative rows and serves reads,
+ * and every write is repeated on each shard's copy (see {@link ShardedEnrollmentRepository}), so shard-local
+ * joins, enrollment reads and the shards' credit totals follow renames, credit changes and removals. Only the
+ * primary announces changes. Saves and updates go to the primary first; removals go to the shards first,
+ * where the foreign keys still refuse a course that has enrollments.
+ */
+public class ShardedCourseRepository implements CourseRepository {
+    private final CourseRepository primary;
+    private final List<CourseRepositoryJdbc> copies;
+
+    public ShardedCourseRepository(CourseRepository primary, ShardedEnrollmentRepository enrollments) {
+        this.primary = primary;
+        this.copies = enrollments.courseCopies();
+    }
+
+    /** Also brings the shard copies up to date with the primary, e.g. after writes made before they were kept in step. */
+    @Override
+    public void init() throws Exception {
+        primary.init();
+        List<Course> courses = primary.findAll();
+        for (CourseRepositoryJdbc copy : copies) {
+            copy.init();
+            for (Course c : courses) copy.addCourse(c);
+        }
+    }
+
+    @Override
+    public Course addCourse(Course c) {
+        Course saved = primary.addCourse(c);
+        for (CourseRepositoryJdbc copy : copies) copy.addCourse(c);
+        return saved;
+    }
+
+    @Override
+    public boolean updateCourse(String id, Course updated) {
+        if (!primary.updateCourse(id, updated)) return false;
+        for (CourseRepositoryJdbc copy : copies) copy.updateCourse(id, updated);
+        return true;
+    }
+
+    @Override
+    public boolean remove(String id) {
+        for (CourseRepositoryJdbc copy : copies) copy.remove(id);
+        return primary.remove(id);
+    }
+
+    @Override
+    public int removeAll(Collection<String> ids) {
+        for (CourseRepositoryJdbc copy : copies) copy.removeAll(ids);
+        return primary.removeAll(ids);
+    }
+
+    @Override
+    public Optional<Course> findById(String id) { return primary.findById(id); }
+
+    @Override
+    public List<Course> findAll() { return primary.findAll(); }
+
+    @Override
+    public List<Course> search(String query) { return primary.search(query); }
+
+    @Override
+    public Optional<String> version(String id) { return primary.version(id); }
+
+    @Override
+    public Optional<String> version() { return primary.version(); }
+}
@@ -0,0 +1,152 @@
+package com.airtripe.studentmanagement.repository;
+
+import com.airtripe.studentmanagement.entity.Course;
+import com.airtripe.studentmanagement.entity.Enrollment;
+import com.airtripe.studentmanagement.entity.Student;
+import com.airtripe.studentmanagement.observer.EntityChangeNotifier;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Optional;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * EnrollmentRepository co-located with a {@link ShardedStudentRepository}: an enrollment is
+ * stored on its student's shard, in the same database (and transaction) as that shard's outbox
+ * and summary tables. Course rows are reference data: every shard holds a copy, so joins against
+ * courses stay shard-local. {@link EnrollmentRepositoryJdbc#add} upserts the enrollment's course into its
+ * shard, and course writes on the primary reach every shard through {@link ShardedCourseRepository}.
+ */
+public class ShardedEnrollmentRepository implements EnrollmentRepository {
+    private static final Comparator<Enrollment> BY_STUDENT_COURSE =
+            Comparator.comparing((Enrollment e) -> e.getStudent().getId()).thenComparing(e -> e.getCourse().getId());
+
+    private final ShardedStudentRepository students;
+    private final List<EnrollmentRepositoryJdbc> shards = new ArrayList<>();
+    private final List<CourseRepositoryJdbc> courseCopies = new ArrayList<>();
+
+    public ShardedEnrollmentRepository(ShardedStudentRepository students) {
+        this.students = students;
+        for (int i = 0; i < students.getShardCount(); i++) {
+            CourseRepositoryJdbc courses = new CourseRepositoryJdbc(students.provider(i));
+            courseCopies.add(courses);
+            shards.add(new EnrollmentRepositoryJdbc(students.shard(i), courses, students.provider(i)));
+        }
+    }
+
+    @Override
+    public void init() throws Exception {
+        for (EnrollmentRepositoryJdbc shard : shards) shard.init();
+    }
+
+    @Override
+    public Enrollment add(Enrollment e) {
+        return shardOf(e.getStudent().getId()).add(e);
+    }
+
+    @Override
+    public Optional<Enrollment> find(Student student, Course course) {
+        return shardOf(student.getId()).find(student, course);
+    }
+
+    @Override
+    public List<Enrollment> findByStudentId(String studentId) {
+        return shardOf(studentId).findByStudentId(studentId);
+    }
+
+    @Override
+    public List<Enrollment> findByCourseId(String courseId) {
+        return scatter(shard -> shard.findByCourseId(courseId));
+    }
+
+    @Override
+    public List<Enrollment> findByStudentId(String studentId, boolean includeArchived) {
+        return shardOf(studentId).findByStudentId(studentId, includeArchived);
+    }
+
+    @Override
+    public List<Enrollment> findByCourseId(String courseId, boolean includeArchived) {
+        return scatter(shard -> shard.findByCourseId(courseId, includeArchived));
+    }
+
+    @Override
+    public List<Enrollment> findAll() {
+        return scatter(EnrollmentRepositoryJdbc::findAll);
+    }
+
+    @Override
+    public List<Enrollment> findAll(boolean includeArchived) {
+        return scatter(shard -> shard.findAll(includeArchived));
+    }
+
+    @Override
+    public boolean remove(String studentId, String courseId) {
+        return shardOf(studentId).remove(studentId, courseId);
+    }
+
+    @Override
+    public int removeByStudentIds(Collection<String> studentIds) {
+        int removed = 0;
+        for (var group : studentIds.stream().collect(Collectors.groupingBy(students::shardIndexFor)).entrySet()) {
+            removed += shards.get(group.getKey()).removeByStudentIds(group.getValue());
+        }
+        return removed;
+    }
+
+    @Override
+    public int removeByCourseIds(Collection<String> courseIds) {
+        int removed = 0;
+        for (EnrollmentRepositoryJdbc shard : shards) removed += shard.removeByCourseIds(courseIds);
+        return removed;
+    }
+
+    @Override
+    public Optional<String> versionByCourseId(String courseId) {
+        return combined(shard -> shard.versionByCourseId(courseId));
+    }
+
+    @Override
+    public Optional<String> versionByStudentId(String studentId) {
+        return shardOf(studentId).versionByStudentId(studentId);
+    }
+
+    @Override
+    public Optional<String> version() {
+        return combined(EnrollmentRepositoryJdbc::version);
+    }
+
+    public void setChangeNotifier(EntityChangeNotifier changeNotifier) {
+        for (EnrollmentRepositoryJdbc shard : shards) shard.setChangeNotifier(changeNotifier);
+    }
+
+    public void rebuildAggregates() {
+        for (EnrollmentRepositoryJdbc shard : shards) shard.rebuildAggregates();
+    }
+
+    /** The per-shard repositories, e.g. to relay each shard's grade outbox. */
+    public List<EnrollmentRepositoryJdbc> getShards() { return Collections.unmodifiableList(shards); }
+
+    EnrollmentRepositoryJdbc shard(int index) { return shards.get(index); }
+
+    /** Each shard's copy of the courses table, in shard order. */
+    List<CourseRepositoryJdbc> courseCopies() { return Collections.unmodifiableList(courseCopies); }
+
+    private EnrollmentRepositoryJdbc shardOf(String studentId) {
+        return shards.get(students.shardIndexFor(studentId));
+    }
+
+    // every shard's token, in shard order: a change on any shard changes the whole
+    private Optional<String> combined(Function<EnrollmentRepositoryJdbc, Optional<String>> version) {
+        List<List<String>> tokens = ShardRouter.scatter(students.scatterPool(), shards, shard -> version.apply(shard).stream().collect(Collectors.toList()));
+        if (tokens.stream().anyMatch(List::isEmpty)) return Optional.empty();
+        return Optional.of(tokens.stream().map(t -> t.get(0)).collect(Collectors.joining(".")));
+    }
+
+    private List<Enrollment> scatter(Function<EnrollmentRepositoryJdbc, List<Enrollment>> query) {
+        return ShardRouter.mergeSorted(ShardRouter.scatter(students.scatterPool(), shards, query), BY_STUDENT_COURSE);
+    }
+}
@@ -0,0 +1,89 @@
+package com.airtripe.studentmanagement.repository;
+
+import com.airtripe.studentmanagement.entity.Student;
+import com.airtripe.studentmanagement.observer.EntityChangeNotifier;
+import com.airtripe.studentmanagement.util.ConnectionProvider;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.ExecutorService;
+import java.util.function.Function;
+
+/**
+ * StudentRepository spread over several databases by hash of student id (see {@link ShardRouter}).
+ * Single-student operations go to one shard, so writes to different shards don't contend;
+ * findAll and search query every shard in parallel, on a pool with a thread per shard, and merge the
+ * id-ordered results.
+ */
+public class ShardedStudentRepository implements StudentRepository {
+    private final List<ConnectionProvider> providers;
+    private final List<StudentRepositoryJdbc> shards = new ArrayList<>();
+    private final ExecutorService scatterPool;
+
+    public ShardedStudentRepository(List<? extends ConnectionProvider> providers) {
+        if (providers.isEmpty()) throw new IllegalArgumentException("at least one shard is required");
+        this.providers = List.copyOf(providers);
+        for (ConnectionProvider p : this.providers) shards.add(new StudentRepositoryJdbc(p));
+        this.scatterPool = ShardRouter.scatterPool(this.providers.size());
+    }
+
+    @Override
+    public void init() throws Exception {
+        for (StudentRepositoryJdbc shard : shards) shard.init();
+    }
+
+    @Override
+    public Student addStudent(Student s) {
+        return shardOf(s.getId()).addStudent(s);
+    }
+
+    @Override
+    public Optional<Student> findById(String id) {
+        return shardOf(id).findById(id);
+    }
+
+    @Override
+    public List<Student> findAll() {
+        return scatter(StudentRepositoryJdbc::findAll);
+    }
+
+    @Override
+    public List<Student> search(String query) {
+        return scatter(shard -> shard.search(query));
+    }
+
+    @Override
+    public boolean remove(String id) {
+        return shardOf(id).remove(id);
+    }
+
+    @Override
+    public boolean updateStudent(String id, Student updated) {
+        return shardOf(id).updateStudent(id, updated);
+    }
+
+    public void setChangeNotifier(EntityChangeNotifier changeNotifier) {
+        for (StudentRepositoryJdbc shard : shards) shard.setChangeNotifier(changeNotifier);
+    }
+
+    public int getShardCount() { return shards.size(); }
+
+    public int shardIndexFor(String studentId) { return ShardRouter.shardFor(studentId, shards.size()); }
+
+    StudentRepositoryJdbc shard(int index) { return shards.get(index); }
+
+    ConnectionProvider provider(int index) { return providers.get(index); }
+
+    ExecutorService scatterPool() { return scatterPool; }
+
+    private StudentRepositoryJdbc shardOf(String studentId) {
+        return shards.get(shardIndexFor(studentId));
+    }
+
+    private List<Student> scatter(Function<StudentRepositoryJdbc, List<Student>> query) {
+        // every shard returns rows ORDER BY id, so a k-way merge gives the global order
+        return ShardRouter.mergeSorted(ShardRouter.scatter(scatterPool, shards, query), Comparator.comparing(Student::getId));
+    }
+}
@@ -0,0 +1,80 @@
+package com.airtripe.studentmanagement.repository;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.BiFunction;
+
+/**
+ * Sorted concurrent map with a cached, immutable, point-in-time view of its values, used by the
+ * in-memory repositories. Point reads and writes go straight to a lock-free ConcurrentSkipListMap.
+ * The gate is used "inverted": writers take the shared side, so they never block each other,
+ * and only rebuilding the snapshot takes the exclusive side. No write is half-visible in a
+ * snapshot, and a snapshot is reused until the next write, so findAll neither sorts nor copies
+ * on every call.
+ */
+final class SnapshotMap<V> {
+    private final ConcurrentSkipListMap<String, V> map = new ConcurrentSkipListMap<>();
+    private final ReentrantReadWriteLock gate = new ReentrantReadWriteLock();
+    private volatile List<V> snapshot;
+
+    V get(String key) { return map.get(key); }
+
+    V put(String key, V value) {
+        gate.readLock().lock();
+        try {
+            V previous = map.put(key, value);
+            snapshot = null;
+            return previous;
+        } finally {
+            gate.readLock().unlock();
+        }
+    }
+
+    V remove(String key) {
+        gate.readLock().lock();
+        try {
+            V previous = map.remove(key);
+            if (previous != null) snapshot = null;
+            return previous;
+        } finally {
+            gate.readLock().unlock();
+        }
+    }
+
+    /** Atomic read-modify-write of one key; returning null from {@code fn} removes it. */
+    V compute(String key, BiFunction<String, V, V> fn) {
+        gate.readLock().lock();
+        try {
+            V result = map.compute(key, fn);
+            snapshot = null;
+            return result;
+        } finally {
+            gate.readLock().unlock();
+        }
+    }
+
+    /** Values with keys in [from, to), in key order; weakly consistent like the underlying map. */
+    Iterable<V> range(String from, String to) { return map.subMap(from, to).values(); }
+
+    /** All values in key order as of a single instant. */
+    List<V> snapshot() {
+        List<V> s = snapshot;
+        if (s != null) return s;
+        gate.writeLock().lock();
+        try {
+            s = snapshot;
+            if (s == null) {
+                s = Collections.unmodifiableList(new ArrayList<>(map.values()));
+                snapshot = s;
+            }
+            return s;
+        } finally {
+            gate.writeLock().unlock();
+        }
+    }
+
+    int size() { return map.size(); }
+}
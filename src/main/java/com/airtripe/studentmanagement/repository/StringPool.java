@@ -0,0 +1,134 @@
+package com.airtripe.studentmanagement.repository;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Off-heap dictionary of UTF-8 strings. {@link #intern} returns the same int reference for equal
+ * strings, so repeated values (names, thesis titles) are stored once and rows hold 4-byte refs.
+ * Bytes live in one direct buffer; the hash table and offset/length columns are off-heap too, so
+ * the pool adds no per-string heap objects. Append-only: a value stays in the pool after the last
+ * row referencing it is gone. Not thread-safe; callers lock.
+ */
+final class StringPool {
+    private ByteBuffer data = ByteBuffer.allocateDirect(1 << 16);
+    private int dataSize;
+    private final IntColumn offsets = new IntColumn(1024);
+    private final IntColumn lengths = new IntColumn(1024);
+    private IntColumn table = new IntColumn(2048); // ref + 1, 0 = empty; open addressing
+    private int tableMask = 2047;
+    private int size;
+
+    int intern(String s) {
+        byte[] bytes = s.getBytes(StandardCharsets.UTF_8);
+        int h = hash(bytes);
+        int slot = h & tableMask;
+        while (true) {
+            int entry = table.get(slot);
+            if (entry == 0) break;
+            if (bytesEqual(entry - 1, bytes)) return entry - 1;
+            slot = (slot + 1) & tableMask;
+        }
+        int ref = size++;
+        ensureData(dataSize + bytes.length);
+        ByteBuffer d = data.duplicate();
+        d.position(dataSize);
+        d.put(bytes);
+        offsets.set(ref, dataSize);
+        lengths.set(ref, bytes.length);
+        dataSize += bytes.length;
+        table.set(slot, ref + 1);
+        if (size * 2 > tableMask + 1) rehash();
+        return ref;
+    }
+
+    /** Ref of {@code s} if it is in the pool, else -1; never adds. */
+    int lookup(String s) {
+        byte[] bytes = s.getBytes(StandardCharsets.UTF_8);
+        int slot = hash(bytes) & tableMask;
+        while (true) {
+            int entry = table.get(slot);
+            if (entry == 0) return -1;
+            if (bytesEqual(entry - 1, bytes)) return entry - 1;
+            slot = (slot + 1) & tableMask;
+        }
+    }
+
+    String get(int ref) {
+        byte[] bytes = new byte[lengths.get(ref)];
+        ByteBuffer d = data.duplicate();
+        d.position(offsets.get(ref));
+        d.get(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    /** Lexicographic comparison of two refs by UTF-8 bytes (same order as String.compareTo for BMP text). */
+    int compare(int a, int b) {
+        if (a == b) return 0;
+        int oa = offsets.get(a), la = lengths.get(a);
+        int ob = offsets.get(b), lb = lengths.get(b);
+        int n = Math.min(la, lb);
+        for (int i = 0; i < n; i++) {
+            int c = Integer.compare(data.get(oa + i) & 0xff, data.get(ob + i) & 0xff);
+            if (c != 0) return c;
+        }
+        return Integer.compare(la, lb);
+    }
+
+    int size() { return size; }
+
+    long bytes() { return data.capacity() + offsets.bytes() + lengths.bytes() + table.bytes(); }
+
+    private boolean bytesEqual(int ref, byte[] bytes) {
+        if (lengths.get(ref) != bytes.length) return false;
+        int off = offsets.get(ref);
+        for (int i = 0; i < bytes.length; i++) {
+            if (data.get(off + i) != bytes[i]) return false;
+        }
+        return true;
+    }
+
+    private void rehash() {
+        int newCapacity = (tableMask + 1) * 2;
+        IntColumn bigger = new IntColumn(newCapacity);
+        int mask = newCapacity - 1;
+        for (int ref = 0; ref < size; ref++) {
+            int slot = hashAt(ref) & mask;
+            while (bigger.get(slot) != 0) slot = (slot + 1) & mask;
+            bigger.set(slot, ref + 1);
+        }
+        table = bigger;
+        tableMask = mask;
+    }
+
+    private void ensureData(int needed) {
+        if (needed <= data.capacity()) return;
+        long wanted = Math.max((long) data.capacity() * 2, needed);
+        if (wanted > Integer.MAX_VALUE) throw new IllegalStateException("string pool exceeds 2 GB");
+        ByteBuffer bigger = ByteBuffer.allocateDirect((int) wanted);
+        ByteBuffer old = data.duplicate();
+        old.clear();
+        bigger.put(old);
+        bigger.clear();
+        data = bigger;
+    }
+
+    private int hashAt(int ref) {
+        int h = 0x811c9dc5;
+        int off = offsets.get(ref);
+        for (int i = 0, n = lengths.get(ref); i < n; i++) {
+            h = (h ^ (data.get(off + i) & 0xff)) * 0x01000193;
+        }
+        return mix(h);
+    }
+
+    private static int hash(byte[] bytes) {
+        int h = 0x811c9dc5; // FNV-1a
+        for (byte b : bytes) h = (h ^ (b & 0xff)) * 0x01000193;
+        return mix(h);
+    }
+
+    private static int mix(int h) {
+        return h ^ (h >>> 16);
+    }
+}
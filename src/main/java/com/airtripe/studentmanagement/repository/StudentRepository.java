@@ -2,6 +2,7 @@ package com.airtripe.studentmanagement.repository;
 
 import com.airtripe.studentmanagement.entity.Student;
 
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
@@ -11,7 +12,20 @@ public interface StudentRepository {
     List<Student> findAll();
     List<Student> search(String query);
     boolean remove(String id);
+    /** Remove every listed student; returns how many existed. Stores that can should do this in one statement. */
+    default int removeAll(Collection<String> ids) {
+        int removed = 0;
+        for (String id : ids) if (remove(id)) removed++;
+        return removed;
+    }
     boolean updateStudent(String id, Student updated);
+    /**
+     * An opaque token that changes whenever student {@code id} does, read without loading the row; empty
+     * if the store does not track versions (or there is no such student). Used for HTTP ETags.
+     */
+    default Optional<String> version(String id) { return Optional.empty(); }
+    /** Likewise for the whole collection, so also for any search over it. */
+    default Optional<String> version() { return Optional.empty(); }
     void init() throws Exception; // initialize schema if needed
 }
 
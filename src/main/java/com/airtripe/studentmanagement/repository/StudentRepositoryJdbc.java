@@ -2,7 +2,9 @@ package com.airtripe.studentmanagement.repository;
 
 import com.airtripe.studentmanagement.entity.Student;
 import com.airtripe.studentmanagement.factory.StudentFactory;
+import com.airtripe.studentmanagement.observer.EntityChangeNotifier;
 import com.airtripe.studentmanagement.util.ConfigSingleton;
+import com.airtripe.studentmanagement.util.ConnectionProvider;
 import com.airtripe.studentmanagement.util.MetricsCollector;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -10,38 +12,95 @@ import org.slf4j.LoggerFactory;
 import java.sql.*;
 import java.time.LocalDate;
 import java.util.ArrayList;
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
 public class StudentRepositoryJdbc implements StudentRepository {
     private static final Logger logger = LoggerFactory.getLogger(StudentRepositoryJdbc.class);
 
-    private final ConfigSingleton config = ConfigSingleton.getInstance();
+    private final ConnectionProvider config;
     private final MetricsCollector metrics = new MetricsCollector();
+    private final ChangeLogJdbc changeLog;
+    private EntityChangeNotifier changeNotifier; // optional, set by the application wiring
+    private boolean initialized;
+
+    public StudentRepositoryJdbc() {
+        this(ConfigSingleton.getInstance());
+    }
+
+    // point the repository at a specific database (e.g. one shard)
+    public StudentRepositoryJdbc(ConnectionProvider config) {
+        this.config = config;
+        this.changeLog = new ChangeLogJdbc(config);
+    }
 
     @Override
-    public void init() throws Exception {
-        try (Connection conn = config.getConnection(); Statement st = conn.createStatement()) {
-            st.execute("CREATE TABLE IF NOT EXISTS students (id VARCHAR(100) PRIMARY KEY, name VARCHAR(255), email VARCHAR(255), dob DATE, thesis_title VARCHAR(255))");
-            logger.info("students table ensured");
+    public synchronized void init() throws Exception {
+        if (initialized) return; // idempotent: EnrollmentRepositoryJdbc.init also initializes its parents
+        int version = new SchemaMigrator(config, "students")
+                .step(1, "create students",
+                        "CREATE TABLE IF NOT EXISTS students (id VARCHAR(100) PRIMARY KEY, name VARCHAR(255), email VARCHAR(255), dob DATE, thesis_title VARCHAR(255))")
+                // search compares lowercase values; generated columns let it do so without calling LOWER() per row
+                .step(2, "lowercase search columns",
+                        "ALTER TABLE students ADD COLUMN IF NOT EXISTS id_lower VARCHAR(100) GENERATED ALWAYS AS (LOWER(id))",
+                        "ALTER TABLE students ADD COLUMN IF NOT EXISTS name_lower VARCHAR(255) GENERATED ALWAYS AS (LOWER(name))",
+                        "ALTER TABLE students ADD COLUMN IF NOT EXISTS email_lower VARCHAR(255) GENERATED ALWAYS AS (LOWER(email))",
+                        "CREATE INDEX IF NOT EXISTS idx_students_name_lower ON students(name_lower)")
+                .step(3, "unique email", st -> {
+                    rejectDuplicateEmails(st);
+                    st.execute("CREATE UNIQUE INDEX IF NOT EXISTS ux_students_email_lower ON students(email_lower)");
+                })
+                .step(4, "row versions", RowVersions.CREATE_SEQUENCE, RowVersions.addColumn("students"))
+                .migrate();
+        changeLog.init();
+        logger.info("students table ensured (schema v{})", version);
+        initialized = true;
+    }
+
+    // the unique index would fail on the first clash with a bare constraint error; name every clash instead
+    // and leave the step unapplied, so the next start retries once the data is fixed
+    private static void rejectDuplicateEmails(Statement st) throws SQLException {
+        List<String> clashes = new ArrayList<>();
+        try (ResultSet rs = st.executeQuery("SELECT email_lower, LISTAGG(id, ', ') WITHIN GROUP (ORDER BY id) FROM students "
+                + "WHERE email_lower IS NOT NULL GROUP BY email_lower HAVING COUNT(*) > 1 ORDER BY email_lower")) {
+            while (rs.next()) clashes.add(rs.getString(1) + " (" + rs.getString(2) + ")");
         }
+        if (clashes.isEmpty()) return;
+        String shown = String.join("; ", clashes.subList(0, Math.min(10, clashes.size()))) + (clashes.size() > 10 ? "; ..." : "");
+        throw new IllegalStateException(clashes.size() + " email(s) are shared by more than one student, so the unique email index "
+                + "cannot be created: " + shown + ". Give each student a distinct email and restart.");
     }
 
     @Override
     public Student addStudent(Student s) {
         long start = System.nanoTime();
-        String sql = "MERGE INTO students (id, name, email, dob, thesis_title) KEY(id) VALUES (?, ?, ?, ?, ?)";
-        try (Connection conn = config.getConnection(); PreparedStatement ps = conn.prepareStatement(sql)) {
-            ps.setString(1, s.getId());
-            ps.setString(2, s.getName());
-            ps.setString(3, s.getEmail());
-            ps.setDate(4, Date.valueOf(s.getDateOfBirth()));
-            String thesis = null;
-            if (s instanceof com.airtripe.studentmanagement.entity.GraduateStudent) {
-                thesis = ((com.airtripe.studentmanagement.entity.GraduateStudent) s).getThesisTitle();
+        String sql = "MERGE INTO students (id, name, email, dob, thesis_title, version) KEY(id) VALUES (?, ?, ?, ?, ?, " + RowVersions.NEXT + ")";
+        try (Connection conn = UnitOfWork.connection(config)) {
+            conn.setAutoCommit(false);
+            try (PreparedStatement ps = conn.prepareStatement(sql)) {
+                // enrollment writes re-save their student: an unchanged row keeps its version and is not logged or re-announced
+                if (unchanged(conn, s)) {
+                    conn.commit();
+                    return s;
+                }
+                ps.setString(1, s.getId());
+                ps.setString(2, s.getName());
+                ps.setString(3, s.getEmail());
+                ps.setDate(4, Date.valueOf(s.getDateOfBirth()));
+                String thesis = null;
+                if (s instanceof com.airtripe.studentmanagement.entity.GraduateStudent) {
+                    thesis = ((com.airtripe.studentmanagement.entity.GraduateStudent) s).getThesisTitle();
+                }
+                ps.setString(5, thesis);
+                ps.executeUpdate();
+                changeLog.append(conn, ChangeLogJdbc.STUDENT, s.getId(), null, ChangeLogJdbc.UPSERT);
+                conn.commit();
+            } catch (SQLException ex) {
+                conn.rollback();
+                throw ex;
             }
-            ps.setString(5, thesis);
-            ps.executeUpdate();
+            if (changeNotifier != null) UnitOfWork.afterCommit(config, () -> changeNotifier.studentSaved(s));
             return s;
         } catch (SQLException e) {
             logger.error("Failed to add student {}", s.getId(), e);
@@ -55,7 +114,7 @@ public class StudentRepositoryJdbc implements StudentRepository {
     public Optional<Student> findById(String id) {
         long start = System.nanoTime();
         String sql = "SELECT id, name, email, dob, thesis_title FROM students WHERE id = ?";
-        try (Connection conn = config.getConnection(); PreparedStatement ps = conn.prepareStatement(sql)) {
+        try (Connection conn = UnitOfWork.connection(config); PreparedStatement ps = conn.prepareStatement(sql)) {
             ps.setString(1, id);
             try (ResultSet rs = ps.executeQuery()) {
                 if (rs.next()) return Optional.of(mapRow(rs));
@@ -74,7 +133,7 @@ public class StudentRepositoryJdbc implements StudentRepository {
         long start = System.nanoTime();
         String sql = "SELECT id, name, email, dob, thesis_title FROM students ORDER BY id";
         List<Student> list = new ArrayList<>();
-        try (Connection conn = config.getConnection(); PreparedStatement ps = conn.prepareStatement(sql); ResultSet rs = ps.executeQuery()) {
+        try (Connection conn = UnitOfWork.connection(config); PreparedStatement ps = conn.prepareStatement(sql); ResultSet rs = ps.executeQuery()) {
             while (rs.next()) list.add(mapRow(rs));
             return list;
         } catch (SQLException e) {
@@ -90,9 +149,9 @@ public class StudentRepositoryJdbc implements StudentRepository {
         long start = System.nanoTime();
         if (query == null || query.isEmpty()) return findAll();
         String q = "%" + query.toLowerCase() + "%";
-        String sql = "SELECT id, name, email, dob, thesis_title FROM students WHERE LOWER(id) LIKE ? OR LOWER(name) LIKE ? OR LOWER(email) LIKE ? ORDER BY id";
+        String sql = "SELECT id, name, email, dob, thesis_title FROM students WHERE id_lower LIKE ? OR name_lower LIKE ? OR email_lower LIKE ? ORDER BY id";
         List<Student> list = new ArrayList<>();
-        try (Connection conn = config.getConnection(); PreparedStatement ps = conn.prepareStatement(sql)) {
+        try (Connection conn = UnitOfWork.connection(config); PreparedStatement ps = conn.prepareStatement(sql)) {
             ps.setString(1, q);
             ps.setString(2, q);
             ps.setString(3, q);
@@ -112,9 +171,20 @@ public class StudentRepositoryJdbc implements StudentRepository {
     public boolean remove(String id) {
         long start = System.nanoTime();
         String sql = "DELETE FROM students WHERE id = ?";
-        try (Connection conn = config.getConnection(); PreparedStatement ps = conn.prepareStatement(sql)) {
-            ps.setString(1, id);
-            return ps.executeUpdate() > 0;
+        try (Connection conn = UnitOfWork.connection(config)) {
+            conn.setAutoCommit(false);
+            boolean removed;
+            try (PreparedStatement ps = conn.prepareStatement(sql)) {
+                ps.setString(1, id);
+                removed = ps.executeUpdate() > 0;
+                if (removed) changeLog.append(conn, ChangeLogJdbc.STUDENT, id, null, ChangeLogJdbc.DELETE);
+                conn.commit();
+            } catch (SQLException ex) {
+                conn.rollback();
+                throw ex;
+            }
+            if (removed && changeNotifier != null) UnitOfWork.afterCommit(config, () -> changeNotifier.studentRemoved(id));
+            return removed;
         } catch (SQLException e) {
             logger.error("Delete failed for {}", id, e);
             throw new RuntimeException(e);
@@ -123,21 +193,67 @@ public class StudentRepositoryJdbc implements StudentRepository {
         }
     }
 
+    // one DELETE for the whole set. The foreign keys refuse it while any of these student still has enrollments:
+    // CascadeDeleteService removes those first, through the enrollment repository.
+    @Override
+    public int removeAll(Collection<String> ids) {
+        if (ids.isEmpty()) return 0;
+        long start = System.nanoTime();
+        String sql = "SELECT id FROM OLD TABLE (DELETE FROM students WHERE id = ANY(?))";
+        try (Connection conn = UnitOfWork.connection(config)) {
+            conn.setAutoCommit(false);
+            List<String> removed = new ArrayList<>();
+            List<String[]> keys = new ArrayList<>();
+            try (PreparedStatement ps = conn.prepareStatement(sql)) {
+                ps.setArray(1, conn.createArrayOf("VARCHAR", ids.toArray()));
+                try (ResultSet rs = ps.executeQuery()) {
+                    while (rs.next()) {
+                        removed.add(rs.getString(1));
+                        keys.add(new String[]{rs.getString(1)});
+                    }
+                }
+                changeLog.appendAll(conn, ChangeLogJdbc.STUDENT, keys, ChangeLogJdbc.DELETE);
+                conn.commit();
+            } catch (SQLException ex) {
+                conn.rollback();
+                throw ex;
+            }
+            if (changeNotifier != null) UnitOfWork.afterCommit(config, () -> removed.forEach(changeNotifier::studentRemoved));
+            return removed.size();
+        } catch (SQLException e) {
+            logger.error("Bulk delete of {} students failed", ids.size(), e);
+            throw new RuntimeException(e);
+        } finally {
+            metrics.record("students.removeAll", System.nanoTime() - start);
+        }
+    }
+
     @Override
     public boolean updateStudent(String id, Student updated) {
         long start = System.nanoTime();
-        String sql = "UPDATE students SET name = ?, email = ?, dob = ?, thesis_title = ? WHERE id = ?";
-        try (Connection conn = config.getConnection(); PreparedStatement ps = conn.prepareStatement(sql)) {
-            ps.setString(1, updated.getName());
-            ps.setString(2, updated.getEmail());
-            ps.setDate(3, Date.valueOf(updated.getDateOfBirth()));
-            String thesis = null;
-            if (updated instanceof com.airtripe.studentmanagement.entity.GraduateStudent) {
-                thesis = ((com.airtripe.studentmanagement.entity.GraduateStudent) updated).getThesisTitle();
+        String sql = "UPDATE students SET name = ?, email = ?, dob = ?, thesis_title = ?, version = " + RowVersions.NEXT + " WHERE id = ?";
+        try (Connection conn = UnitOfWork.connection(config)) {
+            conn.setAutoCommit(false);
+            boolean updatedRow;
+            try (PreparedStatement ps = conn.prepareStatement(sql)) {
+                ps.setString(1, updated.getName());
+                ps.setString(2, updated.getEmail());
+                ps.setDate(3, Date.valueOf(updated.getDateOfBirth()));
+                String thesis = null;
+                if (updated instanceof com.airtripe.studentmanagement.entity.GraduateStudent) {
+                    thesis = ((com.airtripe.studentmanagement.entity.GraduateStudent) updated).getThesisTitle();
+                }
+                ps.setString(4, thesis);
+                ps.setString(5, id);
+                updatedRow = ps.executeUpdate() > 0;
+                if (updatedRow) changeLog.append(conn, ChangeLogJdbc.STUDENT, id, null, ChangeLogJdbc.UPSERT);
+                conn.commit();
+            } catch (SQLException ex) {
+                conn.rollback();
+                throw ex;
             }
-            ps.setString(4, thesis);
-            ps.setString(5, id);
-            return ps.executeUpdate() > 0;
+            if (updatedRow && changeNotifier != null) UnitOfWork.afterCommit(config, () -> changeNotifier.studentSaved(updated));
+            return updatedRow;
         } catch (SQLException e) {
             logger.error("Update failed for {}", id, e);
             throw new RuntimeException(e);
@@ -146,6 +262,35 @@ public class StudentRepositoryJdbc implements StudentRepository {
         }
     }
 
+    @Override
+    public Optional<String> version(String id) {
+        try {
+            return RowVersions.ofRow(config, "SELECT version FROM students WHERE id = ?", id);
+        } catch (SQLException e) {
+            logger.error("Failed to read version of student {}", id, e);
+            throw new RuntimeException(e);
+        }
+    }
+
+    @Override
+    public Optional<String> version() {
+        try {
+            return RowVersions.ofSet(config, "SELECT version AS v FROM students");
+        } catch (SQLException e) {
+            logger.error("Failed to read students version", e);
+            throw new RuntimeException(e);
+        }
+    }
+
+    private boolean unchanged(Connection conn, Student s) throws SQLException {
+        try (PreparedStatement ps = conn.prepareStatement("SELECT id, name, email, dob, thesis_title FROM students WHERE id = ? FOR UPDATE")) {
+            ps.setString(1, s.getId());
+            try (ResultSet rs = ps.executeQuery()) {
+                return rs.next() && InMemoryStudentRepository.sameRow(mapRow(rs), s);
+            }
+        }
+    }
+
     private Student mapRow(ResultSet rs) throws SQLException {
         String id = rs.getString("id");
         String name = rs.getString("name");
@@ -159,6 +304,8 @@ public class StudentRepositoryJdbc implements StudentRepository {
         return StudentFactory.createUndergraduate(id, name, email, ld);
     }
 
+    public void setChangeNotifier(EntityChangeNotifier changeNotifier) { this.changeNotifier = changeNotifier; }
+
     // expose metrics for tests/monitoring
     public MetricsCollector getMetricsCollector() { return metrics; }
 }
@@ -0,0 +1,207 @@
+package com.airtripe.studentmanagement.repository;
+
+import com.airtripe.studentmanagement.entity.Enrollment;
+import com.airtripe.studentmanagement.entity.Student;
+import com.airtripe.studentmanagement.observer.EntityChangeListener;
+import com.airtripe.studentmanagement.util.MetricsCollector;
+
+import java.util.Collection;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Two-tier StudentRepository: a bounded in-memory hot tier in front of a cold repository (H2).
+ * The cold tier is always authoritative: writes go through to it, and findAll/search read it
+ * directly so bulk reads don't flush the hot set. findById is served from the hot tier when
+ * possible and promotes on a miss; writes that change the student only drop the hot copy, because inside a
+ * {@link UnitOfWork} they may still roll back, and the after-commit student notification drops it
+ * again in case a read promoted the old row in the meantime. When the hot tier is full it demotes the least recently used
+ * student that has no current enrollments, falling back to plain LRU. Enrollment activity
+ * comes from the change notifier (register this as an {@link EntityChangeListener}) and, at
+ * startup, from {@link #warmUp(EnrollmentRepository)}.
+ */
+public class TieredStudentRepository implements StudentRepository, EntityChangeListener {
+    // how many of the least recently used entries to look at for an unenrolled victim
+    private static final int EVICTION_SCAN = 32;
+    private static final int STAMP_STRIPES = 256;
+
+    private final StudentRepository cold;
+    private final int hotCapacity;
+    private final LinkedHashMap<String, Student> hot; // access order; guarded by itself
+    private final Map<String, Set<String>> enrolledCourses = new ConcurrentHashMap<>();
+    private final MetricsCollector metrics = new MetricsCollector();
+    // guarded by hot; a write bumps its key's stripe so a racing miss on that key doesn't promote stale
+    // data, while misses on other keys still promote
+    private final long[] invalidations = new long[STAMP_STRIPES];
+
+    public TieredStudentRepository(StudentRepository cold, int hotCapacity) {
+        if (hotCapacity <= 0) throw new IllegalArgumentException("hotCapacity must be positive");
+        this.cold = cold;
+        this.hotCapacity = hotCapacity;
+        this.hot = new LinkedHashMap<>(Math.min(hotCapacity, 1 << 16), 0.75f, true);
+    }
+
+    @Override
+    public void init() throws Exception { cold.init(); }
+
+    /** Record current enrollments and pre-load enrolled students, up to the hot capacity. */
+    public void warmUp(EnrollmentRepository enrollments) {
+        for (Enrollment e : enrollments.findAll()) {
+            enrolledCourses.computeIfAbsent(e.getStudent().getId(), k -> ConcurrentHashMap.newKeySet()).add(e.getCourse().getId());
+            synchronized (hot) {
+                if (hot.size() < hotCapacity) hot.putIfAbsent(e.getStudent().getId(), InMemoryStudentRepository.copy(e.getStudent().getId(), e.getStudent()));
+            }
+        }
+    }
+
+    @Override
+    public Student addStudent(Student s) {
+        Student saved = cold.addStudent(s);
+        synchronized (hot) {
+            // enrollment writes re-save their student as it is: keep the (actively enrolled) hot copy
+            Student current = hot.get(s.getId());
+            if (current != null && InMemoryStudentRepository.sameRow(current, s)) return saved;
+        }
+        evict(s.getId());
+        return saved;
+    }
+
+    @Override
+    public Optional<Student> findById(String id) {
+        long generation;
+        synchronized (hot) {
+            Student s = hot.get(id);
+            if (s != null) {
+                metrics.increment("tier.hits", 1);
+                return Optional.of(InMemoryStudentRepository.copy(id, s));
+            }
+            generation = invalidations[stripe(id)];
+        }
+        metrics.increment("tier.misses", 1);
+        Optional<Student> loaded = cold.findById(id);
+        if (loaded.isPresent()) {
+            synchronized (hot) {
+                if (generation == invalidations[stripe(id)] && !hot.containsKey(id)) {
+                    put(id, InMemoryStudentRepository.copy(id, loaded.get()));
+                    metrics.increment("tier.promotions", 1);
+                }
+            }
+        }
+        return loaded;
+    }
+
+    @Override
+    public List<Student> findAll() { return cold.findAll(); }
+
+    @Override
+    public List<Student> search(String query) { return cold.search(query); }
+
+    @Override
+    public boolean remove(String id) {
+        boolean removed = cold.remove(id);
+        evict(id);
+        enrolledCourses.remove(id);
+        return removed;
+    }
+
+    @Override
+    public int removeAll(Collection<String> ids) {
+        int removed = cold.removeAll(ids);
+        synchronized (hot) {
+            for (String id : ids) invalidations[stripe(id)]++;
+            hot.keySet().removeAll(ids);
+        }
+        enrolledCourses.keySet().removeAll(ids);
+        return removed;
+    }
+
+    @Override
+    public boolean updateStudent(String id, Student updated) {
+        boolean ok = cold.updateStudent(id, updated);
+        evict(id);
+        return ok;
+    }
+
+    @Override
+    public void onEnrollmentSaved(Enrollment e) {
+        enrolledCourses.computeIfAbsent(e.getStudent().getId(), k -> ConcurrentHashMap.newKeySet()).add(e.getCourse().getId());
+    }
+
+    @Override
+    public void onEnrollmentRemoved(String studentId, String courseId) {
+        enrolledCourses.computeIfPresent(studentId, (k, courses) -> {
+            courses.remove(courseId);
+            return courses.isEmpty() ? null : courses;
+        });
+    }
+
+    @Override
+    public void onEnrollmentArchived(String studentId, String courseId) {
+        onEnrollmentRemoved(studentId, courseId); // a past term no longer keeps the student hot
+    }
+
+    @Override
+    public void onStudentSaved(Student s) {
+        // fired once the write has committed: the next findById loads the committed row
+        evict(s.getId());
+    }
+
+    @Override
+    public void onStudentRemoved(String studentId) {
+        // removed directly on the cold repository (e.g. by another component): drop the hot copy
+        evict(studentId);
+    }
+
+    public int getHotSize() {
+        synchronized (hot) { return hot.size(); }
+    }
+
+    public boolean isHot(String id) {
+        synchronized (hot) { return hot.containsKey(id); }
+    }
+
+    public double getHitRatio() {
+        long hits = metrics.getCount("tier.hits");
+        long total = hits + metrics.getCount("tier.misses");
+        return total == 0 ? 0.0 : (double) hits / total;
+    }
+
+    public MetricsCollector getMetricsCollector() { return metrics; }
+
+    private void evict(String id) {
+        synchronized (hot) {
+            invalidations[stripe(id)]++;
+            hot.remove(id);
+        }
+    }
+
+    private static int stripe(String id) {
+        return Math.floorMod(id.hashCode(), STAMP_STRIPES);
+    }
+
+    // caller holds the hot lock
+    private void put(String id, Student s) {
+        hot.put(id, s);
+        while (hot.size() > hotCapacity) demoteOne();
+    }
+
+    private void demoteOne() {
+        Iterator<Map.Entry<String, Student>> it = hot.entrySet().iterator();
+        String victim = null;
+        for (int i = 0; i < EVICTION_SCAN && it.hasNext(); i++) {
+            String id = it.next().getKey();
+            if (victim == null) victim = id; // plain LRU if everyone scanned is enrolled
+            if (!enrolledCourses.containsKey(id)) {
+                victim = id;
+                break;
+            }
+        }
+        hot.remove(victim);
+        metrics.increment("tier.demotions", 1);
+    }
+}
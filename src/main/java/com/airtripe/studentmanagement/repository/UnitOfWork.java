@@ -0,0 +1,226 @@
+package com.airtripe.studentmanagement.repository;
+
+import com.airtripe.studentmanagement.util.ConfigSingleton;
+import com.airtripe.studentmanagement.util.ConnectionProvider;
+import com.airtripe.studentmanagement.util.MetricsCollector;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.CallableStatement;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Runs the JDBC repository calls made on the current thread against one connection and one
+ * transaction:
+ * <pre>
+ * try (UnitOfWork uow = UnitOfWork.begin()) {
+ *     students.findById(...); courses.findById(...); enrollments.add(...);
+ *     uow.commit();
+ * }
+ * </pre>
+ * Repositories whose {@link ConnectionProvider} is the one the unit was started with get the
+ * bound connection instead of opening their own; their own commit/rollback/close calls are
+ * absorbed, and a rollback marks the unit rollback-only. Change notifications are held back
+ * until the commit so listeners (replication, caches, SSE) never see writes that are rolled
+ * back, and log appends ({@link #beforeCommit}) run as its last statements. Closing without
+ * {@link #commit()} rolls back.
+ */
+public final class UnitOfWork implements AutoCloseable {
+    private static final Logger logger = LoggerFactory.getLogger(UnitOfWork.class);
+    private static final ThreadLocal<UnitOfWork> CURRENT = new ThreadLocal<>();
+    private static final MetricsCollector metrics = new MetricsCollector();
+
+    @FunctionalInterface
+    public interface Work<T> {
+        T call() throws Exception;
+    }
+
+    @FunctionalInterface
+    interface SqlAction {
+        void run(Connection conn) throws SQLException;
+    }
+
+    private final ConnectionProvider provider;
+    private final Connection connection;
+    private final Connection shared;
+    private final List<SqlAction> beforeCommit = new ArrayList<>();
+    private final List<Runnable> afterCommit = new ArrayList<>();
+    private final long startedAt = System.nanoTime();
+    private int statements;
+    private boolean rollbackOnly;
+    private boolean completed;
+
+    private UnitOfWork(ConnectionProvider provider, Connection connection) {
+        this.provider = provider;
+        this.connection = connection;
+        this.shared = (Connection) Proxy.newProxyInstance(Connection.class.getClassLoader(),
+                new Class<?>[]{Connection.class}, new SharedConnection());
+    }
+
+    /** Start a unit of work on the default database. */
+    public static UnitOfWork begin() throws SQLException {
+        return begin(ConfigSingleton.getInstance());
+    }
+
+    public static UnitOfWork begin(ConnectionProvider provider) throws SQLException {
+        if (CURRENT.get() != null) throw new IllegalStateException("a unit of work is already active on this thread");
+        Connection conn = provider.getConnection();
+        conn.setAutoCommit(false);
+        UnitOfWork uow = new UnitOfWork(provider, conn);
+        CURRENT.set(uow);
+        return uow;
+    }
+
+    /** Run {@code work} in a unit of work on {@code provider} and commit it if it returns normally. */
+    public static <T> T run(ConnectionProvider provider, Work<T> work) throws Exception {
+        try (UnitOfWork uow = begin(provider)) {
+            T result = work.call();
+            uow.commit();
+            return result;
+        }
+    }
+
+    /** The unit active on this thread, or null. */
+    public static UnitOfWork current() { return CURRENT.get(); }
+
+    /** The connection a repository backed by {@code provider} should use; the caller closes it as usual. */
+    static Connection connection(ConnectionProvider provider) throws SQLException {
+        UnitOfWork uow = CURRENT.get();
+        if (uow != null && uow.provider == provider) return uow.shared;
+        return provider.getConnection();
+    }
+
+    /**
+     * Run {@code action} on the unit bound to {@code provider} just before it commits, or on {@code conn}
+     * now if there is none (the caller commits right after).
+     */
+    static void beforeCommit(ConnectionProvider provider, Connection conn, SqlAction action) throws SQLException {
+        UnitOfWork uow = CURRENT.get();
+        if (uow != null && uow.provider == provider) uow.beforeCommit.add(action);
+        else action.run(conn);
+    }
+
+    /** Run {@code action} once the unit bound to {@code provider} commits, or now if there is none. */
+    static void afterCommit(ConnectionProvider provider, Runnable action) {
+        UnitOfWork uow = CURRENT.get();
+        if (uow != null && uow.provider == provider) uow.afterCommit.add(action);
+        else action.run();
+    }
+
+    public void commit() throws SQLException {
+        if (completed) throw new IllegalStateException("unit of work already completed");
+        if (rollbackOnly) {
+            rollback();
+            throw new SQLException("unit of work was marked rollback-only by a failed repository call");
+        }
+        try {
+            for (SqlAction action : beforeCommit) action.run(shared);
+            connection.commit();
+        } catch (SQLException e) {
+            rollback();
+            throw e;
+        }
+        completed = true;
+        metrics.record("uow.commit", System.nanoTime() - startedAt);
+        metrics.increment("uow.statements", statements);
+        logger.debug("unit of work committed: {} statements", statements);
+        for (Runnable r : afterCommit) {
+            try {
+                r.run();
+            } catch (RuntimeException e) {
+                logger.warn("after-commit action failed", e);
+            }
+        }
+    }
+
+    public void rollback() {
+        if (completed) return;
+        completed = true;
+        try {
+            connection.rollback();
+        } catch (SQLException e) {
+            logger.warn("rollback failed", e);
+        }
+        metrics.increment("uow.rollback", 1);
+        metrics.increment("uow.statements", statements);
+    }
+
+    @Override
+    public void close() {
+        try {
+            rollback(); // no-op after commit
+            connection.setAutoCommit(true);
+            connection.close();
+        } catch (SQLException e) {
+            logger.warn("failed to release unit of work connection", e);
+        } finally {
+            CURRENT.remove();
+        }
+    }
+
+    /** Statements executed so far in this unit (each execute/executeQuery/executeUpdate/executeBatch call). */
+    public int getStatementCount() { return statements; }
+
+    public boolean isRollbackOnly() { return rollbackOnly; }
+
+    /** Commits, rollbacks and statement totals across all units of work. */
+    public static MetricsCollector getMetricsCollector() { return metrics; }
+
+    // the connection handed to repositories: transaction control belongs to the unit of work
+    private final class SharedConnection implements InvocationHandler {
+        @Override
+        public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+            switch (method.getName()) {
+                case "close":
+                case "commit":
+                case "setAutoCommit":
+                    return null;
+                case "rollback":
+                    if (args == null) { rollbackOnly = true; return null; }
+                    break;
+                case "getAutoCommit":
+                    return false;
+                case "isClosed":
+                    return completed || connection.isClosed();
+                default:
+                    break;
+            }
+            Object result = call(connection, method, args);
+            if (result instanceof Statement) {
+                Class<?> type = result instanceof CallableStatement ? CallableStatement.class
+                        : result instanceof PreparedStatement ? PreparedStatement.class : Statement.class;
+                return Proxy.newProxyInstance(Connection.class.getClassLoader(), new Class<?>[]{type}, new CountingStatement(result));
+            }
+            return result;
+        }
+    }
+
+    private final class CountingStatement implements InvocationHandler {
+        private final Object target;
+
+        CountingStatement(Object target) { this.target = target; }
+
+        @Override
+        public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+            if (method.getName().startsWith("execute")) statements++;
+            return call(target, method, args);
+        }
+    }
+
+    private static Object call(Object target, Method method, Object[] args) throws Throwable {
+        try {
+            return method.invoke(target, args);
+        } catch (InvocationTargetException e) {
+            throw e.getCause();
+        }
+    }
+}
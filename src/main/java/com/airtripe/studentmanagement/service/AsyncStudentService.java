@@ -1,38 +1,169 @@
 package com.airtripe.studentmanagement.service;
 
+import com.airtripe.studentmanagement.entity.Course;
+import com.airtripe.studentmanagement.entity.Enrollment;
 import com.airtripe.studentmanagement.entity.Student;
+import com.airtripe.studentmanagement.repository.CourseRepository;
+import com.airtripe.studentmanagement.repository.EnrollmentRepository;
 import com.airtripe.studentmanagement.repository.StudentRepository;
+import com.airtripe.studentmanagement.util.MetricsCollector;
+import com.airtripe.studentmanagement.util.SingleFlight;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Optional;
 import java.util.concurrent.*;
 
+/**
+ * Non-blocking facade over the student, course and enrollment repositories. Every call runs on its
+ * own virtual thread and returns a CompletableFuture; cancelling the future (or letting it time out
+ * via {@link #withTimeout}) interrupts the underlying call. {@code maxConcurrency} caps how many
+ * repository calls run at once, since each one holds a database connection.
+ */
 public class AsyncStudentService {
     private static final Logger logger = LoggerFactory.getLogger(AsyncStudentService.class);
 
     private final StudentRepository repository;
+    private final CourseRepository courseRepository; // nullable
+    private final EnrollmentRepository enrollmentRepository; // nullable
     private final ExecutorService executor;
+    private final Semaphore permits;
+    private final MetricsCollector metrics = new MetricsCollector();
+    // concurrent identical searches / roster reads share one repository call
+    private final SingleFlight<String, List<Student>> searches = new SingleFlight<>("students.search", metrics);
+    private final SingleFlight<String, List<Enrollment>> rosters = new SingleFlight<>("enrollments.byCourse", metrics);
 
-    public AsyncStudentService(StudentRepository repository, int threads) {
+    public AsyncStudentService(StudentRepository repository, int maxConcurrency) {
+        this(repository, null, null, maxConcurrency);
+    }
+
+    public AsyncStudentService(StudentRepository repository, CourseRepository courseRepository, EnrollmentRepository enrollmentRepository) {
+        this(repository, courseRepository, enrollmentRepository, 64);
+    }
+
+    public AsyncStudentService(StudentRepository repository, CourseRepository courseRepository, EnrollmentRepository enrollmentRepository, int maxConcurrency) {
         this.repository = repository;
-        this.executor = Executors.newFixedThreadPool(Math.max(1, threads));
+        this.courseRepository = courseRepository;
+        this.enrollmentRepository = enrollmentRepository;
+        this.executor = Executors.newVirtualThreadPerTaskExecutor();
+        this.permits = new Semaphore(Math.max(1, maxConcurrency));
     }
 
-    public Future<Student> addStudentAsync(Student s) {
-        return executor.submit(() -> {
+    // --- students ---
+
+    public CompletableFuture<Student> addStudentAsync(Student s) {
+        return write(() -> {
             logger.debug("Adding student async: {}", s.getId());
             return repository.addStudent(s);
         });
     }
 
-    public Future<List<Student>> searchAsync(String q) {
-        return executor.submit(() -> {
+    public CompletableFuture<Optional<Student>> findStudentAsync(String id) { return submit(() -> repository.findById(id)); }
+
+    public CompletableFuture<List<Student>> findAllStudentsAsync() { return submit(repository::findAll); }
+
+    /**
+     * Concurrent identical searches share one repository call, so cancelling or timing out the returned
+     * future interrupts that call only once every caller sharing it has done the same.
+     */
+    public CompletableFuture<List<Student>> searchAsync(String q) {
+        return searches.executeAsync(q == null ? "" : q, () -> submit(() -> {
             logger.debug("Searching async: {}", q);
             return repository.search(q);
+        }));
+    }
+
+    public CompletableFuture<Boolean> updateStudentAsync(String id, Student updated) { return write(() -> repository.updateStudent(id, updated)); }
+
+    public CompletableFuture<Boolean> removeStudentAsync(String id) { return write(() -> repository.remove(id)); }
+
+    // --- courses ---
+
+    public CompletableFuture<Course> addCourseAsync(Course c) { return write(() -> courses().addCourse(c)); }
+
+    public CompletableFuture<Optional<Course>> findCourseAsync(String id) { return submit(() -> courses().findById(id)); }
+
+    public CompletableFuture<List<Course>> findAllCoursesAsync() { return submit(() -> courses().findAll()); }
+
+    public CompletableFuture<List<Course>> searchCoursesAsync(String q) { return submit(() -> courses().search(q)); }
+
+    public CompletableFuture<Boolean> updateCourseAsync(String id, Course updated) { return write(() -> courses().updateCourse(id, updated)); }
+
+    public CompletableFuture<Boolean> removeCourseAsync(String id) { return write(() -> courses().remove(id)); }
+
+    // --- enrollments ---
+
+    public CompletableFuture<Enrollment> addEnrollmentAsync(Enrollment e) { return write(() -> enrollments().add(e)); }
+
+    public CompletableFuture<Optional<Enrollment>> findEnrollmentAsync(Student s, Course c) { return submit(() -> enrollments().find(s, c)); }
+
+    public CompletableFuture<List<Enrollment>> findEnrollmentsByStudentAsync(String studentId) { return submit(() -> enrollments().findByStudentId(studentId)); }
+
+    /** Shares one repository call between concurrent callers for the same course, like {@link #searchAsync}. */
+    public CompletableFuture<List<Enrollment>> findEnrollmentsByCourseAsync(String courseId) {
+        return rosters.executeAsync(courseId, () -> submit(() -> enrollments().findByCourseId(courseId)));
+    }
+
+    public CompletableFuture<List<Enrollment>> findAllEnrollmentsAsync() { return submit(() -> enrollments().findAll()); }
+
+    public CompletableFuture<Boolean> removeEnrollmentAsync(String studentId, String courseId) { return write(() -> enrollments().remove(studentId, courseId)); }
+
+    // --- fan-out helpers ---
+
+    /** Look up several students concurrently; missing ids are skipped and input order is kept. */
+    public CompletableFuture<List<Student>> findStudentsAsync(Collection<String> ids) {
+        List<CompletableFuture<Optional<Student>>> lookups = new ArrayList<>();
+        for (String id : ids) lookups.add(findStudentAsync(id));
+        return CompletableFuture.allOf(lookups.toArray(CompletableFuture<?>[]::new)).thenApply(v -> {
+            List<Student> out = new ArrayList<>();
+            lookups.forEach(f -> f.join().ifPresent(out::add));
+            return out;
+        });
+    }
+
+    /**
+     * Load a student and their enrollments concurrently, then their courses concurrently.
+     * Completes with an empty Optional if the student does not exist.
+     */
+    public CompletableFuture<Optional<StudentProfile>> loadStudentProfileAsync(String studentId) {
+        CompletableFuture<Optional<Student>> student = findStudentAsync(studentId);
+        CompletableFuture<List<Enrollment>> enrolled = findEnrollmentsByStudentAsync(studentId);
+        CompletableFuture<List<Course>> courses = enrolled.thenCompose(list -> {
+            LinkedHashSet<String> courseIds = new LinkedHashSet<>();
+            list.forEach(e -> courseIds.add(e.getCourse().getId()));
+            List<CompletableFuture<Optional<Course>>> lookups = new ArrayList<>();
+            for (String cid : courseIds) lookups.add(findCourseAsync(cid));
+            return CompletableFuture.allOf(lookups.toArray(CompletableFuture<?>[]::new)).thenApply(v -> {
+                List<Course> out = new ArrayList<>();
+                lookups.forEach(f -> f.join().ifPresent(out::add));
+                return out;
+            });
+        });
+        CompletableFuture<Optional<StudentProfile>> profile = CompletableFuture.allOf(student, enrolled, courses)
+                .thenApply(v -> student.join().map(s -> new StudentProfile(s, enrolled.join(), courses.join())));
+        // abandoning the profile abandons the lookups still in flight
+        profile.whenComplete((r, t) -> {
+            if (t != null) {
+                student.cancel(true);
+                enrolled.cancel(true);
+                courses.cancel(true);
+            }
         });
+        return profile;
+    }
+
+    /** Fail {@code future} with a TimeoutException (and interrupt its task) if it hasn't completed within {@code timeout}. */
+    public static <T> CompletableFuture<T> withTimeout(CompletableFuture<T> future, Duration timeout) {
+        return future.orTimeout(timeout.toMillis(), TimeUnit.MILLISECONDS);
     }
 
+    public MetricsCollector getMetricsCollector() { return metrics; }
+
     public void shutdown() {
         executor.shutdown();
         try {
@@ -42,5 +173,51 @@ public class AsyncStudentService {
             executor.shutdownNow();
         }
     }
-}
 
+    // a write must not be answered by a search that was already in flight before it
+    private <T> CompletableFuture<T> write(Callable<T> call) {
+        return submit(() -> {
+            try {
+                return call.call();
+            } finally {
+                searches.invalidateAll();
+                rosters.invalidateAll();
+            }
+        });
+    }
+
+    private <T> CompletableFuture<T> submit(Callable<T> call) {
+        CompletableFuture<T> cf = new CompletableFuture<>();
+        Future<?> task = executor.submit(() -> {
+            if (cf.isDone()) return; // cancelled or timed out before it started
+            try {
+                permits.acquire();
+                try {
+                    cf.complete(call.call());
+                } finally {
+                    permits.release();
+                }
+            } catch (InterruptedException e) {
+                cf.cancel(false);
+                Thread.currentThread().interrupt();
+            } catch (Throwable t) {
+                cf.completeExceptionally(t);
+            }
+        });
+        // cancellation and timeouts complete the future first; interrupt the task that would have completed it
+        cf.whenComplete((r, t) -> {
+            if (t != null) task.cancel(true);
+        });
+        return cf;
+    }
+
+    private CourseRepository courses() {
+        if (courseRepository == null) throw new IllegalStateException("AsyncStudentService was created without a CourseRepository");
+        return courseRepository;
+    }
+
+    private EnrollmentRepository enrollments() {
+        if (enrollmentRepository == null) throw new IllegalStateException("AsyncStudentService was created without an EnrollmentRepository");
+        return enrollmentRepository;
+    }
+}
@@ -0,0 +1,64 @@
+package com.airtripe.studentmanagement.service;
+
+import com.airtripe.studentmanagement.repository.CourseRepository;
+import com.airtripe.studentmanagement.repository.EnrollmentRepository;
+import com.airtripe.studentmanagement.repository.StudentRepository;
+import com.airtripe.studentmanagement.repository.UnitOfWork;
+import com.airtripe.studentmanagement.util.ConnectionProvider;
+
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Removes students or courses together with their enrollments, so no enrollment is left pointing
+ * at a missing parent. Enrollments go first (through the repository, which keeps the summary
+ * tables and change listeners in step), then the parents; with the JDBC store each is one
+ * set-based statement and both run in one {@link UnitOfWork}. The enrollment delete locks the
+ * parent rows first, so an enrollment added concurrently waits for the unit to finish rather
+ * than slipping in between the two statements.
+ */
+public class CascadeDeleteService {
+    private final StudentRepository students;
+    private final CourseRepository courses;
+    private final EnrollmentRepository enrollments;
+    private final ConnectionProvider transactions; // null when the repositories are not JDBC-backed
+
+    public CascadeDeleteService(StudentRepository students, CourseRepository courses, EnrollmentRepository enrollments) {
+        this(students, courses, enrollments, null);
+    }
+
+    public CascadeDeleteService(StudentRepository students, CourseRepository courses, EnrollmentRepository enrollments, ConnectionProvider transactions) {
+        this.students = students;
+        this.courses = courses;
+        this.enrollments = enrollments;
+        this.transactions = transactions;
+    }
+
+    /** Remove a cohort of students and all their enrollments. */
+    public Map<String, Integer> removeStudents(Collection<String> studentIds) throws Exception {
+        return inTransaction(() -> {
+            int removedEnrollments = enrollments.removeByStudentIds(studentIds);
+            return result("students", students.removeAll(studentIds), removedEnrollments);
+        });
+    }
+
+    /** Retire courses and remove every enrollment in them. */
+    public Map<String, Integer> removeCourses(Collection<String> courseIds) throws Exception {
+        return inTransaction(() -> {
+            int removedEnrollments = enrollments.removeByCourseIds(courseIds);
+            return result("courses", courses.removeAll(courseIds), removedEnrollments);
+        });
+    }
+
+    private Map<String, Integer> inTransaction(UnitOfWork.Work<Map<String, Integer>> work) throws Exception {
+        return transactions == null ? work.call() : UnitOfWork.run(transactions, work);
+    }
+
+    private static Map<String, Integer> result(String parents, int parentCount, int enrollmentCount) {
+        Map<String, Integer> out = new LinkedHashMap<>();
+        out.put(parents, parentCount);
+        out.put("enrollments", enrollmentCount);
+        return out;
+    }
+}
@@ -0,0 +1,53 @@
+package com.airtripe.studentmanagement.service;
+
+import java.util.List;
+
+/**
+ * One page of the change feed. {@code next} is the token to pass as {@code since} on the following
+ * request; when {@code hasMore} is false the client is caught up and should poll again later.
+ */
+public class ChangeFeed {
+    private final List<Entry> changes;
+    private final String next;
+    private final boolean hasMore;
+
+    public ChangeFeed(List<Entry> changes, String next, boolean hasMore) {
+        this.changes = changes;
+        this.next = next;
+        this.hasMore = hasMore;
+    }
+
+    public List<Entry> getChanges() { return changes; }
+    public String getNext() { return next; }
+    public boolean isHasMore() { return hasMore; }
+
+    /**
+     * The latest state of one student, course or enrollment: {@code op} is "upsert" (with the current
+     * row in {@code data}) or "delete". Enrollments are keyed by {@code id} (the student) and
+     * {@code courseId}; deleting a student or course also deletes its enrollments.
+     */
+    public static class Entry {
+        private final long seq;
+        private final String entity;
+        private final String op;
+        private final String id;
+        private final String courseId;
+        private final Object data;
+
+        public Entry(long seq, String entity, String op, String id, String courseId, Object data) {
+            this.seq = seq;
+            this.entity = entity;
+            this.op = op;
+            this.id = id;
+            this.courseId = courseId;
+            this.data = data;
+        }
+
+        public long getSeq() { return seq; }
+        public String getEntity() { return entity; }
+        public String getOp() { return op; }
+        public String getId() { return id; }
+        public String getCourseId() { return courseId; }
+        public Object getData() { return data; }
+    }
+}
@@ -0,0 +1,104 @@
+package com.airtripe.studentmanagement.service;
+
+import com.airtripe.studentmanagement.entity.Course;
+import com.airtripe.studentmanagement.entity.Student;
+import com.airtripe.studentmanagement.repository.ChangeLogJdbc;
+import com.airtripe.studentmanagement.repository.CourseRepository;
+import com.airtripe.studentmanagement.repository.EnrollmentRepository;
+import com.airtripe.studentmanagement.repository.StudentRepository;
+import com.airtripe.studentmanagement.util.MetricsCollector;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+/**
+ * Delta sync over the change log: a client passes the token from its previous page and gets each
+ * student, course and enrollment touched since then once, in its current state, so the cost of a
+ * sync follows the churn rather than the table sizes. Several changes to the same row within a page
+ * collapse into its latest state; a row that no longer exists is reported as deleted.
+ */
+public class ChangeFeedService {
+    public static final int MAX_LIMIT = 1000;
+
+    private final ChangeLogJdbc changeLog;
+    private final StudentRepository students;
+    private final CourseRepository courses;
+    private final EnrollmentRepository enrollments;
+    private final MetricsCollector metrics = new MetricsCollector();
+
+    public ChangeFeedService(ChangeLogJdbc changeLog, StudentRepository students, CourseRepository courses, EnrollmentRepository enrollments) {
+        this.changeLog = changeLog;
+        this.students = students;
+        this.courses = courses;
+        this.enrollments = enrollments;
+    }
+
+    /** Changes after {@code token} (null or empty for everything); at most {@code limit} log entries are consumed per page. */
+    public ChangeFeed changesSince(String token, int limit) {
+        long start = System.nanoTime();
+        long since = parseToken(token);
+        int pageSize = Math.max(1, Math.min(limit, MAX_LIMIT));
+        List<ChangeLogJdbc.Change> raw = changeLog.readAfter(since, pageSize);
+
+        // latest entry per row, ordered by that entry's seq
+        Map<String, ChangeLogJdbc.Change> latest = new LinkedHashMap<>();
+        for (ChangeLogJdbc.Change c : raw) {
+            String key = c.getEntity() + '\u0000' + c.getEntityId() + '\u0000' + c.getRelatedId();
+            latest.remove(key);
+            latest.put(key, c);
+        }
+        List<ChangeFeed.Entry> out = new ArrayList<>(latest.size());
+        for (ChangeLogJdbc.Change c : latest.values()) out.add(resolve(c));
+
+        long next = raw.isEmpty() ? since : raw.get(raw.size() - 1).getSeq();
+        metrics.increment("changes.read", raw.size());
+        metrics.increment("changes.returned", out.size());
+        metrics.record("changes.page", System.nanoTime() - start);
+        return new ChangeFeed(out, Long.toString(next), raw.size() == pageSize);
+    }
+
+    /** A token for "from now on", for clients that have just done a full download. */
+    public String currentToken() {
+        return Long.toString(changeLog.latestSeq());
+    }
+
+    private ChangeFeed.Entry resolve(ChangeLogJdbc.Change c) {
+        Optional<?> current = Optional.empty();
+        if (ChangeLogJdbc.UPSERT.equals(c.getOp())) {
+            switch (c.getEntity()) {
+                case ChangeLogJdbc.STUDENT:
+                    current = students.findById(c.getEntityId());
+                    break;
+                case ChangeLogJdbc.COURSE:
+                    current = courses.findById(c.getEntityId());
+                    break;
+                case ChangeLogJdbc.ENROLLMENT:
+                    Optional<Student> s = students.findById(c.getEntityId());
+                    Optional<Course> course = courses.findById(c.getRelatedId());
+                    if (s.isPresent() && course.isPresent()) current = enrollments.find(s.get(), course.get());
+                    break;
+                default:
+                    break;
+            }
+        }
+        // removed after this entry was logged: its own delete entry follows in a later page
+        String op = current.isPresent() ? ChangeLogJdbc.UPSERT : ChangeLogJdbc.DELETE;
+        return new ChangeFeed.Entry(c.getSeq(), c.getEntity(), op, c.getEntityId(), c.getRelatedId(), current.orElse(null));
+    }
+
+    private static long parseToken(String token) {
+        if (token == null || token.isEmpty()) return 0L;
+        try {
+            long seq = Long.parseLong(token);
+            if (seq < 0) throw new IllegalArgumentException("invalid change token: " + token);
+            return seq;
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("invalid change token: " + token);
+        }
+    }
+
+    public MetricsCollector getMetricsCollector() { return metrics; }
+}
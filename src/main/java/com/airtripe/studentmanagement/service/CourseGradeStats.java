@@ -0,0 +1,50 @@
+package com.airtripe.studentmanagement.service;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+
+/** Snapshot of a course's grade distribution as served by GET /courses/{id}/stats. */
+public class CourseGradeStats {
+    private final String courseId;
+    private final long count;
+    private final Double mean; // null when no grades
+    private final Double variance; // population variance; null when no grades
+    private final Double stdDev;
+    private final List<Bucket> histogram;
+    private final Map<String, Double> percentiles; // estimated from the histogram
+
+    public CourseGradeStats(String courseId, long count, Double mean, Double variance, List<Bucket> histogram, Map<String, Double> percentiles) {
+        this.courseId = courseId;
+        this.count = count;
+        this.mean = mean;
+        this.variance = variance;
+        this.stdDev = variance == null ? null : Math.sqrt(variance);
+        this.histogram = Collections.unmodifiableList(histogram);
+        this.percentiles = Collections.unmodifiableMap(percentiles);
+    }
+
+    public String getCourseId() { return courseId; }
+    public long getCount() { return count; }
+    public Double getMean() { return mean; }
+    public Double getVariance() { return variance; }
+    public Double getStdDev() { return stdDev; }
+    public List<Bucket> getHistogram() { return histogram; }
+    public Map<String, Double> getPercentiles() { return percentiles; }
+
+    public static class Bucket {
+        private final double from; // inclusive
+        private final double to; // exclusive (inclusive for the last bucket)
+        private final long count;
+
+        public Bucket(double from, double to, long count) {
+            this.from = from;
+            this.to = to;
+            this.count = count;
+        }
+
+        public double getFrom() { return from; }
+        public double getTo() { return to; }
+        public long getCount() { return count; }
+    }
+}
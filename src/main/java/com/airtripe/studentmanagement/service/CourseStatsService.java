@@ -0,0 +1,193 @@
+package com.airtripe.studentmanagement.service;
+
+import com.airtripe.studentmanagement.entity.Enrollment;
+import com.airtripe.studentmanagement.observer.EntityChangeListener;
+import com.airtripe.studentmanagement.repository.EnrollmentRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.stream.Collector;
+import java.util.stream.Collectors;
+
+/**
+ * Live per-course grade statistics: running count/mean/variance (Welford, with removal so grade
+ * changes are an exact remove+add) and a fixed-bucket histogram. Maintained from repository writes;
+ * {@link #rebuild} recomputes everything from the enrollments in parallel.
+ */
+public class CourseStatsService implements EntityChangeListener {
+    private static final Logger logger = LoggerFactory.getLogger(CourseStatsService.class);
+    private static final double[] PERCENTILES = {25, 50, 75, 90};
+
+    private final double min;
+    private final double max;
+    private final int buckets;
+    private final Map<String, Accumulator> courses = new ConcurrentHashMap<>();
+
+    /** Grades on a 0-100 scale in ten buckets of width 10. */
+    public CourseStatsService() {
+        this(0.0, 100.0, 10);
+    }
+
+    public CourseStatsService(double min, double max, int buckets) {
+        if (max <= min || buckets < 1) throw new IllegalArgumentException("invalid histogram range");
+        this.min = min;
+        this.max = max;
+        this.buckets = buckets;
+    }
+
+    public void rebuild(EnrollmentRepository enrollments) {
+        rebuild(enrollments.findAll(true));
+    }
+
+    /**
+     * Replace all state; courses are accumulated on parallel partitions and merged. A student counts
+     * once per course: when a (course, student) pair appears more than once, e.g. an archived term and
+     * a current re-enrollment, the latest enrollment is the one that counts, as with live updates.
+     */
+    public void rebuild(Collection<Enrollment> all) {
+        long start = System.nanoTime();
+        Map<String, Enrollment> latest = new HashMap<>();
+        for (Enrollment e : all) {
+            latest.merge(e.getCourse().getId() + '\u0000' + e.getStudent().getId(), e,
+                    (a, b) -> b.getEnrolledOn().isBefore(a.getEnrolledOn()) ? a : b);
+        }
+        Map<String, Accumulator> rebuilt = latest.values().parallelStream()
+                .filter(e -> e.getGrade().isPresent())
+                .collect(Collectors.groupingBy(e -> e.getCourse().getId(),
+                        Collector.of(Accumulator::new,
+                                (acc, e) -> acc.put(e.getStudent().getId(), e.getGrade().get()),
+                                Accumulator::merge)));
+        courses.clear();
+        courses.putAll(rebuilt);
+        logger.info("Course stats rebuilt for {} courses from {} enrollments in {} ms", rebuilt.size(), all.size(), (System.nanoTime() - start) / 1_000_000);
+    }
+
+    public CourseGradeStats stats(String courseId) {
+        Accumulator acc = courses.get(courseId);
+        return acc == null ? new Accumulator().snapshot(courseId) : acc.snapshot(courseId);
+    }
+
+    @Override
+    public void onEnrollmentSaved(Enrollment e) {
+        String cid = e.getCourse().getId();
+        String sid = e.getStudent().getId();
+        if (e.getGrade().isPresent()) {
+            courses.computeIfAbsent(cid, k -> new Accumulator()).put(sid, e.getGrade().get());
+        } else {
+            Accumulator acc = courses.get(cid);
+            if (acc != null) acc.remove(sid);
+        }
+    }
+
+    @Override
+    public void onEnrollmentRemoved(String studentId, String courseId) {
+        Accumulator acc = courses.get(courseId);
+        if (acc != null) acc.remove(studentId);
+    }
+
+    @Override
+    public void onStudentRemoved(String studentId) {
+        courses.values().forEach(acc -> acc.remove(studentId));
+    }
+
+    @Override
+    public void onCourseRemoved(String courseId) {
+        courses.remove(courseId);
+    }
+
+    private int bucketOf(double grade) {
+        int b = (int) ((grade - min) / (max - min) * buckets);
+        return Math.max(0, Math.min(buckets - 1, b));
+    }
+
+    private class Accumulator {
+        private final Map<String, Double> grades = new HashMap<>(); // studentId -> current grade
+        private final long[] histogram = new long[buckets];
+        private long n;
+        private double mean;
+        private double m2;
+
+        synchronized void put(String studentId, double grade) {
+            Double old = grades.put(studentId, grade);
+            if (old != null) subtract(old);
+            add(grade);
+        }
+
+        synchronized void remove(String studentId) {
+            Double old = grades.remove(studentId);
+            if (old != null) subtract(old);
+        }
+
+        private void add(double x) {
+            n++;
+            double delta = x - mean;
+            mean += delta / n;
+            m2 += delta * (x - mean);
+            histogram[bucketOf(x)]++;
+        }
+
+        private void subtract(double x) {
+            histogram[bucketOf(x)]--;
+            if (n == 1) {
+                n = 0;
+                mean = 0.0;
+                m2 = 0.0;
+                return;
+            }
+            double meanWithout = (n * mean - x) / (n - 1);
+            m2 -= (x - meanWithout) * (x - mean);
+            if (m2 < 0) m2 = 0.0; // rounding
+            mean = meanWithout;
+            n--;
+        }
+
+        /**
+         * Chan et al. pairwise combination of two partial accumulators. Students present on both sides
+         * are re-added through {@link #put} so the other side's grade replaces this side's instead of
+         * counting twice.
+         */
+        Accumulator merge(Accumulator other) {
+            if (other.n == 0) return this;
+            if (n == 0) return other;
+            if (!Collections.disjoint(grades.keySet(), other.grades.keySet())) {
+                other.grades.forEach(this::put);
+                return this;
+            }
+            long total = n + other.n;
+            double delta = other.mean - mean;
+            m2 = m2 + other.m2 + delta * delta * ((double) n * other.n / total);
+            mean = mean + delta * other.n / total;
+            n = total;
+            for (int i = 0; i < buckets; i++) histogram[i] += other.histogram[i];
+            grades.putAll(other.grades);
+            return this;
+        }
+
+        synchronized CourseGradeStats snapshot(String courseId) {
+            double width = (max - min) / buckets;
+            List<CourseGradeStats.Bucket> hist = new ArrayList<>(buckets);
+            for (int i = 0; i < buckets; i++) hist.add(new CourseGradeStats.Bucket(min + i * width, min + (i + 1) * width, histogram[i]));
+            Map<String, Double> pct = new LinkedHashMap<>();
+            if (n > 0) {
+                for (double p : PERCENTILES) pct.put("p" + (int) p, percentile(p / 100.0, width));
+            }
+            return new CourseGradeStats(courseId, n, n == 0 ? null : mean, n == 0 ? null : m2 / n, hist, pct);
+        }
+
+        // linear interpolation inside the bucket that contains the requested rank
+        private double percentile(double q, double width) {
+            double rank = q * n;
+            long seen = 0;
+            for (int i = 0; i < buckets; i++) {
+                long c = histogram[i];
+                if (c > 0 && seen + c >= rank) {
+                    return min + i * width + width * ((rank - seen) / c);
+                }
+                seen += c;
+            }
+            return max;
+        }
+    }
+}
@@ -0,0 +1,20 @@
+package com.airtripe.studentmanagement.service;
+
+public class GpaSummary {
+    private final String studentId;
+    private final Double gpa; // null until at least one graded course
+    private final int gradedCredits;
+    private final int totalCredits;
+
+    public GpaSummary(String studentId, Double gpa, int gradedCredits, int totalCredits) {
+        this.studentId = studentId;
+        this.gpa = gpa;
+        this.gradedCredits = gradedCredits;
+        this.totalCredits = totalCredits;
+    }
+
+    public String getStudentId() { return studentId; }
+    public Double getGpa() { return gpa; }
+    public int getGradedCredits() { return gradedCredits; }
+    public int getTotalCredits() { return totalCredits; }
+}
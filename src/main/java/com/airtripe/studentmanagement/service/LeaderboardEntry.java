@@ -0,0 +1,17 @@
+package com.airtripe.studentmanagement.service;
+
+public class LeaderboardEntry {
+    private final int rank;
+    private final String studentId;
+    private final double score;
+
+    public LeaderboardEntry(int rank, String studentId, double score) {
+        this.rank = rank;
+        this.studentId = studentId;
+        this.score = score;
+    }
+
+    public int getRank() { return rank; }
+    public String getStudentId() { return studentId; }
+    public double getScore() { return score; }
+}
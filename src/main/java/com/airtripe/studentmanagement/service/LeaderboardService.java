@@ -0,0 +1,122 @@
+package com.airtripe.studentmanagement.service;
+
+import com.airtripe.studentmanagement.entity.Enrollment;
+import com.airtripe.studentmanagement.observer.EntityChangeListener;
+import com.airtripe.studentmanagement.repository.EnrollmentRepository;
+
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListSet;
+
+/**
+ * Ordered rankings per course (by grade) and across all students (by GPA, fed from
+ * {@link TranscriptService}). Each ranking keeps every scored student in a skip list so decreases
+ * and removals simply re-position or drop the entry and the next student moves up; reading the
+ * top k walks k nodes without locking or sorting. Requests are capped at {@link #MAX_K}.
+ */
+public class LeaderboardService implements EntityChangeListener, TranscriptService.GpaListener {
+    public static final int MAX_K = 1000;
+
+    private final Map<String, Ranking> byCourse = new ConcurrentHashMap<>();
+    private final Ranking byGpa = new Ranking();
+
+    public void rebuild(EnrollmentRepository enrollments, TranscriptService transcripts) {
+        byCourse.clear();
+        for (Enrollment e : enrollments.findAll(true)) onEnrollmentSaved(e);
+        byGpa.clear();
+        transcripts.snapshotGpas().forEach(byGpa::put);
+    }
+
+    public List<LeaderboardEntry> topInCourse(String courseId, int k) {
+        Ranking r = byCourse.get(courseId);
+        return r == null ? List.of() : r.top(k);
+    }
+
+    public List<LeaderboardEntry> topByGpa(int k) {
+        return byGpa.top(k);
+    }
+
+    @Override
+    public void onEnrollmentSaved(Enrollment e) {
+        String cid = e.getCourse().getId();
+        String sid = e.getStudent().getId();
+        if (e.getGrade().isPresent()) {
+            byCourse.computeIfAbsent(cid, k -> new Ranking()).put(sid, e.getGrade().get());
+        } else {
+            Ranking r = byCourse.get(cid);
+            if (r != null) r.remove(sid);
+        }
+    }
+
+    @Override
+    public void onEnrollmentRemoved(String studentId, String courseId) {
+        Ranking r = byCourse.get(courseId);
+        if (r != null) r.remove(studentId);
+    }
+
+    @Override
+    public void onStudentRemoved(String studentId) {
+        byCourse.values().forEach(r -> r.remove(studentId));
+    }
+
+    @Override
+    public void onCourseRemoved(String courseId) {
+        byCourse.remove(courseId);
+    }
+
+    @Override
+    public void onGpaChanged(String studentId, Double gpa) {
+        if (gpa == null) byGpa.remove(studentId); else byGpa.put(studentId, gpa);
+    }
+
+    private static final class Score implements Comparable<Score> {
+        final String studentId;
+        final double value;
+
+        Score(String studentId, double value) {
+            this.studentId = studentId;
+            this.value = value;
+        }
+
+        @Override
+        public int compareTo(Score o) {
+            int c = Double.compare(o.value, value); // highest first
+            return c != 0 ? c : studentId.compareTo(o.studentId);
+        }
+    }
+
+    private static final class Ranking {
+        private final ConcurrentSkipListSet<Score> ordered = new ConcurrentSkipListSet<>();
+        private final Map<String, Score> current = new HashMap<>();
+
+        // writers serialize on the ranking; readers only walk the skip list
+        synchronized void put(String studentId, double value) {
+            Score old = current.put(studentId, new Score(studentId, value));
+            if (old != null) ordered.remove(old);
+            ordered.add(current.get(studentId));
+        }
+
+        synchronized void remove(String studentId) {
+            Score old = current.remove(studentId);
+            if (old != null) ordered.remove(old);
+        }
+
+        synchronized void clear() {
+            current.clear();
+            ordered.clear();
+        }
+
+        List<LeaderboardEntry> top(int k) {
+            int limit = Math.max(0, Math.min(k, MAX_K));
+            List<LeaderboardEntry> out = new ArrayList<>(Math.min(limit, 64));
+            // a concurrent re-score can briefly expose both the old and new node; keep the first seen
+            Set<String> seen = new HashSet<>();
+            Iterator<Score> it = ordered.iterator();
+            while (out.size() < limit && it.hasNext()) {
+                Score s = it.next();
+                if (seen.add(s.studentId)) out.add(new LeaderboardEntry(out.size() + 1, s.studentId, s.value));
+            }
+            return out;
+        }
+    }
+}
@@ -0,0 +1,25 @@
+package com.airtripe.studentmanagement.service;
+
+import com.airtripe.studentmanagement.entity.Course;
+import com.airtripe.studentmanagement.entity.Enrollment;
+import com.airtripe.studentmanagement.entity.Student;
+
+import java.util.Collections;
+import java.util.List;
+
+/** A student together with their enrollments and the courses those enrollments refer to. */
+public class StudentProfile {
+    private final Student student;
+    private final List<Enrollment> enrollments;
+    private final List<Course> courses;
+
+    public StudentProfile(Student student, List<Enrollment> enrollments, List<Course> courses) {
+        this.student = student;
+        this.enrollments = Collections.unmodifiableList(enrollments);
+        this.courses = Collections.unmodifiableList(courses);
+    }
+
+    public Student getStudent() { return student; }
+    public List<Enrollment> getEnrollments() { return enrollments; }
+    public List<Course> getCourses() { return courses; }
+}
@@ -0,0 +1,86 @@
+package com.airtripe.studentmanagement.service;
+
+import java.util.*;
+
+/**
+ * End-of-term aggregates. Instances are also the per-partition accumulators of
+ * {@link TermReportService}: each partition fills its own and they are merged pairwise.
+ */
+public class TermReport {
+    private final double passingGrade;
+    private final Map<String, CourseSummary> courses = new TreeMap<>();
+    private final List<Failing> failing = new ArrayList<>();
+    private final Map<String, Integer> creditLoad = new TreeMap<>();
+    private long rows;
+
+    public TermReport(double passingGrade) {
+        this.passingGrade = passingGrade;
+    }
+
+    void add(String studentId, String courseId, Double grade, int credits) {
+        rows++;
+        CourseSummary cs = courses.computeIfAbsent(courseId, CourseSummary::new);
+        cs.enrolled++;
+        if (grade != null) {
+            cs.graded++;
+            cs.gradeSum += grade;
+            if (grade < passingGrade) failing.add(new Failing(studentId, courseId, grade));
+        }
+        creditLoad.merge(studentId, credits, Integer::sum);
+    }
+
+    TermReport merge(TermReport other) {
+        other.courses.forEach((cid, o) -> {
+            CourseSummary cs = courses.computeIfAbsent(cid, CourseSummary::new);
+            cs.enrolled += o.enrolled;
+            cs.graded += o.graded;
+            cs.gradeSum += o.gradeSum;
+        });
+        failing.addAll(other.failing);
+        other.creditLoad.forEach((sid, c) -> creditLoad.merge(sid, c, Integer::sum));
+        rows += other.rows;
+        return this;
+    }
+
+    public double getPassingGrade() { return passingGrade; }
+    public long getRows() { return rows; }
+    public Collection<CourseSummary> getCourses() { return Collections.unmodifiableCollection(courses.values()); }
+    public Map<String, Integer> getCreditLoad() { return Collections.unmodifiableMap(creditLoad); }
+
+    /** Failing grades ordered by course then student. */
+    public List<Failing> getFailing() {
+        List<Failing> out = new ArrayList<>(failing);
+        out.sort(Comparator.comparing(Failing::getCourseId).thenComparing(Failing::getStudentId));
+        return out;
+    }
+
+    public static class CourseSummary {
+        private final String courseId;
+        private long enrolled;
+        private long graded;
+        private double gradeSum;
+
+        CourseSummary(String courseId) { this.courseId = courseId; }
+
+        public String getCourseId() { return courseId; }
+        public long getEnrolled() { return enrolled; }
+        public long getGraded() { return graded; }
+        public Double getAverage() { return graded == 0 ? null : gradeSum / graded; }
+    }
+
+    public static class Failing {
+        private final String studentId;
+        private final String courseId;
+        private final double grade;
+
+        Failing(String studentId, String courseId, double grade) {
+            this.studentId = studentId;
+            this.courseId = courseId;
+            this.grade = grade;
+        }
+
+        public String getStudentId() { return studentId; }
+        public String getCourseId() { return courseId; }
+        public double getGrade() { return grade; }
+    }
+}
@@ -0,0 +1,106 @@
+package com.airtripe.studentmanagement.service;
+
+import com.airtripe.studentmanagement.repository.EnrollmentScanJdbc;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * Builds end-of-term reports (per-course averages, failing grades, credit load per student) by
+ * splitting the enrollments table into student_id ranges and scanning them in parallel. The scans
+ * block on JDBC, so they run on the service's own fixed pool of {@code threads} workers rather than
+ * the common ForkJoinPool. Each range is scanned on its own connection into its own
+ * {@link TermReport}; the results are merged in range order.
+ */
+public class TermReportService {
+    private static final Logger logger = LoggerFactory.getLogger(TermReportService.class);
+
+    private final EnrollmentScanJdbc scanner;
+    private final ExecutorService pool;
+    private final int threads;
+    private final double passingGrade;
+
+    public TermReportService(EnrollmentScanJdbc scanner) {
+        this(scanner, Integer.getInteger("sms.report.threads", Math.min(4, Runtime.getRuntime().availableProcessors())), 50.0);
+    }
+
+    public TermReportService(EnrollmentScanJdbc scanner, int threads, double passingGrade) {
+        this.scanner = scanner;
+        this.threads = threads;
+        this.pool = Executors.newFixedThreadPool(threads, r -> {
+            Thread t = new Thread(r, "term-report");
+            t.setDaemon(true);
+            return t;
+        });
+        this.passingGrade = passingGrade;
+    }
+
+    public TermReport generate() {
+        // a few ranges per worker so a slow range doesn't leave the other workers idle
+        return generate(threads * 4);
+    }
+
+    public TermReport generate(int partitions) {
+        long start = System.nanoTime();
+        List<String> bounds = scanner.partitionBounds(partitions);
+        List<Future<TermReport>> scans = new ArrayList<>();
+        String lo = null;
+        for (int i = 0; i <= bounds.size(); i++) {
+            String from = lo;
+            String to = i < bounds.size() ? bounds.get(i) : null;
+            scans.add(pool.submit(() -> {
+                TermReport acc = new TermReport(passingGrade);
+                scanner.scanRange(from, to, acc::add);
+                return acc;
+            }));
+            lo = to;
+        }
+        TermReport report = new TermReport(passingGrade);
+        try {
+            for (Future<TermReport> scan : scans) report.merge(scan.get());
+        } catch (InterruptedException e) {
+            scans.forEach(f -> f.cancel(true));
+            Thread.currentThread().interrupt();
+            throw new RuntimeException(e);
+        } catch (ExecutionException e) {
+            scans.forEach(f -> f.cancel(true));
+            throw e.getCause() instanceof RuntimeException re ? re : new RuntimeException(e.getCause());
+        }
+        logger.info("Term report over {} rows in {} ranges took {} ms", report.getRows(), scans.size(), (System.nanoTime() - start) / 1_000_000);
+        return report;
+    }
+
+    /** Write the report as CSV sections, one row at a time, to {@code out}. */
+    public void writeCsv(TermReport report, Writer out) throws IOException {
+        out.write("# course averages\ncourse_id,enrolled,graded,average\n");
+        for (TermReport.CourseSummary c : report.getCourses()) {
+            out.write(csv(c.getCourseId()) + "," + c.getEnrolled() + "," + c.getGraded() + "," + (c.getAverage() == null ? "" : String.format(Locale.ROOT, "%.2f", c.getAverage())) + "\n");
+        }
+        out.write("\n# failing (grade < " + report.getPassingGrade() + ")\nstudent_id,course_id,grade\n");
+        for (TermReport.Failing f : report.getFailing()) {
+            out.write(csv(f.getStudentId()) + "," + csv(f.getCourseId()) + "," + f.getGrade() + "\n");
+        }
+        out.write("\n# credit load\nstudent_id,credits\n");
+        for (Map.Entry<String, Integer> e : report.getCreditLoad().entrySet()) {
+            out.write(csv(e.getKey()) + "," + e.getValue() + "\n");
+        }
+        out.flush();
+    }
+
+    // RFC 4180: quote a field that contains a comma, quote or line break, doubling embedded quotes
+    private static String csv(String field) {
+        if (field == null) return "";
+        if (field.indexOf(',') < 0 && field.indexOf('"') < 0 && field.indexOf('\n') < 0 && field.indexOf('\r') < 0) return field;
+        return '"' + field.replace("\"", "\"\"") + '"';
+    }
+}
@@ -0,0 +1,50 @@
+package com.airtripe.studentmanagement.service;
+
+import java.time.LocalDate;
+import java.util.Collections;
+import java.util.List;
+
+/** Point-in-time copy of a student's course results with credit-weighted average. */
+public class Transcript {
+    private final String studentId;
+    private final List<Entry> entries;
+    private final Double gpa; // null until at least one graded course
+    private final int gradedCredits;
+    private final int totalCredits;
+
+    public Transcript(String studentId, List<Entry> entries, Double gpa, int gradedCredits, int totalCredits) {
+        this.studentId = studentId;
+        this.entries = Collections.unmodifiableList(entries);
+        this.gpa = gpa;
+        this.gradedCredits = gradedCredits;
+        this.totalCredits = totalCredits;
+    }
+
+    public String getStudentId() { return studentId; }
+    public List<Entry> getEntries() { return entries; }
+    public Double getGpa() { return gpa; }
+    public int getGradedCredits() { return gradedCredits; }
+    public int getTotalCredits() { return totalCredits; }
+
+    public static class Entry {
+        private final String courseId;
+        private final String courseName;
+        private final int credits;
+        private final Double grade; // nullable
+        private final LocalDate enrolledOn;
+
+        public Entry(String courseId, String courseName, int credits, Double grade, LocalDate enrolledOn) {
+            this.courseId = courseId;
+            this.courseName = courseName;
+            this.credits = credits;
+            this.grade = grade;
+            this.enrolledOn = enrolledOn;
+        }
+
+        public String getCourseId() { return courseId; }
+        public String getCourseName() { return courseName; }
+        public int getCredits() { return credits; }
+        public Double getGrade() { return grade; }
+        public LocalDate getEnrolledOn() { return enrolledOn; }
+    }
+}
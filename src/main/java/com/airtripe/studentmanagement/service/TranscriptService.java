@@ -0,0 +1,190 @@
+package com.airtripe.studentmanagement.service;
+
+import com.airtripe.studentmanagement.entity.Course;
+import com.airtripe.studentmanagement.entity.Enrollment;
+import com.airtripe.studentmanagement.observer.EntityChangeListener;
+import com.airtripe.studentmanagement.repository.EnrollmentRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+/**
+ * Keeps each student's credit-weighted grade sum and credit totals up to date as enrollments are
+ * saved (with or without a grade), removed, or their course changes, so GPA reads are O(1).
+ * Register it with the repositories' EntityChangeNotifier and call {@link #rebuild} once at startup.
+ */
+public class TranscriptService implements EntityChangeListener {
+    private static final Logger logger = LoggerFactory.getLogger(TranscriptService.class);
+
+    private final Map<String, Ledger> ledgers = new ConcurrentHashMap<>();
+    private final Map<String, Set<String>> studentsByCourse = new ConcurrentHashMap<>();
+    // the course as last applied to the ledgers, so saving it unchanged costs nothing
+    private final Map<String, Course> courses = new ConcurrentHashMap<>();
+    private final List<GpaListener> gpaListeners = new CopyOnWriteArrayList<>();
+
+    /** Notified with the new GPA (null once nothing is graded or the student is gone) after every change. */
+    public interface GpaListener {
+        void onGpaChanged(String studentId, Double gpa);
+    }
+
+    public void addGpaListener(GpaListener l) { gpaListeners.add(l); }
+
+    /** Replace all state with what is stored in {@code enrollments}, archived past terms included. */
+    public void rebuild(EnrollmentRepository enrollments) {
+        long start = System.nanoTime();
+        ledgers.clear();
+        studentsByCourse.clear();
+        courses.clear();
+        List<Enrollment> all = enrollments.findAll(true);
+        all.forEach(this::onEnrollmentSaved);
+        all.forEach(e -> courses.putIfAbsent(e.getCourse().getId(), e.getCourse()));
+        logger.info("Transcripts rebuilt from {} enrollments in {} ms", all.size(), (System.nanoTime() - start) / 1_000_000);
+    }
+
+    /** Current GPA of every student that has at least one graded course. */
+    public Map<String, Double> snapshotGpas() {
+        Map<String, Double> out = new HashMap<>();
+        ledgers.forEach((sid, l) -> {
+            Double g = l.summary(sid).getGpa();
+            if (g != null) out.put(sid, g);
+        });
+        return out;
+    }
+
+    public Optional<GpaSummary> gpa(String studentId) {
+        Ledger l = ledgers.get(studentId);
+        return l == null ? Optional.empty() : Optional.of(l.summary(studentId));
+    }
+
+    public Optional<Transcript> transcript(String studentId) {
+        Ledger l = ledgers.get(studentId);
+        return l == null ? Optional.empty() : Optional.of(l.transcript(studentId));
+    }
+
+    @Override
+    public void onEnrollmentSaved(Enrollment e) {
+        Course c = e.getCourse();
+        String sid = e.getStudent().getId();
+        Ledger l = ledgers.computeIfAbsent(sid, k -> new Ledger());
+        l.put(new Transcript.Entry(c.getId(), c.getName(), c.getCredits(), e.getGrade().orElse(null), e.getEnrolledOn()));
+        studentsByCourse.computeIfAbsent(c.getId(), k -> ConcurrentHashMap.newKeySet()).add(sid);
+        fireGpa(sid, l);
+    }
+
+    @Override
+    public void onEnrollmentRemoved(String studentId, String courseId) {
+        Ledger l = ledgers.get(studentId);
+        if (l != null) {
+            l.remove(courseId);
+            fireGpa(studentId, l);
+        }
+        Set<String> students = studentsByCourse.get(courseId);
+        if (students != null) students.remove(studentId);
+    }
+
+    @Override
+    public void onStudentRemoved(String studentId) {
+        Ledger l = ledgers.remove(studentId);
+        if (l == null) return;
+        l.courseIds().forEach(cid -> {
+            Set<String> students = studentsByCourse.get(cid);
+            if (students != null) students.remove(studentId);
+        });
+        gpaListeners.forEach(gl -> gl.onGpaChanged(studentId, null));
+    }
+
+    @Override
+    public void onCourseSaved(Course c) {
+        Course previous = courses.put(c.getId(), c);
+        boolean creditsChanged = previous == null || previous.getCredits() != c.getCredits();
+        if (!creditsChanged && Objects.equals(previous.getName(), c.getName())) return;
+        // a credit change re-weights every transcript that includes the course; a rename only relabels it
+        Set<String> students = studentsByCourse.get(c.getId());
+        if (students == null) return;
+        for (String sid : students) {
+            Ledger l = ledgers.get(sid);
+            if (l != null) {
+                l.updateCourse(c);
+                if (creditsChanged) fireGpa(sid, l);
+            }
+        }
+    }
+
+    @Override
+    public void onCourseRemoved(String courseId) {
+        courses.remove(courseId);
+        Set<String> students = studentsByCourse.remove(courseId);
+        if (students == null) return;
+        for (String sid : students) {
+            Ledger l = ledgers.get(sid);
+            if (l != null) {
+                l.remove(courseId);
+                fireGpa(sid, l);
+            }
+        }
+    }
+
+    private void fireGpa(String studentId, Ledger l) {
+        if (gpaListeners.isEmpty()) return;
+        Double gpa = l.summary(studentId).getGpa();
+        gpaListeners.forEach(gl -> gl.onGpaChanged(studentId, gpa));
+    }
+
+    /** Per-student running totals; all mutation is confined to its own monitor. */
+    private static class Ledger {
+        private final Map<String, Transcript.Entry> entries = new TreeMap<>();
+        private double weightedSum;
+        private int gradedCredits;
+        private int totalCredits;
+
+        synchronized void put(Transcript.Entry entry) {
+            Transcript.Entry old = entries.put(entry.getCourseId(), entry);
+            if (old != null) subtract(old);
+            add(entry);
+        }
+
+        synchronized void remove(String courseId) {
+            Transcript.Entry old = entries.remove(courseId);
+            if (old != null) subtract(old);
+        }
+
+        synchronized void updateCourse(Course c) {
+            Transcript.Entry old = entries.get(c.getId());
+            if (old == null) return;
+            put(new Transcript.Entry(c.getId(), c.getName(), c.getCredits(), old.getGrade(), old.getEnrolledOn()));
+        }
+
+        synchronized List<String> courseIds() { return new ArrayList<>(entries.keySet()); }
+
+        synchronized GpaSummary summary(String studentId) {
+            return new GpaSummary(studentId, gpa(), gradedCredits, totalCredits);
+        }
+
+        synchronized Transcript transcript(String studentId) {
+            return new Transcript(studentId, new ArrayList<>(entries.values()), gpa(), gradedCredits, totalCredits);
+        }
+
+        private Double gpa() { return gradedCredits == 0 ? null : weightedSum / gradedCredits; }
+
+        private void add(Transcript.Entry e) {
+            totalCredits += e.getCredits();
+            if (e.getGrade() != null) {
+                weightedSum += e.getGrade() * e.getCredits();
+                gradedCredits += e.getCredits();
+            }
+        }
+
+        private void subtract(Transcript.Entry e) {
+            totalCredits -= e.getCredits();
+            if (e.getGrade() != null) {
+                weightedSum -= e.getGrade() * e.getCredits();
+                gradedCredits -= e.getCredits();
+            }
+            // keep floating-point drift from leaving a residue once nothing is graded
+            if (gradedCredits == 0) weightedSum = 0.0;
+        }
+    }
+}
@@ -0,0 +1,86 @@
+package com.airtripe.studentmanagement.util;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Admission control for one group of requests: at most {@link #getLimit()} run at once, and anything
+ * over that is refused immediately rather than queued. The limit adapts by AIMD on observed latency:
+ * a request that finishes within {@code targetMillis} while the limit is at least half used raises it
+ * by one; a slower or failed one cuts it by 10%, never below {@code minLimit}. Only requests that
+ * started after the last cut can cut again, so one burst of slow requests admitted under the old limit
+ * costs one cut rather than one per request. The top 20% of the limit is reserved for priority
+ * requests, so they are still admitted when the rest are being shed.
+ *
+ * Counters recorded under {@code <name>.accepted}, {@code <name>.shed} and {@code <name>.shed.priority};
+ * admitted requests' latency under {@code <name>.latency}.
+ */
+public class AdaptiveConcurrencyLimiter {
+    private static final double BACKOFF = 0.9;
+    private static final double PRIORITY_RESERVE = 0.2;
+
+    private final String name;
+    private final MetricsCollector metrics;
+    private final long targetNanos;
+    private final int minLimit;
+    private final int maxLimit;
+    private double limit; // guarded by this
+    private int inFlight; // guarded by this
+    private long lastCutNanos; // guarded by this
+    private boolean cut; // guarded by this; false until the first cut
+
+    public AdaptiveConcurrencyLimiter(String name, MetricsCollector metrics, long targetMillis, int initialLimit, int minLimit, int maxLimit) {
+        if (minLimit < 1 || initialLimit < minLimit || maxLimit < initialLimit) {
+            throw new IllegalArgumentException("need 1 <= minLimit <= initialLimit <= maxLimit");
+        }
+        this.name = name;
+        this.metrics = metrics;
+        this.targetNanos = TimeUnit.MILLISECONDS.toNanos(targetMillis);
+        this.minLimit = minLimit;
+        this.maxLimit = maxLimit;
+        this.limit = initialLimit;
+    }
+
+    /** Admit a request, or return false if the group is at its limit; every true must be followed by {@link #release}. */
+    public boolean tryAcquire(boolean priority) {
+        boolean admitted;
+        synchronized (this) {
+            int cap = (int) limit;
+            if (!priority) cap = Math.max(1, cap - (int) Math.ceil(cap * PRIORITY_RESERVE));
+            admitted = inFlight < cap;
+            if (admitted) inFlight++;
+        }
+        if (admitted) {
+            metrics.increment(name + ".accepted", 1);
+        } else {
+            metrics.increment(name + ".shed", 1);
+            if (priority) metrics.increment(name + ".shed.priority", 1);
+        }
+        return admitted;
+    }
+
+    /**
+     * Finish an admitted request that ran from {@code startNanos} to {@code endNanos} ({@link System#nanoTime()});
+     * {@code failed} when it failed because the server is overloaded.
+     */
+    public void release(long startNanos, long endNanos, boolean failed) {
+        long latencyNanos = endNanos - startNanos;
+        metrics.record(name + ".latency", latencyNanos);
+        synchronized (this) {
+            boolean saturated = inFlight * 2 >= limit;
+            inFlight--;
+            if (failed || latencyNanos > targetNanos) {
+                if (!cut || startNanos - lastCutNanos >= 0) {
+                    limit = Math.max(minLimit, limit * BACKOFF);
+                    lastCutNanos = endNanos;
+                    cut = true;
+                }
+            } else if (saturated) {
+                limit = Math.min(maxLimit, limit + 1);
+            }
+        }
+    }
+
+    public synchronized int getLimit() { return (int) limit; }
+
+    public synchronized int getInFlight() { return inFlight; }
+}
@@ -8,7 +8,7 @@ import java.sql.DriverManager;
 import java.sql.SQLException;
 import java.util.Properties;
 
-public class ConfigSingleton {
+public class ConfigSingleton implements ConnectionProvider {
     private static final Logger logger = LoggerFactory.getLogger(ConfigSingleton.class);
     private static ConfigSingleton instance;
 
@@ -32,6 +32,7 @@ public class ConfigSingleton {
         return instance;
     }
 
+    @Override
     public Connection getConnection() throws SQLException {
         // Create a new connection per call; callers are responsible for closing it
         logger.debug("Opening DB connection to {}", jdbcUrl);
@@ -0,0 +1,14 @@
+package com.airtripe.studentmanagement.util;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+
+/**
+ * Source of JDBC connections for the repositories. {@link ConfigSingleton} is the default (one
+ * database from sms.jdbc.url); {@link JdbcConnectionProvider} points a repository at any other
+ * database, e.g. one shard of a sharded deployment.
+ */
+public interface ConnectionProvider {
+    /** Open a new connection; the caller closes it. */
+    Connection getConnection() throws SQLException;
+}
@@ -0,0 +1,25 @@
+package com.airtripe.studentmanagement.util;
+
+import com.airtripe.studentmanagement.entity.Course;
+import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
+
+/** Body of POST/PUT /courses. */
+@JsonIgnoreProperties(ignoreUnknown = true)
+public class CourseRequest {
+    private String id;
+    private String name;
+    private int credits; // 0 when absent
+
+    public CourseRequest() {}
+
+    public String getId() { return id; }
+    public void setId(String id) { this.id = id; }
+
+    public String getName() { return name; }
+    public void setName(String name) { this.name = name; }
+
+    public int getCredits() { return credits; }
+    public void setCredits(int credits) { this.credits = credits; }
+
+    public Course toCourse() { return new Course(id, name, credits); }
+}
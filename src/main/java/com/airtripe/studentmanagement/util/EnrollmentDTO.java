@@ -0,0 +1,39 @@
+package com.airtripe.studentmanagement.util;
+
+import com.airtripe.studentmanagement.entity.Enrollment;
+
+import java.time.LocalDate;
+
+/** Compact enrollment: the student and course by id only (see EnrollmentListDTO for side-loading them). */
+public class EnrollmentDTO {
+    private String studentId;
+    private String courseId;
+    private LocalDate enrolledOn;
+    private Double grade; // null until graded
+
+    // Jackson requires a no-arg constructor
+    public EnrollmentDTO() {}
+
+    public EnrollmentDTO(String studentId, String courseId, LocalDate enrolledOn, Double grade) {
+        this.studentId = studentId;
+        this.courseId = courseId;
+        this.enrolledOn = enrolledOn;
+        this.grade = grade;
+    }
+
+    public static EnrollmentDTO of(Enrollment e) {
+        return new EnrollmentDTO(e.getStudent().getId(), e.getCourse().getId(), e.getEnrolledOn(), e.getGrade().orElse(null));
+    }
+
+    public String getStudentId() { return studentId; }
+    public void setStudentId(String studentId) { this.studentId = studentId; }
+
+    public String getCourseId() { return courseId; }
+    public void setCourseId(String courseId) { this.courseId = courseId; }
+
+    public LocalDate getEnrolledOn() { return enrolledOn; }
+    public void setEnrolledOn(LocalDate enrolledOn) { this.enrolledOn = enrolledOn; }
+
+    public Double getGrade() { return grade; }
+    public void setGrade(Double grade) { this.grade = grade; }
+}
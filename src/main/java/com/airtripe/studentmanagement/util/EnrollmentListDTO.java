@@ -0,0 +1,65 @@
+package com.airtripe.studentmanagement.util;
+
+import com.airtripe.studentmanagement.entity.Course;
+import com.airtripe.studentmanagement.entity.Enrollment;
+import com.airtripe.studentmanagement.entity.GraduateStudent;
+import com.airtripe.studentmanagement.entity.Student;
+import com.fasterxml.jackson.annotation.JsonInclude;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * A list of compact enrollments with the students and courses they refer to side-loaded once each
+ * under "included", instead of nested in every element (a 1,000-row roster names its course once).
+ */
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public class EnrollmentListDTO {
+    private final List<EnrollmentDTO> enrollments;
+    private final Included included; // null when nothing was asked for
+
+    public EnrollmentListDTO(List<EnrollmentDTO> enrollments, Included included) {
+        this.enrollments = enrollments;
+        this.included = included;
+    }
+
+    public static EnrollmentListDTO of(Collection<Enrollment> list, boolean includeStudents, boolean includeCourses) {
+        List<EnrollmentDTO> rows = new ArrayList<>(list.size());
+        Map<String, StudentDTO> students = new LinkedHashMap<>();
+        Map<String, Course> courses = new LinkedHashMap<>();
+        for (Enrollment e : list) {
+            rows.add(EnrollmentDTO.of(e));
+            if (includeStudents) students.computeIfAbsent(e.getStudent().getId(), id -> studentDto(e.getStudent()));
+            if (includeCourses) courses.putIfAbsent(e.getCourse().getId(), e.getCourse());
+        }
+        Included included = includeStudents || includeCourses
+                ? new Included(includeStudents ? new ArrayList<>(students.values()) : null, includeCourses ? new ArrayList<>(courses.values()) : null)
+                : null;
+        return new EnrollmentListDTO(rows, included);
+    }
+
+    private static StudentDTO studentDto(Student s) {
+        String thesis = s instanceof GraduateStudent ? ((GraduateStudent) s).getThesisTitle() : null;
+        return new StudentDTO(s.getId(), s.getName(), s.getEmail(), s.getDateOfBirth(), thesis);
+    }
+
+    public List<EnrollmentDTO> getEnrollments() { return enrollments; }
+    public Included getIncluded() { return included; }
+
+    @JsonInclude(JsonInclude.Include.NON_NULL)
+    public static class Included {
+        private final List<StudentDTO> students;
+        private final List<Course> courses;
+
+        public Included(List<StudentDTO> students, List<Course> courses) {
+            this.students = students;
+            this.courses = courses;
+        }
+
+        public List<StudentDTO> getStudents() { return students; }
+        public List<Course> getCourses() { return courses; }
+    }
+}
@@ -0,0 +1,24 @@
+package com.airtripe.studentmanagement.util;
+
+import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
+
+import java.time.LocalDate;
+
+/** Body of POST /enrollments; {@code enrolledOn} defaults to today. */
+@JsonIgnoreProperties(ignoreUnknown = true)
+public class EnrollmentRequest {
+    private String studentId;
+    private String courseId;
+    private LocalDate enrolledOn;
+
+    public EnrollmentRequest() {}
+
+    public String getStudentId() { return studentId; }
+    public void setStudentId(String studentId) { this.studentId = studentId; }
+
+    public String getCourseId() { return courseId; }
+    public void setCourseId(String courseId) { this.courseId = courseId; }
+
+    public LocalDate getEnrolledOn() { return enrolledOn; }
+    public void setEnrolledOn(LocalDate enrolledOn) { this.enrolledOn = enrolledOn; }
+}
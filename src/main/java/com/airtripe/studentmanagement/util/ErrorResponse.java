@@ -0,0 +1,15 @@
+package com.airtripe.studentmanagement.util;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+
+/** Body of every error response: {@code {"error": "..."}}, without the field when there is no message. */
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public class ErrorResponse {
+    private final String error;
+
+    public ErrorResponse(String error) {
+        this.error = error;
+    }
+
+    public String getError() { return error; }
+}
@@ -0,0 +1,14 @@
+package com.airtripe.studentmanagement.util;
+
+import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
+
+/** Body of PUT /enrollments/{studentId}/{courseId}. */
+@JsonIgnoreProperties(ignoreUnknown = true)
+public class GradeRequest {
+    private Double grade; // required
+
+    public GradeRequest() {}
+
+    public Double getGrade() { return grade; }
+    public void setGrade(Double grade) { this.grade = grade; }
+}
@@ -0,0 +1,165 @@
+package com.airtripe.studentmanagement.util;
+
+import java.io.ByteArrayOutputStream;
+import java.io.FilterOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.util.Locale;
+import java.util.zip.DeflaterOutputStream;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Content-Encoding for HTTP responses: picks gzip or deflate from a request's Accept-Encoding and
+ * compresses either a buffered body (only above {@code minBytes}, where the saving outweighs the CPU)
+ * or a streamed one (always, since its size is not known up front). Records bytes in/out and the CPU
+ * time spent compressing, per coding.
+ */
+public class HttpCompression {
+    public static final String GZIP = "gzip";
+    public static final String DEFLATE = "deflate";
+
+    private static final ThreadMXBean THREADS = ManagementFactory.getThreadMXBean();
+
+    private final int minBytes;
+    private final MetricsCollector metrics = new MetricsCollector();
+
+    public HttpCompression(int minBytes) {
+        this.minBytes = minBytes;
+    }
+
+    /**
+     * The coding to apply for {@code acceptEncoding}, or null for none: whichever of gzip and deflate
+     * has the higher q-value (gzip on a tie), honoring {@code *} and q=0.
+     */
+    public static String negotiate(String acceptEncoding) {
+        if (acceptEncoding == null || acceptEncoding.isBlank()) return null;
+        double gzip = -1, deflate = -1, any = -1;
+        for (String part : acceptEncoding.split(",")) {
+            String[] tokens = part.trim().split(";");
+            String coding = tokens[0].trim().toLowerCase(Locale.ROOT);
+            double q = 1.0;
+            for (int i = 1; i < tokens.length; i++) {
+                String param = tokens[i].trim();
+                if (param.startsWith("q=")) {
+                    try { q = Double.parseDouble(param.substring(2)); } catch (NumberFormatException e) { q = 0; }
+                }
+            }
+            if (coding.equals(GZIP) || coding.equals("x-gzip")) gzip = Math.max(gzip, q);
+            else if (coding.equals(DEFLATE)) deflate = q;
+            else if (coding.equals("*")) any = q;
+        }
+        if (gzip < 0) gzip = any;
+        if (deflate < 0) deflate = any;
+        if (gzip <= 0 && deflate <= 0) return null;
+        return gzip >= deflate ? GZIP : DEFLATE;
+    }
+
+    /** {@code body} compressed with {@code coding}, or null if it is below the threshold or would not shrink. */
+    public byte[] compress(byte[] body, String coding) throws IOException {
+        if (coding == null) return null;
+        if (body.length < minBytes) {
+            metrics.increment("compression.skipped", 1);
+            return null;
+        }
+        long cpu = cpuNanos();
+        ByteArrayOutputStream buf = new ByteArrayOutputStream(Math.max(64, body.length / 4));
+        try (OutputStream out = encoder(buf, coding)) {
+            out.write(body);
+        }
+        metrics.record("compression." + coding, cpuNanos() - cpu);
+        if (buf.size() >= body.length) {
+            metrics.increment("compression.skipped", 1);
+            return null;
+        }
+        count(body.length, buf.size());
+        return buf.toByteArray();
+    }
+
+    /**
+     * Wrap a streamed (chunked) response body; closing the result finishes the compressed stream and
+     * closes {@code out}. Returns {@code out} itself when {@code coding} is null.
+     */
+    public OutputStream wrap(OutputStream out, String coding) throws IOException {
+        if (coding == null) return out;
+        CountingOutputStream counted = new CountingOutputStream(out);
+        OutputStream encoder = encoder(counted, coding);
+        return new FilterOutputStream(encoder) {
+            private long in;
+            private long cpu;
+
+            @Override
+            public void write(byte[] b, int off, int len) throws IOException {
+                long start = cpuNanos();
+                encoder.write(b, off, len);
+                cpu += cpuNanos() - start;
+                in += len;
+            }
+
+            @Override
+            public void write(int b) throws IOException {
+                write(new byte[]{(byte) b}, 0, 1);
+            }
+
+            @Override
+            public void close() throws IOException {
+                long start = cpuNanos();
+                try {
+                    super.close();
+                } finally {
+                    cpu += cpuNanos() - start;
+                    metrics.record("compression." + coding, cpu);
+                    count(in, counted.count);
+                }
+            }
+        };
+    }
+
+    /** Compressed bytes per uncompressed byte over everything compressed so far (1.0 before any). */
+    public double getRatio() {
+        long in = metrics.getCount("compression.bytesIn");
+        return in == 0 ? 1.0 : (double) metrics.getCount("compression.bytesOut") / in;
+    }
+
+    /** Average CPU milliseconds per compressed response for {@code coding}. */
+    public double getAvgCpuMillis(String coding) {
+        long n = metrics.getCount("compression." + coding);
+        return n == 0 ? 0.0 : metrics.getTotalNanos("compression." + coding) / 1_000_000.0 / n;
+    }
+
+    public MetricsCollector getMetricsCollector() { return metrics; }
+
+    private void count(long in, long out) {
+        metrics.increment("compression.bytesIn", in);
+        metrics.increment("compression.bytesOut", out);
+    }
+
+    private static OutputStream encoder(OutputStream out, String coding) throws IOException {
+        // HTTP "deflate" is the zlib format, which is what DeflaterOutputStream writes by default
+        return GZIP.equals(coding) ? new GZIPOutputStream(out, 8192) : new DeflaterOutputStream(out);
+    }
+
+    // thread CPU time where the JVM supports it, so time spent blocked on the socket is not counted
+    private static long cpuNanos() {
+        return THREADS.isCurrentThreadCpuTimeSupported() ? THREADS.getCurrentThreadCpuTime() : System.nanoTime();
+    }
+
+    private static final class CountingOutputStream extends FilterOutputStream {
+        private long count;
+
+        CountingOutputStream(OutputStream out) { super(out); }
+
+        @Override
+        public void write(byte[] b, int off, int len) throws IOException {
+            out.write(b, off, len);
+            count += len;
+        }
+
+        @Override
+        public void write(int b) throws IOException {
+            out.write(b);
+            count++;
+        }
+    }
+}
@@ -0,0 +1,48 @@
+package com.airtripe.studentmanagement.util;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Properties;
+
+public class JdbcConnectionProvider implements ConnectionProvider {
+    private static final Logger logger = LoggerFactory.getLogger(JdbcConnectionProvider.class);
+
+    private final String jdbcUrl;
+    private final String jdbcUser;
+    private final String jdbcPassword;
+
+    public JdbcConnectionProvider(String jdbcUrl, String jdbcUser, String jdbcPassword) {
+        this.jdbcUrl = jdbcUrl;
+        this.jdbcUser = jdbcUser;
+        this.jdbcPassword = jdbcPassword;
+    }
+
+    @Override
+    public Connection getConnection() throws SQLException {
+        logger.debug("Opening DB connection to {}", jdbcUrl);
+        Properties props = new Properties();
+        props.setProperty("user", jdbcUser);
+        props.setProperty("password", jdbcPassword);
+        return DriverManager.getConnection(jdbcUrl, props);
+    }
+
+    public String getJdbcUrl() { return jdbcUrl; }
+
+    /** One provider per entry of a comma-separated URL list (blank entries are skipped), all with the same credentials. */
+    public static List<JdbcConnectionProvider> fromUrls(String commaSeparatedUrls, String jdbcUser, String jdbcPassword) {
+        List<JdbcConnectionProvider> out = new ArrayList<>();
+        for (String url : commaSeparatedUrls.split(",")) {
+            if (!url.isBlank()) out.add(new JdbcConnectionProvider(url.trim(), jdbcUser, jdbcPassword));
+        }
+        return out;
+    }
+
+    @Override
+    public String toString() { return jdbcUrl; }
+}
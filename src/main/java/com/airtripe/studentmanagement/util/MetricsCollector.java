@@ -13,6 +13,11 @@ public class MetricsCollector {
         totalNanos.computeIfAbsent(name, k -> new LongAdder()).add(nanos);
     }
 
+    /** Bump a plain counter (no timing) by {@code delta}. */
+    public void increment(String name, long delta) {
+        counts.computeIfAbsent(name, k -> new LongAdder()).add(delta);
+    }
+
     public long getCount(String name) {
         LongAdder a = counts.get(name);
         return a == null ? 0 : a.sum();
@@ -0,0 +1,47 @@
+package com.airtripe.studentmanagement.util;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.fasterxml.jackson.dataformat.smile.SmileFactory;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+
+import java.io.IOException;
+import java.io.InputStream;
+
+/**
+ * The REST layer's (de)serialization. Request bodies are bound straight from the input stream to
+ * typed DTOs through readers built once, so no intermediate Map is built and no field is cast by
+ * hand. Responses are typed DTOs or entities written by the mapper itself, which already caches
+ * root serializers per class. Both use Jackson's recycled per-thread buffers.
+ */
+public class RestCodec {
+    private final ObjectMapper json = configure(new ObjectMapper());
+    // same model, binary encoding: smaller and cheaper to produce than JSON text
+    private final ObjectMapper smile = configure(new ObjectMapper(new SmileFactory()));
+
+    private final ObjectReader studentReader = json.readerFor(StudentRequest.class);
+    private final ObjectReader courseReader = json.readerFor(CourseRequest.class);
+    private final ObjectReader enrollmentReader = json.readerFor(EnrollmentRequest.class);
+    private final ObjectReader gradeReader = json.readerFor(GradeRequest.class);
+
+    private static ObjectMapper configure(ObjectMapper mapper) {
+        return mapper.registerModule(new JavaTimeModule()).disable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS);
+    }
+
+    public StudentRequest readStudent(InputStream in) throws IOException { return studentReader.readValue(in); }
+
+    public CourseRequest readCourse(InputStream in) throws IOException { return courseReader.readValue(in); }
+
+    public EnrollmentRequest readEnrollment(InputStream in) throws IOException { return enrollmentReader.readValue(in); }
+
+    public GradeRequest readGrade(InputStream in) throws IOException { return gradeReader.readValue(in); }
+
+    public byte[] write(Object body, boolean binary) throws IOException {
+        return (binary ? smile : json).writeValueAsBytes(body);
+    }
+
+    public String writeString(Object body) throws IOException {
+        return json.writeValueAsString(body);
+    }
+}
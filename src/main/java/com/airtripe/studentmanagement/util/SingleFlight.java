@@ -0,0 +1,204 @@
+package com.airtripe.studentmanagement.util;
+
+import java.util.Map;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+
+/**
+ * Coalesces concurrent identical reads: while a load for a key is in flight, later callers for the
+ * same key wait for that load and share its result instead of running their own. Optionally a
+ * completed result is reused for {@code reuseMillis} afterwards. Shared results must be treated as
+ * read-only by callers.
+ *
+ * Counters recorded under {@code <name>.executed}, {@code <name>.coalesced}, {@code <name>.reused} and
+ * {@code <name>.abandoned} (async loads cancelled because every caller gave up on them).
+ */
+public class SingleFlight<K, V> {
+    private final String name;
+    private final MetricsCollector metrics;
+    private final long reuseNanos;
+    private final Map<K, Flight<V>> inflight = new ConcurrentHashMap<>();
+    private final Map<K, Recent<V>> recent = new ConcurrentHashMap<>();
+    private final AtomicLong generation = new AtomicLong();
+
+    public SingleFlight(String name, MetricsCollector metrics) {
+        this(name, metrics, 0);
+    }
+
+    public SingleFlight(String name, MetricsCollector metrics, long reuseMillis) {
+        this.name = name;
+        this.metrics = metrics;
+        this.reuseNanos = TimeUnit.MILLISECONDS.toNanos(Math.max(0, reuseMillis));
+    }
+
+    /** Run {@code loader} for {@code key} on the calling thread, or join the call already in flight. */
+    public V execute(K key, Supplier<V> loader) {
+        while (true) {
+            V reused = reused(key);
+            if (reused != null) return reused;
+            Flight<V> mine = new Flight<>();
+            Flight<V> leader = inflight.putIfAbsent(key, mine);
+            if (leader != null) {
+                // blocking callers never give up on a load, so they keep it from being abandoned
+                if (!leader.join()) {
+                    inflight.remove(key, leader);
+                    continue;
+                }
+                metrics.increment(name + ".coalesced", 1);
+                return await(leader.result);
+            }
+            metrics.increment(name + ".executed", 1);
+            long gen = generation.get();
+            long start = System.nanoTime();
+            try {
+                V value = loader.get();
+                remember(key, value, gen);
+                mine.result.complete(value);
+                return value;
+            } catch (Throwable e) {
+                // an Error too: followers are parked on mine and would otherwise wait forever
+                mine.result.completeExceptionally(e);
+                throw e;
+            } finally {
+                inflight.remove(key, mine);
+                metrics.record(name + ".load", System.nanoTime() - start);
+            }
+        }
+    }
+
+    /**
+     * Asynchronous variant: {@code loader} starts the load only if none is in flight. Each caller gets
+     * its own dependent future, so cancelling one caller's future (or timing it out) doesn't fail the
+     * others; once every caller's future has ended that way before the load finished, the load itself is
+     * cancelled, which interrupts it if {@code loader}'s future supports that.
+     */
+    public CompletableFuture<V> executeAsync(K key, Supplier<CompletableFuture<V>> loader) {
+        while (true) {
+            V reused = reused(key);
+            if (reused != null) return CompletableFuture.completedFuture(reused);
+            Flight<V> mine = new Flight<>();
+            Flight<V> leader = inflight.putIfAbsent(key, mine);
+            if (leader != null) {
+                if (!leader.join()) {
+                    // every caller of that load gave up and it is being cancelled: start a fresh one
+                    inflight.remove(key, leader);
+                    continue;
+                }
+                metrics.increment(name + ".coalesced", 1);
+                return waiter(key, leader);
+            }
+            metrics.increment(name + ".executed", 1);
+            long gen = generation.get();
+            long start = System.nanoTime();
+            CompletableFuture<V> load;
+            try {
+                load = loader.get();
+            } catch (Throwable e) {
+                load = CompletableFuture.failedFuture(e);
+            }
+            mine.load = load;
+            load.whenComplete((value, error) -> {
+                if (error == null) remember(key, value, gen);
+                inflight.remove(key, mine);
+                metrics.record(name + ".load", System.nanoTime() - start);
+                if (error != null) mine.result.completeExceptionally(error); else mine.result.complete(value);
+            });
+            return waiter(key, mine);
+        }
+    }
+
+    /**
+     * Forget reusable results and detach in-flight loads so calls made after a write never see data
+     * loaded before it. Loads already running still complete for the callers waiting on them, but
+     * their results are not kept for reuse.
+     */
+    public void invalidateAll() {
+        generation.incrementAndGet();
+        recent.clear();
+        inflight.clear();
+    }
+
+    /** Fraction of calls answered without running a load (coalesced or reused). */
+    public double getCoalesceRatio() {
+        long executed = metrics.getCount(name + ".executed");
+        long shared = metrics.getCount(name + ".coalesced") + metrics.getCount(name + ".reused");
+        long total = executed + shared;
+        return total == 0 ? 0.0 : (double) shared / total;
+    }
+
+    private V reused(K key) {
+        if (reuseNanos == 0) return null;
+        Recent<V> r = recent.get(key);
+        if (r == null) return null;
+        if (System.nanoTime() - r.loadedAt > reuseNanos) {
+            recent.remove(key, r);
+            return null;
+        }
+        metrics.increment(name + ".reused", 1);
+        return r.value;
+    }
+
+    // keep a result only if no invalidation happened since its load started; the re-check after the
+    // put covers an invalidation racing with it (invalidateAll bumps the generation before clearing)
+    private void remember(K key, V value, long gen) {
+        if (reuseNanos == 0 || value == null || generation.get() != gen) return;
+        Recent<V> r = new Recent<>(value, System.nanoTime());
+        recent.put(key, r);
+        if (generation.get() != gen) recent.remove(key, r);
+    }
+
+    // one caller's view of a shared load; when it ends early (cancelled, timed out) it stops counting as a waiter
+    private CompletableFuture<V> waiter(K key, Flight<V> flight) {
+        CompletableFuture<V> mine = flight.result.copy();
+        mine.whenComplete((value, error) -> {
+            if (error == null || flight.result.isDone() || flight.waiters.decrementAndGet() > 0) return;
+            inflight.remove(key, flight);
+            metrics.increment(name + ".abandoned", 1);
+            flight.load.cancel(true);
+            flight.result.cancel(false);
+        });
+        return mine;
+    }
+
+    private static <V> V await(CompletableFuture<V> f) {
+        try {
+            return f.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new CancellationException("Interrupted while waiting for shared load");
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof RuntimeException) throw (RuntimeException) cause;
+            if (cause instanceof Error) throw (Error) cause;
+            throw new CompletionException(cause);
+        }
+    }
+
+    private static final class Flight<V> {
+        final CompletableFuture<V> result = new CompletableFuture<>();
+        final AtomicInteger waiters = new AtomicInteger(1); // the leader
+        volatile CompletableFuture<V> load; // async flights only, set before the leader's waiter exists
+
+        // count one more waiter, unless the count already reached zero and the flight is being cancelled
+        boolean join() {
+            return waiters.getAndUpdate(n -> n == 0 ? 0 : n + 1) > 0;
+        }
+    }
+
+    private static class Recent<V> {
+        final V value;
+        final long loadedAt;
+
+        Recent(V value, long loadedAt) {
+            this.value = value;
+            this.loadedAt = loadedAt;
+        }
+    }
+}
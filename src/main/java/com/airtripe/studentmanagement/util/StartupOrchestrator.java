@@ -0,0 +1,116 @@
+package com.airtripe.studentmanagement.util;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * Runs named startup phases concurrently, each one as soon as the phases it depends on have
+ * finished, and records when each started and how long it took. Dependencies must be declared
+ * before the phases that use them, which also rules out cycles. If a phase fails, its dependents
+ * are skipped and {@link #run()} rethrows the first failure after the rest have settled.
+ */
+public class StartupOrchestrator {
+    private static final Logger logger = LoggerFactory.getLogger(StartupOrchestrator.class);
+
+    @FunctionalInterface
+    public interface Step {
+        void run() throws Exception;
+    }
+
+    private final Map<String, Phase> phases = new LinkedHashMap<>();
+    private long startedAt;
+    private long finishedAt;
+
+    public StartupOrchestrator phase(String name, Step step, String... dependsOn) {
+        if (phases.containsKey(name)) throw new IllegalArgumentException("duplicate phase " + name);
+        for (String d : dependsOn) {
+            if (!phases.containsKey(d)) throw new IllegalArgumentException(name + " depends on undeclared phase " + d);
+        }
+        phases.put(name, new Phase(name, step, dependsOn));
+        return this;
+    }
+
+    public void run() throws Exception {
+        ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor();
+        startedAt = System.nanoTime();
+        try {
+            for (Phase p : phases.values()) {
+                CompletableFuture<?>[] deps = new CompletableFuture<?>[p.dependsOn.length];
+                for (int i = 0; i < deps.length; i++) deps[i] = phases.get(p.dependsOn[i]).future;
+                p.future = CompletableFuture.allOf(deps).thenRunAsync(p::execute, executor);
+            }
+            Throwable failure = null;
+            for (Phase p : phases.values()) {
+                try {
+                    p.future.join();
+                } catch (CompletionException e) {
+                    if (failure == null) failure = e.getCause();
+                }
+            }
+            finishedAt = System.nanoTime();
+            if (failure instanceof Exception) throw (Exception) failure;
+            if (failure != null) throw new IllegalStateException(failure);
+        } finally {
+            executor.shutdown();
+        }
+    }
+
+    /** Phases ordered by start time with their offset from the start of {@link #run()} and duration. */
+    public String report() {
+        List<Phase> ordered = new ArrayList<>(phases.values());
+        ordered.sort(Comparator.comparingLong(p -> p.startNanos));
+        StringBuilder sb = new StringBuilder("Startup phases:\n");
+        for (Phase p : ordered) {
+            if (p.startNanos == 0) {
+                sb.append(String.format("  %-22s skipped%n", p.name));
+            } else {
+                sb.append(String.format("  %-22s +%5d ms  %5d ms%n", p.name, (p.startNanos - startedAt) / 1_000_000, p.tookNanos / 1_000_000));
+            }
+        }
+        sb.append(String.format("  %-22s %13d ms", "total (wall clock)", (finishedAt - startedAt) / 1_000_000));
+        return sb.toString();
+    }
+
+    public Map<String, Long> getDurationsMillis() {
+        Map<String, Long> out = new LinkedHashMap<>();
+        phases.values().forEach(p -> out.put(p.name, p.tookNanos / 1_000_000));
+        return out;
+    }
+
+    private static final class Phase {
+        final String name;
+        final Step step;
+        final String[] dependsOn;
+        CompletableFuture<Void> future;
+        volatile long startNanos;
+        volatile long tookNanos;
+
+        Phase(String name, Step step, String[] dependsOn) {
+            this.name = name;
+            this.step = step;
+            this.dependsOn = dependsOn;
+        }
+
+        void execute() {
+            startNanos = System.nanoTime();
+            try {
+                step.run();
+            } catch (Exception e) {
+                logger.error("Startup phase {} failed", name, e);
+                throw new CompletionException(e);
+            } finally {
+                tookNanos = System.nanoTime() - startNanos;
+            }
+        }
+    }
+}
@@ -0,0 +1,15 @@
+package com.airtripe.studentmanagement.util;
+
+/** Body of GET /health: {@code {"status": "UP"}} or {@code {"status": "STARTING"}}. */
+public class StatusResponse {
+    public static final StatusResponse UP = new StatusResponse("UP");
+    public static final StatusResponse STARTING = new StatusResponse("STARTING");
+
+    private final String status;
+
+    public StatusResponse(String status) {
+        this.status = status;
+    }
+
+    public String getStatus() { return status; }
+}
@@ -0,0 +1,27 @@
+package com.airtripe.studentmanagement.util;
+
+import com.airtripe.studentmanagement.entity.Student;
+import com.airtripe.studentmanagement.factory.StudentFactory;
+import com.fasterxml.jackson.annotation.JsonAlias;
+import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
+
+import java.time.LocalDate;
+
+/** Body of POST/PUT /students; Jackson binds it field by field from the request stream. */
+@JsonIgnoreProperties(ignoreUnknown = true)
+public class StudentRequest extends StudentDTO {
+
+    // accept either camelCase or snake_case for thesis
+    @Override
+    @JsonAlias("thesis_title")
+    public void setThesisTitle(String thesisTitle) { super.setThesisTitle(thesisTitle); }
+
+    public Student toStudent() {
+        LocalDate dob = getDateOfBirth() == null ? LocalDate.now() : getDateOfBirth();
+        String thesis = getThesisTitle();
+        if (thesis != null && !thesis.isBlank()) {
+            return StudentFactory.createGraduate(getId(), getName(), getEmail(), dob, thesis);
+        }
+        return StudentFactory.createUndergraduate(getId(), getName(), getEmail(), dob);
+    }
+}
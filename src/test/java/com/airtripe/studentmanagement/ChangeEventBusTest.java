@@ -0,0 +1,48 @@
+package com.airtripe.studentmanagement;
+
+import com.airtripe.studentmanagement.entity.Course;
+import com.airtripe.studentmanagement.observer.ChangeEvent;
+import com.airtripe.studentmanagement.observer.ChangeEventBus;
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class ChangeEventBusTest {
+    @Test
+    void subscribersOnlySeeMatchingEvents() throws Exception {
+        ChangeEventBus bus = new ChangeEventBus(8);
+        ChangeEventBus.Subscription c101 = bus.subscribe(null, "C101");
+        ChangeEventBus.Subscription all = bus.subscribe(null, null);
+
+        bus.onCourseSaved(new Course("C102", "Other", 3));
+        bus.onEnrollmentRemoved("S1", "C101");
+
+        ChangeEvent ev = c101.poll(1, TimeUnit.SECONDS);
+        assertNotNull(ev);
+        assertEquals("enrollment.removed", ev.getType());
+        assertNull(c101.poll(10, TimeUnit.MILLISECONDS));
+
+        assertEquals("course.saved", all.poll(1, TimeUnit.SECONDS).getType());
+        assertEquals("enrollment.removed", all.poll(1, TimeUnit.SECONDS).getType());
+    }
+
+    @Test
+    void slowSubscriberIsDisconnected() throws Exception {
+        ChangeEventBus bus = new ChangeEventBus(2);
+        ChangeEventBus.Subscription slow = bus.subscribe(null, null);
+        ChangeEventBus.Subscription fast = bus.subscribe(null, null);
+
+        for (int i = 0; i < 3; i++) {
+            bus.onStudentRemoved("S" + i);
+            assertNotNull(fast.poll(1, TimeUnit.SECONDS));
+        }
+
+        assertTrue(slow.isClosed());
+        assertFalse(fast.isClosed());
+        assertNull(slow.poll(10, TimeUnit.MILLISECONDS));
+        assertEquals(1, bus.getSubscriberCount());
+        assertEquals(1, bus.getMetricsCollector().getCount("events.slowDisconnects"));
+    }
+}
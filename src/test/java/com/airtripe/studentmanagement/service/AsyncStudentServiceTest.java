@@ -1,17 +1,28 @@
 package com.airtripe.studentmanagement.service;
 
+import com.airtripe.studentmanagement.entity.Course;
+import com.airtripe.studentmanagement.entity.Enrollment;
 import com.airtripe.studentmanagement.entity.Student;
 import com.airtripe.studentmanagement.factory.StudentFactory;
+import com.airtripe.studentmanagement.repository.CourseRepositoryJdbc;
+import com.airtripe.studentmanagement.repository.EnrollmentRepositoryJdbc;
 import com.airtripe.studentmanagement.util.ConfigSingleton;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 
 import java.sql.Connection;
 import java.sql.Statement;
+import java.time.Duration;
 import java.time.LocalDate;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
 import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
 import java.util.stream.IntStream;
 
 import static org.junit.jupiter.api.Assertions.*;
@@ -24,6 +35,7 @@ public class AsyncStudentServiceTest {
         repo = new StudentRepositoryJdbc();
         repo.init();
         try (Connection c = ConfigSingleton.getInstance().getConnection(); Statement st = c.createStatement()) {
+            try { st.executeUpdate("DELETE FROM enrollments"); } catch (Exception ignored) {}
             st.executeUpdate("DELETE FROM students");
         }
     }
@@ -51,5 +63,84 @@ public class AsyncStudentServiceTest {
 
         async.shutdown();
     }
-}
 
+    @Test
+    void loadsProfileWithEnrollmentsAndCourses() throws Exception {
+        CourseRepositoryJdbc courses = new CourseRepositoryJdbc();
+        EnrollmentRepositoryJdbc enrollments = new EnrollmentRepositoryJdbc(repo, courses);
+        enrollments.init();
+        try (Connection c = ConfigSingleton.getInstance().getConnection(); Statement st = c.createStatement()) {
+            st.executeUpdate("DELETE FROM enrollments");
+        }
+        Student s = StudentFactory.createUndergraduate("P1", "Profile", "profile@example.com", LocalDate.of(2001,1,1));
+        enrollments.add(new Enrollment(s, new Course("PC1", "Profile One", 3), LocalDate.now()));
+        enrollments.add(new Enrollment(s, new Course("PC2", "Profile Two", 4), LocalDate.now()));
+
+        AsyncStudentService async = new AsyncStudentService(repo, courses, enrollments);
+        StudentProfile profile = async.loadStudentProfileAsync("P1").get(5, TimeUnit.SECONDS).orElseThrow();
+        assertEquals("Profile", profile.getStudent().getName());
+        assertEquals(2, profile.getEnrollments().size());
+        assertEquals(List.of("PC1", "PC2"), profile.getCourses().stream().map(Course::getId).toList());
+
+        assertTrue(async.loadStudentProfileAsync("missing").get(5, TimeUnit.SECONDS).isEmpty());
+        assertEquals(1, async.findStudentsAsync(List.of("missing", "P1")).get(5, TimeUnit.SECONDS).size());
+        async.shutdown();
+    }
+
+    @Test
+    void timeoutInterruptsSlowCall() throws Exception {
+        CountDownLatch interrupted = new CountDownLatch(1);
+        StudentRepositoryJdbc slow = new StudentRepositoryJdbc() {
+            @Override
+            public Optional<Student> findById(String id) {
+                try {
+                    Thread.sleep(10_000);
+                } catch (InterruptedException e) {
+                    interrupted.countDown();
+                }
+                return Optional.empty();
+            }
+        };
+        AsyncStudentService async = new AsyncStudentService(slow, 2);
+        CompletableFuture<Optional<Student>> f = AsyncStudentService.withTimeout(async.findStudentAsync("X"), Duration.ofMillis(100));
+        ExecutionException ex = assertThrows(ExecutionException.class, () -> f.get(5, TimeUnit.SECONDS));
+        assertInstanceOf(TimeoutException.class, ex.getCause());
+        assertTrue(interrupted.await(5, TimeUnit.SECONDS), "slow call was not interrupted");
+        async.shutdown();
+    }
+
+    @Test
+    void sharedSearchIsInterruptedOnlyOnceEveryCallerGivesUp() throws Exception {
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch interrupted = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        StudentRepositoryJdbc slow = new StudentRepositoryJdbc() {
+            @Override
+            public List<Student> search(String query) {
+                started.countDown();
+                try {
+                    release.await(10, TimeUnit.SECONDS);
+                } catch (InterruptedException e) {
+                    interrupted.countDown();
+                }
+                return List.of();
+            }
+        };
+        AsyncStudentService async = new AsyncStudentService(slow, 2);
+        CompletableFuture<List<Student>> first = async.searchAsync("q");
+        CompletableFuture<List<Student>> second = AsyncStudentService.withTimeout(async.searchAsync("q"), Duration.ofMillis(300));
+        assertTrue(started.await(5, TimeUnit.SECONDS));
+
+        first.cancel(true);
+        assertFalse(interrupted.await(100, TimeUnit.MILLISECONDS), "load interrupted while a caller still waits on it");
+        ExecutionException ex = assertThrows(ExecutionException.class, () -> second.get(5, TimeUnit.SECONDS));
+        assertInstanceOf(TimeoutException.class, ex.getCause());
+        assertTrue(interrupted.await(5, TimeUnit.SECONDS), "abandoned load was not interrupted");
+        assertEquals(1, async.getMetricsCollector().getCount("students.search.abandoned"));
+
+        // the next caller starts a fresh load rather than joining the cancelled one
+        release.countDown();
+        assertEquals(List.of(), async.searchAsync("q").get(5, TimeUnit.SECONDS));
+        async.shutdown();
+    }
+}
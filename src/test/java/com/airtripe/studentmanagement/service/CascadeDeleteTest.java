@@ -0,0 +1,150 @@
+package com.airtripe.studentmanagement.service;
+
+import com.airtripe.studentmanagement.entity.Course;
+import com.airtripe.studentmanagement.entity.Enrollment;
+import com.airtripe.studentmanagement.entity.Student;
+import com.airtripe.studentmanagement.factory.StudentFactory;
+import com.airtripe.studentmanagement.repository.CourseRepositoryJdbc;
+import com.airtripe.studentmanagement.repository.EnrollmentRepositoryJdbc;
+import com.airtripe.studentmanagement.repository.InMemoryCourseRepository;
+import com.airtripe.studentmanagement.repository.InMemoryEnrollmentRepository;
+import com.airtripe.studentmanagement.repository.InMemoryStudentRepository;
+import com.airtripe.studentmanagement.repository.OrphanSweeper;
+import com.airtripe.studentmanagement.repository.StudentRepositoryJdbc;
+import com.airtripe.studentmanagement.repository.UnitOfWork;
+import com.airtripe.studentmanagement.util.JdbcConnectionProvider;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.Statement;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class CascadeDeleteTest {
+    private final JdbcConnectionProvider db = new JdbcConnectionProvider("jdbc:h2:mem:cascadetest;DB_CLOSE_DELAY=-1", "sa", "");
+    private StudentRepositoryJdbc students;
+    private CourseRepositoryJdbc courses;
+    private EnrollmentRepositoryJdbc enrollments;
+
+    @BeforeEach
+    void setup() throws Exception {
+        students = new StudentRepositoryJdbc(db);
+        courses = new CourseRepositoryJdbc(db);
+        enrollments = new EnrollmentRepositoryJdbc(students, courses, db);
+        enrollments.init();
+        try (Connection c = db.getConnection(); Statement st = c.createStatement()) {
+            st.executeUpdate("DELETE FROM enrollments");
+            st.executeUpdate("DELETE FROM students");
+            st.executeUpdate("DELETE FROM courses");
+            st.executeUpdate("DELETE FROM course_enrollment_stats");
+            st.executeUpdate("DELETE FROM student_credit_totals");
+        }
+        Course c1 = new Course("CD1", "Logic", 3);
+        Course c2 = new Course("CD2", "Ethics", 2);
+        for (int i = 0; i < 4; i++) {
+            Student s = StudentFactory.createUndergraduate("CS" + i, "Cohort " + i, "cohort" + i + "@example.com", LocalDate.of(2001,1,1));
+            Enrollment e1 = new Enrollment(s, c1, LocalDate.now());
+            e1.setGrade(60.0 + i);
+            enrollments.add(e1);
+            enrollments.add(new Enrollment(s, c2, LocalDate.now()));
+        }
+    }
+
+    private List<String> summaryRows() throws Exception {
+        List<String> rows = new ArrayList<>();
+        try (Connection c = db.getConnection(); Statement st = c.createStatement()) {
+            try (ResultSet rs = st.executeQuery("SELECT course_id, enrollment_count, graded_count, grade_sum FROM course_enrollment_stats ORDER BY course_id")) {
+                while (rs.next()) rows.add(rs.getString(1) + ":" + rs.getLong(2) + ":" + rs.getLong(3) + ":" + rs.getDouble(4));
+            }
+            try (ResultSet rs = st.executeQuery("SELECT student_id, enrollment_count, credits FROM student_credit_totals ORDER BY student_id")) {
+                while (rs.next()) rows.add(rs.getString(1) + ":" + rs.getLong(2) + ":" + rs.getLong(3));
+            }
+        }
+        return rows;
+    }
+
+    @Test
+    void removesCohortAndCoursesWithTheirEnrollments() throws Exception {
+        CascadeDeleteService service = new CascadeDeleteService(students, courses, enrollments, db);
+
+        assertEquals(Map.of("students", 2, "enrollments", 4), service.removeStudents(List.of("CS0", "CS1", "MISSING")));
+        assertEquals(4, enrollments.findAll().size());
+        List<String> incremental = summaryRows();
+        enrollments.rebuildAggregates();
+        assertEquals(summaryRows(), incremental, "set-based deltas must match a full rebuild");
+
+        assertEquals(Map.of("courses", 1, "enrollments", 2), service.removeCourses(List.of("CD2")));
+        assertEquals(2, enrollments.findAll().size());
+        incremental = summaryRows();
+        enrollments.rebuildAggregates();
+        assertEquals(summaryRows(), incremental);
+        assertEquals(2, students.findAll().size());
+    }
+
+    @Test
+    void enrollmentAddedBetweenTheTwoDeletesWaitsForTheUnit() throws Exception {
+        // a student with no enrollments yet: the delete touches no summary row the add would wait on
+        Student fresh = StudentFactory.createUndergraduate("CS9", "Fresh", "fresh@example.com", LocalDate.of(2001,1,1));
+        students.addStudent(fresh);
+        Course course = courses.findById("CD1").orElseThrow();
+        Thread writer;
+        try (UnitOfWork uow = UnitOfWork.begin(db)) {
+            // the two statements of CascadeDeleteService.removeStudents, with an add racing in between
+            assertEquals(0, enrollments.removeByStudentIds(List.of("CS9")));
+            writer = new Thread(() -> {
+                try {
+                    enrollments.add(new Enrollment(fresh, course, LocalDate.now()));
+                } catch (RuntimeException expected) {
+                    // the student may be gone by the time the lock is released
+                }
+            });
+            writer.start();
+            Thread.sleep(200);
+            assertTrue(writer.isAlive(), "the add must wait on the locked student row");
+            assertEquals(1, students.removeAll(List.of("CS9")));
+            uow.commit();
+        }
+        writer.join(10_000);
+
+        List<String> incremental = summaryRows();
+        enrollments.rebuildAggregates();
+        assertEquals(summaryRows(), incremental);
+    }
+
+    @Test
+    void sweeperRemovesOrphansLeftWithoutConstraints() throws Exception {
+        try (Connection c = db.getConnection(); Statement st = c.createStatement()) {
+            st.execute("SET REFERENTIAL_INTEGRITY FALSE");
+            st.executeUpdate("DELETE FROM students WHERE id = 'CS3'");
+            st.execute("SET REFERENTIAL_INTEGRITY TRUE");
+        }
+        OrphanSweeper sweeper = new OrphanSweeper(db, 1);
+        // two enrollments plus the student's summary row, one row per batch
+        assertEquals(3, sweeper.sweepOnce());
+        assertTrue(sweeper.getLastRowsPerSecond() > 0);
+        assertEquals(0, sweeper.sweepOnce());
+        assertEquals(6, enrollments.findAll().size());
+        List<String> swept = summaryRows();
+        enrollments.rebuildAggregates();
+        assertEquals(summaryRows(), swept);
+    }
+
+    @Test
+    void inMemoryStoreCascadesThroughTheDefaultMethods() throws Exception {
+        InMemoryStudentRepository memStudents = new InMemoryStudentRepository();
+        InMemoryCourseRepository memCourses = new InMemoryCourseRepository();
+        InMemoryEnrollmentRepository memEnrollments = new InMemoryEnrollmentRepository(memStudents, memCourses);
+        Student s = StudentFactory.createUndergraduate("MS1", "Mem", "mem@example.com", LocalDate.of(2001,1,1));
+        memEnrollments.add(new Enrollment(s, new Course("MC1", "Memory", 3), LocalDate.now()));
+
+        Map<String, Integer> removed = new CascadeDeleteService(memStudents, memCourses, memEnrollments).removeCourses(List.of("MC1"));
+        assertEquals(Map.of("courses", 1, "enrollments", 1), removed);
+        assertTrue(memEnrollments.findAll().isEmpty());
+    }
+}
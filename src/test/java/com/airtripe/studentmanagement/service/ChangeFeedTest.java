@@ -0,0 +1,170 @@
+package com.airtripe.studentmanagement.service;
+
+import com.airtripe.studentmanagement.entity.Course;
+import com.airtripe.studentmanagement.entity.Enrollment;
+import com.airtripe.studentmanagement.entity.Student;
+import com.airtripe.studentmanagement.factory.StudentFactory;
+import com.airtripe.studentmanagement.observer.EntityChangeListener;
+import com.airtripe.studentmanagement.observer.EntityChangeNotifier;
+import com.airtripe.studentmanagement.repository.ChangeLogJdbc;
+import com.airtripe.studentmanagement.repository.CourseRepositoryJdbc;
+import com.airtripe.studentmanagement.repository.EnrollmentRepository;
+import com.airtripe.studentmanagement.repository.EnrollmentRepositoryJdbc;
+import com.airtripe.studentmanagement.repository.InMemoryCourseRepository;
+import com.airtripe.studentmanagement.repository.InMemoryEnrollmentRepository;
+import com.airtripe.studentmanagement.repository.InMemoryStudentRepository;
+import com.airtripe.studentmanagement.repository.StudentRepositoryJdbc;
+import com.airtripe.studentmanagement.util.JdbcConnectionProvider;
+import org.junit.jupiter.api.Test;
+
+import java.sql.Connection;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class ChangeFeedTest {
+
+    private static List<String> summarize(ChangeFeed feed) {
+        return feed.getChanges().stream()
+                .map(e -> e.getEntity() + ":" + e.getId() + (e.getCourseId() == null ? "" : "/" + e.getCourseId()) + ":" + e.getOp())
+                .collect(Collectors.toList());
+    }
+
+    @Test
+    void returnsOnlyRowsTouchedSinceTheToken() throws Exception {
+        JdbcConnectionProvider db = new JdbcConnectionProvider("jdbc:h2:mem:changefeedtest;DB_CLOSE_DELAY=-1", "sa", "");
+        StudentRepositoryJdbc students = new StudentRepositoryJdbc(db);
+        CourseRepositoryJdbc courses = new CourseRepositoryJdbc(db);
+        EnrollmentRepositoryJdbc enrollments = new EnrollmentRepositoryJdbc(students, courses, db);
+        enrollments.init();
+        ChangeFeedService feed = new ChangeFeedService(new ChangeLogJdbc(db), students, courses, enrollments);
+
+        Student s1 = StudentFactory.createUndergraduate("F1", "Fay", "fay@example.com", LocalDate.of(2001,1,1));
+        Student s2 = StudentFactory.createUndergraduate("F2", "Finn", "finn@example.com", LocalDate.of(2001,1,1));
+        Course c1 = new Course("FC1", "Databases", 4);
+        enrollments.add(new Enrollment(s1, c1, LocalDate.now()));
+        students.addStudent(s2);
+
+        ChangeFeed first = feed.changesSince(null, 100);
+        assertFalse(first.isHasMore());
+        assertEquals(List.of("student:F1:upsert", "course:FC1:upsert", "enrollment:F1/FC1:upsert", "student:F2:upsert"), summarize(first));
+        assertEquals(feed.currentToken(), first.getNext());
+        assertTrue(feed.changesSince(first.getNext(), 100).getChanges().isEmpty());
+
+        // churn since the token: only these rows come back, each once in its latest state
+        students.updateStudent("F2", StudentFactory.createUndergraduate("F2", "Finn Renamed", "finn@example.com", LocalDate.of(2001,1,1)));
+        students.updateStudent("F2", StudentFactory.createUndergraduate("F2", "Finn Again", "finn@example.com", LocalDate.of(2001,1,1)));
+        assertTrue(enrollments.remove("F1", "FC1"));
+        ChangeFeed delta = feed.changesSince(first.getNext(), 100);
+        assertEquals(List.of("student:F2:upsert", "enrollment:F1/FC1:delete"), summarize(delta));
+        assertEquals("Finn Again", ((Student) delta.getChanges().get(0).getData()).getName());
+
+        // paging: limit bounds the log entries read, and the next token resumes after them
+        students.remove("F1");
+        courses.remove("FC1");
+        ChangeFeed page = feed.changesSince(delta.getNext(), 1);
+        assertTrue(page.isHasMore());
+        assertEquals(List.of("student:F1:delete"), summarize(page));
+        assertEquals(List.of("course:FC1:delete"), summarize(feed.changesSince(page.getNext(), 1)));
+
+        assertThrows(IllegalArgumentException.class, () -> feed.changesSince("not-a-token", 10));
+    }
+
+    @Test
+    void gradeWritesLogAndAnnounceOnlyTheEnrollment() throws Exception {
+        JdbcConnectionProvider db = new JdbcConnectionProvider("jdbc:h2:mem:changefeedparents;DB_CLOSE_DELAY=-1", "sa", "");
+        StudentRepositoryJdbc students = new StudentRepositoryJdbc(db);
+        CourseRepositoryJdbc courses = new CourseRepositoryJdbc(db);
+        EnrollmentRepositoryJdbc enrollments = new EnrollmentRepositoryJdbc(students, courses, db);
+        enrollments.init();
+        List<String> events = new ArrayList<>();
+        EntityChangeNotifier notifier = announcements(events);
+        students.setChangeNotifier(notifier);
+        courses.setChangeNotifier(notifier);
+        enrollments.setChangeNotifier(notifier);
+        ChangeFeedService feed = new ChangeFeedService(new ChangeLogJdbc(db), students, courses, enrollments);
+
+        Enrollment e = enroll(enrollments, "G1", "GC1");
+        String token = feed.currentToken();
+        events.clear();
+        e.setGrade(91.0);
+        enrollments.add(e);
+        assertEquals(List.of("enrollment:G1/GC1:upsert"), summarize(feed.changesSince(token, 100)));
+        assertEquals(List.of("enrollment"), events);
+
+        // the in-memory stores announce the same way
+        InMemoryStudentRepository memoryStudents = new InMemoryStudentRepository();
+        InMemoryCourseRepository memoryCourses = new InMemoryCourseRepository();
+        InMemoryEnrollmentRepository memoryEnrollments = new InMemoryEnrollmentRepository(memoryStudents, memoryCourses);
+        EntityChangeNotifier memoryNotifier = announcements(events);
+        memoryStudents.setChangeNotifier(memoryNotifier);
+        memoryCourses.setChangeNotifier(memoryNotifier);
+        memoryEnrollments.setChangeNotifier(memoryNotifier);
+        Enrollment m = enroll(memoryEnrollments, "G2", "GC2");
+        events.clear();
+        m.setGrade(91.0);
+        memoryEnrollments.add(m);
+        assertEquals(List.of("enrollment"), events);
+    }
+
+    private static Enrollment enroll(EnrollmentRepository enrollments, String studentId, String courseId) {
+        Enrollment e = new Enrollment(StudentFactory.createUndergraduate(studentId, "Gil", studentId.toLowerCase() + "@example.com",
+                LocalDate.of(2001,1,1)), new Course(courseId, "Geology", 3), LocalDate.now());
+        enrollments.add(e);
+        return e;
+    }
+
+    private static EntityChangeNotifier announcements(List<String> events) {
+        EntityChangeNotifier notifier = new EntityChangeNotifier();
+        notifier.addListener(new EntityChangeListener() {
+            @Override public void onStudentSaved(Student s) { events.add("student"); }
+            @Override public void onCourseSaved(Course c) { events.add("course"); }
+            @Override public void onEnrollmentSaved(Enrollment e) { events.add("enrollment"); }
+        });
+        return notifier;
+    }
+
+    @Test
+    void failedWritesLeaveNoChangeEntry() throws Exception {
+        JdbcConnectionProvider db = new JdbcConnectionProvider("jdbc:h2:mem:changefeedrollback;DB_CLOSE_DELAY=-1", "sa", "");
+        StudentRepositoryJdbc students = new StudentRepositoryJdbc(db);
+        students.init();
+        ChangeLogJdbc log = new ChangeLogJdbc(db);
+        students.addStudent(StudentFactory.createUndergraduate("R1", "Rae", "rae@example.com", LocalDate.of(2001,1,1)));
+        long before = log.latestSeq();
+        // duplicate email violates ux_students_email_lower: the student row and its log entry roll back together
+        assertThrows(RuntimeException.class, () -> students.addStudent(
+                StudentFactory.createUndergraduate("R2", "Other Rae", "RAE@example.com", LocalDate.of(2001,1,1))));
+        assertEquals(before, log.latestSeq());
+    }
+
+    @Test
+    void openTransactionHoldsBackLaterChanges() throws Exception {
+        JdbcConnectionProvider db = new JdbcConnectionProvider("jdbc:h2:mem:changefeedorder;DB_CLOSE_DELAY=-1", "sa", "");
+        StudentRepositoryJdbc students = new StudentRepositoryJdbc(db);
+        CourseRepositoryJdbc courses = new CourseRepositoryJdbc(db);
+        EnrollmentRepositoryJdbc enrollments = new EnrollmentRepositoryJdbc(students, courses, db);
+        enrollments.init();
+        ChangeLogJdbc log = new ChangeLogJdbc(db);
+        ChangeFeedService feed = new ChangeFeedService(log, students, courses, enrollments);
+        String token = feed.currentToken();
+
+        Thread writer;
+        try (Connection open = db.getConnection()) {
+            // a long transaction logs a change and stays open
+            open.setAutoCommit(false);
+            log.append(open, ChangeLogJdbc.COURSE, "OC1", null, ChangeLogJdbc.DELETE);
+            writer = new Thread(() -> students.addStudent(StudentFactory.createUndergraduate("O1", "Otto", "otto@example.com", LocalDate.of(2001,1,1))));
+            writer.start();
+            writer.join(300);
+            // the later write is queued behind it, so the token cannot move past the open change
+            assertEquals(token, feed.changesSince(token, 10).getNext());
+            open.commit();
+        }
+        writer.join();
+        assertEquals(List.of("course:OC1:delete", "student:O1:upsert"), summarize(feed.changesSince(token, 10)));
+    }
+}
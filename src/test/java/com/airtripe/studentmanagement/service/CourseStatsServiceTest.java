@@ -0,0 +1,97 @@
+package com.airtripe.studentmanagement.service;
+
+import com.airtripe.studentmanagement.entity.Course;
+import com.airtripe.studentmanagement.entity.Enrollment;
+import com.airtripe.studentmanagement.factory.StudentFactory;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class CourseStatsServiceTest {
+    private final Course course = new Course("ST1", "Stats", 3);
+
+    private Enrollment graded(String sid, double grade) {
+        return graded(sid, grade, LocalDate.now());
+    }
+
+    private Enrollment graded(String sid, double grade, LocalDate enrolledOn) {
+        Enrollment e = new Enrollment(StudentFactory.createUndergraduate(sid, sid, sid + "@example.com", LocalDate.of(2000,1,1)), course, enrolledOn);
+        e.setGrade(grade);
+        return e;
+    }
+
+    @Test
+    void incrementalUpdatesMatchDirectComputation() {
+        CourseStatsService svc = new CourseStatsService();
+        svc.onEnrollmentSaved(graded("A", 50.0));
+        svc.onEnrollmentSaved(graded("B", 70.0));
+        svc.onEnrollmentSaved(graded("C", 90.0));
+        svc.onEnrollmentSaved(graded("B", 80.0)); // grade change
+        svc.onEnrollmentRemoved("A", "ST1");
+
+        CourseGradeStats s = svc.stats("ST1");
+        assertEquals(2, s.getCount());
+        assertEquals(85.0, s.getMean(), 1e-9);
+        assertEquals(25.0, s.getVariance(), 1e-9);
+        assertEquals(1, s.getHistogram().get(8).getCount());
+        assertEquals(1, s.getHistogram().get(9).getCount());
+        assertEquals(0, s.getHistogram().get(5).getCount());
+
+        assertEquals(0, svc.stats("none").getCount());
+        assertNull(svc.stats("none").getMean());
+    }
+
+    @Test
+    void parallelRebuildMatchesIncremental() {
+        List<Enrollment> all = new ArrayList<>();
+        CourseStatsService incremental = new CourseStatsService();
+        for (int i = 0; i < 2000; i++) {
+            Enrollment e = graded("S" + i, (i * 37) % 101);
+            all.add(e);
+            incremental.onEnrollmentSaved(e);
+        }
+        CourseStatsService rebuilt = new CourseStatsService();
+        rebuilt.rebuild(all);
+
+        CourseGradeStats a = incremental.stats("ST1");
+        CourseGradeStats b = rebuilt.stats("ST1");
+        assertEquals(a.getCount(), b.getCount());
+        assertEquals(a.getMean(), b.getMean(), 1e-9);
+        assertEquals(a.getVariance(), b.getVariance(), 1e-6);
+        for (int i = 0; i < a.getHistogram().size(); i++) {
+            assertEquals(a.getHistogram().get(i).getCount(), b.getHistogram().get(i).getCount());
+        }
+        assertEquals(a.getPercentiles(), b.getPercentiles());
+    }
+
+    @Test
+    void parallelRebuildCountsADuplicatedPairOnce() {
+        // live rows first, then the archive (as findAll(true) may return them): 500 students took the course twice
+        List<Enrollment> all = new ArrayList<>();
+        CourseStatsService incremental = new CourseStatsService();
+        for (int i = 0; i < 2000; i++) all.add(graded("S" + i, (i * 37) % 101));
+        for (int i = 0; i < 500; i++) {
+            Enrollment pastTerm = graded("S" + (i * 4), (i * 13) % 101, LocalDate.now().minusYears(1));
+            all.add(pastTerm);
+            incremental.onEnrollmentSaved(pastTerm);
+        }
+        for (int i = 0; i < 2000; i++) incremental.onEnrollmentSaved(all.get(i)); // the current term replaces the past one
+
+        CourseStatsService rebuilt = new CourseStatsService();
+        rebuilt.rebuild(all);
+        assertEquals(2000, rebuilt.stats("ST1").getCount());
+        assertEquals(incremental.stats("ST1").getMean(), rebuilt.stats("ST1").getMean(), 1e-9);
+        assertEquals(incremental.stats("ST1").getVariance(), rebuilt.stats("ST1").getVariance(), 1e-6);
+
+        // removing a student who took it twice subtracts exactly what the rebuild counted
+        rebuilt.onEnrollmentRemoved("S0", "ST1");
+        incremental.onEnrollmentRemoved("S0", "ST1");
+        assertEquals(1999, rebuilt.stats("ST1").getCount());
+        assertEquals(incremental.stats("ST1").getMean(), rebuilt.stats("ST1").getMean(), 1e-9);
+        assertEquals(incremental.stats("ST1").getPercentiles(), rebuilt.stats("ST1").getPercentiles());
+    }
+}
@@ -0,0 +1,134 @@
+package com.airtripe.studentmanagement.service;
+
+import com.airtripe.studentmanagement.entity.Course;
+import com.airtripe.studentmanagement.entity.Enrollment;
+import com.airtripe.studentmanagement.entity.Student;
+import com.airtripe.studentmanagement.factory.StudentFactory;
+import com.airtripe.studentmanagement.repository.CourseRepositoryJdbc;
+import com.airtripe.studentmanagement.repository.EnrollmentRepositoryJdbc;
+import com.airtripe.studentmanagement.repository.StudentRepositoryJdbc;
+import com.airtripe.studentmanagement.util.ConfigSingleton;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.Statement;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class EnrollmentAggregatesTest {
+    private EnrollmentRepositoryJdbc repo;
+
+    @BeforeEach
+    void setup() throws Exception {
+        repo = new EnrollmentRepositoryJdbc();
+        repo.init();
+        try (Connection c = ConfigSingleton.getInstance().getConnection(); Statement st = c.createStatement()) {
+            st.executeUpdate("DELETE FROM enrollments");
+            st.executeUpdate("DELETE FROM enrollments_archive");
+            st.executeUpdate("DELETE FROM students");
+            st.executeUpdate("DELETE FROM courses");
+            st.executeUpdate("DELETE FROM course_enrollment_stats");
+            st.executeUpdate("DELETE FROM student_credit_totals");
+        }
+    }
+
+    private List<String> dump() throws Exception {
+        List<String> rows = new ArrayList<>();
+        try (Connection c = ConfigSingleton.getInstance().getConnection(); Statement st = c.createStatement()) {
+            try (ResultSet rs = st.executeQuery("SELECT course_id, enrollment_count, graded_count, grade_sum FROM course_enrollment_stats ORDER BY course_id")) {
+                while (rs.next()) rows.add(rs.getString(1) + ":" + rs.getLong(2) + ":" + rs.getLong(3) + ":" + rs.getDouble(4));
+            }
+            try (ResultSet rs = st.executeQuery("SELECT student_id, enrollment_count, credits FROM student_credit_totals ORDER BY student_id")) {
+                while (rs.next()) rows.add(rs.getString(1) + ":" + rs.getLong(2) + ":" + rs.getLong(3));
+            }
+        }
+        return rows;
+    }
+
+    @Test
+    void incrementalMaintenanceMatchesRebuild() throws Exception {
+        Student a = StudentFactory.createUndergraduate("AG1", "Agg One", "agg1@example.com", LocalDate.of(2000,1,1));
+        Student b = StudentFactory.createUndergraduate("AG2", "Agg Two", "agg2@example.com", LocalDate.of(2000,1,1));
+        Course c1 = new Course("AC1", "Agg Course 1", 3);
+        Course c2 = new Course("AC2", "Agg Course 2", 4);
+
+        Enrollment a1 = new Enrollment(a, c1, LocalDate.now());
+        repo.add(a1);
+        a1.setGrade(70.0);
+        repo.add(a1);           // graded later
+        a1.setGrade(80.0);
+        repo.add(a1);           // regraded
+        Enrollment a2 = new Enrollment(a, c2, LocalDate.now());
+        a2.setGrade(60.0);
+        repo.add(a2);
+        Enrollment b1 = new Enrollment(b, c1, LocalDate.now());
+        b1.setGrade(90.0);
+        repo.add(b1);
+        Enrollment b2 = new Enrollment(b, c2, LocalDate.now());
+        repo.add(b2);
+        assertTrue(repo.remove("AG2", "AC2"));
+
+        List<String> incremental = dump();
+        assertEquals(List.of("AC1:2:2:170.0", "AC2:1:1:60.0", "AG1:2:7", "AG2:1:3"), incremental);
+
+        repo.rebuildAggregates();
+        assertEquals(incremental, dump());
+    }
+
+    @Test
+    void creditChangesReweightTotalsLikeRebuild() throws Exception {
+        Student a = StudentFactory.createUndergraduate("AG4", "Agg Four", "agg4@example.com", LocalDate.of(2000,1,1));
+        Student b = StudentFactory.createUndergraduate("AG5", "Agg Five", "agg5@example.com", LocalDate.of(2000,1,1));
+        Course c = new Course("AC4", "Agg Course 4", 3);
+        CourseRepositoryJdbc courses = new CourseRepositoryJdbc();
+        repo.add(new Enrollment(a, c, LocalDate.of(2020, 1, 10)));
+        assertEquals(1, repo.archiveBefore(LocalDate.of(2021, 1, 1), 10));
+        repo.add(new Enrollment(a, c, LocalDate.now()));   // re-enrolled: one archived and one current row
+        repo.add(new Enrollment(b, c, LocalDate.now()));
+
+        assertTrue(courses.updateCourse("AC4", new Course("AC4", "Agg Course 4", 5)));
+        assertEquals(List.of("AC4:3:0:0.0", "AG4:2:10", "AG5:1:5"), dump());
+        courses.addCourse(new Course("AC4", "Agg Course 4", 2));
+        assertTrue(repo.remove("AG5", "AC4"));
+
+        List<String> incremental = dump();
+        assertEquals(List.of("AC4:2:0:0.0", "AG4:2:4"), incremental);
+        repo.rebuildAggregates();
+        assertEquals(incremental, dump());
+    }
+
+    @Test
+    void concurrentFirstInsertsOfOnePairCountOnce() throws Exception {
+        Student s = StudentFactory.createUndergraduate("AG3", "Agg Three", "agg3@example.com", LocalDate.of(2000,1,1));
+        Course c = new Course("AC3", "Agg Course 3", 3);
+        new StudentRepositoryJdbc().addStudent(s);
+        new CourseRepositoryJdbc().addCourse(c);
+        ExecutorService pool = Executors.newFixedThreadPool(8);
+        try {
+            CountDownLatch go = new CountDownLatch(1);
+            List<Future<?>> writes = new ArrayList<>();
+            for (int i = 0; i < 8; i++) {
+                writes.add(pool.submit(() -> {
+                    go.await();
+                    return repo.add(new Enrollment(s, c, LocalDate.now()));
+                }));
+            }
+            go.countDown();
+            for (Future<?> w : writes) w.get(30, TimeUnit.SECONDS);
+        } finally {
+            pool.shutdownNow();
+        }
+
+        assertEquals(List.of("AC3:1:0:0.0", "AG3:1:3"), dump());
+    }
+}
@@ -0,0 +1,104 @@
+package com.airtripe.studentmanagement.service;
+
+import com.airtripe.studentmanagement.entity.Course;
+import com.airtripe.studentmanagement.entity.Enrollment;
+import com.airtripe.studentmanagement.entity.Student;
+import com.airtripe.studentmanagement.factory.StudentFactory;
+import com.airtripe.studentmanagement.observer.EntityChangeNotifier;
+import com.airtripe.studentmanagement.repository.CourseRepositoryJdbc;
+import com.airtripe.studentmanagement.repository.EnrollmentRepositoryJdbc;
+import com.airtripe.studentmanagement.repository.StudentRepositoryJdbc;
+import com.airtripe.studentmanagement.util.JdbcConnectionProvider;
+import org.junit.jupiter.api.Test;
+
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.Statement;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class EnrollmentArchiveTest {
+
+    private static List<String> query(JdbcConnectionProvider db, String sql) throws Exception {
+        List<String> rows = new ArrayList<>();
+        try (Connection c = db.getConnection(); Statement st = c.createStatement(); ResultSet rs = st.executeQuery(sql)) {
+            int cols = rs.getMetaData().getColumnCount();
+            while (rs.next()) {
+                StringBuilder sb = new StringBuilder();
+                for (int i = 1; i <= cols; i++) sb.append(rs.getString(i)).append('|');
+                rows.add(sb.toString());
+            }
+        }
+        return rows;
+    }
+
+    @Test
+    void archivesPastTermsInBatchesAndKeepsHistoryQueryable() throws Exception {
+        JdbcConnectionProvider db = new JdbcConnectionProvider("jdbc:h2:mem:archivetest;DB_CLOSE_DELAY=-1", "sa", "");
+        StudentRepositoryJdbc students = new StudentRepositoryJdbc(db);
+        CourseRepositoryJdbc courses = new CourseRepositoryJdbc(db);
+        EnrollmentRepositoryJdbc enrollments = new EnrollmentRepositoryJdbc(students, courses, db);
+        enrollments.init();
+        TranscriptService transcripts = new TranscriptService();
+        EntityChangeNotifier notifier = new EntityChangeNotifier();
+        notifier.addListener(transcripts);
+        enrollments.setChangeNotifier(notifier);
+
+        Student s = StudentFactory.createUndergraduate("AR1", "Archie", "archie@example.com", LocalDate.of(2000,1,1));
+        LocalDate[] terms = {LocalDate.of(2022,9,1), LocalDate.of(2023,1,15), LocalDate.of(2023,9,1), LocalDate.of(2024,9,1), LocalDate.of(2025,1,15)};
+        for (int i = 0; i < terms.length; i++) {
+            Enrollment e = new Enrollment(s, new Course("ARC" + i, "Course " + i, 3), terms[i]);
+            e.setGrade(70.0 + i);
+            enrollments.add(e);
+        }
+
+        // the batch selection walks the enrolled_on index rather than scanning the table
+        String plan = query(db, "EXPLAIN SELECT student_id, course_id FROM enrollments WHERE enrolled_on < DATE '2024-01-01' "
+                + "ORDER BY enrolled_on, student_id, course_id LIMIT 2").get(0).toUpperCase();
+        assertTrue(plan.contains("IDX_ENROLLMENTS_ENROLLED_ON"), plan);
+
+        assertEquals(3, enrollments.archiveBefore(LocalDate.of(2024,1,1), 2));
+        assertEquals(0, enrollments.archiveBefore(LocalDate.of(2024,1,1), 2));
+
+        assertEquals(2, enrollments.findByStudentId("AR1").size());
+        List<Enrollment> history = enrollments.findByStudentId("AR1", true);
+        assertEquals(5, history.size());
+        assertEquals(LocalDate.of(2022,9,1), history.get(0).getEnrolledOn());
+        assertEquals(1, enrollments.findByCourseId("ARC0", true).size());
+        assertTrue(enrollments.findByCourseId("ARC0").isEmpty());
+
+        // archiving moves rows without undoing them: past terms still count, live and after a restart
+        assertEquals(List.of("AR1|5|15|"), query(db, "SELECT * FROM student_credit_totals"));
+        assertEquals(5, transcripts.transcript("AR1").orElseThrow().getEntries().size());
+        TranscriptService restarted = new TranscriptService();
+        restarted.rebuild(enrollments);
+        assertEquals(transcripts.gpa("AR1").orElseThrow().getGpa(), restarted.gpa("AR1").orElseThrow().getGpa());
+        assertEquals(5, restarted.transcript("AR1").orElseThrow().getEntries().size());
+        assertSummariesMatchRebuild(db, enrollments);
+
+        // purging does remove them
+        assertEquals(2, enrollments.purgeArchiveBefore(LocalDate.of(2023,6,1), 1));
+        assertEquals(3, enrollments.findByStudentId("AR1", true).size());
+        assertEquals(List.of("AR1|3|9|"), query(db, "SELECT * FROM student_credit_totals"));
+        assertEquals(3, transcripts.transcript("AR1").orElseThrow().getEntries().size());
+        assertSummariesMatchRebuild(db, enrollments);
+
+        // and so does deleting the student, archive included
+        assertEquals(2, new CascadeDeleteService(students, courses, enrollments, db).removeStudents(List.of("AR1")).get("enrollments"));
+        assertTrue(enrollments.findAll(true).isEmpty());
+        assertTrue(query(db, "SELECT * FROM student_credit_totals").isEmpty());
+        assertTrue(query(db, "SELECT * FROM course_enrollment_stats").isEmpty());
+    }
+
+    private static void assertSummariesMatchRebuild(JdbcConnectionProvider db, EnrollmentRepositoryJdbc enrollments) throws Exception {
+        List<String> incremental = query(db, "SELECT * FROM course_enrollment_stats ORDER BY course_id");
+        incremental.addAll(query(db, "SELECT * FROM student_credit_totals ORDER BY student_id"));
+        enrollments.rebuildAggregates();
+        List<String> rebuilt = query(db, "SELECT * FROM course_enrollment_stats ORDER BY course_id");
+        rebuilt.addAll(query(db, "SELECT * FROM student_credit_totals ORDER BY student_id"));
+        assertEquals(rebuilt, incremental);
+    }
+}
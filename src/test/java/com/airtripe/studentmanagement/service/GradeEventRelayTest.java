@@ -0,0 +1,155 @@
+package com.airtripe.studentmanagement.service;
+
+import com.airtripe.studentmanagement.entity.Course;
+import com.airtripe.studentmanagement.entity.Enrollment;
+import com.airtripe.studentmanagement.entity.Student;
+import com.airtripe.studentmanagement.factory.StudentFactory;
+import com.airtripe.studentmanagement.observer.GradeEventRelay;
+import com.airtripe.studentmanagement.observer.GradeNotificationService;
+import com.airtripe.studentmanagement.repository.EnrollmentRepositoryJdbc;
+import com.airtripe.studentmanagement.util.ConfigSingleton;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.sql.Connection;
+import java.sql.Statement;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class GradeEventRelayTest {
+    private EnrollmentRepositoryJdbc repo;
+
+    @BeforeEach
+    void setup() throws Exception {
+        repo = new EnrollmentRepositoryJdbc();
+        repo.init();
+        try (Connection c = ConfigSingleton.getInstance().getConnection(); Statement st = c.createStatement()) {
+            st.executeUpdate("DELETE FROM enrollments");
+            st.executeUpdate("DELETE FROM students");
+            st.executeUpdate("DELETE FROM courses");
+            st.executeUpdate("DELETE FROM grade_events");
+            st.executeUpdate("DELETE FROM grade_event_offsets");
+        }
+    }
+
+    @Test
+    void deliversOnceAndReplaysFromOffset() {
+        Student s = StudentFactory.createUndergraduate("R1", "Relay", "relay@example.com", LocalDate.of(2000,1,1));
+        Course c = new Course("RC1", "Relay Course", 3);
+        Enrollment e = new Enrollment(s, c, LocalDate.now());
+        repo.add(e);           // no grade -> no event
+        e.setGrade(80.0);
+        repo.add(e);
+        repo.add(e);           // unchanged grade -> no event
+        e.setGrade(85.0);
+        repo.add(e);
+
+        GradeNotificationService svc = new GradeNotificationService();
+        List<Double> received = new ArrayList<>();
+        svc.registerCourseListener("RC1", (en, grade) -> received.add(grade));
+
+        GradeEventRelay relay = new GradeEventRelay(repo.getOutbox(), repo, svc, "test-consumer", 10);
+        assertEquals(2, relay.pollOnce());
+        assertEquals(List.of(80.0, 85.0), received);
+        assertEquals(0, relay.pollOnce());
+        assertEquals(0, relay.getLag());
+
+        // a fresh relay for the same consumer resumes from the persisted offset
+        GradeEventRelay resumed = new GradeEventRelay(repo.getOutbox(), repo, svc, "test-consumer", 10);
+        assertEquals(0, resumed.pollOnce());
+
+        resumed.replayFrom(0);
+        assertEquals(2, resumed.pollOnce());
+        assertEquals(4, received.size());
+    }
+
+    @Test
+    void failingListenerDoesNotAdvanceOffset() {
+        Student s = StudentFactory.createUndergraduate("R2", "Relay2", "relay2@example.com", LocalDate.of(2000,1,1));
+        Course c = new Course("RC2", "Relay Course 2", 3);
+        Enrollment e = new Enrollment(s, c, LocalDate.now());
+        e.setGrade(70.0);
+        repo.add(e);
+
+        GradeNotificationService svc = new GradeNotificationService();
+        boolean[] fail = {true};
+        List<Double> received = new ArrayList<>();
+        svc.registerGlobalListener((en, grade) -> {
+            if (fail[0]) throw new IllegalStateException("listener down");
+            received.add(grade);
+        });
+
+        GradeEventRelay relay = new GradeEventRelay(repo.getOutbox(), repo, svc, "flaky-consumer", 10);
+        assertEquals(0, relay.pollOnce());
+        assertEquals(1, relay.getLag());
+        assertEquals(1, relay.getMetricsCollector().getCount("outbox.relay.failures"));
+
+        fail[0] = false;
+        assertEquals(1, relay.pollOnce());
+        assertEquals(List.of(70.0), received);
+    }
+
+    @Test
+    void laterCommitWithLowerSeqIsNotSkipped() throws Exception {
+        Course c = new Course("RC3", "Relay Course 3", 3);
+        Enrollment slow = new Enrollment(StudentFactory.createUndergraduate("R3", "Slow", "slow@example.com", LocalDate.of(2000,1,1)), c, LocalDate.now());
+        Enrollment fast = new Enrollment(StudentFactory.createUndergraduate("R4", "Fast", "fast@example.com", LocalDate.of(2000,1,1)), c, LocalDate.now());
+        repo.add(slow);
+        repo.add(fast);
+
+        GradeNotificationService svc = new GradeNotificationService();
+        List<String> received = new ArrayList<>();
+        svc.registerGlobalListener((en, grade) -> { synchronized (received) { received.add(en.getStudent().getId()); } });
+        GradeEventRelay relay = new GradeEventRelay(repo.getOutbox(), repo, svc, "ordered-consumer", 10);
+
+        // a transaction takes the next seq but has not committed yet
+        try (Connection open = ConfigSingleton.getInstance().getConnection()) {
+            open.setAutoCommit(false);
+            repo.getOutbox().append(open, "R3", "RC3", 60.0, null);
+
+            // a second writer queues behind it instead of committing a higher seq first
+            fast.setGrade(90.0);
+            Thread writer = new Thread(() -> repo.add(fast));
+            writer.start();
+            writer.join(300);
+            assertEquals(0, relay.pollOnce());
+
+            open.commit();
+            writer.join();
+        }
+        assertEquals(2, relay.pollOnce());
+        assertEquals(List.of("R3", "R4"), received);
+    }
+
+    @Test
+    void drainKeepsGoingPastFullBatchesOfSkippedEvents() throws Exception {
+        Course c = new Course("RC5", "Relay Course 5", 3);
+        Enrollment dropped = new Enrollment(StudentFactory.createUndergraduate("R5", "Dropped", "dropped@example.com", LocalDate.of(2000,1,1)), c, LocalDate.now());
+        for (double grade : new double[]{50.0, 55.0, 60.0, 65.0}) {
+            dropped.setGrade(grade);
+            repo.add(dropped);
+        }
+        assertTrue(repo.remove("R5", "RC5"));   // its four events are skipped on delivery
+        Enrollment kept = new Enrollment(StudentFactory.createUndergraduate("R6", "Kept", "kept@example.com", LocalDate.of(2000,1,1)), c, LocalDate.now());
+        kept.setGrade(75.0);
+        repo.add(kept);
+
+        GradeNotificationService svc = new GradeNotificationService();
+        List<Double> received = new ArrayList<>();
+        svc.registerGlobalListener((en, grade) -> { synchronized (received) { received.add(grade); } });
+        GradeEventRelay relay = new GradeEventRelay(repo.getOutbox(), repo, svc, "draining-consumer", 2);
+        relay.start(60_000);   // only the first run can happen within the test
+        try {
+            long deadline = System.currentTimeMillis() + 5000;
+            while (relay.getLag() > 0 && System.currentTimeMillis() < deadline) Thread.sleep(10);
+        } finally {
+            relay.stop();
+        }
+        assertEquals(0, relay.getLag());
+        assertEquals(List.of(75.0), received);
+        assertEquals(4, relay.getMetricsCollector().getCount("outbox.relay.skipped"));
+    }
+}
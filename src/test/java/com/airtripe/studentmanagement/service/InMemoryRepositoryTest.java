@@ -0,0 +1,98 @@
+package com.airtripe.studentmanagement.service;
+
+import com.airtripe.studentmanagement.entity.Course;
+import com.airtripe.studentmanagement.entity.Enrollment;
+import com.airtripe.studentmanagement.entity.GraduateStudent;
+import com.airtripe.studentmanagement.entity.Student;
+import com.airtripe.studentmanagement.factory.StudentFactory;
+import com.airtripe.studentmanagement.repository.InMemoryCourseRepository;
+import com.airtripe.studentmanagement.repository.InMemoryEnrollmentRepository;
+import com.airtripe.studentmanagement.repository.InMemoryStudentRepository;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class InMemoryRepositoryTest {
+
+    private static Student student(String id) {
+        return StudentFactory.createUndergraduate(id, "Name " + id, id.toLowerCase() + "@example.com", LocalDate.of(2000,1,1));
+    }
+
+    @Test
+    void behavesLikeTheJdbcRepositories() throws Exception {
+        InMemoryStudentRepository students = new InMemoryStudentRepository();
+        InMemoryCourseRepository courses = new InMemoryCourseRepository();
+        InMemoryEnrollmentRepository enrollments = new InMemoryEnrollmentRepository(students, courses);
+        enrollments.init();
+
+        students.addStudent(student("M2"));
+        students.addStudent(StudentFactory.createGraduate("M1", "Grad", "grad@example.com", LocalDate.of(1995,1,1), "Thesis"));
+        students.addStudent(student("M10"));
+        assertEquals(List.of("M1", "M10", "M2"), students.findAll().stream().map(Student::getId).collect(Collectors.toList()));
+        assertTrue(students.findById("M1").get() instanceof GraduateStudent);
+        assertEquals(List.of("M10"), students.search("m10").stream().map(Student::getId).collect(Collectors.toList()));
+        assertTrue(students.updateStudent("M2", student("ignored")));
+        assertEquals("M2", students.findById("M2").get().getId());
+        assertFalse(students.updateStudent("missing", student("missing")));
+
+        Course c1 = new Course("MC1", "Memory 1", 3);
+        Course c2 = new Course("MC2", "Memory 2", 4);
+        List<Double> notified = new ArrayList<>();
+        enrollments.setGradeListener((e, g) -> notified.add(g));
+        Enrollment e = new Enrollment(students.findById("M2").get(), c2, LocalDate.now());
+        enrollments.add(e);
+        e.setGrade(70.0);
+        enrollments.add(e);
+        enrollments.add(e); // unchanged grade: no second notification
+        enrollments.add(new Enrollment(students.findById("M2").get(), c1, LocalDate.now()));
+        enrollments.add(new Enrollment(students.findById("M1").get(), c2, LocalDate.now()));
+        assertEquals(List.of(70.0), notified);
+
+        assertEquals(List.of("MC1", "MC2"), enrollments.findByStudentId("M2").stream().map(x -> x.getCourse().getId()).collect(Collectors.toList()));
+        assertEquals(List.of("M1", "M2"), enrollments.findByCourseId("MC2").stream().map(x -> x.getStudent().getId()).collect(Collectors.toList()));
+        assertEquals(70.0, enrollments.find(student("M2"), c2).get().getGrade().get(), 1e-9);
+        assertTrue(enrollments.remove("M1", "MC2"));
+        assertFalse(enrollments.remove("M1", "MC2"));
+        assertEquals(2, enrollments.findAll().size());
+
+        // reads hand out copies: grades recorded on one don't leak into the store
+        Student copy = students.findById("M2").get();
+        copy.setGrade("MC2", 10.0);
+        assertTrue(students.findById("M2").get().getAllGrades().isEmpty());
+    }
+
+    @Test
+    void findAllIsASortedSnapshotUnderConcurrentWrites() throws Exception {
+        InMemoryStudentRepository students = new InMemoryStudentRepository();
+        ExecutorService pool = Executors.newFixedThreadPool(8);
+        List<Future<?>> writers = new ArrayList<>();
+        for (int t = 0; t < 8; t++) {
+            int base = t * 500;
+            writers.add(pool.submit(() -> {
+                for (int i = 0; i < 500; i++) students.addStudent(student(String.format("C%05d", base + i)));
+            }));
+        }
+        int lastSize = 0;
+        while (writers.stream().anyMatch(f -> !f.isDone())) {
+            List<Student> snapshot = students.findAll();
+            assertTrue(snapshot.size() >= lastSize);
+            for (int i = 1; i < snapshot.size(); i++) {
+                assertTrue(snapshot.get(i - 1).getId().compareTo(snapshot.get(i).getId()) < 0);
+            }
+            lastSize = snapshot.size();
+        }
+        for (Future<?> f : writers) f.get();
+        pool.shutdown();
+        assertTrue(pool.awaitTermination(5, TimeUnit.SECONDS));
+        assertEquals(4000, students.findAll().size());
+    }
+}
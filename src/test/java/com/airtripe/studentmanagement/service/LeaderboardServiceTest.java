@@ -0,0 +1,59 @@
+package com.airtripe.studentmanagement.service;
+
+import com.airtripe.studentmanagement.entity.Course;
+import com.airtripe.studentmanagement.entity.Enrollment;
+import com.airtripe.studentmanagement.factory.StudentFactory;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDate;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class LeaderboardServiceTest {
+    private Enrollment graded(String sid, Course c, double grade) {
+        Enrollment e = new Enrollment(StudentFactory.createUndergraduate(sid, sid, sid + "@example.com", LocalDate.of(2000,1,1)), c, LocalDate.now());
+        e.setGrade(grade);
+        return e;
+    }
+
+    private static List<String> ids(List<LeaderboardEntry> entries) {
+        return entries.stream().map(LeaderboardEntry::getStudentId).collect(Collectors.toList());
+    }
+
+    @Test
+    void courseTopKHandlesDecreasesAndRemovals() {
+        LeaderboardService board = new LeaderboardService();
+        Course c = new Course("LB1", "Board", 3);
+        board.onEnrollmentSaved(graded("A", c, 90));
+        board.onEnrollmentSaved(graded("B", c, 80));
+        board.onEnrollmentSaved(graded("C", c, 70));
+        assertEquals(List.of("A", "B"), ids(board.topInCourse("LB1", 2)));
+
+        board.onEnrollmentSaved(graded("A", c, 60)); // decrease: C moves into the top 2
+        assertEquals(List.of("B", "C"), ids(board.topInCourse("LB1", 2)));
+
+        board.onEnrollmentRemoved("B", "LB1");
+        assertEquals(List.of("C", "A"), ids(board.topInCourse("LB1", 5)));
+        assertEquals(1, board.topInCourse("LB1", 5).get(0).getRank());
+        assertTrue(board.topInCourse("missing", 5).isEmpty());
+    }
+
+    @Test
+    void globalRankingFollowsTranscriptGpa() {
+        TranscriptService transcripts = new TranscriptService();
+        LeaderboardService board = new LeaderboardService();
+        transcripts.addGpaListener(board);
+        Course c4 = new Course("LB4", "Four", 4);
+        Course c2 = new Course("LB2", "Two", 2);
+
+        transcripts.onEnrollmentSaved(graded("X", c4, 70));
+        transcripts.onEnrollmentSaved(graded("Y", c4, 80));
+        transcripts.onEnrollmentSaved(graded("X", c2, 100)); // X: (280+200)/6 = 80 -> tie broken by id
+        assertEquals(List.of("X", "Y"), ids(board.topByGpa(10)));
+
+        transcripts.onStudentRemoved("X");
+        assertEquals(List.of("Y"), ids(board.topByGpa(10)));
+    }
+}
@@ -0,0 +1,53 @@
+package com.airtripe.studentmanagement.service;
+
+import com.airtripe.studentmanagement.entity.GraduateStudent;
+import com.airtripe.studentmanagement.entity.Student;
+import com.airtripe.studentmanagement.factory.StudentFactory;
+import com.airtripe.studentmanagement.repository.OffHeapStudentRepository;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class OffHeapStudentRepositoryTest {
+
+    @Test
+    void storesRowsOffHeapBehindTheRepositoryInterface() {
+        OffHeapStudentRepository repo = new OffHeapStudentRepository();
+        List<String> ids = new ArrayList<>();
+        for (int i = 5000; i > 0; i--) {
+            String id = String.format("A%05d", i);
+            ids.add(0, id);
+            // few distinct names: the dictionary stores each once
+            repo.addStudent(StudentFactory.createUndergraduate(id, "Name" + (i % 10), id.toLowerCase() + "@alumni.example", LocalDate.of(1990, 1, 1).plusDays(i)));
+        }
+        repo.addStudent(StudentFactory.createGraduate("A00007", "Grad", "grad@alumni.example", LocalDate.of(1985, 6, 1), "Columnar Storage"));
+
+        assertEquals(5000, repo.size());
+        assertEquals(ids, repo.findAll().stream().map(Student::getId).collect(Collectors.toList()));
+        Student g = repo.findById("A00007").orElseThrow();
+        assertTrue(g instanceof GraduateStudent);
+        assertEquals("Columnar Storage", ((GraduateStudent) g).getThesisTitle());
+        assertEquals(LocalDate.of(1985, 6, 1), g.getDateOfBirth());
+        assertEquals(List.of("A00123"), repo.search("a00123@").stream().map(Student::getId).collect(Collectors.toList()));
+
+        assertTrue(repo.updateStudent("A00001", StudentFactory.createUndergraduate("x", "Renamed", "r@alumni.example", LocalDate.of(1990, 1, 1))));
+        assertEquals("Renamed", repo.findById("A00001").orElseThrow().getName());
+        assertTrue(repo.remove("A00002"));
+        assertFalse(repo.remove("A00002"));
+        assertTrue(repo.findById("A00002").isEmpty());
+        assertEquals(4999, repo.findAll().size());
+
+        // flyweight scan reads the date column without building Students
+        int cutoff = (int) LocalDate.of(1990, 1, 1).plusDays(100).toEpochDay();
+        AtomicInteger early = new AtomicInteger();
+        repo.scan(v -> { if (v.getEpochDay() <= cutoff) early.incrementAndGet(); });
+        assertEquals(99, early.get()); // days 1..100 minus the removed A00002
+        assertTrue(repo.offHeapBytes() > 0);
+    }
+}
@@ -0,0 +1,136 @@
+package com.airtripe.studentmanagement.service;
+
+import com.airtripe.studentmanagement.entity.Course;
+import com.airtripe.studentmanagement.entity.Enrollment;
+import com.airtripe.studentmanagement.entity.Student;
+import com.airtripe.studentmanagement.factory.StudentFactory;
+import com.airtripe.studentmanagement.observer.EntityChangeNotifier;
+import com.airtripe.studentmanagement.repository.CourseRepositoryJdbc;
+import com.airtripe.studentmanagement.repository.EnrollmentRepositoryJdbc;
+import com.airtripe.studentmanagement.repository.InMemoryCourseRepository;
+import com.airtripe.studentmanagement.repository.InMemoryEnrollmentRepository;
+import com.airtripe.studentmanagement.repository.InMemoryStudentRepository;
+import com.airtripe.studentmanagement.repository.ReadConsistency;
+import com.airtripe.studentmanagement.repository.ReplicationLog;
+import com.airtripe.studentmanagement.repository.RoutingEnrollmentRepository;
+import com.airtripe.studentmanagement.repository.RoutingStudentRepository;
+import com.airtripe.studentmanagement.repository.StudentRepositoryJdbc;
+import com.airtripe.studentmanagement.util.JdbcConnectionProvider;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDate;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class ReplicationTest {
+    private ReplicationLog replication;
+
+    @AfterEach
+    void tearDown() {
+        ReadConsistency.clear();
+        if (replication != null) replication.shutdown();
+    }
+
+    @Test
+    void replicasConvergeAndHonorReadYourWrites() throws Exception {
+        JdbcConnectionProvider primaryDb = new JdbcConnectionProvider("jdbc:h2:mem:repl_primary;DB_CLOSE_DELAY=-1", "sa", "");
+        JdbcConnectionProvider replicaDb = new JdbcConnectionProvider("jdbc:h2:mem:repl_replica;DB_CLOSE_DELAY=-1", "sa", "");
+        StudentRepositoryJdbc students = new StudentRepositoryJdbc(primaryDb);
+        CourseRepositoryJdbc courses = new CourseRepositoryJdbc(primaryDb);
+        EnrollmentRepositoryJdbc enrollments = new EnrollmentRepositoryJdbc(students, courses, primaryDb);
+        enrollments.init();
+        Student seeded = StudentFactory.createUndergraduate("RP0", "Seeded", "rp0@example.com", LocalDate.of(2000,1,1));
+        students.addStudent(seeded);
+
+        EntityChangeNotifier notifier = new EntityChangeNotifier();
+        students.setChangeNotifier(notifier);
+        courses.setChangeNotifier(notifier);
+        enrollments.setChangeNotifier(notifier);
+        replication = new ReplicationLog(students, courses, enrollments);
+        notifier.addListener(replication);
+        StudentRepositoryJdbc replicaStudents = new StudentRepositoryJdbc(replicaDb);
+        CourseRepositoryJdbc replicaCourses = new CourseRepositoryJdbc(replicaDb);
+        replication.addReplica("r0", replicaStudents, replicaCourses, new EnrollmentRepositoryJdbc(replicaStudents, replicaCourses, replicaDb));
+
+        RoutingStudentRepository routedStudents = new RoutingStudentRepository(students, replication);
+        RoutingEnrollmentRepository routedEnrollments = new RoutingEnrollmentRepository(enrollments, replication);
+
+        Student s = StudentFactory.createUndergraduate("RP1", "Replicated", "rp1@example.com", LocalDate.of(2000,1,1));
+        routedStudents.addStudent(s);
+        long writeSeq = ReadConsistency.lastWriteSeq();
+        assertTrue(writeSeq > 0);
+        // same thread: the write raises the requirement, so this read cannot miss it
+        assertTrue(routedStudents.findById("RP1").isPresent());
+
+        Enrollment e = new Enrollment(s, new Course("RPC", "Replicated Course", 3), LocalDate.now());
+        e.setGrade(75.0);
+        routedEnrollments.add(e);
+        routedStudents.remove("RP0");
+        assertTrue(replication.awaitCaughtUp(5000));
+
+        // replica has the seed minus the delete, plus the new rows
+        assertTrue(replicaStudents.findById("RP0").isEmpty());
+        assertTrue(replicaStudents.findById("RP1").isPresent());
+        assertEquals(75.0, new EnrollmentRepositoryJdbc(replicaStudents, replicaCourses, replicaDb)
+                .findByStudentId("RP1").get(0).getGrade().orElseThrow(), 1e-9);
+
+        // a fresh request with no requirement is served by the caught-up replica
+        ReadConsistency.clear();
+        long replicaReads = replication.getMetricsCollector().getCount("replication.reads.replica");
+        assertEquals(1, routedEnrollments.findByCourseId("RPC").size());
+        assertEquals(replicaReads + 1, replication.getMetricsCollector().getCount("replication.reads.replica"));
+
+        // a requirement beyond what any replica has applied falls back to the primary
+        ReadConsistency.requireAtLeast(replication.getLastSeq() + 1);
+        long primaryReads = replication.getMetricsCollector().getCount("replication.reads.primary");
+        routedStudents.findAll();
+        assertEquals(primaryReads + 1, replication.getMetricsCollector().getCount("replication.reads.primary"));
+
+        assertEquals(0L, ((java.util.Map<?, ?>) replication.lagReport().get("r0")).get("lagEntries"));
+    }
+
+    @Test
+    void replicaThatMissedAnEntryResyncsAndServesReadsAgain() throws Exception {
+        InMemoryStudentRepository students = new InMemoryStudentRepository();
+        InMemoryCourseRepository courses = new InMemoryCourseRepository();
+        InMemoryEnrollmentRepository enrollments = new InMemoryEnrollmentRepository(students, courses);
+        students.addStudent(StudentFactory.createUndergraduate("RH0", "Stays", "rh0@example.com", LocalDate.of(2000,1,1)));
+        EntityChangeNotifier notifier = new EntityChangeNotifier();
+        students.setChangeNotifier(notifier);
+        replication = new ReplicationLog(students, courses, enrollments);
+        notifier.addListener(replication);
+
+        AtomicBoolean failNextRemove = new AtomicBoolean();
+        InMemoryStudentRepository replicaStudents = new InMemoryStudentRepository() {
+            @Override
+            public boolean remove(String id) {
+                if (failNextRemove.getAndSet(false)) throw new IllegalStateException("replica unavailable");
+                return super.remove(id);
+            }
+        };
+        InMemoryCourseRepository replicaCourses = new InMemoryCourseRepository();
+        ReplicationLog.Replica replica = replication.addReplica("r1", replicaStudents, replicaCourses,
+                new InMemoryEnrollmentRepository(replicaStudents, replicaCourses));
+        assertTrue(replication.awaitCaughtUp(5000));
+        assertTrue(replicaStudents.findById("RH0").isPresent());
+
+        // the failed delete is repaired by the resync, not left behind
+        failNextRemove.set(true);
+        students.remove("RH0");
+        assertTrue(replication.awaitCaughtUp(5000));
+        long deadline = System.currentTimeMillis() + 5000;
+        while (!replica.isHealthy() && System.currentTimeMillis() < deadline) Thread.sleep(5);
+
+        assertTrue(replica.isHealthy());
+        assertEquals(1, replication.getMetricsCollector().getCount("replication.applyFailures"));
+        assertEquals(1, replication.getMetricsCollector().getCount("replication.resyncs"));
+        assertTrue(replicaStudents.findById("RH0").isEmpty());
+
+        ReadConsistency.clear();
+        long replicaReads = replication.getMetricsCollector().getCount("replication.reads.replica");
+        assertTrue(new RoutingStudentRepository(students, replication).findById("RH0").isEmpty());
+        assertEquals(replicaReads + 1, replication.getMetricsCollector().getCount("replication.reads.replica"));
+    }
+}
@@ -0,0 +1,94 @@
+package com.airtripe.studentmanagement.service;
+
+import com.airtripe.studentmanagement.entity.Course;
+import com.airtripe.studentmanagement.entity.Enrollment;
+import com.airtripe.studentmanagement.entity.Student;
+import com.airtripe.studentmanagement.factory.StudentFactory;
+import com.airtripe.studentmanagement.repository.CourseRepositoryJdbc;
+import com.airtripe.studentmanagement.repository.EnrollmentRepositoryJdbc;
+import com.airtripe.studentmanagement.repository.InMemoryStudentRepository;
+import com.airtripe.studentmanagement.repository.StudentRepositoryJdbc;
+import com.airtripe.studentmanagement.util.JdbcConnectionProvider;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDate;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class RowVersionTest {
+
+    @Test
+    void versionsChangeExactlyWhenTheResponseWould() throws Exception {
+        JdbcConnectionProvider db = new JdbcConnectionProvider("jdbc:h2:mem:rowversiontest;DB_CLOSE_DELAY=-1", "sa", "");
+        StudentRepositoryJdbc students = new StudentRepositoryJdbc(db);
+        CourseRepositoryJdbc courses = new CourseRepositoryJdbc(db);
+        EnrollmentRepositoryJdbc enrollments = new EnrollmentRepositoryJdbc(students, courses, db);
+        enrollments.init();
+
+        Student s1 = StudentFactory.createUndergraduate("V1", "Vera", "vera@example.com", LocalDate.of(2001,1,1));
+        Student s2 = StudentFactory.createUndergraduate("V2", "Vic", "vic@example.com", LocalDate.of(2001,1,1));
+        Course c1 = new Course("VC1", "Optics", 3);
+        Course c2 = new Course("VC2", "Acoustics", 3);
+        enrollments.add(new Enrollment(s1, c1, LocalDate.now()));
+        enrollments.add(new Enrollment(s2, c1, LocalDate.now()));
+        courses.addCourse(c2);
+
+        String student = students.version("V1").orElseThrow();
+        String roster = enrollments.versionByCourseId("VC1").orElseThrow();
+        String all = students.version().orElseThrow();
+        String vicsEnrollments = enrollments.versionByStudentId("V2").orElseThrow();
+        assertEquals(roster, enrollments.versionByCourseId("VC1").orElseThrow(), "stable while nothing changes");
+        assertTrue(students.version("missing").isEmpty());
+
+        // an unrelated course leaves the roster alone
+        courses.updateCourse("VC2", new Course("VC2", "Acoustics II", 4));
+        assertEquals(roster, enrollments.versionByCourseId("VC1").orElseThrow());
+
+        // the roster nests each student, so renaming one changes the roster's version too
+        students.updateStudent("V1", StudentFactory.createUndergraduate("V1", "Vera Renamed", "vera@example.com", LocalDate.of(2001,1,1)));
+        assertNotEquals(student, students.version("V1").orElseThrow());
+        assertNotEquals(all, students.version().orElseThrow());
+        String renamed = enrollments.versionByCourseId("VC1").orElseThrow();
+        assertNotEquals(roster, renamed);
+
+        // a delete changes the set's version even though no remaining row was written
+        assertTrue(enrollments.remove("V2", "VC1"));
+        assertNotEquals(renamed, enrollments.versionByCourseId("VC1").orElseThrow());
+        assertNotEquals(vicsEnrollments, enrollments.versionByStudentId("V2").orElseThrow());
+    }
+
+    @Test
+    void enrollmentWritesLeaveUnchangedParentsAlone() throws Exception {
+        JdbcConnectionProvider db = new JdbcConnectionProvider("jdbc:h2:mem:rowversionparents;DB_CLOSE_DELAY=-1", "sa", "");
+        StudentRepositoryJdbc students = new StudentRepositoryJdbc(db);
+        CourseRepositoryJdbc courses = new CourseRepositoryJdbc(db);
+        EnrollmentRepositoryJdbc enrollments = new EnrollmentRepositoryJdbc(students, courses, db);
+        enrollments.init();
+
+        Student s = StudentFactory.createUndergraduate("VP1", "Pia", "pia@example.com", LocalDate.of(2001,1,1));
+        Student other = StudentFactory.createUndergraduate("VP2", "Pal", "pal@example.com", LocalDate.of(2001,1,1));
+        Course c = new Course("VPC", "Optics", 3);
+        Enrollment e = new Enrollment(s, c, LocalDate.now());
+        enrollments.add(e);
+        enrollments.add(new Enrollment(other, c, LocalDate.now()));
+        String student = students.version("VP1").orElseThrow();
+        String course = courses.version("VPC").orElseThrow();
+        String othersEnrollments = enrollments.versionByStudentId("VP2").orElseThrow();
+
+        // grading re-saves both parents as they are: neither gets a new version, nor do other students' rows
+        e.setGrade(88.0);
+        enrollments.add(e);
+        assertEquals(student, students.version("VP1").orElseThrow());
+        assertEquals(course, courses.version("VPC").orElseThrow());
+        assertEquals(othersEnrollments, enrollments.versionByStudentId("VP2").orElseThrow());
+
+        // a parent that really changed still does
+        enrollments.add(new Enrollment(s, new Course("VPC", "Optics", 4), LocalDate.now()));
+        assertNotEquals(course, courses.version("VPC").orElseThrow());
+    }
+
+    @Test
+    void storesWithoutVersionsReportNone() {
+        assertTrue(new InMemoryStudentRepository().version().isEmpty());
+    }
+}
@@ -0,0 +1,116 @@
+package com.airtripe.studentmanagement.service;
+
+import com.airtripe.studentmanagement.entity.Course;
+import com.airtripe.studentmanagement.entity.Enrollment;
+import com.airtripe.studentmanagement.entity.Student;
+import com.airtripe.studentmanagement.factory.StudentFactory;
+import com.airtripe.studentmanagement.repository.CourseRepositoryJdbc;
+import com.airtripe.studentmanagement.repository.EnrollmentRepositoryJdbc;
+import com.airtripe.studentmanagement.repository.SchemaMigrator;
+import com.airtripe.studentmanagement.repository.StudentRepositoryJdbc;
+import com.airtripe.studentmanagement.util.JdbcConnectionProvider;
+import org.junit.jupiter.api.Test;
+
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.Statement;
+import java.time.LocalDate;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class SchemaMigrationTest {
+
+    private static String explain(JdbcConnectionProvider db, String sql) throws Exception {
+        try (Connection c = db.getConnection(); Statement st = c.createStatement(); ResultSet rs = st.executeQuery("EXPLAIN " + sql)) {
+            rs.next();
+            return rs.getString(1).toUpperCase();
+        }
+    }
+
+    private static int count(JdbcConnectionProvider db, String sql) throws Exception {
+        try (Connection c = db.getConnection(); Statement st = c.createStatement(); ResultSet rs = st.executeQuery(sql)) {
+            rs.next();
+            return rs.getInt(1);
+        }
+    }
+
+    @Test
+    void migratesLegacySchemaAndQueriesUseTheNewIndexes() throws Exception {
+        JdbcConnectionProvider db = new JdbcConnectionProvider("jdbc:h2:mem:migrationtest;DB_CLOSE_DELAY=-1", "sa", "");
+        // the tables as the repositories created them before versioned migrations, with one orphaned enrollment
+        try (Connection c = db.getConnection(); Statement st = c.createStatement()) {
+            st.execute("CREATE TABLE students (id VARCHAR(100) PRIMARY KEY, name VARCHAR(255), email VARCHAR(255), dob DATE, thesis_title VARCHAR(255))");
+            st.execute("CREATE TABLE courses (id VARCHAR(100) PRIMARY KEY, name VARCHAR(255), credits INT)");
+            st.execute("CREATE TABLE enrollments (student_id VARCHAR(100), course_id VARCHAR(100), enrolled_on DATE, grade DOUBLE, PRIMARY KEY(student_id, course_id))");
+            st.execute("INSERT INTO students (id, name, email, dob) VALUES ('M1', 'Alice Moore', 'Alice@Example.com', DATE '2000-01-01')");
+            st.execute("INSERT INTO courses (id, name, credits) VALUES ('MC1', 'Compilers', 4)");
+            st.execute("INSERT INTO enrollments VALUES ('M1', 'MC1', DATE '2024-09-01', NULL)");
+            st.execute("INSERT INTO enrollments VALUES ('GONE', 'MC1', DATE '2024-09-01', NULL)");
+        }
+
+        StudentRepositoryJdbc students = new StudentRepositoryJdbc(db);
+        CourseRepositoryJdbc courses = new CourseRepositoryJdbc(db);
+        new EnrollmentRepositoryJdbc(students, courses, db).init();
+
+        assertEquals(4, SchemaMigrator.currentVersion(db, "students"));
+        assertEquals(3, SchemaMigrator.currentVersion(db, "courses"));
+        assertEquals(7, SchemaMigrator.currentVersion(db, "enrollments"));
+        assertEquals(1, count(db, "SELECT COUNT(*) FROM enrollments"), "orphan should be removed before adding FKs");
+
+        // findByCourseId no longer scans the primary key
+        assertTrue(explain(db, "SELECT student_id FROM enrollments WHERE course_id = 'MC1' ORDER BY student_id").contains("IDX_ENROLLMENTS_COURSE"));
+        // lowercase lookups go through the generated columns' indexes
+        assertTrue(explain(db, "SELECT id FROM students WHERE email_lower = 'alice@example.com'").contains("UX_STUDENTS_EMAIL_LOWER"));
+        assertTrue(explain(db, "SELECT id FROM students WHERE name_lower LIKE 'ali%'").contains("IDX_STUDENTS_NAME_LOWER"));
+        assertTrue(explain(db, "SELECT id FROM courses WHERE name_lower LIKE 'comp%'").contains("IDX_COURSES_NAME_LOWER"));
+
+        // search semantics are unchanged: case-insensitive substring match
+        assertEquals(1, students.search("MOORE").size());
+        assertEquals(1, courses.search("piler").size());
+    }
+
+    @Test
+    void enforcesUniqueEmailAndRestrictsParentDeletes() throws Exception {
+        JdbcConnectionProvider db = new JdbcConnectionProvider("jdbc:h2:mem:constrainttest;DB_CLOSE_DELAY=-1", "sa", "");
+        StudentRepositoryJdbc students = new StudentRepositoryJdbc(db);
+        CourseRepositoryJdbc courses = new CourseRepositoryJdbc(db);
+        EnrollmentRepositoryJdbc enrollments = new EnrollmentRepositoryJdbc(students, courses, db);
+        enrollments.init();
+        enrollments.init(); // already migrated: a no-op
+
+        Student s = StudentFactory.createUndergraduate("K1", "Kim", "kim@example.com", LocalDate.of(2001,2,3));
+        enrollments.add(new Enrollment(s, new Course("KC1", "Networks", 3), LocalDate.now()));
+        assertThrows(RuntimeException.class, () -> students.addStudent(
+                StudentFactory.createUndergraduate("K2", "Other Kim", "KIM@example.com", LocalDate.of(2001,2,3))));
+
+        // a plain delete would orphan the enrollment behind the summary tables' back, so it is refused
+        assertThrows(RuntimeException.class, () -> students.remove("K1"));
+        assertEquals(1, count(db, "SELECT COUNT(*) FROM enrollments"));
+
+        assertEquals(1, new CascadeDeleteService(students, courses, enrollments, db).removeStudents(List.of("K1")).get("enrollments"));
+        assertTrue(enrollments.findAll().isEmpty());
+        assertEquals(0, count(db, "SELECT COUNT(*) FROM student_credit_totals"));
+        assertEquals(0, count(db, "SELECT COUNT(*) FROM course_enrollment_stats"));
+    }
+
+    @Test
+    void uniqueEmailStepNamesDuplicatesAndRetriesOnTheNextStart() throws Exception {
+        JdbcConnectionProvider db = new JdbcConnectionProvider("jdbc:h2:mem:duplicateemails;DB_CLOSE_DELAY=-1", "sa", "");
+        try (Connection c = db.getConnection(); Statement st = c.createStatement()) {
+            st.execute("CREATE TABLE students (id VARCHAR(100) PRIMARY KEY, name VARCHAR(255), email VARCHAR(255), dob DATE, thesis_title VARCHAR(255))");
+            st.execute("INSERT INTO students (id, name, email, dob) VALUES ('D1', 'Dana', 'dana@example.com', DATE '2000-01-01')");
+            st.execute("INSERT INTO students (id, name, email, dob) VALUES ('D2', 'Dana Two', 'DANA@example.com', DATE '2000-01-01')");
+        }
+
+        IllegalStateException e = assertThrows(IllegalStateException.class, () -> new StudentRepositoryJdbc(db).init());
+        assertTrue(e.getMessage().contains("dana@example.com (D1, D2)"), e.getMessage());
+        assertEquals(2, SchemaMigrator.currentVersion(db, "students"), "the failed step is not recorded");
+
+        try (Connection c = db.getConnection(); Statement st = c.createStatement()) {
+            st.execute("UPDATE students SET email = 'dana2@example.com' WHERE id = 'D2'");
+        }
+        new StudentRepositoryJdbc(db).init();
+        assertEquals(4, SchemaMigrator.currentVersion(db, "students"));
+    }
+}
@@ -0,0 +1,154 @@
+package com.airtripe.studentmanagement.service;
+
+import com.airtripe.studentmanagement.entity.Course;
+import com.airtripe.studentmanagement.entity.Enrollment;
+import com.airtripe.studentmanagement.entity.Student;
+import com.airtripe.studentmanagement.factory.StudentFactory;
+import com.airtripe.studentmanagement.repository.CourseRepositoryJdbc;
+import com.airtripe.studentmanagement.repository.EnrollmentRepositoryJdbc;
+import com.airtripe.studentmanagement.repository.GradeOutboxJdbc;
+import com.airtripe.studentmanagement.repository.Resharder;
+import com.airtripe.studentmanagement.repository.ShardedCourseRepository;
+import com.airtripe.studentmanagement.repository.ShardedEnrollmentRepository;
+import com.airtripe.studentmanagement.repository.ShardedStudentRepository;
+import com.airtripe.studentmanagement.repository.StudentRepositoryJdbc;
+import com.airtripe.studentmanagement.util.JdbcConnectionProvider;
+import org.junit.jupiter.api.Test;
+
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.Statement;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class ShardedRepositoryTest {
+
+    private static List<JdbcConnectionProvider> shards(String prefix, int n) {
+        List<JdbcConnectionProvider> out = new ArrayList<>();
+        for (int i = 0; i < n; i++) out.add(new JdbcConnectionProvider("jdbc:h2:mem:" + prefix + i + ";DB_CLOSE_DELAY=-1", "sa", ""));
+        return out;
+    }
+
+    private static Student student(int i) {
+        return StudentFactory.createUndergraduate(String.format("SH%03d", i), "Shard " + i, "shard" + i + "@example.com", LocalDate.of(2000,1,1));
+    }
+
+    @Test
+    void routesByHashAndMergesScatterGatherResults() throws Exception {
+        List<JdbcConnectionProvider> providers = shards("shardtest", 3);
+        ShardedStudentRepository students = new ShardedStudentRepository(providers);
+        ShardedEnrollmentRepository enrollments = new ShardedEnrollmentRepository(students);
+        enrollments.init();
+
+        Course course = new Course("SHC", "Sharded Course", 3);
+        List<String> ids = new ArrayList<>();
+        for (int i = 0; i < 40; i++) {
+            Student s = student(i);
+            ids.add(s.getId());
+            students.addStudent(s);
+            if (i % 2 == 0) enrollments.add(new Enrollment(s, course, LocalDate.now()));
+        }
+
+        // each student is stored on exactly its routed shard, and every shard got some
+        for (int shard = 0; shard < 3; shard++) {
+            List<Student> local = new StudentRepositoryJdbc(providers.get(shard)).findAll();
+            assertFalse(local.isEmpty());
+            for (Student s : local) assertEquals(shard, students.shardIndexFor(s.getId()));
+        }
+
+        assertEquals(ids, students.findAll().stream().map(Student::getId).collect(Collectors.toList()));
+        assertEquals(List.of("SH001", "SH010", "SH011", "SH012"), students.search("shard 1").stream().limit(4).map(Student::getId).collect(Collectors.toList()));
+        assertTrue(students.findById("SH007").isPresent());
+
+        List<Enrollment> roster = enrollments.findByCourseId("SHC");
+        assertEquals(20, roster.size());
+        for (int i = 1; i < roster.size(); i++) {
+            assertTrue(roster.get(i - 1).getStudent().getId().compareTo(roster.get(i).getStudent().getId()) < 0);
+        }
+        assertEquals(1, enrollments.findByStudentId("SH004").size());
+    }
+
+    @Test
+    void reshardMovesRowsToTheirNewShard() throws Exception {
+        List<JdbcConnectionProvider> before = shards("reshard", 2);
+        ShardedStudentRepository students = new ShardedStudentRepository(before);
+        ShardedEnrollmentRepository enrollments = new ShardedEnrollmentRepository(students);
+        enrollments.init();
+        Course course = new Course("RSC", "Reshard Course", 4);
+        for (int i = 0; i < 30; i++) {
+            Enrollment e = new Enrollment(student(i), course, LocalDate.of(2020, 1, 10));
+            e.setGrade(60.0 + i);
+            enrollments.add(e);
+        }
+        // every student has an archived (graded) term besides the current one
+        for (EnrollmentRepositoryJdbc shard : enrollments.getShards()) shard.archiveBefore(LocalDate.of(2021, 1, 1), 100);
+        for (int i = 0; i < 30; i++) enrollments.add(new Enrollment(student(i), course, LocalDate.now()));
+        List<Long> outboxBefore = new ArrayList<>();
+        for (JdbcConnectionProvider p : before) outboxBefore.add(new GradeOutboxJdbc(p).countAfter(0));
+
+        List<JdbcConnectionProvider> after = shards("reshard", 3); // reuses the first two databases
+        long moved = new Resharder(before, after).run();
+        assertTrue(moved > 0);
+
+        ShardedStudentRepository resharded = new ShardedStudentRepository(after);
+        ShardedEnrollmentRepository reshardedEnrollments = new ShardedEnrollmentRepository(resharded);
+        assertEquals(30, resharded.findAll().size());
+        assertEquals(30, reshardedEnrollments.findAll().size());
+        assertEquals(60, reshardedEnrollments.findAll(true).size());
+        assertEquals(2, reshardedEnrollments.findByStudentId("SH003", true).size());
+        // history was moved, not replayed: no shard's outbox gained a grade event
+        assertEquals(outboxBefore, List.of(new GradeOutboxJdbc(after.get(0)).countAfter(0), new GradeOutboxJdbc(after.get(1)).countAfter(0)));
+        assertEquals(0, new GradeOutboxJdbc(after.get(2)).countAfter(0));
+        for (JdbcConnectionProvider p : after) {
+            try (Connection c = p.getConnection(); Statement st = c.createStatement();
+                 ResultSet rs = st.executeQuery("SELECT COUNT(*), COALESCE(SUM(enrollment_count), 0), COALESCE(SUM(credits), 0) FROM student_credit_totals")) {
+                rs.next();
+                assertEquals(new StudentRepositoryJdbc(p).findAll().size(), rs.getLong(1));
+                assertEquals(4 * rs.getLong(2), rs.getLong(3));
+            }
+        }
+        for (int shard = 0; shard < 3; shard++) {
+            for (Student s : new StudentRepositoryJdbc(after.get(shard)).findAll()) {
+                assertEquals(shard, resharded.shardIndexFor(s.getId()));
+            }
+        }
+    }
+
+    @Test
+    void courseWritesReachEveryShard() throws Exception {
+        List<JdbcConnectionProvider> providers = shards("shardcourses", 3);
+        JdbcConnectionProvider primaryDb = new JdbcConnectionProvider("jdbc:h2:mem:shardcoursesprimary;DB_CLOSE_DELAY=-1", "sa", "");
+        ShardedStudentRepository students = new ShardedStudentRepository(providers);
+        ShardedEnrollmentRepository enrollments = new ShardedEnrollmentRepository(students);
+        ShardedCourseRepository courses = new ShardedCourseRepository(new CourseRepositoryJdbc(primaryDb), enrollments);
+        courses.init();
+        enrollments.init();
+
+        Course course = new Course("SCC", "Sharded Course", 3);
+        courses.addCourse(course);
+        for (int i = 0; i < 12; i++) enrollments.add(new Enrollment(student(i), course, LocalDate.now()));
+        String before = enrollments.versionByCourseId("SCC").orElseThrow();
+
+        assertTrue(courses.updateCourse("SCC", new Course("SCC", "Renamed Course", 5)));
+        for (JdbcConnectionProvider p : providers) {
+            assertEquals("Renamed Course", new CourseRepositoryJdbc(p).findById("SCC").orElseThrow().getName());
+            try (Connection c = p.getConnection(); Statement st = c.createStatement();
+                 ResultSet rs = st.executeQuery("SELECT COALESCE(SUM(credits), 0), COALESCE(SUM(enrollment_count), 0) FROM student_credit_totals")) {
+                rs.next();
+                assertEquals(5 * rs.getLong(2), rs.getLong(1));
+            }
+        }
+        assertNotEquals(before, enrollments.versionByCourseId("SCC").orElseThrow());
+        assertEquals(Set.of("Renamed Course"), enrollments.findByCourseId("SCC", true).stream().map(e -> e.getCourse().getName()).collect(Collectors.toSet()));
+
+        assertEquals(2, enrollments.removeByStudentIds(List.of("SH000", "SH001")));
+        assertEquals(10, enrollments.removeByCourseIds(List.of("SCC")));
+        assertTrue(courses.remove("SCC"));
+        for (JdbcConnectionProvider p : providers) assertTrue(new CourseRepositoryJdbc(p).findById("SCC").isEmpty());
+    }
+}
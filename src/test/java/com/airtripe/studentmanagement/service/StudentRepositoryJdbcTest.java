@@ -23,6 +23,7 @@ public class StudentRepositoryJdbcTest {
         repo.init();
         // clear table for test isolation
         try (Connection c = ConfigSingleton.getInstance().getConnection(); Statement st = c.createStatement()) {
+            try { st.executeUpdate("DELETE FROM enrollments"); } catch (Exception ignored) {}
             st.executeUpdate("DELETE FROM students");
         }
     }
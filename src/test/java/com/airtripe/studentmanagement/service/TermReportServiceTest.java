@@ -0,0 +1,119 @@
+package com.airtripe.studentmanagement.service;
+
+import com.airtripe.studentmanagement.entity.Course;
+import com.airtripe.studentmanagement.entity.Enrollment;
+import com.airtripe.studentmanagement.entity.Student;
+import com.airtripe.studentmanagement.factory.StudentFactory;
+import com.airtripe.studentmanagement.repository.EnrollmentRepositoryJdbc;
+import com.airtripe.studentmanagement.repository.CourseRepositoryJdbc;
+import com.airtripe.studentmanagement.repository.EnrollmentScanJdbc;
+import com.airtripe.studentmanagement.repository.StudentRepositoryJdbc;
+import com.airtripe.studentmanagement.util.ConfigSingleton;
+import com.airtripe.studentmanagement.util.JdbcConnectionProvider;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.StringWriter;
+import java.sql.Connection;
+import java.sql.Statement;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class TermReportServiceTest {
+    private EnrollmentRepositoryJdbc repo;
+
+    @BeforeEach
+    void setup() throws Exception {
+        repo = new EnrollmentRepositoryJdbc();
+        repo.init();
+        try (Connection c = ConfigSingleton.getInstance().getConnection(); Statement st = c.createStatement()) {
+            st.executeUpdate("DELETE FROM enrollments");
+            st.executeUpdate("DELETE FROM students");
+            st.executeUpdate("DELETE FROM courses");
+        }
+    }
+
+    @Test
+    void partitionedReportMatchesSingleRange() throws Exception {
+        Course[] courses = {new Course("TR1", "Term One", 3), new Course("TR2", "Term Two", 4)};
+        for (int i = 0; i < 60; i++) {
+            Student s = StudentFactory.createUndergraduate(String.format("TS%03d", i), "T" + i, "ts" + i + "@example.com", LocalDate.of(2000,1,1));
+            for (int c = 0; c < courses.length; c++) {
+                if ((i + c) % 3 == 0) continue;
+                Enrollment e = new Enrollment(s, courses[c], LocalDate.now());
+                if (i % 5 != 0) e.setGrade((double) ((i * 7 + c * 13) % 100));
+                repo.add(e);
+            }
+        }
+
+        TermReportService svc = new TermReportService(new EnrollmentScanJdbc(), 4, 50.0);
+        TermReport single = svc.generate(1);
+        TermReport parallel = svc.generate(8);
+
+        assertEquals(single.getRows(), parallel.getRows());
+        assertEquals(single.getCreditLoad(), parallel.getCreditLoad());
+        assertEquals(single.getFailing().size(), parallel.getFailing().size());
+        assertEquals(2, parallel.getCourses().size());
+        for (TermReport.CourseSummary a : single.getCourses()) {
+            TermReport.CourseSummary b = parallel.getCourses().stream().filter(x -> x.getCourseId().equals(a.getCourseId())).findFirst().orElseThrow();
+            assertEquals(a.getEnrolled(), b.getEnrolled());
+            assertEquals(a.getAverage(), b.getAverage(), 1e-9);
+        }
+        // TS001 is enrolled in both courses: 3 + 4 credits
+        assertEquals(7, parallel.getCreditLoad().get("TS001"));
+
+        StringWriter out = new StringWriter();
+        svc.writeCsv(parallel, out);
+        assertTrue(out.toString().startsWith("# course averages\ncourse_id,enrolled,graded,average\nTR1,"));
+    }
+
+    @Test
+    void csvQuotesFieldsAndIgnoresTheDefaultLocale() throws Exception {
+        TermReport report = new TermReport(50.0);
+        report.add("S,1", "C\"1", 40.5, 3);
+        report.add("S2", "C\"1", 61.0, 3);
+        Locale previous = Locale.getDefault();
+        Locale.setDefault(Locale.GERMANY);
+        StringWriter out = new StringWriter();
+        try {
+            new TermReportService(new EnrollmentScanJdbc(), 1, 50.0).writeCsv(report, out);
+        } finally {
+            Locale.setDefault(previous);
+        }
+        String csv = out.toString();
+        assertTrue(csv.contains("\n\"C\"\"1\",2,2,50.75\n"), csv);
+        assertTrue(csv.contains("\n\"S,1\",\"C\"\"1\",40.5\n"), csv);
+        assertTrue(csv.contains("\n\"S,1\",3\n"), csv);
+    }
+
+    @Test
+    void partitionBoundsSplitTheKeySpaceIntoExistingKeys() throws Exception {
+        JdbcConnectionProvider db = new JdbcConnectionProvider("jdbc:h2:mem:scanbounds;DB_CLOSE_DELAY=-1", "sa", "");
+        EnrollmentRepositoryJdbc enrollments = new EnrollmentRepositoryJdbc(new StudentRepositoryJdbc(db), new CourseRepositoryJdbc(db), db);
+        enrollments.init();
+        Course course = new Course("SB1", "Bounds", 3);
+        List<String> ids = new ArrayList<>();
+        for (int i = 0; i < 200; i++) {
+            String id = String.format("SB%04d", i * 7);
+            ids.add(id);
+            enrollments.add(new Enrollment(StudentFactory.createUndergraduate(id, "B" + i, "sb" + i + "@example.com", LocalDate.of(2000,1,1)), course, LocalDate.now()));
+        }
+
+        EnrollmentScanJdbc scan = new EnrollmentScanJdbc(db);
+        assertTrue(scan.partitionBounds(1).isEmpty());
+        List<String> bounds = scan.partitionBounds(4);
+        assertEquals(3, bounds.size());
+        String from = null;
+        for (int i = 0; i <= bounds.size(); i++) {
+            String to = i < bounds.size() ? bounds.get(i) : null;
+            if (to != null) assertTrue(ids.contains(to));
+            long rows = scan.scanRange(from, to, (s, c, g, cr) -> { });
+            assertTrue(rows >= 45 && rows <= 55, "range " + i + " has " + rows + " rows");
+            from = to;
+        }
+    }
+}
@@ -0,0 +1,136 @@
+package com.airtripe.studentmanagement.service;
+
+import com.airtripe.studentmanagement.entity.Course;
+import com.airtripe.studentmanagement.entity.Enrollment;
+import com.airtripe.studentmanagement.entity.Student;
+import com.airtripe.studentmanagement.factory.StudentFactory;
+import com.airtripe.studentmanagement.observer.EntityChangeNotifier;
+import com.airtripe.studentmanagement.repository.InMemoryCourseRepository;
+import com.airtripe.studentmanagement.repository.InMemoryEnrollmentRepository;
+import com.airtripe.studentmanagement.repository.InMemoryStudentRepository;
+import com.airtripe.studentmanagement.repository.StudentRepositoryJdbc;
+import com.airtripe.studentmanagement.repository.TieredStudentRepository;
+import com.airtripe.studentmanagement.repository.UnitOfWork;
+import com.airtripe.studentmanagement.util.JdbcConnectionProvider;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDate;
+import java.util.Optional;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class TieredStudentRepositoryTest {
+
+    private static Student student(String id) {
+        return StudentFactory.createUndergraduate(id, "Tier " + id, id.toLowerCase() + "@example.com", LocalDate.of(2000,1,1));
+    }
+
+    @Test
+    void demotesUnenrolledStudentsFirstAndPromotesOnAccess() {
+        InMemoryStudentRepository cold = new InMemoryStudentRepository();
+        TieredStudentRepository tiered = new TieredStudentRepository(cold, 3);
+
+        for (String id : new String[]{"T1", "T2", "T3", "T4"}) tiered.addStudent(student(id));
+        assertEquals(0, tiered.getHotSize()); // writes don't promote
+        for (String id : new String[]{"T1", "T2", "T3"}) assertTrue(tiered.findById(id).isPresent());
+        tiered.onEnrollmentSaved(new Enrollment(student("T1"), new Course("TC", "Tier Course", 3), LocalDate.now()));
+        assertTrue(tiered.findById("T4").isPresent()); // full: T1 is least recent but enrolled, so T2 goes
+
+        assertTrue(tiered.isHot("T1"));
+        assertFalse(tiered.isHot("T2"));
+        assertEquals(3, tiered.getHotSize());
+        assertEquals(4, tiered.findAll().size()); // cold tier holds everyone
+
+        assertTrue(tiered.findById("T2").isPresent());   // miss -> promoted, T3 demoted
+        assertTrue(tiered.isHot("T2"));
+        assertFalse(tiered.isHot("T3"));
+        assertTrue(tiered.findById("T2").isPresent());   // hit
+        assertEquals(1, tiered.getMetricsCollector().getCount("tier.hits"));
+        assertEquals(5, tiered.getMetricsCollector().getCount("tier.misses"));
+        assertEquals(5, tiered.getMetricsCollector().getCount("tier.promotions"));
+        assertEquals(2, tiered.getMetricsCollector().getCount("tier.demotions"));
+
+        // once unenrolled, T1 is an ordinary LRU candidate
+        tiered.onEnrollmentRemoved("T1", "TC");
+        tiered.addStudent(student("T5"));
+        assertTrue(tiered.findById("T5").isPresent());
+        assertFalse(tiered.isHot("T1"));
+
+        // writes go through and drop the hot copy
+        assertTrue(tiered.updateStudent("T5", StudentFactory.createUndergraduate("T5", "Renamed", "t5@example.com", LocalDate.of(2000,1,1))));
+        assertFalse(tiered.isHot("T5"));
+        assertEquals("Renamed", tiered.findById("T5").get().getName());
+        assertEquals("Renamed", cold.findById("T5").get().getName());
+        assertTrue(tiered.remove("T5"));
+        assertTrue(tiered.findById("T5").isEmpty());
+    }
+
+    @Test
+    void rolledBackWritesNeverReachTheHotTier() throws Exception {
+        JdbcConnectionProvider db = new JdbcConnectionProvider("jdbc:h2:mem:tiered_rollback;DB_CLOSE_DELAY=-1", "sa", "");
+        StudentRepositoryJdbc cold = new StudentRepositoryJdbc(db);
+        TieredStudentRepository tiered = new TieredStudentRepository(cold, 3);
+        EntityChangeNotifier notifier = new EntityChangeNotifier();
+        notifier.addListener(tiered);
+        cold.setChangeNotifier(notifier);
+        tiered.init();
+
+        try (UnitOfWork uow = UnitOfWork.begin(db)) {
+            tiered.addStudent(student("R1"));
+            assertFalse(tiered.isHot("R1"));
+        } // closed without commit
+        assertTrue(tiered.findById("R1").isEmpty());
+
+        tiered.addStudent(student("R2"));
+        assertTrue(tiered.findById("R2").isPresent());
+        try (UnitOfWork uow = UnitOfWork.begin(db)) {
+            tiered.updateStudent("R2", StudentFactory.createUndergraduate("R2", "Uncommitted", "r2@example.com", LocalDate.of(2000,1,1)));
+        }
+        assertEquals("Tier R2", tiered.findById("R2").get().getName());
+    }
+
+    @Test
+    void gradeWritesKeepEnrolledStudentsHot() throws Exception {
+        InMemoryStudentRepository cold = new InMemoryStudentRepository();
+        TieredStudentRepository tiered = new TieredStudentRepository(cold, 3);
+        InMemoryEnrollmentRepository enrollments = new InMemoryEnrollmentRepository(tiered, new InMemoryCourseRepository());
+        Enrollment e = new Enrollment(student("K1"), new Course("KC", "Kept", 3), LocalDate.now());
+        enrollments.add(e);
+        assertTrue(tiered.findById("K1").isPresent());
+
+        // the enrollment write re-saves the student unchanged: the hot copy stays
+        e.setGrade(70.0);
+        enrollments.add(e);
+        assertTrue(tiered.isHot("K1"));
+
+        // a real change still drops it
+        tiered.addStudent(StudentFactory.createUndergraduate("K1", "Changed", "k1@example.com", LocalDate.of(2000,1,1)));
+        assertFalse(tiered.isHot("K1"));
+    }
+
+    @Test
+    void aWriteToOneStudentDoesNotStopAnotherFromBeingPromoted() {
+        AtomicReference<Runnable> duringLoad = new AtomicReference<>();
+        InMemoryStudentRepository cold = new InMemoryStudentRepository() {
+            @Override
+            public Optional<Student> findById(String id) {
+                Runnable r = duringLoad.getAndSet(null);
+                if (r != null) r.run();
+                return super.findById(id);
+            }
+        };
+        TieredStudentRepository tiered = new TieredStudentRepository(cold, 3);
+        tiered.addStudent(student("P1"));
+        tiered.addStudent(student("P2"));
+
+        duringLoad.set(() -> tiered.addStudent(StudentFactory.createUndergraduate("P2", "Other", "p2@example.com", LocalDate.of(2000,1,1))));
+        assertTrue(tiered.findById("P1").isPresent());
+        assertTrue(tiered.isHot("P1"));
+
+        // a write to the key being loaded still blocks its promotion
+        duringLoad.set(() -> tiered.addStudent(StudentFactory.createUndergraduate("P2", "Again", "p2@example.com", LocalDate.of(2000,1,1))));
+        assertEquals("Again", tiered.findById("P2").orElseThrow().getName());
+        assertFalse(tiered.isHot("P2"));
+    }
+}
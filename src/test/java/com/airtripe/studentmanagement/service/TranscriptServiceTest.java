@@ -0,0 +1,82 @@
+package com.airtripe.studentmanagement.service;
+
+import com.airtripe.studentmanagement.entity.Course;
+import com.airtripe.studentmanagement.entity.Enrollment;
+import com.airtripe.studentmanagement.entity.Student;
+import com.airtripe.studentmanagement.factory.StudentFactory;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class TranscriptServiceTest {
+    private final Student s = StudentFactory.createUndergraduate("G1", "Gpa", "gpa@example.com", LocalDate.of(2000,1,1));
+
+    private Enrollment graded(Course c, Double grade) {
+        Enrollment e = new Enrollment(s, c, LocalDate.of(2024,9,1));
+        if (grade != null) e.setGrade(grade);
+        return e;
+    }
+
+    @Test
+    void maintainsCreditWeightedAverageIncrementally() {
+        TranscriptService svc = new TranscriptService();
+        Course c4 = new Course("C4", "Four", 4);
+        Course c2 = new Course("C2", "Two", 2);
+
+        svc.onEnrollmentSaved(graded(c4, null));
+        assertNull(svc.gpa("G1").orElseThrow().getGpa());
+        assertEquals(4, svc.gpa("G1").get().getTotalCredits());
+
+        svc.onEnrollmentSaved(graded(c4, 90.0));
+        svc.onEnrollmentSaved(graded(c2, 60.0));
+        assertEquals((90.0 * 4 + 60.0 * 2) / 6, svc.gpa("G1").get().getGpa(), 1e-9);
+
+        // grade change replaces the old contribution
+        svc.onEnrollmentSaved(graded(c2, 75.0));
+        assertEquals((90.0 * 4 + 75.0 * 2) / 6, svc.gpa("G1").get().getGpa(), 1e-9);
+
+        // credit change re-weights
+        svc.onCourseSaved(new Course("C2", "Two", 4));
+        assertEquals((90.0 + 75.0) / 2, svc.gpa("G1").get().getGpa(), 1e-9);
+
+        svc.onEnrollmentRemoved("G1", "C4");
+        GpaSummary g = svc.gpa("G1").orElseThrow();
+        assertEquals(75.0, g.getGpa(), 1e-9);
+        assertEquals(4, g.getGradedCredits());
+
+        Transcript t = svc.transcript("G1").orElseThrow();
+        assertEquals(1, t.getEntries().size());
+        assertEquals("C2", t.getEntries().get(0).getCourseId());
+
+        svc.onEnrollmentRemoved("G1", "C2");
+        assertNull(svc.gpa("G1").get().getGpa());
+        assertTrue(svc.gpa("unknown").isEmpty());
+    }
+
+    @Test
+    void unchangedCourseSavesCostNothing() {
+        TranscriptService svc = new TranscriptService();
+        List<String> fired = new ArrayList<>();
+        svc.addGpaListener((sid, gpa) -> fired.add(sid));
+        Course c = new Course("C3", "Three", 3);
+        svc.onEnrollmentSaved(graded(c, 80.0));
+        svc.onCourseSaved(c);
+        fired.clear();
+
+        // enrollment writes re-save the course as it is: nothing is re-weighted or re-announced
+        svc.onCourseSaved(new Course("C3", "Three", 3));
+        assertTrue(fired.isEmpty());
+
+        // a rename relabels the transcript without a GPA event; a credit change re-weights
+        svc.onCourseSaved(new Course("C3", "Three (renamed)", 3));
+        assertTrue(fired.isEmpty());
+        assertEquals("Three (renamed)", svc.transcript("G1").orElseThrow().getEntries().get(0).getCourseName());
+        svc.onCourseSaved(new Course("C3", "Three (renamed)", 5));
+        assertEquals(List.of("G1"), fired);
+        assertEquals(5, svc.gpa("G1").orElseThrow().getTotalCredits());
+    }
+}
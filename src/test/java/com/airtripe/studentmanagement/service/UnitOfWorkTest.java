@@ -0,0 +1,87 @@
+package com.airtripe.studentmanagement.service;
+
+import com.airtripe.studentmanagement.entity.Course;
+import com.airtripe.studentmanagement.entity.Enrollment;
+import com.airtripe.studentmanagement.entity.Student;
+import com.airtripe.studentmanagement.factory.StudentFactory;
+import com.airtripe.studentmanagement.observer.EntityChangeListener;
+import com.airtripe.studentmanagement.observer.EntityChangeNotifier;
+import com.airtripe.studentmanagement.repository.CourseRepositoryJdbc;
+import com.airtripe.studentmanagement.repository.EnrollmentRepositoryJdbc;
+import com.airtripe.studentmanagement.repository.StudentRepositoryJdbc;
+import com.airtripe.studentmanagement.repository.UnitOfWork;
+import com.airtripe.studentmanagement.util.ConnectionProvider;
+import com.airtripe.studentmanagement.util.JdbcConnectionProvider;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDate;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class UnitOfWorkTest {
+    private final AtomicInteger connectionsOpened = new AtomicInteger();
+    private final List<String> notified = new CopyOnWriteArrayList<>();
+    private ConnectionProvider db;
+    private StudentRepositoryJdbc students;
+    private CourseRepositoryJdbc courses;
+    private EnrollmentRepositoryJdbc enrollments;
+
+    @BeforeEach
+    void setup() throws Exception {
+        JdbcConnectionProvider h2 = new JdbcConnectionProvider("jdbc:h2:mem:uowtest;DB_CLOSE_DELAY=-1", "sa", "");
+        db = () -> {
+            connectionsOpened.incrementAndGet();
+            return h2.getConnection();
+        };
+        EntityChangeNotifier notifier = new EntityChangeNotifier();
+        notifier.addListener(new EntityChangeListener() {
+            @Override public void onEnrollmentSaved(Enrollment e) { notified.add(e.getStudent().getId()); }
+        });
+        students = new StudentRepositoryJdbc(db);
+        courses = new CourseRepositoryJdbc(db);
+        enrollments = new EnrollmentRepositoryJdbc(students, courses, db);
+        enrollments.setChangeNotifier(notifier);
+        enrollments.init();
+        students.addStudent(StudentFactory.createUndergraduate("U1", "Uma", "uma@example.com", LocalDate.of(2001,1,1)));
+        courses.addCourse(new Course("UC1", "Databases", 4));
+        enrollments.remove("U1", "UC1");
+    }
+
+    @Test
+    void compositeWriteUsesOneConnectionAndCommitsOnce() throws Exception {
+        connectionsOpened.set(0);
+        int statements;
+        try (UnitOfWork uow = UnitOfWork.begin(db)) {
+            Student s = students.findById("U1").orElseThrow();
+            Course c = courses.findById("UC1").orElseThrow();
+            enrollments.add(new Enrollment(s, c, LocalDate.now()));
+            assertTrue(notified.isEmpty(), "listeners must wait for the commit");
+            uow.commit();
+            statements = uow.getStatementCount();
+        }
+        assertEquals(1, connectionsOpened.get());
+        assertTrue(statements >= 5, "reads, parent upserts and the enrollment write should be counted: " + statements);
+        assertEquals(List.of("U1"), notified);
+        assertEquals(1, enrollments.findByStudentId("U1").size());
+    }
+
+    @Test
+    void closingWithoutCommitRollsBackAndDropsNotifications() throws Exception {
+        try (UnitOfWork uow = UnitOfWork.begin(db)) {
+            enrollments.add(new Enrollment(students.findById("U1").orElseThrow(), courses.findById("UC1").orElseThrow(), LocalDate.now()));
+            assertEquals(1, enrollments.findByStudentId("U1").size(), "the unit sees its own write");
+        }
+        assertNull(UnitOfWork.current());
+        assertTrue(enrollments.findByStudentId("U1").isEmpty());
+        assertTrue(notified.isEmpty());
+        assertThrows(IllegalStateException.class, () -> {
+            try (UnitOfWork outer = UnitOfWork.begin(db); UnitOfWork inner = UnitOfWork.begin(db)) {
+                fail("nested units are not supported");
+            }
+        });
+    }
+}
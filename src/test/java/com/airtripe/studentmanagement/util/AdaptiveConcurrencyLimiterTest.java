@@ -0,0 +1,79 @@
+package com.airtripe.studentmanagement.util;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class AdaptiveConcurrencyLimiterTest {
+    private static final long FAST = TimeUnit.MILLISECONDS.toNanos(5);
+    private static final long SLOW = TimeUnit.MILLISECONDS.toNanos(500);
+
+    @Test
+    void shedsOverTheLimitButKeepsHeadroomForPriority() {
+        MetricsCollector metrics = new MetricsCollector();
+        AdaptiveConcurrencyLimiter limiter = new AdaptiveConcurrencyLimiter("writes", metrics, 100, 10, 2, 100);
+
+        // ordinary requests get 8 of the 10 slots
+        for (int i = 0; i < 8; i++) assertTrue(limiter.tryAcquire(false));
+        assertFalse(limiter.tryAcquire(false));
+        // priority requests may use the remaining 2
+        assertTrue(limiter.tryAcquire(true));
+        assertTrue(limiter.tryAcquire(true));
+        assertFalse(limiter.tryAcquire(true));
+
+        assertEquals(10, limiter.getInFlight());
+        assertEquals(10, metrics.getCount("writes.accepted"));
+        assertEquals(2, metrics.getCount("writes.shed"));
+        assertEquals(1, metrics.getCount("writes.shed.priority"));
+    }
+
+    @Test
+    void growsWhileFastAndSaturatedAndBacksOffWhenSlow() {
+        AdaptiveConcurrencyLimiter limiter = new AdaptiveConcurrencyLimiter("reads", new MetricsCollector(), 100, 10, 2, 12);
+        long t = 0;
+
+        // fast but mostly idle: no reason to grow
+        assertTrue(limiter.tryAcquire(false));
+        limiter.release(t, t + FAST, false);
+        assertEquals(10, limiter.getLimit());
+
+        // fast and at least half used: +1 per request, capped at the maximum
+        for (int i = 0; i < 6; i++) assertTrue(limiter.tryAcquire(false));
+        limiter.release(t, t + FAST, false);
+        assertEquals(11, limiter.getLimit());
+        for (int i = 0; i < 3; i++) {
+            assertTrue(limiter.tryAcquire(false));
+            limiter.release(t, t + FAST, false);
+        }
+        assertEquals(12, limiter.getLimit());
+        for (int i = 0; i < 5; i++) limiter.release(t, t + FAST, false);
+
+        // slow or failing, one request after another: -10% each, floored at the minimum
+        assertTrue(limiter.tryAcquire(false));
+        limiter.release(t, t += SLOW, false);
+        assertEquals(10, limiter.getLimit());
+        for (int i = 0; i < 30; i++) {
+            assertTrue(limiter.tryAcquire(true));
+            limiter.release(t, t += FAST, true);
+        }
+        assertEquals(2, limiter.getLimit());
+        assertEquals(0, limiter.getInFlight());
+    }
+
+    @Test
+    void aBurstAdmittedBeforeACutOnlyCutsOnce() {
+        AdaptiveConcurrencyLimiter limiter = new AdaptiveConcurrencyLimiter("reads", new MetricsCollector(), 100, 10, 2, 100);
+
+        // eight requests run side by side and all finish slow: the first cuts, the rest started before it
+        for (int i = 0; i < 8; i++) assertTrue(limiter.tryAcquire(false));
+        for (int i = 0; i < 8; i++) limiter.release(0, SLOW + i, false);
+        assertEquals(9, limiter.getLimit());
+
+        // a request admitted after the cut may cut again
+        assertTrue(limiter.tryAcquire(false));
+        limiter.release(SLOW + 1, 2 * SLOW + 1, false);
+        assertEquals(8, limiter.getLimit());
+    }
+}
@@ -0,0 +1,66 @@
+package com.airtripe.studentmanagement.util;
+
+import com.airtripe.studentmanagement.entity.Course;
+import com.airtripe.studentmanagement.entity.Enrollment;
+import com.airtripe.studentmanagement.entity.Student;
+import com.airtripe.studentmanagement.factory.StudentFactory;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.fasterxml.jackson.dataformat.smile.SmileFactory;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class EnrollmentListDTOTest {
+    private final ObjectMapper json = new ObjectMapper().registerModule(new JavaTimeModule()).disable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS);
+    private final ObjectMapper smile = new ObjectMapper(new SmileFactory()).registerModule(new JavaTimeModule()).disable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS);
+
+    private static List<Enrollment> roster(int rows) {
+        Course course = new Course("C101", "Data Structures", 4);
+        List<Enrollment> list = new ArrayList<>();
+        for (int i = 0; i < rows; i++) {
+            Student s = StudentFactory.createUndergraduate("S" + i, "Student " + i, "s" + i + "@example.com", LocalDate.of(2001,1,1));
+            Enrollment e = new Enrollment(s, course, LocalDate.of(2024,9,1));
+            e.setGrade(50.0 + i % 50);
+            list.add(e);
+        }
+        return list;
+    }
+
+    @Test
+    void sideLoadsEachStudentAndCourseOnce() throws Exception {
+        List<Enrollment> list = roster(1000);
+        EnrollmentListDTO compact = EnrollmentListDTO.of(list, true, true);
+        assertEquals(1000, compact.getEnrollments().size());
+        assertEquals(1000, compact.getIncluded().getStudents().size());
+        assertEquals(1, compact.getIncluded().getCourses().size());
+
+        JsonNode first = json.readTree(json.writeValueAsBytes(compact)).get("enrollments").get(0);
+        assertEquals("S0", first.get("studentId").asText());
+        assertEquals("C101", first.get("courseId").asText());
+        assertEquals("2024-09-01", first.get("enrolledOn").asText());
+
+        // ids only: no "included" section at all
+        assertFalse(json.readTree(json.writeValueAsBytes(EnrollmentListDTO.of(list, false, false))).has("included"));
+    }
+
+    @Test
+    void compactAndBinaryEncodingsAreSmaller() throws Exception {
+        List<Enrollment> list = roster(1000);
+        int full = json.writeValueAsBytes(list).length;
+        int compact = json.writeValueAsBytes(EnrollmentListDTO.of(list, false, true)).length;
+        int binary = smile.writeValueAsBytes(EnrollmentListDTO.of(list, false, true)).length;
+        assertTrue(compact * 2 < full, "compact " + compact + " vs full " + full);
+        assertTrue(binary < compact, "smile " + binary + " vs json " + compact);
+
+        // Smile round-trips to the same tree as JSON
+        EnrollmentListDTO dto = EnrollmentListDTO.of(list.subList(0, 3), true, true);
+        assertEquals(json.readTree(json.writeValueAsBytes(dto)), smile.readTree(smile.writeValueAsBytes(dto)));
+    }
+}
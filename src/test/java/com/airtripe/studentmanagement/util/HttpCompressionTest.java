@@ -0,0 +1,73 @@
+package com.airtripe.studentmanagement.util;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.InflaterInputStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class HttpCompressionTest {
+
+    private static byte[] roster(int rows) {
+        StringBuilder sb = new StringBuilder("[");
+        for (int i = 0; i < rows; i++) {
+            if (i > 0) sb.append(',');
+            sb.append("{\"student\":{\"id\":\"S").append(i).append("\",\"name\":\"Student ").append(i)
+                    .append("\"},\"course\":{\"id\":\"C101\",\"name\":\"Data Structures\",\"credits\":4},\"enrolledOn\":\"2024-09-01\"}");
+        }
+        return sb.append(']').toString().getBytes(StandardCharsets.UTF_8);
+    }
+
+    @Test
+    void negotiatesByQualityAndHonorsRefusals() {
+        assertEquals("gzip", HttpCompression.negotiate("gzip, deflate, br"));
+        assertEquals("deflate", HttpCompression.negotiate("gzip;q=0.5, deflate"));
+        assertEquals("gzip", HttpCompression.negotiate("*"));
+        assertEquals("deflate", HttpCompression.negotiate("gzip;q=0, *;q=0.3"));
+        assertNull(HttpCompression.negotiate("identity"));
+        assertNull(HttpCompression.negotiate("gzip;q=0, deflate;q=0"));
+        assertNull(HttpCompression.negotiate(null));
+    }
+
+    @Test
+    void compressesLargeBodiesAndRecordsRatioAndCpu() throws Exception {
+        HttpCompression compression = new HttpCompression(1024);
+        assertNull(compression.compress("[]".getBytes(StandardCharsets.UTF_8), "gzip"), "below the threshold");
+
+        byte[] body = roster(1000);
+        byte[] gzipped = compression.compress(body, "gzip");
+        assertNotNull(gzipped);
+        assertTrue(gzipped.length * 5 < body.length, "repetitive JSON should shrink at least 5x");
+        assertArrayEquals(body, new GZIPInputStream(new ByteArrayInputStream(gzipped)).readAllBytes());
+        byte[] deflated = compression.compress(body, "deflate");
+        assertArrayEquals(body, new InflaterInputStream(new ByteArrayInputStream(deflated)).readAllBytes());
+
+        MetricsCollector m = compression.getMetricsCollector();
+        assertEquals(1, m.getCount("compression.gzip"));
+        assertEquals(1, m.getCount("compression.skipped"));
+        assertEquals(2L * body.length, m.getCount("compression.bytesIn"));
+        assertTrue(compression.getRatio() < 0.2);
+    }
+
+    @Test
+    void streamsChunkedBodiesThroughTheCompressor() throws Exception {
+        HttpCompression compression = new HttpCompression(1024);
+        ByteArrayOutputStream sink = new ByteArrayOutputStream();
+        byte[] body = roster(200);
+        try (OutputStream out = compression.wrap(sink, "gzip")) {
+            // written in pieces, like the CSV report
+            for (int off = 0; off < body.length; off += 100) out.write(body, off, Math.min(100, body.length - off));
+        }
+        assertArrayEquals(body, new GZIPInputStream(new ByteArrayInputStream(sink.toByteArray())).readAllBytes());
+        assertEquals(body.length, compression.getMetricsCollector().getCount("compression.bytesIn"));
+        assertEquals(sink.size(), compression.getMetricsCollector().getCount("compression.bytesOut"));
+
+        ByteArrayOutputStream plain = new ByteArrayOutputStream();
+        assertSame(plain, compression.wrap(plain, null));
+    }
+}
@@ -0,0 +1,62 @@
+package com.airtripe.studentmanagement.util;
+
+import com.airtripe.studentmanagement.entity.Course;
+import com.airtripe.studentmanagement.entity.GraduateStudent;
+import com.airtripe.studentmanagement.entity.Student;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class RestCodecTest {
+    private final RestCodec codec = new RestCodec();
+
+    private static InputStream body(String json) {
+        return new ByteArrayInputStream(json.getBytes(StandardCharsets.UTF_8));
+    }
+
+    @Test
+    void bindsRequestBodiesToTypedDtos() throws Exception {
+        Student grad = codec.readStudent(body("{\"id\":\"S1\",\"name\":\"Ada\",\"email\":\"a@x.org\",\"dateOfBirth\":\"2001-12-10\","
+                + "\"thesis_title\":\"Engines\",\"unknown\":1}")).toStudent();
+        assertInstanceOf(GraduateStudent.class, grad);
+        assertEquals(LocalDate.of(2001, 12, 10), grad.getDateOfBirth());
+        assertEquals("Engines", ((GraduateStudent) grad).getThesisTitle());
+
+        Student undergrad = codec.readStudent(body("{\"id\":\"S2\",\"name\":\"Bo\",\"email\":\"b@x.org\"}")).toStudent();
+        assertFalse(undergrad instanceof GraduateStudent);
+        assertEquals(LocalDate.now(), undergrad.getDateOfBirth());
+
+        Course course = codec.readCourse(body("{\"id\":\"C1\",\"name\":\"Algebra\"}")).toCourse();
+        assertEquals(0, course.getCredits());
+
+        EnrollmentRequest enrollment = codec.readEnrollment(body("{\"studentId\":\"S1\",\"courseId\":\"C1\",\"enrolledOn\":\"2024-09-01\"}"));
+        assertEquals(LocalDate.of(2024, 9, 1), enrollment.getEnrolledOn());
+        assertNull(codec.readGrade(body("{}")).getGrade());
+        assertEquals(9, codec.readGrade(body("{\"grade\":9}")).getGrade());
+    }
+
+    @Test
+    void writesJsonAndSmileLikeTheMapper() throws Exception {
+        List<Course> courses = List.of(new Course("C1", "Algebra", 3), new Course("C2", "Logic", 4));
+        ObjectMapper json = new ObjectMapper();
+        JsonNode expected = json.readTree(json.writeValueAsBytes(courses));
+        assertEquals(expected, json.readTree(codec.write(courses, false)));
+        assertEquals(expected, json.readTree(codec.writeString(courses)));
+        assertTrue(codec.write(courses, true).length < codec.write(courses, false).length);
+    }
+
+    @Test
+    void typedResponseBodiesKeepTheirWireShape() throws Exception {
+        assertEquals("{\"error\":\"grade is required\"}", codec.writeString(new ErrorResponse("grade is required")));
+        assertEquals("{}", codec.writeString(new ErrorResponse(null)));
+        assertEquals("{\"status\":\"UP\"}", codec.writeString(StatusResponse.UP));
+    }
+}
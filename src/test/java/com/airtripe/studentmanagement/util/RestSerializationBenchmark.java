@@ -0,0 +1,100 @@
+package com.airtripe.studentmanagement.util;
+
+import com.airtripe.studentmanagement.entity.Course;
+import com.airtripe.studentmanagement.entity.Enrollment;
+import com.airtripe.studentmanagement.entity.Student;
+import com.airtripe.studentmanagement.factory.StudentFactory;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.io.ByteArrayInputStream;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Request binding and response encoding as the REST layer did them before {@link RestCodec} (a Map
+ * plus casts, Map-built bodies) against {@link RestCodec} and typed bodies. Not a unit test;
+ * run with
+ * {@code mvn test-compile exec:java -Dexec.classpathScope=test -Dexec.mainClass=com.airtripe.studentmanagement.util.RestSerializationBenchmark}.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class RestSerializationBenchmark {
+    private final ObjectMapper mapper = new ObjectMapper().registerModule(new JavaTimeModule()).disable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS);
+    private final RestCodec codec = new RestCodec();
+    private byte[] studentBody;
+    private List<Enrollment> roster;
+
+    @Setup
+    public void setUp() {
+        studentBody = ("{\"id\":\"S001\",\"name\":\"Ada Lovelace\",\"email\":\"ada@example.com\","
+                + "\"dateOfBirth\":\"2001-12-10\",\"thesis_title\":\"Analytical Engines\"}").getBytes(StandardCharsets.UTF_8);
+        Course course = new Course("C101", "Data Structures", 4);
+        roster = new ArrayList<>();
+        for (int i = 0; i < 200; i++) {
+            Student s = StudentFactory.createUndergraduate("S" + i, "Student " + i, "s" + i + "@example.com", LocalDate.of(2001, 1, 1));
+            Enrollment e = new Enrollment(s, course, LocalDate.of(2024, 9, 1));
+            e.setGrade(50.0 + i % 50);
+            roster.add(e);
+        }
+    }
+
+    @Benchmark
+    public Student readStudentViaMap() throws Exception {
+        Map<?, ?> map = mapper.readValue(new ByteArrayInputStream(studentBody), Map.class);
+        Object thesis = map.get("thesisTitle");
+        if (thesis == null) thesis = map.get("thesis_title");
+        LocalDate dob = LocalDate.parse((String) map.get("dateOfBirth"));
+        return StudentFactory.createGraduate((String) map.get("id"), (String) map.get("name"), (String) map.get("email"), dob, thesis.toString());
+    }
+
+    @Benchmark
+    public Student readStudentBound() throws Exception {
+        return codec.readStudent(new ByteArrayInputStream(studentBody)).toStudent();
+    }
+
+    @Benchmark
+    public byte[] writeRosterViaMapper() throws Exception {
+        return mapper.writeValueAsBytes(roster);
+    }
+
+    @Benchmark
+    public byte[] writeRosterViaCodec() throws Exception {
+        return codec.write(roster, false);
+    }
+
+    @Benchmark
+    public byte[] writeErrorViaMap() throws Exception {
+        return mapper.writeValueAsBytes(Map.of("error", "grade is required"));
+    }
+
+    @Benchmark
+    public byte[] writeErrorTyped() throws Exception {
+        return codec.write(new ErrorResponse("grade is required"), false);
+    }
+
+    public static void main(String[] args) throws Exception {
+        new Runner(new OptionsBuilder().include(RestSerializationBenchmark.class.getSimpleName()).build()).run();
+    }
+}
@@ -0,0 +1,107 @@
+package com.airtripe.studentmanagement.util;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class SingleFlightTest {
+    @Test
+    void concurrentCallersShareOneLoad() throws Exception {
+        MetricsCollector metrics = new MetricsCollector();
+        SingleFlight<String, String> flight = new SingleFlight<>("test", metrics);
+        AtomicInteger loads = new AtomicInteger();
+        CountDownLatch release = new CountDownLatch(1);
+
+        ExecutorService pool = Executors.newFixedThreadPool(8);
+        List<Future<String>> results = new ArrayList<>();
+        for (int i = 0; i < 8; i++) {
+            results.add(pool.submit(() -> flight.execute("q", () -> {
+                loads.incrementAndGet();
+                try { release.await(5, TimeUnit.SECONDS); } catch (InterruptedException e) { Thread.currentThread().interrupt(); }
+                return "result";
+            })));
+        }
+        // let every caller pile up behind the first load before releasing it
+        long deadline = System.currentTimeMillis() + 5000;
+        while (metrics.getCount("test.coalesced") < 7 && System.currentTimeMillis() < deadline) Thread.sleep(5);
+        release.countDown();
+
+        for (Future<String> f : results) assertEquals("result", f.get(5, TimeUnit.SECONDS));
+        pool.shutdown();
+        assertEquals(1, loads.get());
+        assertEquals(7, metrics.getCount("test.coalesced"));
+        assertEquals(7.0 / 8, flight.getCoalesceRatio(), 0.0001);
+
+        // nothing in flight any more: the next call loads again
+        flight.execute("q", () -> { loads.incrementAndGet(); return "again"; });
+        assertEquals(2, loads.get());
+    }
+
+    @Test
+    void reuseWindowAndInvalidation() {
+        SingleFlight<String, Integer> flight = new SingleFlight<>("reuse", new MetricsCollector(), 60_000);
+        AtomicInteger loads = new AtomicInteger();
+        assertEquals(1, flight.execute("k", loads::incrementAndGet));
+        assertEquals(1, flight.execute("k", loads::incrementAndGet));
+        flight.invalidateAll();
+        assertEquals(2, flight.execute("k", loads::incrementAndGet));
+    }
+
+    @Test
+    void resultLoadedAcrossAnInvalidationIsNotReused() throws Exception {
+        SingleFlight<String, Integer> flight = new SingleFlight<>("stale", new MetricsCollector(), 60_000);
+        AtomicInteger loads = new AtomicInteger();
+        // a write lands while the first load is running: its (possibly stale) result must not be reused
+        assertEquals(1, flight.execute("k", () -> { flight.invalidateAll(); return loads.incrementAndGet(); }));
+        assertEquals(2, flight.execute("k", loads::incrementAndGet));
+        assertEquals(2, flight.execute("k", loads::incrementAndGet));
+
+        assertEquals(3, flight.executeAsync("a", () -> {
+            flight.invalidateAll();
+            return CompletableFuture.completedFuture(loads.incrementAndGet());
+        }).get(5, TimeUnit.SECONDS));
+        assertEquals(4, flight.executeAsync("a", () -> CompletableFuture.completedFuture(loads.incrementAndGet())).get(5, TimeUnit.SECONDS));
+    }
+
+    @Test
+    void followersSeeAnErrorThrownByTheLeadersLoad() throws Exception {
+        MetricsCollector metrics = new MetricsCollector();
+        SingleFlight<String, String> flight = new SingleFlight<>("error", metrics);
+        CountDownLatch release = new CountDownLatch(1);
+        ExecutorService pool = Executors.newFixedThreadPool(2);
+        try {
+            Future<String> leader = pool.submit(() -> flight.execute("k", () -> {
+                try { release.await(5, TimeUnit.SECONDS); } catch (InterruptedException e) { Thread.currentThread().interrupt(); }
+                throw new StackOverflowError("load failed");
+            }));
+            long deadline = System.currentTimeMillis() + 5000;
+            while (metrics.getCount("error.executed") < 1 && System.currentTimeMillis() < deadline) Thread.sleep(5);
+            Future<String> follower = pool.submit(() -> flight.execute("k", () -> "second load"));
+            while (metrics.getCount("error.coalesced") < 1 && System.currentTimeMillis() < deadline) Thread.sleep(5);
+            release.countDown();
+
+            for (Future<String> f : List.of(leader, follower)) {
+                ExecutionException e = assertThrows(ExecutionException.class, () -> f.get(5, TimeUnit.SECONDS));
+                assertInstanceOf(StackOverflowError.class, e.getCause());
+            }
+        } finally {
+            pool.shutdownNow();
+        }
+
+        CompletableFuture<String> async = flight.executeAsync("a", () -> { throw new AssertionError("async load failed"); });
+        ExecutionException e = assertThrows(ExecutionException.class, () -> async.get(5, TimeUnit.SECONDS));
+        assertInstanceOf(AssertionError.class, e.getCause());
+        assertEquals("loaded", flight.execute("k", () -> "loaded"));
+    }
+}
@@ -0,0 +1,53 @@
+package com.airtripe.studentmanagement.util;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class StartupOrchestratorTest {
+    @Test
+    void independentPhasesOverlapAndDependentsWait() throws Exception {
+        List<String> order = new CopyOnWriteArrayList<>();
+        // each schema phase only finishes once the other has started, so they must run concurrently
+        CountDownLatch bothStarted = new CountDownLatch(2);
+        StartupOrchestrator.Step schema = () -> {
+            bothStarted.countDown();
+            assertTrue(bothStarted.await(5, TimeUnit.SECONDS), "independent phases did not overlap");
+        };
+        StartupOrchestrator startup = new StartupOrchestrator()
+                .phase("students", () -> { schema.run(); order.add("students"); })
+                .phase("courses", () -> { schema.run(); order.add("courses"); })
+                .phase("enrollments", () -> order.add("enrollments"), "students", "courses");
+        startup.run();
+
+        assertEquals(3, order.size());
+        assertEquals("enrollments", order.get(2));
+        assertEquals(3, startup.getDurationsMillis().size());
+        assertTrue(startup.report().contains("total (wall clock)"));
+    }
+
+    @Test
+    void failureSkipsDependentsAndIsRethrown() {
+        List<String> ran = new CopyOnWriteArrayList<>();
+        StartupOrchestrator startup = new StartupOrchestrator()
+                .phase("schema", () -> { throw new IllegalStateException("db down"); })
+                .phase("load", () -> ran.add("load"), "schema")
+                .phase("other", () -> ran.add("other"));
+
+        IllegalStateException e = assertThrows(IllegalStateException.class, startup::run);
+        assertEquals("db down", e.getMessage());
+        assertEquals(List.of("other"), ran);
+        assertTrue(startup.report().contains("skipped"));
+    }
+
+    @Test
+    void rejectsUndeclaredDependency() {
+        StartupOrchestrator startup = new StartupOrchestrator();
+        assertThrows(IllegalArgumentException.class, () -> startup.phase("load", () -> { }, "schema"));
+    }
+}